@@ -4,6 +4,7 @@ import dev.robocode.tankroyale.botapi.*;
 import dev.robocode.tankroyale.botapi.events.*;
 import dev.robocode.tankroyale.botapi.graphics.Color;
 import dev.robocode.tankroyale.botapi.graphics.IGraphics;
+import dev.robocode.tankroyale.botapi.internal.json.BinaryConverter;
 import dev.robocode.tankroyale.botapi.internal.json.JsonConverter;
 import dev.robocode.tankroyale.botapi.util.ColorUtil;
 import dev.robocode.tankroyale.schema.BotIntent;
@@ -49,6 +50,7 @@ public final class BaseBotInternals {
     private final String serverSecret;
     private WebSocket socket;
     private ServerHandshake serverHandshake;
+    private volatile boolean isBinaryEncoding;
     private final CountDownLatch closedLatch = new CountDownLatch(1);
 
     private final IBaseBot baseBot;
@@ -281,7 +283,11 @@ public final class BaseBotInternals {
                     internalEventHandlers,
                     closedLatch
             );
-            socket = webSocketBuilder.buildAsync(serverUrl, webSocketHandler).join();
+            if (InProcessWebSocket.SCHEME.equals(serverUrl.getScheme())) {
+                socket = InProcessWebSocket.connect(serverUrl, webSocketHandler);
+            } else {
+                socket = webSocketBuilder.buildAsync(serverUrl, webSocketHandler).join();
+            }
         } catch (Exception ex) {
             throw new BotException("Could not create web socket for URL: " + serverUrl);
         }
@@ -289,7 +295,7 @@ public final class BaseBotInternals {
 
     private static void sanitizeUrl(URI uri) {
         var scheme = uri.getScheme();
-        if (!List.of("ws", "wss").contains(scheme)) {
+        if (!List.of("ws", "wss", InProcessWebSocket.SCHEME).contains(scheme)) {
             throw new BotException("Wrong scheme used with server URL: " + uri);
         }
     }
@@ -312,7 +318,11 @@ public final class BaseBotInternals {
         synchronized (this) {
             renderGraphicsToBotIntent();
             transferStdOutToBotIntent();
-            socket.sendText(JsonConverter.toJson(botIntent), true);
+            if (isBinaryEncoding) {
+                socket.sendBinary(BinaryConverter.toBinary(botIntent), true);
+            } else {
+                socket.sendText(JsonConverter.toJson(botIntent), true);
+            }
             botIntent.getTeamMessages().clear();
         }
     }
@@ -763,6 +773,17 @@ public final class BaseBotInternals {
         this.serverHandshake = serverHandshake;
     }
 
+    /**
+     * Checks if messages are sent and received in the binary encoding, which has been negotiated via the handshakes.
+     */
+    boolean isBinaryEncoding() {
+        return isBinaryEncoding;
+    }
+
+    void setBinaryEncoding(boolean isBinaryEncoding) {
+        this.isBinaryEncoding = isBinaryEncoding;
+    }
+
     private URI getServerUrlFromSetting() {
         String url = System.getProperty(SERVER_URL_PROPERTY_KEY);
         if (url == null) {
@@ -1,11 +1,13 @@
 package dev.robocode.tankroyale.botapi.internal;
 
 import dev.robocode.tankroyale.botapi.BotInfo;
+import dev.robocode.tankroyale.botapi.internal.json.BinaryConverter;
 import dev.robocode.tankroyale.botapi.mapper.InitialPositionMapper;
 import dev.robocode.tankroyale.schema.BotHandshake;
 import dev.robocode.tankroyale.schema.Message.Type;
 
 import java.util.ArrayList;
+import java.util.Set;
 
 /**
  * Utility class used for creating bot handshakes.
@@ -16,7 +18,8 @@ final class BotHandshakeFactory {
     private BotHandshakeFactory() {
     }
 
-    static BotHandshake create(String sessionId, BotInfo botInfo, boolean isDroid, String secret) {
+    static BotHandshake create(
+            String sessionId, BotInfo botInfo, boolean isDroid, String secret, boolean isBinaryEncoding) {
         BotHandshake handshake = new BotHandshake();
         handshake.setSessionId(sessionId);
         handshake.setType(Type.BOT_HANDSHAKE);
@@ -35,6 +38,10 @@ final class BotHandshakeFactory {
         handshake.setTeamVersion(EnvVars.getTeamVersion());
         handshake.setIsDroid(isDroid);
         handshake.setSecret(secret);
+        handshake.setRoomId(EnvVars.getRoomId());
+        if (isBinaryEncoding) {
+            handshake.setCapabilities(Set.of(BinaryConverter.BINARY_CAPABILITY));
+        }
         return handshake;
     }
 }
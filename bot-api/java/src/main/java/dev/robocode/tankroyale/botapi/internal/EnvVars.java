@@ -79,6 +79,14 @@ final class EnvVars {
      * Name of the environment variable that is set if the bot is being booted.
      */
     private static final String BOT_BOOTED = "BOT_BOOTED";
+    /**
+     * Name of the environment variable that is set to true if the bot should use the binary encoding.
+     */
+    private static final String BOT_BINARY_ENCODING = "BOT_BINARY_ENCODING";
+    /**
+     * Name of the environment variable that is set if the bot must join a specific game room on the server.
+     */
+    private static final String BOT_ROOM_ID = "BOT_ROOM_ID";
 
     private static final String MISSING_ENV_VALUE = "Missing environment variable: ";
 
@@ -221,6 +229,21 @@ final class EnvVars {
         return System.getenv(BOT_BOOTED) != null; // Set by Booter. Currently, not being used
     }
 
+    /**
+     * Checks if the bot should use the binary encoding for messages, if the server supports it.
+     */
+    static boolean isBinaryEncodingEnabled() {
+        return Boolean.parseBoolean(System.getenv(BOT_BINARY_ENCODING));
+    }
+
+    /**
+     * Id of the game room to join on a server hosting multiple games, or null if the bot may join any room.
+     */
+    static String getRoomId() {
+        String roomId = System.getenv(BOT_ROOM_ID);
+        return isBlank(roomId) ? null : roomId.trim();
+    }
+
     private static boolean isBlank(String s) {
         return s == null || s.trim().isEmpty();
     }
@@ -0,0 +1,158 @@
+package dev.robocode.tankroyale.botapi.internal;
+
+import dev.robocode.tankroyale.botapi.BotException;
+
+import java.net.URI;
+import java.net.http.WebSocket;
+import java.nio.ByteBuffer;
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Consumer;
+
+/**
+ * Web socket for bots hosted inside the server JVM, which is connected to the server with direct queues instead of a
+ * network connection. It is used when the server URL uses the {@code inproc} scheme, e.g.
+ * {@code inproc://localhost:7654}.
+ * <p>
+ * Messages are exchanged with the server in the same encoding as with a web socket, i.e. as JSON strings or binary
+ * buffers, but without a network connection. Schema objects are never passed, as the bot and server each have their
+ * own copy of the schema classes, which may differ. Messages from the server are received on a dedicated thread, like
+ * messages received with a web socket, so the bot keeps its own threads and turn timing.
+ */
+final class InProcessWebSocket implements WebSocket {
+
+    static final String SCHEME = "inproc";
+
+    private static final int DEFAULT_PORT = 7654;
+
+    private static final String SERVER_TRANSPORT_CLASS_NAME =
+            "dev.robocode.tankroyale.server.connection.InProcessTransport";
+
+    private final WebSocketHandler webSocketHandler;
+    private final BlockingQueue<Object> receivedMessages = new LinkedBlockingQueue<>();
+
+    private Consumer<Object> server;
+    private volatile boolean isOutputClosed;
+    private volatile boolean isInputClosed;
+
+    private InProcessWebSocket(WebSocketHandler webSocketHandler) {
+        this.webSocketHandler = webSocketHandler;
+    }
+
+    /**
+     * Connects to the server running inside this JVM on the port of the server URL.
+     *
+     * @param serverUrl        is the server URL using the {@code inproc} scheme.
+     * @param webSocketHandler is the handler of the web socket events and messages received from the server.
+     * @return the connected web socket.
+     */
+    @SuppressWarnings("unchecked")
+    static InProcessWebSocket connect(URI serverUrl, WebSocketHandler webSocketHandler) {
+        var socket = new InProcessWebSocket(webSocketHandler);
+        var port = serverUrl.getPort() == -1 ? DEFAULT_PORT : serverUrl.getPort();
+        try {
+            var connect = Class.forName(SERVER_TRANSPORT_CLASS_NAME).getMethod("connect", int.class, Consumer.class);
+            Consumer<Object> receiver = socket.receivedMessages::add;
+            socket.server = (Consumer<Object>) connect.invoke(null, port, receiver);
+        } catch (ReflectiveOperationException ex) {
+            throw new BotException("No in-process server available for URL: " + serverUrl, ex);
+        }
+        webSocketHandler.onOpen(socket);
+
+        var receiverThread = new Thread(socket::receiveMessages, "InProcessWebSocket-receiver");
+        receiverThread.setDaemon(true);
+        receiverThread.start();
+
+        return socket;
+    }
+
+    @Override
+    public CompletableFuture<WebSocket> sendText(CharSequence data, boolean last) {
+        return sendToServer(data.toString());
+    }
+
+    @Override
+    public CompletableFuture<WebSocket> sendBinary(ByteBuffer data, boolean last) {
+        return sendToServer(data);
+    }
+
+    @Override
+    public CompletableFuture<WebSocket> sendPing(ByteBuffer message) {
+        return CompletableFuture.completedFuture(this); // nothing to keep alive
+    }
+
+    @Override
+    public CompletableFuture<WebSocket> sendPong(ByteBuffer message) {
+        return CompletableFuture.completedFuture(this); // nothing to keep alive
+    }
+
+    @Override
+    public CompletableFuture<WebSocket> sendClose(int statusCode, String reason) {
+        var future = sendToServer(new SimpleImmutableEntry<>(statusCode, reason));
+        isOutputClosed = true;
+        return future;
+    }
+
+    @Override
+    public void request(long n) {
+        // Messages are always delivered as soon as they are received
+    }
+
+    @Override
+    public String getSubprotocol() {
+        return "";
+    }
+
+    @Override
+    public boolean isOutputClosed() {
+        return isOutputClosed;
+    }
+
+    @Override
+    public boolean isInputClosed() {
+        return isInputClosed;
+    }
+
+    @Override
+    public void abort() {
+        var closeFrame = new SimpleImmutableEntry<>(WebSocket.NORMAL_CLOSURE, "Aborted");
+        sendToServer(closeFrame);
+        isOutputClosed = true;
+        receivedMessages.add(closeFrame);
+    }
+
+    private CompletableFuture<WebSocket> sendToServer(Object message) {
+        if (isOutputClosed) {
+            return CompletableFuture.failedFuture(new IllegalStateException("Output closed"));
+        }
+        server.accept(message);
+        return CompletableFuture.completedFuture(this);
+    }
+
+    private void receiveMessages() {
+        try {
+            while (!isInputClosed) {
+                var message = receivedMessages.take();
+                if (message instanceof String) {
+                    webSocketHandler.onText(this, (String) message, true);
+                } else if (message instanceof ByteBuffer) {
+                    webSocketHandler.onBinary(this, (ByteBuffer) message, true);
+                } else if (message instanceof Map.Entry) {
+                    var closeFrame = (Map.Entry<?, ?>) message;
+                    isInputClosed = true;
+                    isOutputClosed = true;
+                    webSocketHandler.onClose(this, (Integer) closeFrame.getKey(), (String) closeFrame.getValue());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            isInputClosed = true;
+            isOutputClosed = true;
+            webSocketHandler.onError(this, e);
+        }
+    }
+}
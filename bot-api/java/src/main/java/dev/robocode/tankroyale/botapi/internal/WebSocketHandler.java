@@ -11,6 +11,7 @@ import dev.robocode.tankroyale.botapi.events.GameStartedEvent;
 import dev.robocode.tankroyale.botapi.events.RoundEndedEvent;
 import dev.robocode.tankroyale.botapi.events.RoundStartedEvent;
 import dev.robocode.tankroyale.botapi.events.SkippedTurnEvent;
+import dev.robocode.tankroyale.botapi.internal.json.BinaryConverter;
 import dev.robocode.tankroyale.botapi.internal.json.JsonConverter;
 import dev.robocode.tankroyale.botapi.mapper.EventMapper;
 import dev.robocode.tankroyale.botapi.mapper.GameSetupMapper;
@@ -21,8 +22,10 @@ import dev.robocode.tankroyale.schema.Message;
 import dev.robocode.tankroyale.schema.ServerHandshake;
 import dev.robocode.tankroyale.schema.TickEventForBot;
 
+import java.io.ByteArrayOutputStream;
 import java.net.URI;
 import java.net.http.WebSocket;
+import java.nio.ByteBuffer;
 import java.util.HashSet;
 import java.util.Set;
 import java.util.concurrent.CompletionStage;
@@ -43,6 +46,7 @@ final class WebSocketHandler implements WebSocket.Listener {
 
     private WebSocket socket;
     private final StringBuilder payload = new StringBuilder();
+    private final ByteArrayOutputStream binaryPayload = new ByteArrayOutputStream();
 
     WebSocketHandler(
             BaseBotInternals baseBotInternals,
@@ -98,47 +102,85 @@ final class WebSocketHandler implements WebSocket.Listener {
 
             JsonElement jsonType = jsonMsg.get("type");
             if (jsonType != null) {
-                String type = jsonType.getAsString();
-
-                switch (dev.robocode.tankroyale.schema.Message.Type.fromValue(type)) {
-                    case TICK_EVENT_FOR_BOT:
-                        handleTick(jsonMsg);
-                        break;
-                    case ROUND_STARTED_EVENT:
-                        handleRoundStarted(jsonMsg);
-                        break;
-                    case ROUND_ENDED_EVENT_FOR_BOT:
-                        handleRoundEnded(jsonMsg);
-                        break;
-                    case GAME_STARTED_EVENT_FOR_BOT:
-                        handleGameStarted(jsonMsg);
-                        break;
-                    case GAME_ENDED_EVENT_FOR_BOT:
-                        handleGameEnded(jsonMsg);
-                        break;
-                    case SKIPPED_TURN_EVENT:
-                        handleSkippedTurn(jsonMsg);
-                        break;
-                    case SERVER_HANDSHAKE:
-                        handleServerHandshake(jsonMsg);
-                        break;
-                    case GAME_ABORTED_EVENT:
-                        handleGameAborted();
-                        break;
-                    default:
-                        throw new BotException("Unsupported WebSocket message type: " + type);
-                }
+                handleMessage(Message.Type.fromValue(jsonType.getAsString()), new MessageDecoder() {
+                    @Override
+                    public <T> T decode(Class<T> type) {
+                        return JsonConverter.fromJson(jsonMsg, type);
+                    }
+                });
             }
         }
         return WebSocket.Listener.super.onText(webSocket, data, last);
     }
 
-    private void handleTick(JsonObject jsonMsg) {
+    @Override
+    public CompletionStage<?> onBinary(WebSocket webSocket, ByteBuffer data, boolean last) {
+        ByteBuffer message = data;
+        if (!last || binaryPayload.size() > 0) {
+            byte[] bytes = new byte[data.remaining()];
+            data.get(bytes);
+            binaryPayload.write(bytes, 0, bytes.length);
+            if (!last) {
+                return WebSocket.Listener.super.onBinary(webSocket, data, false);
+            }
+            message = ByteBuffer.wrap(binaryPayload.toByteArray());
+            binaryPayload.reset(); // clear payload buffer
+        }
+        ByteBuffer binaryMsg = message;
+        handleMessage(BinaryConverter.readType(binaryMsg), new MessageDecoder() {
+            @Override
+            public <T> T decode(Class<T> type) {
+                return BinaryConverter.fromBinary(binaryMsg, type);
+            }
+        });
+        return WebSocket.Listener.super.onBinary(webSocket, data, true);
+    }
+
+    private void handleMessage(Message.Type type, MessageDecoder decoder) {
+        switch (type) {
+            case TICK_EVENT_FOR_BOT:
+                handleTick(decoder);
+                break;
+            case ROUND_STARTED_EVENT:
+                handleRoundStarted(decoder);
+                break;
+            case ROUND_ENDED_EVENT_FOR_BOT:
+                handleRoundEnded(decoder);
+                break;
+            case GAME_STARTED_EVENT_FOR_BOT:
+                handleGameStarted(decoder);
+                break;
+            case GAME_ENDED_EVENT_FOR_BOT:
+                handleGameEnded(decoder);
+                break;
+            case SKIPPED_TURN_EVENT:
+                handleSkippedTurn(decoder);
+                break;
+            case SERVER_HANDSHAKE:
+                handleServerHandshake(decoder);
+                break;
+            case GAME_ABORTED_EVENT:
+                handleGameAborted();
+                break;
+            default:
+                throw new BotException("Unsupported WebSocket message type: " + type.value());
+        }
+    }
+
+    private void send(Message message) {
+        if (baseBotInternals.isBinaryEncoding()) {
+            socket.sendBinary(BinaryConverter.toBinary(message), true);
+        } else {
+            socket.sendText(JsonConverter.toJson(message), true);
+        }
+    }
+
+    private void handleTick(MessageDecoder decoder) {
         if (baseBotInternals.getEventHandlingDisabledTurn()) return;
 
         baseBotInternals.setTickStartNanoTime(System.nanoTime());
 
-        var tickEventForBot = JsonConverter.fromJson(jsonMsg, TickEventForBot.class);
+        var tickEventForBot = decoder.decode(TickEventForBot.class);
 
         var mappedTickEvent = EventMapper.map(tickEventForBot, baseBot);
         baseBotInternals.addEventsFromTick(mappedTickEvent);
@@ -155,8 +197,8 @@ final class WebSocketHandler implements WebSocket.Listener {
         internalEventHandlers.onNextTurn.publish(mappedTickEvent);
     }
 
-    private void handleRoundStarted(JsonObject jsonMsg) {
-        var roundStartedEvent = JsonConverter.fromJson(jsonMsg, RoundStartedEvent.class);
+    private void handleRoundStarted(MessageDecoder decoder) {
+        var roundStartedEvent = decoder.decode(RoundStartedEvent.class);
 
         var mappedRoundStartedEvent = new RoundStartedEvent(roundStartedEvent.getRoundNumber());
 
@@ -164,8 +206,8 @@ final class WebSocketHandler implements WebSocket.Listener {
         internalEventHandlers.onRoundStarted.publish(mappedRoundStartedEvent);
     }
 
-    private void handleRoundEnded(JsonObject jsonMsg) {
-        var roundEndedEvent = JsonConverter.fromJson(jsonMsg, RoundEndedEvent.class);
+    private void handleRoundEnded(MessageDecoder decoder) {
+        var roundEndedEvent = decoder.decode(RoundEndedEvent.class);
 
         var mappedRoundEndedEvent = new RoundEndedEvent(
                 roundEndedEvent.getRoundNumber(), roundEndedEvent.getTurnNumber(), roundEndedEvent.getResults());
@@ -174,8 +216,8 @@ final class WebSocketHandler implements WebSocket.Listener {
         internalEventHandlers.onRoundEnded.publish(mappedRoundEndedEvent);
     }
 
-    private void handleGameStarted(JsonObject jsonMsg) {
-        var gameStartedEventForBot = JsonConverter.fromJson(jsonMsg, GameStartedEventForBot.class);
+    private void handleGameStarted(MessageDecoder decoder) {
+        var gameStartedEventForBot = decoder.decode(GameStartedEventForBot.class);
 
         baseBotInternals.setMyId(gameStartedEventForBot.getMyId());
 
@@ -195,16 +237,15 @@ final class WebSocketHandler implements WebSocket.Listener {
         var ready = new BotReady();
         ready.setType(Message.Type.BOT_READY);
 
-        String msg = JsonConverter.toJson(ready);
-        socket.sendText(msg, true);
+        send(ready);
 
         botEventHandlers.onGameStarted.publish(
                 new GameStartedEvent(gameStartedEventForBot.getMyId(), initialPosition, baseBotInternals.getGameSetup()));
     }
 
-    private void handleGameEnded(JsonObject jsonMsg) {
+    private void handleGameEnded(MessageDecoder decoder) {
         // Send the game ended event
-        var gameEndedEventForBot = JsonConverter.fromJson(jsonMsg, GameEndedEventForBot.class);
+        var gameEndedEventForBot = decoder.decode(GameEndedEventForBot.class);
 
         var mappedGameEnded = new GameEndedEvent(
                 gameEndedEventForBot.getNumberOfRounds(),
@@ -219,23 +260,36 @@ final class WebSocketHandler implements WebSocket.Listener {
         internalEventHandlers.onGameAborted.publish(null);
     }
 
-    private void handleSkippedTurn(JsonObject jsonMsg) {
+    private void handleSkippedTurn(MessageDecoder decoder) {
         if (baseBotInternals.getEventHandlingDisabledTurn()) return;
 
-        var skippedTurnEvent = JsonConverter.fromJson(jsonMsg, dev.robocode.tankroyale.schema.SkippedTurnEvent.class);
+        var skippedTurnEvent = decoder.decode(dev.robocode.tankroyale.schema.SkippedTurnEvent.class);
 
         botEventHandlers.onSkippedTurn.publish((SkippedTurnEvent) EventMapper.map(skippedTurnEvent, baseBot));
     }
 
-    private void handleServerHandshake(JsonObject jsonMsg) {
-        var serverHandshake = JsonConverter.fromJson(jsonMsg, ServerHandshake.class);
+    private void handleServerHandshake(MessageDecoder decoder) {
+        var serverHandshake = decoder.decode(ServerHandshake.class);
         baseBotInternals.setServerHandshake(serverHandshake);
 
         // Reply by sending bot handshake
         var isDroid = baseBot instanceof Droid;
-        var botHandshake = BotHandshakeFactory.create(serverHandshake.getSessionId(), botInfo, isDroid, serverSecret);
+        var isBinaryEncoding = EnvVars.isBinaryEncodingEnabled() && serverHandshake.getCapabilities() != null &&
+                serverHandshake.getCapabilities().contains(BinaryConverter.BINARY_CAPABILITY);
+        var botHandshake = BotHandshakeFactory.create(
+                serverHandshake.getSessionId(), botInfo, isDroid, serverSecret, isBinaryEncoding);
         String msg = JsonConverter.toJson(botHandshake);
 
-        socket.sendText(msg, true);
+        socket.sendText(msg, true); // the handshake is always sent as JSON
+
+        // All following messages are sent and received in the negotiated encoding
+        baseBotInternals.setBinaryEncoding(isBinaryEncoding);
+    }
+
+    /**
+     * Decoder of a received message, which is either JSON or binary encoded.
+     */
+    private interface MessageDecoder {
+        <T> T decode(Class<T> type);
     }
 }
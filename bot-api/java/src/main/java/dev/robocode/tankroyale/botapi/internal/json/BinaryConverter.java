@@ -0,0 +1,54 @@
+package dev.robocode.tankroyale.botapi.internal.json;
+
+import dev.robocode.tankroyale.schema.Message;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+
+import static dev.robocode.tankroyale.botapi.internal.json.BinaryFormat.FORMAT_VERSION;
+import static dev.robocode.tankroyale.botapi.internal.json.BinaryFormat.readString;
+
+/**
+ * Converter between messages and the binary encoding, which is used instead of JSON when both the bot and server
+ * have the binary capability. The messages are written and read with the same Gson instance as used for JSON, but
+ * through a binary JSON writer and reader.
+ */
+public final class BinaryConverter {
+
+    /**
+     * Capability of servers and bots for sending and receiving messages in the binary encoding.
+     */
+    public static final String BINARY_CAPABILITY = "binary";
+
+    // Hide constructor to prevent instantiation
+    private BinaryConverter() {
+    }
+
+    public static ByteBuffer toBinary(Message message) {
+        var writer = new BinaryJsonWriter();
+        writer.writeHeader(message.getType().value());
+        GsonFactory.getGson().toJson(message, message.getClass(), writer);
+        return writer.toByteBuffer();
+    }
+
+    /**
+     * Reads the message type from the header of a binary message. The position of the buffer is moved to the message
+     * itself, which can then be read with {@link #fromBinary(ByteBuffer, Class)}.
+     */
+    public static Message.Type readType(ByteBuffer buffer) {
+        byte version = buffer.get();
+        if (version != FORMAT_VERSION) {
+            throw new IllegalStateException("Unsupported binary format version: " + version);
+        }
+        return Message.Type.fromValue(readString(buffer));
+    }
+
+    public static <T> T fromBinary(ByteBuffer buffer, Class<T> type) {
+        try {
+            return GsonFactory.getGson().getAdapter(type).read(new BinaryJsonReader(buffer));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package dev.robocode.tankroyale.botapi.internal.json;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Constants and helpers of the binary encoding of messages, which is described in the README of the schemas.
+ */
+final class BinaryFormat {
+
+    // Hide constructor to prevent instantiation
+    private BinaryFormat() {
+    }
+
+    static final byte FORMAT_VERSION = 1;
+
+    static final int TAG_NULL = 0x00;
+    static final int TAG_FALSE = 0x01;
+    static final int TAG_TRUE = 0x02;
+    static final int TAG_INT = 0x03;
+    static final int TAG_DOUBLE = 0x04;
+    static final int TAG_STRING = 0x05;
+    static final int TAG_ARRAY = 0x06;
+    static final int TAG_END_ARRAY = 0x07;
+    static final int TAG_OBJECT = 0x08;
+
+    static final int KEY_END_OBJECT = 0;
+    static final int KEY_NEW_NAME = 1;
+    static final int KEY_FIRST_NAME_INDEX = 2;
+
+    static long readVarLong(ByteBuffer buffer) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalStateException("Malformed varint");
+    }
+
+    static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[(int) readVarLong(buffer)];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,286 @@
+package dev.robocode.tankroyale.botapi.internal.json;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static dev.robocode.tankroyale.botapi.internal.json.BinaryFormat.*;
+
+/**
+ * JSON reader that reads the binary encoding instead of JSON text.
+ */
+final class BinaryJsonReader extends JsonReader {
+
+    private static final int SCOPE_TOP = 0;
+    private static final int SCOPE_TOP_DONE = 1;
+    private static final int SCOPE_ARRAY = 2;
+    private static final int SCOPE_OBJECT_NAME = 3;
+    private static final int SCOPE_OBJECT_VALUE = 4;
+
+    private final ByteBuffer buffer;
+
+    private final List<String> names = new ArrayList<>();
+
+    private int[] scopes = new int[16];
+    private int depth = 1;
+
+    BinaryJsonReader(ByteBuffer buffer) {
+        super(Reader.nullReader());
+        this.buffer = buffer;
+        scopes[0] = SCOPE_TOP;
+    }
+
+    @Override
+    public JsonToken peek() throws IOException {
+        switch (scopes[depth - 1]) {
+            case SCOPE_OBJECT_NAME:
+                return peekByte() == KEY_END_OBJECT ? JsonToken.END_OBJECT : JsonToken.NAME;
+            case SCOPE_TOP_DONE:
+                return JsonToken.END_DOCUMENT;
+            default:
+                int tag = peekByte();
+                switch (tag) {
+                    case TAG_NULL:
+                        return JsonToken.NULL;
+                    case TAG_FALSE:
+                    case TAG_TRUE:
+                        return JsonToken.BOOLEAN;
+                    case TAG_INT:
+                    case TAG_DOUBLE:
+                        return JsonToken.NUMBER;
+                    case TAG_STRING:
+                        return JsonToken.STRING;
+                    case TAG_ARRAY:
+                        return JsonToken.BEGIN_ARRAY;
+                    case TAG_END_ARRAY:
+                        return JsonToken.END_ARRAY;
+                    case TAG_OBJECT:
+                        return JsonToken.BEGIN_OBJECT;
+                    default:
+                        throw new IllegalStateException("Unknown tag: " + tag);
+                }
+        }
+    }
+
+    @Override
+    public boolean hasNext() throws IOException {
+        JsonToken token = peek();
+        return token != JsonToken.END_OBJECT && token != JsonToken.END_ARRAY && token != JsonToken.END_DOCUMENT;
+    }
+
+    @Override
+    public void beginArray() throws IOException {
+        readTag(TAG_ARRAY);
+        pushScope(SCOPE_ARRAY);
+    }
+
+    @Override
+    public void endArray() {
+        if (scopes[depth - 1] != SCOPE_ARRAY || buffer.get() != TAG_END_ARRAY) {
+            throw new IllegalStateException("Expected end of array");
+        }
+        depth--;
+    }
+
+    @Override
+    public void beginObject() throws IOException {
+        readTag(TAG_OBJECT);
+        pushScope(SCOPE_OBJECT_NAME);
+    }
+
+    @Override
+    public void endObject() {
+        if (scopes[depth - 1] != SCOPE_OBJECT_NAME || buffer.get() != KEY_END_OBJECT) {
+            throw new IllegalStateException("Expected end of object");
+        }
+        depth--;
+    }
+
+    @Override
+    public String nextName() {
+        if (scopes[depth - 1] != SCOPE_OBJECT_NAME) {
+            throw new IllegalStateException("Expected a name");
+        }
+        long key = readVarLong(buffer);
+        String name;
+        if (key == KEY_END_OBJECT) {
+            throw new IllegalStateException("Expected a name but was end of object");
+        } else if (key == KEY_NEW_NAME) {
+            name = readString(buffer);
+            names.add(name);
+        } else {
+            name = names.get((int) (key - KEY_FIRST_NAME_INDEX));
+        }
+        scopes[depth - 1] = SCOPE_OBJECT_VALUE;
+        return name;
+    }
+
+    @Override
+    public String nextString() throws IOException {
+        int tag = readValueTag();
+        switch (tag) {
+            case TAG_STRING:
+                return readString(buffer);
+            case TAG_INT:
+                return Long.toString(readZigZagLong());
+            case TAG_DOUBLE:
+                return Double.toString(buffer.getDouble());
+            default:
+                throw new IllegalStateException("Expected a string but was tag: " + tag);
+        }
+    }
+
+    @Override
+    public boolean nextBoolean() throws IOException {
+        int tag = readValueTag();
+        switch (tag) {
+            case TAG_TRUE:
+                return true;
+            case TAG_FALSE:
+                return false;
+            default:
+                throw new IllegalStateException("Expected a boolean but was tag: " + tag);
+        }
+    }
+
+    @Override
+    public void nextNull() throws IOException {
+        readTag(TAG_NULL);
+    }
+
+    @Override
+    public double nextDouble() throws IOException {
+        int tag = readValueTag();
+        switch (tag) {
+            case TAG_DOUBLE:
+                return buffer.getDouble(); // ByteBuffer is big endian by default
+            case TAG_INT:
+                return readZigZagLong();
+            default:
+                throw new IllegalStateException("Expected a number but was tag: " + tag);
+        }
+    }
+
+    @Override
+    public long nextLong() throws IOException {
+        int tag = readValueTag();
+        switch (tag) {
+            case TAG_INT:
+                return readZigZagLong();
+            case TAG_DOUBLE:
+                double value = buffer.getDouble();
+                long result = (long) value;
+                if (result != value) {
+                    throw new NumberFormatException("Expected a long: " + value);
+                }
+                return result;
+            default:
+                throw new IllegalStateException("Expected a number but was tag: " + tag);
+        }
+    }
+
+    @Override
+    public int nextInt() throws IOException {
+        long value = nextLong();
+        if ((int) value != value) {
+            throw new NumberFormatException("Expected an int: " + value);
+        }
+        return (int) value;
+    }
+
+    @Override
+    public void skipValue() throws IOException {
+        JsonToken token = peek();
+        switch (token) {
+            case NAME:
+                nextName();
+                break;
+            case BEGIN_ARRAY:
+                beginArray();
+                while (hasNext()) {
+                    skipValue();
+                }
+                endArray();
+                break;
+            case BEGIN_OBJECT:
+                beginObject();
+                while (hasNext()) {
+                    nextName();
+                    skipValue();
+                }
+                endObject();
+                break;
+            case NULL:
+                nextNull();
+                break;
+            case BOOLEAN:
+                nextBoolean();
+                break;
+            case NUMBER:
+            case STRING:
+                nextString();
+                break;
+            default:
+                throw new IllegalStateException("Cannot skip: " + token);
+        }
+    }
+
+    @Override
+    public void close() {
+    }
+
+    private int peekByte() throws EOFException {
+        if (!buffer.hasRemaining()) {
+            throw new EOFException("End of binary message");
+        }
+        return buffer.get(buffer.position());
+    }
+
+    private void readTag(int expectedTag) throws IOException {
+        int tag = readValueTag();
+        if (tag != expectedTag) {
+            throw new IllegalStateException("Expected tag: " + expectedTag + ", but was: " + tag);
+        }
+    }
+
+    /**
+     * Reads the tag of the next value, and moves the enclosing scope past the value.
+     */
+    private int readValueTag() throws EOFException {
+        switch (scopes[depth - 1]) {
+            case SCOPE_OBJECT_VALUE:
+                scopes[depth - 1] = SCOPE_OBJECT_NAME;
+                break;
+            case SCOPE_TOP:
+                scopes[depth - 1] = SCOPE_TOP_DONE;
+                break;
+            case SCOPE_ARRAY:
+                break;
+            default:
+                throw new IllegalStateException("Expected a name or end of document");
+        }
+        if (!buffer.hasRemaining()) {
+            throw new EOFException("End of binary message");
+        }
+        return buffer.get();
+    }
+
+    private void pushScope(int scope) {
+        if (depth == scopes.length) {
+            scopes = Arrays.copyOf(scopes, depth * 2);
+        }
+        scopes[depth++] = scope;
+    }
+
+    private long readZigZagLong() {
+        long value = readVarLong(buffer);
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
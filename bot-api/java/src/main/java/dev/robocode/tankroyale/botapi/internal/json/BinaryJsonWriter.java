@@ -0,0 +1,196 @@
+package dev.robocode.tankroyale.botapi.internal.json;
+
+import com.google.gson.stream.JsonWriter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Writer;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+import static dev.robocode.tankroyale.botapi.internal.json.BinaryFormat.*;
+
+/**
+ * JSON writer that writes the binary encoding instead of JSON text.
+ */
+final class BinaryJsonWriter extends JsonWriter {
+
+    /**
+     * Largest whole number that can be represented exactly by a double.
+     */
+    private static final double MAX_SAFE_INTEGER = 9007199254740992.0;
+
+    private static final long NEGATIVE_ZERO_BITS = Double.doubleToRawLongBits(-0.0);
+
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream(256);
+
+    private final Map<String, Integer> names = new HashMap<>();
+
+    private String pendingName;
+
+    BinaryJsonWriter() {
+        super(Writer.nullWriter());
+    }
+
+    void writeHeader(String type) {
+        out.write(FORMAT_VERSION);
+        writeString(type);
+    }
+
+    ByteBuffer toByteBuffer() {
+        return ByteBuffer.wrap(out.toByteArray());
+    }
+
+    @Override
+    public JsonWriter beginArray() {
+        writeTag(TAG_ARRAY);
+        return this;
+    }
+
+    @Override
+    public JsonWriter endArray() {
+        out.write(TAG_END_ARRAY);
+        return this;
+    }
+
+    @Override
+    public JsonWriter beginObject() {
+        writeTag(TAG_OBJECT);
+        return this;
+    }
+
+    @Override
+    public JsonWriter endObject() {
+        out.write(KEY_END_OBJECT);
+        return this;
+    }
+
+    @Override
+    public JsonWriter name(String name) {
+        if (pendingName != null) {
+            throw new IllegalStateException("Name has already been written: " + pendingName);
+        }
+        pendingName = name;
+        return this;
+    }
+
+    @Override
+    public JsonWriter nullValue() {
+        if (pendingName != null && !getSerializeNulls()) {
+            pendingName = null; // skip the member
+        } else {
+            writeTag(TAG_NULL);
+        }
+        return this;
+    }
+
+    @Override
+    public JsonWriter value(String value) {
+        if (value == null) {
+            return nullValue();
+        }
+        writeTag(TAG_STRING);
+        writeString(value);
+        return this;
+    }
+
+    @Override
+    public JsonWriter value(boolean value) {
+        writeTag(value ? TAG_TRUE : TAG_FALSE);
+        return this;
+    }
+
+    @Override
+    public JsonWriter value(Boolean value) {
+        return value == null ? nullValue() : value((boolean) value);
+    }
+
+    @Override
+    public JsonWriter value(float value) {
+        return value((double) value);
+    }
+
+    @Override
+    public JsonWriter value(double value) {
+        if (isWholeNumber(value)) {
+            return value((long) value);
+        }
+        writeTag(TAG_DOUBLE);
+        writeLong(Double.doubleToRawLongBits(value));
+        return this;
+    }
+
+    @Override
+    public JsonWriter value(long value) {
+        writeTag(TAG_INT);
+        writeVarLong((value << 1) ^ (value >> 63)); // ZigZag encoding
+        return this;
+    }
+
+    @Override
+    public JsonWriter value(Number value) {
+        if (value == null) {
+            return nullValue();
+        }
+        if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte ||
+                value instanceof BigInteger) {
+            return value(value.longValue());
+        }
+        return value(value.doubleValue());
+    }
+
+    @Override
+    public JsonWriter jsonValue(String value) {
+        throw new UnsupportedOperationException("Raw JSON values cannot be binary encoded");
+    }
+
+    @Override
+    public void flush() {
+    }
+
+    @Override
+    public void close() {
+    }
+
+    private void writeTag(int tag) {
+        if (pendingName != null) {
+            Integer index = names.get(pendingName);
+            if (index != null) {
+                writeVarLong(index + KEY_FIRST_NAME_INDEX);
+            } else {
+                names.put(pendingName, names.size());
+                writeVarLong(KEY_NEW_NAME);
+                writeString(pendingName);
+            }
+            pendingName = null;
+        }
+        out.write(tag);
+    }
+
+    private void writeVarLong(long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private void writeLong(long value) {
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            out.write((int) (value >> shift) & 0xFF);
+        }
+    }
+
+    private void writeString(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(bytes.length);
+        out.write(bytes, 0, bytes.length);
+    }
+
+    private static boolean isWholeNumber(double value) {
+        return value == Math.rint(value) && Math.abs(value) <= MAX_SAFE_INTEGER &&
+                Double.doubleToRawLongBits(value) != NEGATIVE_ZERO_BITS;
+    }
+}
@@ -0,0 +1,77 @@
+package dev.robocode.tankroyale.botapi.internal.json;
+
+import com.google.gson.JsonObject;
+import dev.robocode.tankroyale.schema.BotIntent;
+import dev.robocode.tankroyale.schema.Message;
+import dev.robocode.tankroyale.schema.ScannedBotEvent;
+import dev.robocode.tankroyale.schema.TeamMessage;
+import dev.robocode.tankroyale.schema.TickEventForBot;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BinaryConverterTest {
+
+    static final String TICK_JSON = "{\"type\":\"TickEventForBot\",\"turnNumber\":42,\"roundNumber\":2," +
+            "\"enemyCount\":3,\"botState\":{\"energy\":97.5,\"x\":123.456,\"y\":400,\"direction\":-0.0," +
+            "\"gunDirection\":90,\"radarDirection\":12.75,\"radarSweep\":45,\"speed\":8,\"turnRate\":-10," +
+            "\"gunTurnRate\":20,\"radarTurnRate\":45,\"gunHeat\":0.3},\"bulletStates\":[{\"bulletId\":1," +
+            "\"ownerId\":1,\"power\":3,\"x\":10.5,\"y\":20.25,\"direction\":180}],\"events\":[" +
+            "{\"type\":\"ScannedBotEvent\",\"turnNumber\":42,\"scannedByBotId\":1,\"scannedBotId\":2," +
+            "\"energy\":100,\"x\":300.1,\"y\":200.2,\"direction\":33.3,\"speed\":-4}," +
+            "{\"type\":\"BotDeathEvent\",\"turnNumber\":42,\"victimId\":3}]}";
+
+    @Test
+    void givenBinaryTick_whenReadingTick_thenTickIsTheSameAsReadFromJson() {
+        var binaryTick = toBinary(JsonConverter.fromJson(TICK_JSON, JsonObject.class));
+
+        assertThat(BinaryConverter.readType(binaryTick)).isEqualTo(Message.Type.TICK_EVENT_FOR_BOT);
+        var tick = BinaryConverter.fromBinary(binaryTick, TickEventForBot.class);
+
+        assertThat(tick).usingRecursiveComparison()
+                .isEqualTo(JsonConverter.fromJson(TICK_JSON, TickEventForBot.class));
+        assertThat(tick.getEvents().get(0)).isInstanceOf(ScannedBotEvent.class);
+    }
+
+    @Test
+    void givenBotIntent_whenWritingAndReadingBinary_thenBotIntentIsTheSame() {
+        var intent = new BotIntent();
+        intent.setType(Message.Type.BOT_INTENT);
+        intent.setTurnRate(-7.5);
+        intent.setTargetSpeed(8.0);
+        intent.setFirepower(0.1);
+        intent.setRescan(true);
+        intent.setBodyColor("#FF0000");
+        intent.setStdOut("Hello, \u4e16\u754c\n");
+        var teamMessage = new TeamMessage();
+        teamMessage.setMessage("{\"x\":1}");
+        teamMessage.setMessageType("Point");
+        teamMessage.setReceiverId(2);
+        intent.setTeamMessages(List.of(teamMessage));
+
+        var binaryIntent = BinaryConverter.toBinary(intent);
+
+        assertThat(BinaryConverter.readType(binaryIntent)).isEqualTo(Message.Type.BOT_INTENT);
+        var readIntent = BinaryConverter.fromBinary(binaryIntent, BotIntent.class);
+
+        assertThat(JsonConverter.toJson(readIntent)).isEqualTo(JsonConverter.toJson(intent));
+    }
+
+    @Test
+    void givenTick_whenWritingBinary_thenFewerBytesThanJsonAreUsed() {
+        var binaryTick = toBinary(JsonConverter.fromJson(TICK_JSON, JsonObject.class));
+
+        assertThat(binaryTick.remaining()).isLessThan(TICK_JSON.length());
+    }
+
+    private static ByteBuffer toBinary(JsonObject message) {
+        // The server writes ticks, which cannot be written with the event type adapter of the Bot API
+        var writer = new BinaryJsonWriter();
+        writer.writeHeader(message.get("type").getAsString());
+        GsonFactory.getGson().toJson(message, writer);
+        return writer.toByteBuffer();
+    }
+}
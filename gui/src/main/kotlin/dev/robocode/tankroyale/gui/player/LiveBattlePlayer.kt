@@ -9,7 +9,6 @@ import dev.robocode.tankroyale.gui.settings.ConfigSettings
 import dev.robocode.tankroyale.gui.settings.GamesSettings
 import dev.robocode.tankroyale.gui.settings.ServerSettings
 import dev.robocode.tankroyale.gui.ui.server.ServerEvents
-import kotlinx.serialization.PolymorphicSerializer
 import java.net.URI
 import java.util.concurrent.atomic.AtomicBoolean
 import java.util.concurrent.atomic.AtomicReference
@@ -32,8 +31,6 @@ class LiveBattlePlayer : BattlePlayer {
 
     private var websocket: WebSocketClient? = null
 
-    private val json = MessageConstants.json
-
     private var gameTypes = setOf<String>()
 
     private lateinit var lastStartGame: StartGame
@@ -155,12 +152,12 @@ class LiveBattlePlayer : BattlePlayer {
         }
         if (!isConnected()) {
             serverUrl.set(url)
-            websocket = WebSocketClient(URI(url))
+            websocket = WebSocketClient(URI(url), isDecodingMessages = true)
 
             WebSocketClientEvents.apply {
                 websocket?.let { ws ->
                     onOpen.subscribe(ws) { onConnected.fire(Unit) }
-                    onMessage.subscribe(ws) { onMessage(it) }
+                    onDecodedMessage.subscribe(ws) { onMessage(it) }
                     onError.subscribe(ws) {
                         System.err.println("WebSocket error: " + it.message)
                         ServerEvents.onStopped.fire(Unit)
@@ -171,7 +168,7 @@ class LiveBattlePlayer : BattlePlayer {
                         // to prevent redundant subscriptions which are kept both on failure, and
                         // new attempt to open the web socket
                         onOpen.unsubscribe(ws)
-                        onMessage.unsubscribe(ws)
+                        onDecodedMessage.unsubscribe(ws)
                         onError.unsubscribe(ws)
                     }
                 }
@@ -184,7 +181,7 @@ class LiveBattlePlayer : BattlePlayer {
             WebSocketClientEvents.apply {
                 websocket?.let { ws ->
                     onOpen.unsubscribe(ws)
-                    onMessage.unsubscribe(ws)
+                    onDecodedMessage.unsubscribe(ws)
                     onError.unsubscribe(ws)
                     ws.close()
                 }
@@ -220,8 +217,9 @@ class LiveBattlePlayer : BattlePlayer {
         send(botPolicyUpdate)
     }
 
-    private fun onMessage(msg: String) {
-        when (val type = json.decodeFromString(PolymorphicSerializer(Message::class), msg)) {
+    // Tick deltas have already been reconstructed into full ticks by the WebSocket client
+    private fun onMessage(message: Message) {
+        when (val type = message) {
             is TickEvent -> handleTickEvent(type)
             is ServerHandshake -> handleServerHandshake(type)
             is BotListUpdate -> handleBotListUpdate(type)
@@ -248,7 +246,9 @@ class LiveBattlePlayer : BattlePlayer {
             name = "Robocode Tank Royale UI",
             version = "${Version.version}",
             author = "Flemming N. Larsen",
-            secret = ServerSettings.controllerSecret()
+            secret = ServerSettings.controllerSecret(),
+            capabilities = serverHandshake.capabilities.intersect(setOf(MessageConstants.TICK_DELTA_CAPABILITY))
+                .ifEmpty { null }
         )
         send(handshake)
     }
@@ -12,6 +12,7 @@ import javax.swing.Timer
  * Battle player implementation for replaying battles from recorded files.
  * Provides the same interface as LiveBattlePlayer but reads events from a file
  * and emits them at the configured TPS rate for TickEvents only.
+ * The turns are streamed from the file, where only the turns around the playhead are decoded and kept in memory.
  */
 class ReplayBattlePlayer(private val replayFile: File) : BattlePlayer {
 
@@ -27,7 +28,8 @@ class ReplayBattlePlayer(private val replayFile: File) : BattlePlayer {
     private val isRunning = AtomicBoolean(false)
     private val isPaused = AtomicBoolean(false)
 
-    private var turns = mutableListOf<List<Message>>()
+    private val turns: ReplayFileReader
+
     private var currentMessageIndex = 0
     private var currentTps = ConfigSettings.tps
 
@@ -50,26 +52,10 @@ class ReplayBattlePlayer(private val replayFile: File) : BattlePlayer {
     val onReplayEvent = Event<Int>()
 
     init {
-        // Load messages from the replay file
+        // Open the replay file, where the turns are decoded when they are played
         val fileReader = ReplayFileReader(replayFile)
         if (fileReader.isValid()) {
-            val events = fileReader.loadMessages()
-            var currentEventIndex = 0
-            var currentRound: MutableList<Message>? = null
-            var containsTickEvent = false
-            while (currentEventIndex < events.size) {
-                if (currentRound == null || (events[currentEventIndex] is TickEvent && containsTickEvent)) {
-                    currentRound = mutableListOf()
-                    containsTickEvent = false
-                    turns.add(currentRound)
-                }
-                var event = events[currentEventIndex]
-                currentRound.add(event)
-                if (event is TickEvent) {
-                    containsTickEvent = true
-                }
-                currentEventIndex++
-            }
+            turns = fileReader
         } else {
             throw IllegalArgumentException("Invalid replay file: ${replayFile.absolutePath}")
         }
@@ -77,19 +63,13 @@ class ReplayBattlePlayer(private val replayFile: File) : BattlePlayer {
         // TPS changes are now handled by BattleManager calling changeTps()
     }
 
-    fun getTotalRounds() = turns.size
+    fun getTotalRounds() = turns.turnCount
 
     /**
      * @return list of pairs where first is the turn number and second is boolean indicating whether
      * this death also means end of round
      */
-    fun getDeathMarkers() = turns
-        .mapIndexed { index, turn -> index to turn }
-        .filter { (_, turn) ->
-            (turn.firstOrNull { it is TickEvent } as TickEvent?)
-                ?.events?.any { it is BotDeathEvent } ?: false
-        }
-        .map { (i, turn) -> i to turn.any { it is RoundEndedEvent } }
+    fun getDeathMarkers() = turns.deathMarkers
 
     override fun start() {
         if (isRunning.get()) {
@@ -173,7 +153,7 @@ class ReplayBattlePlayer(private val replayFile: File) : BattlePlayer {
                 }
             }
 
-            turns[turnNumber].firstOrNull { it is TickEvent }?.let {
+            turns.getTurn(turnNumber).firstOrNull { it is TickEvent }?.let {
                 onSeekToTurn.fire(it as TickEvent)
             }
         }
@@ -239,7 +219,7 @@ class ReplayBattlePlayer(private val replayFile: File) : BattlePlayer {
 
     private fun processUntilNextChunk() {
         if (isRunning.get() && !isPaused.get()) {
-            if (currentMessageIndex < turns.size) {
+            if (currentMessageIndex < turns.turnCount) {
                 processCurrentMessage()
                 startTickTimer()
             }
@@ -268,8 +248,8 @@ class ReplayBattlePlayer(private val replayFile: File) : BattlePlayer {
     }
 
     private fun processCurrentMessage() {
-        if (currentMessageIndex < turns.size) {
-            val messageList = turns[currentMessageIndex]
+        if (currentMessageIndex < turns.turnCount) {
+            val messageList = turns.getTurn(currentMessageIndex)
             messageList.forEach {
                 handleMessage(it)
             }
@@ -326,24 +306,34 @@ class ReplayBattlePlayer(private val replayFile: File) : BattlePlayer {
         currentTick = null
         participants = listOf()
 
-        // Replay all messages up to target index to rebuild state
-        for (i in 0 until targetIndex) {
-            turns[i].forEach { message ->
-                when (message) {
-                    is GameStartedEvent -> {
-                        currentGameSetup = message.gameSetup
-                        participants = message.participants
-                    }
-
-                    is TickEvent -> {
-                        currentTick = message
-                        // Update stdout/stderr state without firing events
-                        updateSavedStdOutputSilently(message)
-                    }
-
-                    else -> {
-                        // Only track state-changing messages, ignore events
-                    }
+        // Every tick holds the full state of the game, so only the first turn with the game setup, the turns with
+        // standard output or error, and the turn before the target index must be replayed
+        if (targetIndex <= 0) return
+        rebuildStateOfTurn(0)
+        turns.getTurnRangesWithOutput().forEach { range ->
+            for (i in maxOf(range.first, 1)..minOf(range.last, targetIndex - 1)) {
+                rebuildStateOfTurn(i)
+            }
+        }
+        rebuildStateOfTurn(targetIndex - 1)
+    }
+
+    private fun rebuildStateOfTurn(turnIndex: Int) {
+        turns.getTurn(turnIndex).forEach { message ->
+            when (message) {
+                is GameStartedEvent -> {
+                    currentGameSetup = message.gameSetup
+                    participants = message.participants
+                }
+
+                is TickEvent -> {
+                    currentTick = message
+                    // Update stdout/stderr state without firing events
+                    updateSavedStdOutputSilently(message)
+                }
+
+                else -> {
+                    // Only track state-changing messages, ignore events
                 }
             }
         }
@@ -2,36 +2,102 @@ package dev.robocode.tankroyale.gui.replay
 
 import dev.robocode.tankroyale.client.model.Message
 import dev.robocode.tankroyale.client.model.MessageConstants
-import kotlinx.serialization.json.Json
+import dev.robocode.tankroyale.common.recording.RecordingReader
+import dev.robocode.tankroyale.common.recording.RecordingWriter
+import dev.robocode.tankroyale.common.util.JsonScanner
+import java.io.BufferedReader
 import java.io.File
-import java.util.zip.GZIPInputStream
+import java.util.concurrent.Future
+import java.util.concurrent.FutureTask
+import java.util.concurrent.LinkedBlockingQueue
+import java.util.concurrent.ThreadPoolExecutor
+import java.util.concurrent.TimeUnit
 
 /**
  * Reads replay files in NDJSON format created by the recorder.
  * Each line in the file contains a JSON-serialized Message object.
- * Supports both gzipped and plain text files.
+ * Supports indexed recordings, as well as gzipped and plain text files.
+ *
+ * The messages are grouped into turns, where a turn starts with a tick event, and the first turn also holds the
+ * messages before the first tick event. The turns are decoded lazily in chunks of turns, where a background thread
+ * decodes the chunk ahead of the requested turn, and only a bounded window of decoded chunks is kept in memory.
+ *
+ * Indexed recordings are opened by only reading the index at the end of the file, and a chunk of the replay is a chunk
+ * of the recording. Other replay files are scanned once when opened, where only the line index of each chunk is kept.
+ * The lines of a chunk are read again from the file when the chunk is decoded, where the file is read on from the last
+ * chunk read, so it is only read from the start again when seeking backwards.
  */
 class ReplayFileReader(private val replayFile: File) {
 
+    private companion object {
+        /** Number of turns per chunk of replay files that are not indexed */
+        const val TURNS_PER_CHUNK = RecordingWriter.DEFAULT_TICKS_PER_CHUNK
+
+        /** Maximum number of decoded chunks kept in memory */
+        const val MAX_DECODED_CHUNKS = 8
+    }
+
     private val json = MessageConstants.json
-    private var messages: List<Message>? = null
+
+    private val recordingReader = RecordingReader(replayFile)
+
+    /** Index of the first turn of each chunk */
+    private val chunkStartTurns: IntArray
+
+    /** Index of the first line of each chunk of a replay file that is not indexed */
+    private val chunkStartLines: IntArray?
+
+    /** Number of lines of a replay file that is not indexed */
+    private val lineCount: Int
+
+    private val chunksWithOutput: BooleanArray
+
+    /** Number of turns in the replay file */
+    val turnCount: Int
 
     /**
-     * Loads and parses all messages from the replay file.
-     * @return List of messages in chronological order
-     * @throws Exception if file cannot be read or parsed
+     * Death markers, where first is the turn index and second is a flag indicating whether this death also means end
+     * of round.
      */
-    fun loadMessages(): List<Message> {
-        if (messages == null) {
-            messages = readMessagesFromFile()
-        }
-        return messages!!
+    val deathMarkers: List<Pair<Int, Boolean>>
+
+    /** Decoded chunks by chunk index in access order, where the least recently used chunk is evicted */
+    private val decodedChunks = object : LinkedHashMap<Int, Future<List<List<Message>>>>(16, 0.75f, true) {
+        override fun removeEldestEntry(eldest: MutableMap.MutableEntry<Int, Future<List<List<Message>>>>) =
+            size > MAX_DECODED_CHUNKS
     }
 
-    /**
-     * Returns the total number of messages in the replay file.
-     */
-    fun getMessageCount(): Int = loadMessages().size
+    /** Reader of the lines of a replay file that is not indexed, which is only used by the decoder */
+    private var lineReader: BufferedReader? = null
+
+    /** Index of the next line read by the [lineReader] */
+    private var nextLineIndex = 0
+
+    /** Executor decoding chunks ahead of the requested turns, where the thread stops when it is idle */
+    private val decoder = ThreadPoolExecutor(0, 1, 1, TimeUnit.SECONDS, LinkedBlockingQueue()) { runnable ->
+        Thread(runnable, "Replay decoder").apply { isDaemon = true }
+    }
+
+    init {
+        val index = recordingReader.index
+        if (index != null) {
+            chunkStartTurns = index.chunks.map { it.tickIndex }.toIntArray()
+            chunksWithOutput = index.chunks.map { it.hasOutput }.toBooleanArray()
+            chunkStartLines = null
+            lineCount = 0
+            turnCount = if (index.chunks.isEmpty()) 0 else maxOf(index.tickCount, 1)
+            val roundEnds = index.roundEndTickIndexes.toSet()
+            deathMarkers = index.deathTickIndexes.map { it to (it in roundEnds) }
+        } else {
+            val scan = scanReplayFile()
+            chunkStartTurns = IntArray(scan.chunkStartLines.size) { it * TURNS_PER_CHUNK }
+            chunksWithOutput = scan.chunksWithOutput.toBooleanArray()
+            chunkStartLines = scan.chunkStartLines.toIntArray()
+            lineCount = scan.lineCount
+            turnCount = scan.turnCount
+            deathMarkers = scan.deathMarkers
+        }
+    }
 
     /**
      * Returns true if the replay file exists and is readable.
@@ -40,33 +106,143 @@ class ReplayFileReader(private val replayFile: File) {
         return replayFile.exists() && replayFile.canRead()
     }
 
-    private fun readMessagesFromFile(): List<Message> {
-        val messageList = mutableListOf<Message>()
+    /**
+     * Returns the messages of a turn, where the chunk of the turn is decoded if it is not in memory, and the next chunk
+     * is decoded in the background.
+     * @param turnIndex is the index of the turn.
+     * @return the messages of the turn in chronological order.
+     */
+    fun getTurn(turnIndex: Int): List<Message> {
+        val chunkIndex = chunkIndexOf(turnIndex)
+        val chunk = synchronized(decodedChunks) {
+            val chunk = decodedChunk(chunkIndex)
+            if (chunkIndex + 1 < chunkStartTurns.size) decodedChunk(chunkIndex + 1)
+            chunk
+        }
+        return chunk.get()[turnIndex - chunkStartTurns[chunkIndex]]
+    }
+
+    /**
+     * Returns the ranges of the turns of the chunks with standard output or error of bots, which must be replayed to
+     * rebuild the output of the bots.
+     */
+    fun getTurnRangesWithOutput(): List<IntRange> =
+        chunkStartTurns.indices.filter { chunksWithOutput[it] }.map { chunkStartTurns[it] until chunkEndTurn(it) }
 
-        // Try to detect if file is gzipped by attempting to read as GZIP first
-        val inputStream = try {
-            GZIPInputStream(replayFile.inputStream())
-        } catch (e: Exception) {
-            // Not a GZIP file, read as plain text
-            replayFile.inputStream()
+    /** Returns the indexes of the decoded chunks from the least to the most recently used chunk. */
+    internal fun decodedChunkIndexes(): List<Int> = synchronized(decodedChunks) { decodedChunks.keys.toList() }
+
+    private fun chunkEndTurn(chunkIndex: Int) = chunkStartTurns.getOrElse(chunkIndex + 1) { turnCount }
+
+    private fun chunkIndexOf(turnIndex: Int): Int {
+        require(turnIndex in 0 until turnCount) { "Turn index $turnIndex is not in the range 0 until $turnCount" }
+        val index = chunkStartTurns.binarySearch(turnIndex)
+        return if (index >= 0) index else -index - 2
+    }
+
+    /** Returns the decoded chunk, where decoding of the chunk is started in the background if not in memory. */
+    private fun decodedChunk(chunkIndex: Int): Future<List<List<Message>>> =
+        decodedChunks.getOrPut(chunkIndex) {
+            FutureTask { decodeChunk(chunkIndex) }.also { decoder.execute(it) }
         }
 
-        inputStream.use { stream ->
-            stream.bufferedReader().useLines { lines ->
-                for (line in lines) {
-                    if (line.trim().isNotEmpty()) {
-                        try {
-                            val message = json.decodeFromString<Message>(line)
-                            messageList.add(message)
-                        } catch (e: Exception) {
-                            // Log warning but continue processing other lines
-                            System.err.println("Warning: Failed to parse replay line: ${e.message}")
-                        }
-                    }
-                }
+    private fun decodeChunk(chunkIndex: Int): List<List<Message>> {
+        val lines = if (chunkStartLines != null) readScannedChunk(chunkIndex) else
+            recordingReader.readChunk(recordingReader.index!!.chunks[chunkIndex])
+
+        // The turns are grouped by the types of the lines like the turns of the index, so a tick that cannot be decoded
+        // still starts a turn, and the following turns keep their indexes
+        val turns = mutableListOf<MutableList<Message>>()
+        var isTickInTurn = false
+        lines.forEach { line ->
+            val isTick = JsonScanner.stringField(line, "type") == RecordingWriter.TICK_EVENT_TYPE
+            if (turns.isEmpty() || (isTick && isTickInTurn)) {
+                turns += mutableListOf<Message>()
+                isTickInTurn = false
+            }
+            if (isTick) isTickInTurn = true
+            try {
+                turns.last() += json.decodeFromString<Message>(line)
+            } catch (e: Exception) {
+                // Log warning but continue processing other lines
+                System.err.println("Warning: Failed to parse replay line: ${e.message}")
             }
         }
+        // Turns missing in the chunk, e.g. at the end of a truncated file, are replayed as empty turns
+        while (turns.size < chunkEndTurn(chunkIndex) - chunkStartTurns[chunkIndex]) turns += mutableListOf<Message>()
+        return turns
+    }
+
+    /**
+     * Reads the lines of a chunk of a replay file that is not indexed, where the file is read on from the line after
+     * the last chunk read, or from the start of the file if the chunk is before that line.
+     */
+    private fun readScannedChunk(chunkIndex: Int): List<String> {
+        val startLine = chunkStartLines!![chunkIndex]
+        val endLine = chunkStartLines.getOrElse(chunkIndex + 1) { lineCount }
 
-        return messageList
+        var reader = lineReader
+        if (reader == null || nextLineIndex > startLine) {
+            reader?.close()
+            reader = recordingReader.openReader()
+            lineReader = reader
+            nextLineIndex = 0
+        }
+        val lines = ArrayList<String>(endLine - startLine)
+        while (nextLineIndex < endLine) {
+            val line = reader.readLine() ?: break // the file has been truncated since it was scanned
+            if (line.isBlank()) continue
+            if (nextLineIndex >= startLine) lines += line
+            nextLineIndex++
+        }
+        if (nextLineIndex >= lineCount || lines.size < endLine - startLine) {
+            reader.close()
+            lineReader = null
+        }
+        return lines
+    }
+
+    /** Result of scanning a replay file that is not indexed */
+    private class Scan(
+        val chunkStartLines: List<Int>,
+        val lineCount: Int,
+        val chunksWithOutput: List<Boolean>,
+        val turnCount: Int,
+        val deathMarkers: List<Pair<Int, Boolean>>,
+    )
+
+    /**
+     * Scans the lines of a replay file that is not indexed, where the lines are grouped into chunks of turns by their
+     * type without decoding the messages, and only the index of the first line of each chunk is kept.
+     */
+    private fun scanReplayFile(): Scan {
+        val chunkStartLines = mutableListOf<Int>()
+        var lineCount = 0
+        val chunksWithOutput = mutableListOf<Boolean>()
+        val deaths = mutableListOf<Int>()
+        val roundEnds = mutableSetOf<Int>()
+        var tickCount = 0
+
+        recordingReader.forEachLine { line ->
+            val type = JsonScanner.stringField(line, "type")
+            val isTick = type == RecordingWriter.TICK_EVENT_TYPE
+            if (lineCount == 0 || (isTick && tickCount > 0 && tickCount % TURNS_PER_CHUNK == 0)) {
+                chunkStartLines += lineCount
+                chunksWithOutput += false
+            }
+            lineCount++
+
+            if (isTick) {
+                if (line.contains("\"stdOut\"") || line.contains("\"stdErr\"")) {
+                    chunksWithOutput[chunksWithOutput.size - 1] = true
+                }
+                if (line.contains("\"BotDeathEvent\"")) deaths += tickCount
+                tickCount++
+            } else if (type == RecordingWriter.ROUND_ENDED_EVENT_TYPE && tickCount > 0) {
+                roundEnds += tickCount - 1
+            }
+        }
+        val turnCount = if (lineCount == 0) 0 else maxOf(tickCount, 1)
+        return Scan(chunkStartLines, lineCount, chunksWithOutput, turnCount, deaths.map { it to (it in roundEnds) })
     }
 }
@@ -0,0 +1,147 @@
+package dev.robocode.tankroyale.gui.replay
+
+import dev.robocode.tankroyale.client.model.BotDeathEvent
+import dev.robocode.tankroyale.client.model.Message
+import dev.robocode.tankroyale.client.model.MessageConstants
+import dev.robocode.tankroyale.client.model.RoundEndedEvent
+import dev.robocode.tankroyale.client.model.TickEvent
+import dev.robocode.tankroyale.common.recording.RecordingWriter
+import dev.robocode.tankroyale.common.util.JsonScanner
+import io.kotest.core.spec.style.FunSpec
+import io.kotest.engine.spec.tempfile
+import io.kotest.matchers.collections.shouldContainExactly
+import io.kotest.matchers.collections.shouldHaveSize
+import io.kotest.matchers.shouldBe
+import java.io.File
+import java.util.zip.GZIPOutputStream
+
+class ReplayFileReaderTest : FunSpec({
+
+    val json = MessageConstants.json
+
+    /** Kinds of replay files, which are written with the lines of a replay */
+    val replayFileKinds = mapOf<String, (File, List<String>) -> Unit>(
+        "indexed" to { file, lines ->
+            RecordingWriter(file.outputStream().buffered()).use { writer ->
+                lines.forEach { writer.write(it, JsonScanner.stringField(it, "type")) }
+            }
+        },
+        "gzipped" to { file, lines ->
+            GZIPOutputStream(file.outputStream()).bufferedWriter().use { writer ->
+                lines.forEach { writer.write(it + "\n") }
+            }
+        },
+        "plain text" to { file, lines ->
+            file.writeText(lines.joinToString("\n", postfix = "\n"))
+        },
+    )
+
+    fun tick(roundNumber: Int, turnNumber: Int, isDeath: Boolean = false): String {
+        val events = if (isDeath) """{"type":"BotDeathEvent","turnNumber":$turnNumber,"victimId":1}""" else ""
+        return """{"type":"TickEventForObserver","turnNumber":$turnNumber,"roundNumber":$roundNumber,""" +
+                """"botStates":[],"bulletStates":[],"events":[$events]}"""
+    }
+
+    /**
+     * Lines of a replay of 2 rounds, where round 1 has 650 turns and round 2 has 450 turns, so the chunks of the replay
+     * end both at the ends of the rounds and within the rounds.
+     */
+    fun replayLines(): List<String> {
+        val lines = mutableListOf<String>()
+        lines += """{"type":"TpsChangedEvent","tps":30}"""
+        for ((roundNumber, turnCount) in listOf(1 to 650, 2 to 450)) {
+            lines += """{"type":"RoundStartedEvent","roundNumber":$roundNumber}"""
+            for (turnNumber in 1..turnCount) {
+                lines += tick(roundNumber, turnNumber, isDeath = turnNumber == 300 || turnNumber == turnCount)
+                if (turnNumber % 100 == 0) lines += """{"type":"TpsChangedEvent","tps":$turnNumber}"""
+            }
+            lines += """{"type":"RoundEndedEventForObserver","roundNumber":$roundNumber,"turnNumber":$turnCount,""" +
+                    """"results":[]}"""
+        }
+        return lines
+    }
+
+    /** Groups the messages of a replay into turns like the player did when it decoded the whole replay file */
+    fun eagerTurns(lines: List<String>): List<List<Message>> {
+        val turns = mutableListOf<MutableList<Message>>()
+        var containsTickEvent = false
+        lines.map { json.decodeFromString<Message>(it) }.forEach { message ->
+            if (turns.isEmpty() || (message is TickEvent && containsTickEvent)) {
+                turns += mutableListOf<Message>()
+                containsTickEvent = false
+            }
+            turns.last() += message
+            if (message is TickEvent) containsTickEvent = true
+        }
+        return turns
+    }
+
+    fun List<Message>.encoded() = map { json.encodeToString(Message.serializer(), it) }
+
+    fun replayFile(kind: String, lines: List<String>) =
+        tempfile(suffix = ".battle.gz").also { replayFileKinds.getValue(kind)(it, lines) }
+
+    replayFileKinds.keys.forEach { kind ->
+
+        context("$kind replay file") {
+
+            test("turns must be grouped like all messages grouped at once, also across chunks") {
+                val lines = replayLines()
+                val expectedTurns = eagerTurns(lines)
+                val reader = ReplayFileReader(replayFile(kind, lines))
+
+                reader.turnCount shouldBe expectedTurns.size
+                expectedTurns.forEachIndexed { turnIndex, turn ->
+                    reader.getTurn(turnIndex).encoded() shouldContainExactly turn.encoded()
+                }
+            }
+
+            test("death markers must mark the deaths and ends of rounds like all messages grouped at once") {
+                val lines = replayLines()
+                val expectedMarkers = eagerTurns(lines)
+                    .mapIndexed { index, turn -> index to turn }
+                    .filter { (_, turn) ->
+                        (turn.firstOrNull { it is TickEvent } as TickEvent?)
+                            ?.events?.any { it is BotDeathEvent } ?: false
+                    }
+                    .map { (i, turn) -> i to turn.any { it is RoundEndedEvent } }
+
+                expectedMarkers shouldContainExactly listOf(299 to false, 649 to true, 949 to false, 1099 to true)
+                ReplayFileReader(replayFile(kind, lines)).deathMarkers shouldContainExactly expectedMarkers
+            }
+
+            test("tick that cannot be decoded must be replayed as a turn without the tick") {
+                val lines = replayLines().toMutableList()
+                val brokenLineIndex = lines.indexOf(tick(2, 5))
+                lines[brokenLineIndex] = tick(2, 5).substringBefore("\"botStates\"")
+                lines.add(brokenLineIndex + 1, """{"type":"TpsChangedEvent","tps":5}""")
+                val reader = ReplayFileReader(replayFile(kind, lines))
+
+                reader.turnCount shouldBe 1100
+                reader.getTurn(654).encoded() shouldContainExactly listOf("""{"type":"TpsChangedEvent","tps":5}""")
+                (0 until reader.turnCount).forEach { turnIndex ->
+                    val tick = reader.getTurn(turnIndex).filterIsInstance<TickEvent>().singleOrNull()
+                    if (turnIndex == 654) tick shouldBe null
+                    else tick?.turnNumber shouldBe (if (turnIndex < 650) turnIndex + 1 else turnIndex - 649)
+                }
+            }
+
+            test("least recently used chunks must be evicted, and decoded again when read again") {
+                val lines = replayLines()
+                val expectedTurns = eagerTurns(lines)
+                val reader = ReplayFileReader(replayFile(kind, lines))
+
+                (0 until reader.turnCount).forEach { reader.getTurn(it) }
+                val lastChunkIndex = reader.decodedChunkIndexes().last()
+                reader.decodedChunkIndexes() shouldContainExactly (lastChunkIndex - 7..lastChunkIndex).toList()
+
+                // Reading the first turn decodes the first chunk, and the next chunk ahead of it
+                reader.getTurn(0).encoded() shouldContainExactly expectedTurns[0].encoded()
+                reader.getTurn(1).encoded() shouldContainExactly expectedTurns[1].encoded()
+                reader.decodedChunkIndexes() shouldHaveSize 8
+                reader.decodedChunkIndexes() shouldContainExactly
+                        (lastChunkIndex - 5..lastChunkIndex).toList() + listOf(0, 1)
+            }
+        }
+    }
+})
@@ -0,0 +1,49 @@
+package dev.robocode.tankroyale.client
+
+import dev.robocode.tankroyale.client.model.BotState
+import dev.robocode.tankroyale.client.model.BulletState
+import dev.robocode.tankroyale.client.model.Message
+import dev.robocode.tankroyale.client.model.TickDeltaEvent
+import dev.robocode.tankroyale.client.model.TickEvent
+
+/**
+ * Reconstructs full ticks from tick deltas by applying each delta to the tick of the previous turn.
+ * Full ticks are used as keyframes. If a delta does not follow the previous tick, e.g. because ticks have been
+ * dropped, deltas are ignored until the next keyframe.
+ */
+class TickDeltaDecoder {
+
+    private var previousTick: TickEvent? = null
+
+    /**
+     * Decodes a message.
+     * @param message is the message to decode.
+     * @return the full tick if the message is a tick or tick delta, the message itself if it is not a tick, or `null`
+     * if the message is a tick delta that cannot be applied.
+     */
+    fun decode(message: Message): Message? =
+        when (message) {
+            is TickEvent -> message.also { previousTick = it }
+            is TickDeltaEvent -> applyDelta(message).also { previousTick = it }
+            else -> message
+        }
+
+    private fun applyDelta(delta: TickDeltaEvent): TickEvent? {
+        val previous = previousTick ?: return null
+        if (previous.roundNumber != delta.roundNumber || previous.turnNumber != delta.turnNumber - 1) return null
+
+        val botStates = LinkedHashMap<Int, BotState>()
+        previous.botStates.forEach { botStates[it.id] = it }
+        delta.removedBotIds.forEach { botStates.remove(it) }
+        delta.botStates.forEach { botStates[it.id] = it.applyTo(botStates[it.id]) }
+
+        val bulletStates = LinkedHashMap<Int, BulletState>()
+        previous.bulletStates.forEach { bulletStates[it.bulletId] = it }
+        delta.removedBulletIds.forEach { bulletStates.remove(it) }
+        delta.bulletStates.forEach { bulletStates[it.bulletId] = it.applyTo(bulletStates[it.bulletId]) }
+
+        return TickEvent(
+            delta.turnNumber, delta.roundNumber, botStates.values.toSet(), bulletStates.values.toSet(), delta.events
+        )
+    }
+}
@@ -8,10 +8,18 @@ import java.net.http.HttpClient
 import java.net.http.WebSocket
 import java.util.concurrent.CompletionStage
 
-class WebSocketClient(private val uri: URI) {
+/**
+ * WebSocket client for connecting to a server.
+ * @param uri is the URI of the server.
+ * @param isDecodingMessages is a flag specifying if received messages must be decoded and fired as
+ * [WebSocketClientEvents.onDecodedMessage], where tick deltas are reconstructed into full ticks.
+ */
+class WebSocketClient(private val uri: URI, private val isDecodingMessages: Boolean = false) {
 
     private val json = MessageConstants.json
 
+    private val tickDeltaDecoder = TickDeltaDecoder()
+
     private val listener = WebSocketListener()
 
     fun open() {
@@ -38,6 +46,9 @@ class WebSocketClient(private val uri: URI) {
         listener.websocket?.sendText(msg, true)
     }
 
+    private fun decode(message: String): Message? =
+        tickDeltaDecoder.decode(json.decodeFromString(PolymorphicSerializer(Message::class), message))
+
     private inner class WebSocketListener : WebSocket.Listener {
         var websocket: WebSocket? = null
         private var payload = StringBuffer()
@@ -61,8 +72,13 @@ class WebSocketClient(private val uri: URI) {
         override fun onText(webSocket: WebSocket, data: CharSequence?, last: Boolean): CompletionStage<*>? {
             payload.append(data)
             if (last) {
-                WebSocketClientEvents.onMessage.fire(payload.toString())
+                val message = payload.toString()
                 payload.delete(0, payload.length) // clear payload buffer
+
+                WebSocketClientEvents.onMessage.fire(message)
+                if (isDecodingMessages) {
+                    decode(message)?.let { WebSocketClientEvents.onDecodedMessage.fire(it) }
+                }
             }
             return super.onText(webSocket, data, last)
         }
@@ -1,10 +1,12 @@
 package dev.robocode.tankroyale.client
 
+import dev.robocode.tankroyale.client.model.Message
 import dev.robocode.tankroyale.common.Event
 
 object WebSocketClientEvents {
     val onOpen = Event<Unit>()
     val onClose = Event<Unit>()
     val onMessage = Event<String>()
+    val onDecodedMessage = Event<Message>()
     val onError = Event<Throwable>()
 }
@@ -0,0 +1,109 @@
+package dev.robocode.tankroyale.client.model
+
+import kotlinx.serialization.Serializable
+
+/**
+ * Changes to the state of a bot since the previous tick, where only the changed fields are present.
+ * Optional fields that are no longer present are listed in [clearedFields].
+ */
+@Serializable
+data class BotStateDelta(
+    val id: Int,
+    val sessionId: String? = null,
+    val isDroid: Boolean? = null,
+    val energy: Double? = null,
+    val x: Double? = null,
+    val y: Double? = null,
+    val direction: Double? = null,
+    val gunDirection: Double? = null,
+    val radarDirection: Double? = null,
+    val radarSweep: Double? = null,
+    val speed: Double? = null,
+    val turnRate: Double? = null,
+    val gunTurnRate: Double? = null,
+    val radarTurnRate: Double? = null,
+    val gunHeat: Double? = null,
+    val enemyCount: Int? = null,
+    val bodyColor: String? = null,
+    val turretColor: String? = null,
+    val radarColor: String? = null,
+    val bulletColor: String? = null,
+    val scanColor: String? = null,
+    val tracksColor: String? = null,
+    val gunColor: String? = null,
+    val stdOut: String? = null,
+    val stdErr: String? = null,
+    val isDebuggingEnabled: Boolean? = null,
+    val debugGraphics: String? = null,
+    val clearedFields: Set<String> = emptySet(),
+) {
+    /**
+     * Applies the changes to the state of the bot from the previous tick.
+     * @param previous is the previous state of the bot, or `null` if the bot is new, where all fields must be present.
+     * @return the new state of the bot.
+     */
+    fun applyTo(previous: BotState?): BotState =
+        if (previous == null) {
+            BotState(
+                isDroid = isDroid ?: false,
+                id = id,
+                sessionId = sessionId!!,
+                energy = energy!!,
+                x = x!!,
+                y = y!!,
+                direction = direction!!,
+                gunDirection = gunDirection!!,
+                radarDirection = radarDirection!!,
+                radarSweep = radarSweep!!,
+                speed = speed!!,
+                turnRate = turnRate!!,
+                gunTurnRate = gunTurnRate!!,
+                radarTurnRate = radarTurnRate!!,
+                gunHeat = gunHeat!!,
+                enemyCount = enemyCount!!,
+                bodyColor = bodyColor,
+                turretColor = turretColor,
+                radarColor = radarColor,
+                bulletColor = bulletColor,
+                scanColor = scanColor,
+                tracksColor = tracksColor,
+                gunColor = gunColor,
+                stdOut = stdOut,
+                stdErr = stdErr,
+                isDebuggingEnabled = isDebuggingEnabled ?: false,
+                debugGraphics = debugGraphics,
+            )
+        } else {
+            previous.copy(
+                isDroid = isDroid ?: previous.isDroid,
+                sessionId = sessionId ?: previous.sessionId,
+                energy = energy ?: previous.energy,
+                x = x ?: previous.x,
+                y = y ?: previous.y,
+                direction = direction ?: previous.direction,
+                gunDirection = gunDirection ?: previous.gunDirection,
+                radarDirection = radarDirection ?: previous.radarDirection,
+                radarSweep = radarSweep ?: previous.radarSweep,
+                speed = speed ?: previous.speed,
+                turnRate = turnRate ?: previous.turnRate,
+                gunTurnRate = gunTurnRate ?: previous.gunTurnRate,
+                radarTurnRate = radarTurnRate ?: previous.radarTurnRate,
+                gunHeat = gunHeat ?: previous.gunHeat,
+                enemyCount = enemyCount ?: previous.enemyCount,
+                bodyColor = optional("bodyColor", bodyColor, previous.bodyColor),
+                turretColor = optional("turretColor", turretColor, previous.turretColor),
+                radarColor = optional("radarColor", radarColor, previous.radarColor),
+                bulletColor = optional("bulletColor", bulletColor, previous.bulletColor),
+                scanColor = optional("scanColor", scanColor, previous.scanColor),
+                tracksColor = optional("tracksColor", tracksColor, previous.tracksColor),
+                gunColor = optional("gunColor", gunColor, previous.gunColor),
+                stdOut = optional("stdOut", stdOut, previous.stdOut),
+                stdErr = optional("stdErr", stdErr, previous.stdErr),
+                isDebuggingEnabled = isDebuggingEnabled ?: previous.isDebuggingEnabled,
+                debugGraphics = optional("debugGraphics", debugGraphics, previous.debugGraphics),
+            )
+        }
+
+    private fun optional(name: String, value: String?, previousValue: String?): String? =
+        if (name in clearedFields) null else value ?: previousValue
+}
@@ -0,0 +1,35 @@
+package dev.robocode.tankroyale.client.model
+
+import kotlinx.serialization.Serializable
+
+/** Changes to the state of a bullet since the previous tick, where only the changed fields are present. */
+@Serializable
+data class BulletStateDelta(
+    val bulletId: Int,
+    val ownerId: Int? = null,
+    val power: Double? = null,
+    val x: Double? = null,
+    val y: Double? = null,
+    val direction: Double? = null,
+    val color: String? = null,
+) {
+    /**
+     * Applies the changes to the state of the bullet from the previous tick.
+     * @param previous is the previous state of the bullet, or `null` if the bullet is new, where all fields must be
+     * present.
+     * @return the new state of the bullet.
+     */
+    fun applyTo(previous: BulletState?): BulletState =
+        if (previous == null) {
+            BulletState(bulletId, ownerId!!, power!!, x!!, y!!, direction!!, color)
+        } else {
+            previous.copy(
+                ownerId = ownerId ?: previous.ownerId,
+                power = power ?: previous.power,
+                x = x ?: previous.x,
+                y = y ?: previous.y,
+                direction = direction ?: previous.direction,
+                color = color ?: previous.color,
+            )
+        }
+}
@@ -15,6 +15,9 @@ sealed class MessageConstants {
             classDiscriminator = "type"
             serializersModule = messageModule
         }
+
+        /** Capability of observers and controllers for receiving tick deltas */
+        const val TICK_DELTA_CAPABILITY = "tick-delta"
     }
 }
 
@@ -108,6 +111,18 @@ open class TickEvent(
     val events: Set<Event>
 ) : Event()
 
+@Serializable
+@SerialName("TickDeltaEventForObserver")
+class TickDeltaEvent(
+    override val turnNumber: Int,
+    val roundNumber: Int,
+    val botStates: List<BotStateDelta>,
+    val removedBotIds: Set<Int> = emptySet(),
+    val bulletStates: List<BulletStateDelta>,
+    val removedBulletIds: Set<Int> = emptySet(),
+    val events: Set<Event>
+) : Event()
+
 @Serializable
 @SerialName("BotListUpdate")
 data class BotListUpdate(
@@ -167,7 +182,8 @@ data class ControllerHandshake(
     val name: String,
     val version: String,
     val author: String?,
-    val secret: String?
+    val secret: String?,
+    val capabilities: Set<String>? = null
 ) : Message()
 
 @Serializable
@@ -177,7 +193,8 @@ data class ObserverHandshake(
     val name: String,
     val version: String,
     val author: String?,
-    val secret: String?
+    val secret: String?,
+    val capabilities: Set<String>? = null
 ) : Message()
 
 @Serializable
@@ -188,7 +205,8 @@ data class ServerHandshake(
     val version: String,
     val variant: String,
     val gameTypes: Set<String>,
-    val gameSetup: GameSetup? = null
+    val gameSetup: GameSetup? = null,
+    val capabilities: Set<String> = emptySet()
 ) : Message()
 
 @Serializable
@@ -258,6 +276,7 @@ val messageModule = SerializersModule {
         subclass(StartGame::class)
         subclass(StopGame::class)
         subclass(TickEvent::class)
+        subclass(TickDeltaEvent::class)
         subclass(TpsChangedEvent::class)
     }
 }
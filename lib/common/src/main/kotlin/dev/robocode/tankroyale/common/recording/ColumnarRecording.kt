@@ -0,0 +1,232 @@
+package dev.robocode.tankroyale.common.recording
+
+import java.io.ByteArrayInputStream
+import java.io.Closeable
+import java.io.DataInputStream
+import java.io.File
+import java.io.IOException
+import java.nio.ByteBuffer
+import java.nio.MappedByteBuffer
+import java.nio.channels.FileChannel
+import java.nio.file.StandardOpenOption
+import java.util.zip.Inflater
+
+/**
+ * Columnar recording written by a [ColumnarRecordingWriter], which is memory-mapped, and read by scanning the columns
+ * of its tables, e.g. for computing aggregates over a large number of recordings, without decoding any messages:
+ *
+ * ```
+ * ColumnarRecording.open(file).use { recording ->
+ *     val speeds = recording.table(ColumnarRecording.BOTS).doubleColumn("speed")
+ *     println("Average speed: ${speeds.average()}")
+ * }
+ * ```
+ *
+ * The tables of recordings made by the recorder are [BOTS], [BULLETS], and [EVENTS].
+ */
+class ColumnarRecording private constructor(
+    /** Tables of the recording by name */
+    val tables: Map<String, Table>,
+    /** String dictionary, where a code stored in an integer column is the index of a string, e.g. an event type */
+    val dictionary: List<String>,
+) : Closeable {
+
+    companion object {
+        /** Table with the state of each bot in each turn */
+        const val BOTS = "bots"
+
+        /** Table with the state of each bullet in each turn */
+        const val BULLETS = "bullets"
+
+        /**
+         * Table with the events of each turn, where the `type` column holds the code of the event type in the
+         * [dictionary]. Columns that do not apply to an event type hold -1 or NaN.
+         */
+        const val EVENTS = "events"
+
+        /** Columns of the [BOTS] table */
+        val BOT_COLUMNS = listOf(
+            Column.int("roundNumber"), Column.int("turnNumber"), Column.int("botId"),
+            Column.double("energy"), Column.double("x"), Column.double("y"),
+            Column.double("direction"), Column.double("gunDirection"), Column.double("radarDirection"),
+            Column.double("radarSweep"), Column.double("speed"), Column.double("turnRate"),
+            Column.double("gunTurnRate"), Column.double("radarTurnRate"), Column.double("gunHeat"),
+            Column.int("enemyCount"),
+        )
+
+        /** Columns of the [BULLETS] table */
+        val BULLET_COLUMNS = listOf(
+            Column.int("roundNumber"), Column.int("turnNumber"), Column.int("bulletId"), Column.int("ownerId"),
+            Column.double("power"), Column.double("x"), Column.double("y"), Column.double("direction"),
+        )
+
+        /**
+         * Columns of the [EVENTS] table, where `botId` is the bot causing the event, e.g. the owner of a bullet or the
+         * victim of a death, `otherBotId` is the bot the event happened to, e.g. the victim of a bullet hit or a
+         * scanned bot, and `value` is the bullet power, the damage of a bullet hit, or the speed of a scanned bot.
+         */
+        val EVENT_COLUMNS = listOf(
+            Column.int("roundNumber"), Column.int("turnNumber"), Column.int("type"),
+            Column.int("botId"), Column.int("otherBotId"), Column.int("bulletId"),
+            Column.double("energy"), Column.double("value"), Column.double("x"), Column.double("y"),
+        )
+
+        /**
+         * Opens a columnar recording by memory-mapping the file.
+         * @param file is the recording file.
+         * @return the recording, which must be closed after use.
+         * @throws IOException if the file is not a columnar recording.
+         */
+        fun open(file: File): ColumnarRecording {
+            val buffer = FileChannel.open(file.toPath(), StandardOpenOption.READ).use {
+                if (it.size() > Int.MAX_VALUE) throw IOException("Recording is too large to be mapped: $file")
+                it.map(FileChannel.MapMode.READ_ONLY, 0, it.size())
+            }
+            return read(buffer, file)
+        }
+
+        private fun read(buffer: MappedByteBuffer, file: File): ColumnarRecording {
+            val magic = ColumnarRecordingWriter.MAGIC
+            val trailerSize = 8 + magic.size
+            if (buffer.capacity() < magic.size + trailerSize || !hasMagic(buffer, 0) ||
+                !hasMagic(buffer, buffer.capacity() - magic.size)
+            ) {
+                throw IOException("Not a columnar recording: $file")
+            }
+            val footerOffset = buffer.getLong(buffer.capacity() - trailerSize).toInt()
+            val footer = ByteArray(buffer.capacity() - trailerSize - footerOffset)
+            buffer.slice().position(footerOffset).get(footer)
+
+            DataInputStream(ByteArrayInputStream(footer)).run {
+                val tables = (0 until readInt()).map {
+                    val name = readUTF()
+                    val columns = (0 until readInt()).map {
+                        val columnName = readUTF()
+                        val code = readByte().toInt().toChar()
+                        Column(columnName, ColumnType.entries.first { it.code == code })
+                    }
+                    val rowGroups = (0 until readInt()).map {
+                        val rowCount = readInt()
+                        RowGroup(rowCount, columns.map { Block(readLong(), readInt()) })
+                    }
+                    name to Table(buffer, name, columns, rowGroups)
+                }.toMap()
+                val dictionary = (0 until readInt()).map { readUTF() }
+                return ColumnarRecording(tables, dictionary)
+            }
+        }
+
+        private fun hasMagic(buffer: ByteBuffer, index: Int): Boolean =
+            ColumnarRecordingWriter.MAGIC.indices.all { buffer.get(index + it) == ColumnarRecordingWriter.MAGIC[it] }
+    }
+
+    /** Type of the values of a column */
+    enum class ColumnType(internal val code: Char, internal val size: Int) {
+        INT('I', 4),
+        DOUBLE('D', 8),
+    }
+
+    /**
+     * Column of a table.
+     * @param name is the name of the column.
+     * @param type is the type of the values of the column.
+     */
+    class Column(val name: String, val type: ColumnType) {
+        companion object {
+            fun int(name: String) = Column(name, ColumnType.INT)
+            fun double(name: String) = Column(name, ColumnType.DOUBLE)
+        }
+    }
+
+    internal class Block(val offset: Long, val length: Int)
+
+    internal class RowGroup(val rowCount: Int, val blocks: List<Block>)
+
+    /**
+     * Table of a columnar recording.
+     * @param name is the name of the table.
+     * @param columns is the columns of the table.
+     */
+    class Table internal constructor(
+        private val buffer: ByteBuffer,
+        val name: String,
+        val columns: List<Column>,
+        private val rowGroups: List<RowGroup>,
+    ) {
+        /** Number of rows of the table */
+        val rowCount: Int = rowGroups.sumOf { it.rowCount }
+
+        /**
+         * Reads the values of an integer column.
+         * @param name is the name of the column.
+         * @return the values of all rows.
+         */
+        fun intColumn(name: String): IntArray {
+            val values = IntArray(rowCount)
+            var row = 0
+            forEachBlock(name, ColumnType.INT) { bytes, rowGroup ->
+                bytes.asIntBuffer().get(values, row, rowGroup.rowCount)
+                row += rowGroup.rowCount
+            }
+            return values
+        }
+
+        /**
+         * Reads the values of a double column.
+         * @param name is the name of the column.
+         * @return the values of all rows.
+         */
+        fun doubleColumn(name: String): DoubleArray {
+            val values = DoubleArray(rowCount)
+            var row = 0
+            forEachBlock(name, ColumnType.DOUBLE) { bytes, rowGroup ->
+                bytes.asDoubleBuffer().get(values, row, rowGroup.rowCount)
+                row += rowGroup.rowCount
+            }
+            return values
+        }
+
+        private fun forEachBlock(name: String, type: ColumnType, action: (ByteBuffer, RowGroup) -> Unit) {
+            val columnIndex = columns.indexOfFirst { it.name == name }
+            require(columnIndex >= 0) { "Table ${this.name} has no column $name" }
+            require(columns[columnIndex].type == type) { "Column $name of table ${this.name} is not of type $type" }
+
+            val inflater = Inflater()
+            try {
+                rowGroups.forEach { rowGroup ->
+                    val block = rowGroup.blocks[columnIndex]
+                    val bytes = ByteArray(rowGroup.rowCount * type.size)
+                    inflater.reset()
+                    val start = block.offset.toInt()
+                    inflater.setInput(buffer.slice().position(start).limit(start + block.length))
+                    var length = 0
+                    while (length < bytes.size && !inflater.finished()) {
+                        length += inflater.inflate(bytes, length, bytes.size - length)
+                    }
+                    if (length < bytes.size) throw IOException("Column $name of table ${this.name} is truncated")
+                    action(ByteBuffer.wrap(bytes), rowGroup)
+                }
+            } finally {
+                inflater.end()
+            }
+        }
+    }
+
+    /**
+     * Returns a table of the recording.
+     * @param name is the name of the table.
+     * @return the table.
+     */
+    fun table(name: String): Table = tables[name] ?: throw NoSuchElementException("Recording has no table $name")
+
+    /**
+     * Returns the code of a string in the [dictionary], e.g. for filtering the `type` column of the [EVENTS] table.
+     * @param value is the string.
+     * @return the code, or -1 if the string is not in the dictionary.
+     */
+    fun code(value: String): Int = dictionary.indexOf(value)
+
+    override fun close() {
+        // The mapping is released when the buffer is garbage collected, as Java has no API for unmapping it
+    }
+}
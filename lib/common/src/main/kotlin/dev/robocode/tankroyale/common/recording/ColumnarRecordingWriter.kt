@@ -0,0 +1,185 @@
+package dev.robocode.tankroyale.common.recording
+
+import dev.robocode.tankroyale.common.recording.ColumnarRecording.ColumnType.DOUBLE
+import dev.robocode.tankroyale.common.recording.ColumnarRecording.ColumnType.INT
+import java.io.ByteArrayOutputStream
+import java.io.Closeable
+import java.io.DataOutputStream
+import java.io.OutputStream
+import java.nio.ByteBuffer
+import java.util.zip.Deflater
+
+/**
+ * Writer of columnar recordings, which store the rows of the tables of a recording, e.g. the bot states of each turn,
+ * as compressed columns of primitive values, so aggregates can be computed by scanning a few columns with a
+ * [ColumnarRecording] instead of decoding the JSON of every tick.
+ *
+ * Layout of the file, where all numbers are big-endian:
+ * - The magic `RTCOLS1\n`.
+ * - The blocks of the columns, where the rows of a table are split into row groups, and each column of a row group is
+ *   a deflate compressed block of 4-byte integers or 8-byte doubles.
+ * - The footer with the tables, their columns, the offset and length of each block, and a string dictionary.
+ * - The offset of the footer as an 8-byte integer, followed by the magic.
+ *
+ * @param output is the output stream of the recording, which should be buffered.
+ */
+class ColumnarRecordingWriter(private val output: OutputStream) : Closeable {
+
+    companion object {
+        /** Maximum number of rows of a table that are buffered before they are written as a row group */
+        const val ROW_GROUP_SIZE = 64 * 1024
+
+        internal val MAGIC = "RTCOLS1\n".toByteArray(Charsets.US_ASCII)
+    }
+
+    private val deflater = Deflater(Deflater.DEFAULT_COMPRESSION)
+    private val buffer = ByteArray(64 * 1024)
+
+    /** Number of bytes written to the output */
+    private var offset = 0L
+
+    private val tables = mutableListOf<TableWriter>()
+    private val dictionary = LinkedHashMap<String, Int>()
+
+    private var isClosed = false
+
+    init {
+        writeOutput(MAGIC)
+    }
+
+    /**
+     * Adds a table to the recording.
+     * @param name is the name of the table.
+     * @param columns is the columns of the table.
+     * @return the writer of the rows of the table.
+     */
+    fun table(name: String, columns: List<ColumnarRecording.Column>): TableWriter {
+        require(tables.none { it.name == name }) { "Table $name is already added" }
+        return TableWriter(name, columns).also { tables += it }
+    }
+
+    /**
+     * Returns the code of a string in the string dictionary of the recording, which is stored as an integer column.
+     * @param value is the string, e.g. an event type.
+     * @return the code, which is the index of the string in [ColumnarRecording.dictionary].
+     */
+    fun code(value: String): Int = dictionary.getOrPut(value) { dictionary.size }
+
+    /** Writes the buffered rows and the footer, and closes the output. */
+    override fun close() {
+        if (isClosed) return
+        isClosed = true
+        try {
+            tables.forEach { it.flush() }
+            writeFooter()
+        } finally {
+            deflater.end()
+            output.close()
+        }
+    }
+
+    private fun writeFooter() {
+        val footerOffset = offset
+        val footer = ByteArrayOutputStream()
+        DataOutputStream(footer).apply {
+            writeInt(tables.size)
+            tables.forEach { table ->
+                writeUTF(table.name)
+                writeInt(table.columns.size)
+                table.columns.forEach {
+                    writeUTF(it.name)
+                    writeByte(it.type.code.code)
+                }
+                writeInt(table.rowGroups.size)
+                table.rowGroups.forEach { rowGroup ->
+                    writeInt(rowGroup.rowCount)
+                    rowGroup.blocks.forEach {
+                        writeLong(it.offset)
+                        writeInt(it.length)
+                    }
+                }
+            }
+            writeInt(dictionary.size)
+            dictionary.keys.forEach { writeUTF(it) }
+            writeLong(footerOffset)
+            write(MAGIC)
+        }
+        writeOutput(footer.toByteArray())
+    }
+
+    /** Compresses the bytes of a column and writes them as a block. */
+    private fun writeBlock(bytes: ByteArray, length: Int): ColumnarRecording.Block {
+        val blockOffset = offset
+        deflater.reset()
+        deflater.setInput(bytes, 0, length)
+        deflater.finish()
+        while (!deflater.finished()) {
+            writeOutput(buffer, deflater.deflate(buffer))
+        }
+        return ColumnarRecording.Block(blockOffset, (offset - blockOffset).toInt())
+    }
+
+    private fun writeOutput(bytes: ByteArray, length: Int = bytes.size) {
+        output.write(bytes, 0, length)
+        offset += length
+    }
+
+    /**
+     * Writer of the rows of a table, where the values of a row are appended in the order of the columns, followed by
+     * [endRow].
+     */
+    inner class TableWriter internal constructor(val name: String, val columns: List<ColumnarRecording.Column>) {
+
+        internal val rowGroups = mutableListOf<ColumnarRecording.RowGroup>()
+
+        private val ints = Array(columns.size) { if (columns[it].type == INT) IntArray(16) else null }
+        private val doubles = Array(columns.size) { if (columns[it].type == DOUBLE) DoubleArray(16) else null }
+
+        private var rowCount = 0
+        private var columnIndex = 0
+
+        /** Appends the integer value of the next column of the row. */
+        fun int(value: Int) {
+            val column = ints[nextColumn(INT)]!!
+            if (rowCount == column.size) ints[columnIndex] = column.copyOf(rowCount * 2)
+            ints[columnIndex++]!![rowCount] = value
+        }
+
+        /** Appends the double value of the next column of the row. */
+        fun double(value: Double) {
+            val column = doubles[nextColumn(DOUBLE)]!!
+            if (rowCount == column.size) doubles[columnIndex] = column.copyOf(rowCount * 2)
+            doubles[columnIndex++]!![rowCount] = value
+        }
+
+        /** Ends the row, when the values of all columns have been appended. */
+        fun endRow() {
+            check(columnIndex == columns.size) { "Row of table $name has ${columns.size} columns, not $columnIndex" }
+            columnIndex = 0
+            if (++rowCount == ROW_GROUP_SIZE) flush()
+        }
+
+        private fun nextColumn(type: ColumnarRecording.ColumnType): Int {
+            check(!isClosed) { "Recording is closed" }
+            check(columnIndex < columns.size && columns[columnIndex].type == type) {
+                "Column $columnIndex of table $name is not of type $type"
+            }
+            return columnIndex
+        }
+
+        /** Writes the buffered rows as a row group. */
+        internal fun flush() {
+            check(columnIndex == 0) { "Row of table $name is not ended" }
+            if (rowCount == 0) return
+
+            val blocks = columns.indices.map { index ->
+                val bytes = ByteBuffer.allocate(rowCount * columns[index].type.size)
+                ints[index]?.let { bytes.asIntBuffer().put(it, 0, rowCount) }
+                doubles[index]?.let { bytes.asDoubleBuffer().put(it, 0, rowCount) }
+                writeBlock(bytes.array(), bytes.capacity())
+            }
+            rowGroups += ColumnarRecording.RowGroup(rowCount, blocks)
+            rowCount = 0
+        }
+    }
+}
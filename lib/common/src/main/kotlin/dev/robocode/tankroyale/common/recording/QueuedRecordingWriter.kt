@@ -0,0 +1,115 @@
+package dev.robocode.tankroyale.common.recording
+
+import org.slf4j.LoggerFactory
+import java.io.Closeable
+import java.io.File
+import java.util.concurrent.ArrayBlockingQueue
+
+/**
+ * Writer of a recording, where the messages are written to the output by a writer thread behind a bounded queue. The
+ * compression and disk I/O are done by the writer thread, so writing a message only waits for the writer thread when
+ * the queue is full. No messages are dropped, except for the messages written after the writer has been closed.
+ *
+ * Writing a message and closing the writer hold the same lock, so a message is either queued before the end of the
+ * messages, and hence written to the output, or ignored as the writer has been closed.
+ *
+ * @param file is the file of the recording, which is used for logging errors.
+ * @param output is the output of the recording, which is closed by the writer thread when the writer is closed.
+ * @param threadName is the name of the writer thread.
+ * @param queueCapacity is the maximum number of messages waiting to be written.
+ * @param writeMessage writes a message and its type to the output, and is called on the writer thread only.
+ */
+class QueuedRecordingWriter(
+    private val file: File,
+    private val output: Closeable,
+    threadName: String,
+    queueCapacity: Int = DEFAULT_QUEUE_CAPACITY,
+    private val writeMessage: (message: String, type: String?) -> Unit,
+) : AutoCloseable {
+
+    companion object {
+        /** Default maximum number of messages waiting to be written */
+        const val DEFAULT_QUEUE_CAPACITY = 1024
+
+        /** Marks the end of the messages in the queue */
+        private val END_OF_MESSAGES = QueuedMessage("", null)
+    }
+
+    private val log = LoggerFactory.getLogger(this::class.java)
+
+    private val queue = ArrayBlockingQueue<QueuedMessage>(queueCapacity)
+    private val writerThread: Thread
+
+    /** Lock for queueing messages, which is also held when the end of the messages is queued */
+    private val lock = Any()
+
+    private var isClosed = false
+
+    init {
+        writerThread = Thread(::writeMessages, threadName).apply {
+            isDaemon = true
+            start()
+        }
+    }
+
+    /**
+     * Queues a message to be written by the writer thread.
+     * @param message is the message.
+     * @param type is the type of the message.
+     * @return `true` if the message was queued; `false` if the writer has been closed.
+     */
+    fun write(message: String, type: String?): Boolean {
+        synchronized(lock) {
+            if (isClosed) return false
+            val queuedMessage = QueuedMessage(message, type)
+            if (!queue.offer(queuedMessage)) {
+                log.debug("Recording queue is full. Waiting for the writer.")
+                // The writer thread takes messages until the end of the messages, which cannot be queued meanwhile
+                queue.put(queuedMessage)
+            }
+            return true
+        }
+    }
+
+    /** Writes the queued messages until the end of the messages, where the output is closed. */
+    private fun writeMessages() {
+        val messages = ArrayList<QueuedMessage>(queue.remainingCapacity())
+        var isFailed = false
+        try {
+            while (true) {
+                messages += queue.take()
+                queue.drainTo(messages)
+                for (message in messages) {
+                    if (message === END_OF_MESSAGES) return
+                    // After a failure, messages are still taken, so writing a message does not wait for the writer
+                    if (isFailed) continue
+                    try {
+                        writeMessage(message.message, message.type)
+                    } catch (e: Exception) {
+                        log.error("Failed to write recording: ${file.absolutePath}", e)
+                        isFailed = true
+                    }
+                }
+                messages.clear()
+            }
+        } finally {
+            try {
+                output.close()
+            } catch (e: Exception) {
+                log.error("Failed to close recording: ${file.absolutePath}", e)
+            }
+        }
+    }
+
+    /** Writes the messages queued so far and closes the output. */
+    override fun close() {
+        synchronized(lock) {
+            if (isClosed) return
+            isClosed = true
+            queue.put(END_OF_MESSAGES)
+        }
+        writerThread.join()
+    }
+
+    private class QueuedMessage(val message: String, val type: String?)
+}
@@ -0,0 +1,109 @@
+package dev.robocode.tankroyale.common.recording
+
+/**
+ * Index of the chunks of an indexed recording, which is stored in the footer of the recording.
+ *
+ * The ticks of a recording are numbered from 0 in the order they were recorded, which is the tick index used for
+ * seeking. Each tick is a full observer tick, so every chunk starts with a keyframe of the game state.
+ *
+ * @param chunks is the chunks in the order they are stored in the recording.
+ * @param tickCount is the total number of ticks in the recording.
+ * @param deathTickIndexes is the indexes of the ticks with bot deaths in ascending order.
+ * @param roundEndTickIndexes is the indexes of the last ticks of the rounds that have ended in ascending order.
+ */
+class RecordingIndex(
+    val chunks: List<Chunk>,
+    val tickCount: Int,
+    val deathTickIndexes: List<Int> = emptyList(),
+    val roundEndTickIndexes: List<Int> = emptyList(),
+) {
+
+    /**
+     * Chunk of the messages of a recording, which is compressed as an independent gzip member.
+     * @param tickIndex is the index of the first tick of the chunk.
+     * @param roundNumber is the round number of the first tick of the chunk, or -1 if the chunk has no ticks.
+     * @param turnNumber is the turn number of the first tick of the chunk, or -1 if the chunk has no ticks.
+     * @param offset is the byte offset of the chunk in the recording.
+     * @param length is the number of bytes of the chunk.
+     * @param hasOutput is a flag specifying if ticks of the chunk contain standard output or error of bots, which is
+     * accumulated by a player, so only chunks with output must be read to rebuild the output up to a tick.
+     */
+    class Chunk(
+        val tickIndex: Int,
+        val roundNumber: Int,
+        val turnNumber: Int,
+        val offset: Long,
+        val length: Long,
+        val hasOutput: Boolean,
+    )
+
+    /**
+     * Returns the chunk containing a tick.
+     * @param tickIndex is the index of the tick.
+     * @return the index of the last chunk starting at or before the tick.
+     */
+    fun chunkIndexOf(tickIndex: Int): Int {
+        var low = 0
+        var high = chunks.size - 1
+        while (low < high) {
+            val mid = (low + high + 1) ushr 1
+            if (chunks[mid].tickIndex <= tickIndex) low = mid else high = mid - 1
+        }
+        return low
+    }
+
+    /**
+     * Returns the index of the first tick of a turn.
+     * @param roundNumber is the round number.
+     * @param turnNumber is the turn number.
+     * @return the tick index, or -1 if the recording has no chunk in the round starting at or before the turn.
+     */
+    fun tickIndexOf(roundNumber: Int, turnNumber: Int): Int {
+        val chunk = chunks.lastOrNull {
+            it.roundNumber == roundNumber && it.turnNumber in 0..turnNumber
+        } ?: return -1
+        return chunk.tickIndex + (turnNumber - chunk.turnNumber)
+    }
+
+    internal fun encode(): String = buildString {
+        append(HEADER).append(' ').append(chunks.size).append(' ').append(tickCount).append('\n')
+        chunks.forEach {
+            append(it.tickIndex).append(' ').append(it.roundNumber).append(' ').append(it.turnNumber).append(' ')
+            append(it.offset).append(' ').append(it.length).append(' ').append(if (it.hasOutput) 1 else 0)
+            append('\n')
+        }
+        append(DEATHS).append(deathTickIndexes.joinToString("") { " $it" }).append('\n')
+        append(ROUND_ENDS).append(roundEndTickIndexes.joinToString("") { " $it" }).append('\n')
+    }
+
+    internal companion object {
+        private const val HEADER = "robocode-tankroyale-recording-index 1"
+        private const val DEATHS = "deaths"
+        private const val ROUND_ENDS = "round-ends"
+
+        fun decode(text: String): RecordingIndex? {
+            val lines = text.split('\n').filter { it.isNotEmpty() }
+            val header = lines.firstOrNull() ?: return null
+            if (!header.startsWith("$HEADER ")) return null
+            val (chunkCount, tickCount) = header.substring(HEADER.length + 1).split(' ').map { it.toInt() }
+
+            val chunks = lines.drop(1).take(chunkCount).map { line ->
+                val fields = line.split(' ')
+                Chunk(
+                    tickIndex = fields[0].toInt(),
+                    roundNumber = fields[1].toInt(),
+                    turnNumber = fields[2].toInt(),
+                    offset = fields[3].toLong(),
+                    length = fields[4].toLong(),
+                    hasOutput = fields[5] == "1",
+                )
+            }
+            if (chunks.size != chunkCount) return null
+
+            fun tickIndexes(name: String) = lines.drop(1 + chunkCount).firstOrNull { it.startsWith(name) }
+                ?.substring(name.length)?.split(' ')?.filter { it.isNotEmpty() }?.map { it.toInt() } ?: emptyList()
+
+            return RecordingIndex(chunks, tickCount, tickIndexes(DEATHS), tickIndexes(ROUND_ENDS))
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package dev.robocode.tankroyale.common.recording
+
+import dev.robocode.tankroyale.common.recording.RecordingWriter.Companion.EMPTY_DEFLATE_STREAM
+import dev.robocode.tankroyale.common.recording.RecordingWriter.Companion.FOOTER_MAGIC
+import dev.robocode.tankroyale.common.recording.RecordingWriter.Companion.FOOTER_OFFSET_DIGITS
+import dev.robocode.tankroyale.common.recording.RecordingWriter.Companion.FOOTER_TAIL_SIZE
+import dev.robocode.tankroyale.common.recording.RecordingWriter.Companion.GZIP_FLAG_COMMENT
+import dev.robocode.tankroyale.common.recording.RecordingWriter.Companion.GZIP_MAGIC
+import java.io.BufferedReader
+import java.io.ByteArrayInputStream
+import java.io.File
+import java.io.InputStream
+import java.io.RandomAccessFile
+import java.util.zip.GZIPInputStream
+
+/**
+ * Reader of recordings, which reads both indexed recordings written by [RecordingWriter], and recordings that are a
+ * single gzip stream or plain text of ND-JSON.
+ *
+ * @param file is the recording file.
+ */
+class RecordingReader(private val file: File) {
+
+    /** Index of the recording, which is null if the recording is not indexed */
+    val index: RecordingIndex? = readIndex()
+
+    /**
+     * Reads all lines of the recording.
+     * @param action is called with each line that is not blank.
+     */
+    fun forEachLine(action: (String) -> Unit) {
+        openReader().useLines { lines ->
+            lines.filter { it.isNotBlank() }.forEach(action)
+        }
+    }
+
+    /**
+     * Opens a reader of the lines of the recording from the start of the recording.
+     * @return the reader, which must be closed by the caller.
+     */
+    fun openReader(): BufferedReader = openStream().bufferedReader()
+
+    /**
+     * Reads the lines of a chunk of an indexed recording.
+     * @param chunk is the chunk from the [index] of the recording.
+     * @return the lines of the chunk that are not blank.
+     */
+    fun readChunk(chunk: RecordingIndex.Chunk): List<String> {
+        val bytes = ByteArray(chunk.length.toInt())
+        RandomAccessFile(file, "r").use {
+            it.seek(chunk.offset)
+            it.readFully(bytes)
+        }
+        return GZIPInputStream(ByteArrayInputStream(bytes)).bufferedReader().use { reader ->
+            reader.readLines().filter { it.isNotBlank() }
+        }
+    }
+
+    private fun openStream(): InputStream {
+        val isGzip = file.inputStream().use { it.read() == 0x1f && it.read() == 0x8b }
+        return if (isGzip) GZIPInputStream(file.inputStream(), 64 * 1024) else file.inputStream()
+    }
+
+    /** Reads the index from the footer at the end of the file, if the file is an indexed recording. */
+    private fun readIndex(): RecordingIndex? {
+        if (!file.isFile || file.length() < FOOTER_TAIL_SIZE + 10) return null
+
+        return RandomAccessFile(file, "r").use { raf ->
+            val tail = ByteArray(FOOTER_TAIL_SIZE)
+            raf.seek(file.length() - FOOTER_TAIL_SIZE)
+            raf.readFully(tail)
+
+            val magicIndex = FOOTER_OFFSET_DIGITS
+            val terminatorIndex = magicIndex + FOOTER_MAGIC.length
+            val isFooter = String(tail, magicIndex, FOOTER_MAGIC.length, Charsets.ISO_8859_1) == FOOTER_MAGIC &&
+                    tail[terminatorIndex] == 0.toByte() &&
+                    tail[terminatorIndex + 1] == EMPTY_DEFLATE_STREAM[0] &&
+                    tail[terminatorIndex + 2] == EMPTY_DEFLATE_STREAM[1]
+            if (!isFooter) return null
+
+            val footerOffset = String(tail, 0, FOOTER_OFFSET_DIGITS, Charsets.ISO_8859_1).toLongOrNull()
+                ?: return null
+            val commentOffset = footerOffset + 10
+            val commentLength = file.length() - FOOTER_TAIL_SIZE - commentOffset
+            if (footerOffset < 0 || commentLength < 0 || commentLength > Int.MAX_VALUE) return null
+
+            val header = ByteArray(10)
+            raf.seek(footerOffset)
+            raf.readFully(header)
+            if (header[0] != GZIP_MAGIC[0] || header[1] != GZIP_MAGIC[1] || header[3] != GZIP_FLAG_COMMENT) {
+                return null
+            }
+            val comment = ByteArray(commentLength.toInt())
+            raf.readFully(comment)
+            RecordingIndex.decode(String(comment, Charsets.ISO_8859_1))
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package dev.robocode.tankroyale.common.recording
+
+import dev.robocode.tankroyale.common.util.JsonScanner
+import java.io.Closeable
+import java.io.OutputStream
+import java.util.zip.CRC32
+import java.util.zip.Deflater
+
+/**
+ * Writer of indexed recordings, which are gzip compressed ND-JSON files, where the messages are split into chunks that
+ * are compressed as independent gzip members, followed by a footer with the [RecordingIndex] of the chunks.
+ *
+ * A chunk holds a number of ticks, and a new chunk is started at each new round. The index also holds the ticks with
+ * bot deaths and the ends of the rounds, so a player can show them without reading the chunks.
+ *
+ * The footer is an empty gzip member, where the index is stored as the comment of the gzip header. Hence, an indexed
+ * recording is still a valid gzip file, which reads as the same ND-JSON as a recording that is not indexed, e.g. by the
+ * `GZIPInputStream` of Java.
+ *
+ * The layout of the end of the footer is fixed, so the index is found by reading the end of the file, see
+ * [RecordingReader].
+ *
+ * @param output is the output stream of the recording, which should be buffered.
+ * @param ticksPerChunk is the maximum number of ticks per chunk.
+ */
+class RecordingWriter(
+    private val output: OutputStream,
+    private val ticksPerChunk: Int = DEFAULT_TICKS_PER_CHUNK,
+) : Closeable {
+
+    companion object {
+        /** Default maximum number of ticks per chunk */
+        const val DEFAULT_TICKS_PER_CHUNK = 100
+
+        /** Type of the tick messages, which are counted and indexed */
+        const val TICK_EVENT_TYPE = "TickEventForObserver"
+
+        /** Type of the messages starting a new round */
+        const val ROUND_STARTED_EVENT_TYPE = "RoundStartedEvent"
+
+        /** Type of the messages ending a round */
+        const val ROUND_ENDED_EVENT_TYPE = "RoundEndedEventForObserver"
+
+        internal const val FOOTER_MAGIC = "RTI1"
+
+        /** Number of digits of the offset of the footer, which is written before the magic */
+        internal const val FOOTER_OFFSET_DIGITS = 19
+
+        /** Number of bytes of the end of the footer: offset, magic, comment terminator, empty deflate block, trailer */
+        internal const val FOOTER_TAIL_SIZE = FOOTER_OFFSET_DIGITS + 4 + 1 + 2 + 8
+
+        internal val GZIP_MAGIC = byteArrayOf(0x1f, 0x8b.toByte())
+        internal const val GZIP_DEFLATE: Byte = 8
+        internal const val GZIP_FLAG_COMMENT: Byte = 0x10
+
+        /** Deflate stream with a single, final, empty block */
+        internal val EMPTY_DEFLATE_STREAM = byteArrayOf(0x03, 0x00)
+
+        private val LINE_SEPARATOR = byteArrayOf('\n'.code.toByte())
+
+        private const val BUFFER_SIZE = 64 * 1024
+    }
+
+    private val deflater = Deflater(Deflater.DEFAULT_COMPRESSION, true)
+    private val crc = CRC32()
+    private val buffer = ByteArray(BUFFER_SIZE)
+
+    /** Number of bytes written to the output */
+    private var offset = 0L
+
+    private val chunks = mutableListOf<RecordingIndex.Chunk>()
+    private var tickCount = 0
+    private val deathTickIndexes = mutableListOf<Int>()
+    private val roundEndTickIndexes = mutableListOf<Int>()
+
+    private var isChunkStarted = false
+    private var chunkOffset = 0L
+    private var chunkTickIndex = 0
+    private var chunkTickCount = 0
+    private var chunkRoundNumber = -1
+    private var chunkTurnNumber = -1
+    private var chunkHasOutput = false
+    private var chunkSize = 0L
+
+    /** Flag set when a round is started after the last tick of the current chunk */
+    private var isRoundStarted = false
+
+    private var isClosed = false
+
+    /**
+     * Writes a message as a line of the recording.
+     * @param message is the JSON message, which must be on a single line.
+     * @param type is the type of the message.
+     */
+    fun write(message: String, type: String?) {
+        check(!isClosed) { "Recording is closed" }
+
+        val isTick = type == TICK_EVENT_TYPE
+        if (isTick && chunkTickCount > 0 && (chunkTickCount >= ticksPerChunk || isRoundStarted)) {
+            finishChunk()
+        }
+        if (!isChunkStarted) startChunk()
+
+        if (isTick) {
+            if (chunkTickCount == 0) {
+                chunkRoundNumber = JsonScanner.intField(message, "roundNumber") ?: -1
+                chunkTurnNumber = JsonScanner.intField(message, "turnNumber") ?: -1
+            }
+            if (!chunkHasOutput) {
+                chunkHasOutput = message.contains("\"stdOut\"") || message.contains("\"stdErr\"")
+            }
+            if (message.contains("\"BotDeathEvent\"")) {
+                deathTickIndexes += tickCount
+            }
+            chunkTickCount++
+            tickCount++
+        } else if (type == ROUND_STARTED_EVENT_TYPE && chunkTickCount > 0) {
+            isRoundStarted = true
+        } else if (type == ROUND_ENDED_EVENT_TYPE && tickCount > 0) {
+            roundEndTickIndexes += tickCount - 1
+        }
+
+        val bytes = message.toByteArray(Charsets.UTF_8)
+        deflate(bytes)
+        deflate(LINE_SEPARATOR)
+    }
+
+    /** Finishes the last chunk, writes the footer with the index, and closes the output. */
+    override fun close() {
+        if (isClosed) return
+        isClosed = true
+        try {
+            if (isChunkStarted) finishChunk()
+            writeFooter()
+        } finally {
+            deflater.end()
+            output.close()
+        }
+    }
+
+    private fun startChunk() {
+        isChunkStarted = true
+        chunkOffset = offset
+        chunkTickIndex = tickCount
+        chunkTickCount = 0
+        chunkRoundNumber = -1
+        chunkTurnNumber = -1
+        chunkHasOutput = false
+        chunkSize = 0
+        isRoundStarted = false
+
+        deflater.reset()
+        crc.reset()
+        writeHeader(0)
+    }
+
+    private fun finishChunk() {
+        deflater.finish()
+        while (!deflater.finished()) {
+            writeOutput(buffer, deflater.deflate(buffer, 0, buffer.size, Deflater.NO_FLUSH))
+        }
+        writeTrailer(crc.value, chunkSize)
+
+        chunks += RecordingIndex.Chunk(
+            chunkTickIndex, chunkRoundNumber, chunkTurnNumber, chunkOffset, offset - chunkOffset, chunkHasOutput
+        )
+        isChunkStarted = false
+    }
+
+    private fun deflate(bytes: ByteArray) {
+        crc.update(bytes)
+        chunkSize += bytes.size
+        deflater.setInput(bytes)
+        while (!deflater.needsInput()) {
+            writeOutput(buffer, deflater.deflate(buffer, 0, buffer.size, Deflater.NO_FLUSH))
+        }
+    }
+
+    private fun writeFooter() {
+        val footerOffset = offset
+        val index = RecordingIndex(chunks, tickCount, deathTickIndexes, roundEndTickIndexes)
+
+        writeHeader(GZIP_FLAG_COMMENT)
+        val comment = index.encode() + footerOffset.toString().padStart(FOOTER_OFFSET_DIGITS, '0') + FOOTER_MAGIC
+        writeOutput(comment.toByteArray(Charsets.ISO_8859_1))
+        writeOutput(byteArrayOf(0)) // comment terminator
+        writeOutput(EMPTY_DEFLATE_STREAM)
+        writeTrailer(0, 0) // the CRC and size of no data are 0
+    }
+
+    private fun writeHeader(flags: Byte) {
+        // magic, compression method, flags, modification time (none), extra flags, operating system (unknown)
+        writeOutput(byteArrayOf(GZIP_MAGIC[0], GZIP_MAGIC[1], GZIP_DEFLATE, flags, 0, 0, 0, 0, 0, -1))
+    }
+
+    private fun writeTrailer(crc: Long, size: Long) {
+        val trailer = ByteArray(8)
+        writeIntLE(trailer, 0, crc)
+        writeIntLE(trailer, 4, size) // the size is stored modulo 2^32
+        writeOutput(trailer)
+    }
+
+    private fun writeIntLE(bytes: ByteArray, index: Int, value: Long) {
+        for (i in 0 until 4) {
+            bytes[index + i] = (value ushr (8 * i)).toByte()
+        }
+    }
+
+    private fun writeOutput(bytes: ByteArray, length: Int = bytes.size) {
+        output.write(bytes, 0, length)
+        offset += length
+    }
+}
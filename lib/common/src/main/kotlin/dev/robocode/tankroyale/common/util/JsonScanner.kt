@@ -0,0 +1,90 @@
+package dev.robocode.tankroyale.common.util
+
+/**
+ * Scanner of the fields of the top-level object of JSON messages, which finds a field by scanning the nesting and
+ * strings of a message, instead of parsing the message into JSON elements.
+ */
+object JsonScanner {
+
+    /**
+     * Returns the value of a string field of the top-level JSON object of a message.
+     * @param json is the JSON message.
+     * @param name is the name of the field.
+     * @return the string value, or null if the message is not an object with the field holding a string without
+     * escapes.
+     */
+    fun stringField(json: String, name: String): String? {
+        val valueIndex = valueIndexOf(json, name)
+        if (valueIndex < 0 || json[valueIndex] != '"') return null
+        val end = endOfString(json, valueIndex)
+        if (end < 0) return null
+        val value = json.substring(valueIndex + 1, end)
+        return if (value.contains('\\')) null else value // escaped values are left to a JSON parser
+    }
+
+    /**
+     * Returns the value of an integer field of the top-level JSON object of a message.
+     * @param json is the JSON message.
+     * @param name is the name of the field.
+     * @return the integer value, or null if the message is not an object with the field holding an integer.
+     */
+    fun intField(json: String, name: String): Int? {
+        val valueIndex = valueIndexOf(json, name)
+        if (valueIndex < 0) return null
+        var end = valueIndex
+        if (end < json.length && json[end] == '-') end++
+        while (end < json.length && json[end].isDigit()) end++
+        return json.substring(valueIndex, end).toIntOrNull()
+    }
+
+    /** Returns the index of the value of a field of the top-level object, or -1 if the field is not found. */
+    private fun valueIndexOf(json: String, name: String): Int {
+        var index = skipWhitespace(json, 0)
+        if (index >= json.length || json[index] != '{') return -1
+
+        var depth = 0
+        while (index < json.length) {
+            when (json[index]) {
+                '{', '[' -> depth++
+                '}', ']' -> if (--depth <= 0) return -1
+                '"' -> {
+                    val end = endOfString(json, index)
+                    if (end < 0) return -1
+
+                    // A string at the top level followed by a colon is a field name
+                    if (depth == 1 && end - index - 1 == name.length &&
+                        json.regionMatches(index + 1, name, 0, name.length)
+                    ) {
+                        val colon = skipWhitespace(json, end + 1)
+                        if (colon < json.length && json[colon] == ':') {
+                            val valueIndex = skipWhitespace(json, colon + 1)
+                            return if (valueIndex < json.length) valueIndex else -1
+                        }
+                    }
+                    index = end
+                }
+            }
+            index++
+        }
+        return -1
+    }
+
+    private fun skipWhitespace(json: String, fromIndex: Int): Int {
+        var index = fromIndex
+        while (index < json.length && json[index].isWhitespace()) index++
+        return index
+    }
+
+    /** Returns the index of the closing quote of the string starting at a quote, or -1 if the string is not closed. */
+    private fun endOfString(json: String, quoteIndex: Int): Int {
+        var index = quoteIndex + 1
+        while (index < json.length) {
+            when (json[index]) {
+                '\\' -> index += 2
+                '"' -> return index
+                else -> index++
+            }
+        }
+        return -1
+    }
+}
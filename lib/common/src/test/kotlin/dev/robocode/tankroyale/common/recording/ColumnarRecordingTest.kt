@@ -0,0 +1,76 @@
+package dev.robocode.tankroyale.common.recording
+
+import io.kotest.assertions.throwables.shouldThrow
+import io.kotest.core.spec.style.FunSpec
+import io.kotest.engine.spec.tempfile
+import io.kotest.matchers.collections.shouldContainExactly
+import io.kotest.matchers.shouldBe
+import java.io.File
+import java.io.IOException
+
+class ColumnarRecordingTest : FunSpec({
+
+    val columns = listOf(ColumnarRecording.Column.int("turnNumber"), ColumnarRecording.Column.double("speed"))
+
+    /** Number of rows of the bots table, which is more than a row group, where the bullets table is empty */
+    val rowCount = ColumnarRecordingWriter.ROW_GROUP_SIZE + 10
+
+    fun writeRecording(file: File) {
+        ColumnarRecordingWriter(file.outputStream().buffered()).use { writer ->
+            val table = writer.table("bots", columns)
+            writer.table("bullets", columns)
+            for (row in 0 until rowCount) {
+                table.int(row)
+                table.double(row / 2.0)
+                table.endRow()
+            }
+            writer.code("BotDeathEvent")
+            writer.code("ScannedBotEvent")
+        }
+    }
+
+    test("columns must be read as written across row groups") {
+        val file = tempfile(suffix = ".battle.cols")
+        writeRecording(file)
+
+        ColumnarRecording.open(file).use { recording ->
+            val table = recording.table("bots")
+            table.rowCount shouldBe rowCount
+            table.intColumn("turnNumber").toList() shouldBe (0 until rowCount).toList()
+            table.doubleColumn("speed").toList() shouldBe (0 until rowCount).map { it / 2.0 }
+
+            recording.table("bullets").intColumn("turnNumber").size shouldBe 0
+        }
+    }
+
+    test("codes must be looked up in the dictionary") {
+        val file = tempfile(suffix = ".battle.cols")
+        writeRecording(file)
+
+        ColumnarRecording.open(file).use { recording ->
+            recording.dictionary shouldContainExactly listOf("BotDeathEvent", "ScannedBotEvent")
+            recording.code("ScannedBotEvent") shouldBe 1
+            recording.code("BulletFiredEvent") shouldBe -1
+        }
+    }
+
+    test("values must be appended in the order of the columns") {
+        val file = tempfile(suffix = ".battle.cols")
+        ColumnarRecordingWriter(file.outputStream().buffered()).use { writer ->
+            val table = writer.table("bots", columns)
+
+            shouldThrow<IllegalStateException> { table.double(1.0) }
+            table.int(1)
+            shouldThrow<IllegalStateException> { table.endRow() }
+            table.double(1.0)
+            table.endRow()
+        }
+    }
+
+    test("file that is not a columnar recording must be rejected") {
+        val file = tempfile(suffix = ".battle.cols")
+        file.writeText("""{"type":"GameStartedEventForObserver"}""")
+
+        shouldThrow<IOException> { ColumnarRecording.open(file) }
+    }
+})
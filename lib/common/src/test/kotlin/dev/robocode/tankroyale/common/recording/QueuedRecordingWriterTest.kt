@@ -0,0 +1,81 @@
+package dev.robocode.tankroyale.common.recording
+
+import io.kotest.core.spec.style.FunSpec
+import io.kotest.matchers.collections.shouldBeEmpty
+import io.kotest.matchers.collections.shouldContainExactly
+import io.kotest.matchers.shouldBe
+import java.io.Closeable
+import java.io.File
+import java.util.Collections
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+
+class QueuedRecordingWriterTest : FunSpec({
+
+    /** Output that stores the written messages, and counts down a latch when closed */
+    class Output : Closeable {
+        val messages: MutableList<String> = Collections.synchronizedList(mutableListOf<String>())
+        val closed = CountDownLatch(1)
+
+        fun write(message: String) {
+            messages += message
+        }
+
+        override fun close() {
+            closed.countDown()
+        }
+    }
+
+    test("queued messages must be written in order before the output is closed") {
+        val output = Output()
+        QueuedRecordingWriter(File("test"), output, "Test writer", queueCapacity = 4) { message, _ ->
+            output.write(message)
+        }.use { writer ->
+            for (i in 1..100) writer.write("$i", null) shouldBe true
+        }
+
+        output.closed.count shouldBe 0
+        output.messages shouldContainExactly (1..100).map { "$it" }
+    }
+
+    test("messages written after closing must be ignored") {
+        val output = Output()
+        val writer = QueuedRecordingWriter(File("test"), output, "Test writer") { message, _ -> output.write(message) }
+        writer.close()
+
+        writer.write("1", null) shouldBe false
+        output.messages.shouldBeEmpty()
+    }
+
+    test("messages must either be written or ignored when closing while recording") {
+        val output = Output()
+        val isWriting = CountDownLatch(1)
+        val proceed = CountDownLatch(1)
+        val writer = QueuedRecordingWriter(File("test"), output, "Test writer", queueCapacity = 4) { message, _ ->
+            isWriting.countDown()
+            proceed.await() // the writer thread is slow, so the queue gets full
+            output.write(message)
+        }
+
+        val queued = Collections.synchronizedList(mutableListOf<String>())
+        val recording = Thread {
+            for (i in 1..1000) {
+                if (writer.write("$i", null)) queued += "$i"
+            }
+        }
+        recording.start()
+        isWriting.await(5, TimeUnit.SECONDS) shouldBe true
+
+        val closing = Thread(writer::close)
+        closing.start()
+        proceed.countDown()
+
+        closing.join(5000)
+        recording.join(5000)
+        closing.isAlive shouldBe false
+        recording.isAlive shouldBe false
+
+        output.closed.count shouldBe 0
+        output.messages shouldContainExactly queued
+    }
+})
@@ -0,0 +1,96 @@
+package dev.robocode.tankroyale.common.recording
+
+import io.kotest.core.spec.style.FunSpec
+import io.kotest.engine.spec.tempfile
+import io.kotest.matchers.collections.shouldContainExactly
+import io.kotest.matchers.shouldBe
+import io.kotest.matchers.shouldNotBe
+import java.io.File
+import java.util.zip.GZIPInputStream
+
+class RecordingWriterTest : FunSpec({
+
+    fun tick(round: Int, turn: Int, stdOut: String? = null, isDeath: Boolean = false) =
+        """{"roundNumber":$round,"botStates":[{"id":1${stdOut?.let { ""","stdOut":"$it"""" } ?: ""}}],""" +
+                """"events":[${if (isDeath) """{"victimId":2,"type":"BotDeathEvent"}""" else ""}],""" +
+                """"turnNumber":$turn,"type":"${RecordingWriter.TICK_EVENT_TYPE}"}"""
+
+    /**
+     * Messages of a game with 2 rounds of 25 turns, where the bot writes to standard output in round 2, turn 12, and a
+     * bot dies in turn 5 and at the end of each round.
+     */
+    val messages = buildList {
+        add("""{"type":"GameStartedEventForObserver"}""" to "GameStartedEventForObserver")
+        for (round in 1..2) {
+            val roundStarted = RecordingWriter.ROUND_STARTED_EVENT_TYPE
+            add("""{"roundNumber":$round,"type":"$roundStarted"}""" to roundStarted)
+            for (turn in 1..25) {
+                val stdOut = if (round == 2 && turn == 12) "hello" else null
+                val isDeath = turn == 5 || turn == 25
+                add(tick(round, turn, stdOut, isDeath) to RecordingWriter.TICK_EVENT_TYPE)
+            }
+            val roundEnded = RecordingWriter.ROUND_ENDED_EVENT_TYPE
+            add("""{"roundNumber":$round,"type":"$roundEnded"}""" to roundEnded)
+        }
+        add("""{"type":"GameEndedEventForObserver"}""" to "GameEndedEventForObserver")
+    }
+
+    fun writeRecording(file: File) {
+        RecordingWriter(file.outputStream().buffered(), ticksPerChunk = 10).use { writer ->
+            messages.forEach { (message, type) -> writer.write(message, type) }
+        }
+    }
+
+    test("recording must be readable as a single gzip stream of the messages") {
+        val file = tempfile(suffix = ".battle.gz")
+        writeRecording(file)
+
+        val lines = GZIPInputStream(file.inputStream()).bufferedReader().readLines()
+
+        lines shouldContainExactly messages.map { it.first }
+    }
+
+    test("chunks must hold a number of ticks, and a new chunk must be started at each round") {
+        val file = tempfile(suffix = ".battle.gz")
+        writeRecording(file)
+
+        val index = RecordingReader(file).index
+
+        index shouldNotBe null
+        index!!.tickCount shouldBe 50
+        index.chunks.map { it.tickIndex } shouldContainExactly listOf(0, 10, 20, 25, 35, 45)
+        index.chunks.map { it.roundNumber to it.turnNumber } shouldContainExactly
+                listOf(1 to 1, 1 to 11, 1 to 21, 2 to 1, 2 to 11, 2 to 21)
+        index.chunks.map { it.hasOutput } shouldContainExactly listOf(false, false, false, false, true, false)
+        index.deathTickIndexes shouldContainExactly listOf(4, 24, 29, 49)
+        index.roundEndTickIndexes shouldContainExactly listOf(24, 49)
+    }
+
+    test("chunks must be readable independently, and turns must be found by round and turn number") {
+        val file = tempfile(suffix = ".battle.gz")
+        writeRecording(file)
+
+        val reader = RecordingReader(file)
+        val index = reader.index!!
+        val chunkIndex = index.chunkIndexOf(index.tickIndexOf(2, 12))
+
+        chunkIndex shouldBe 4
+        reader.readChunk(index.chunks[chunkIndex]) shouldContainExactly (11..20).map {
+            tick(2, it, if (it == 12) "hello" else null)
+        }
+        reader.readChunk(index.chunks[0]).first() shouldBe messages.first().first
+        reader.readChunk(index.chunks.last()).last() shouldBe messages.last().first
+    }
+
+    test("recordings that are not indexed must be read without an index") {
+        val file = tempfile(suffix = ".battle")
+        file.writeText(messages.joinToString("\n") { it.first })
+
+        val reader = RecordingReader(file)
+        val lines = mutableListOf<String>()
+        reader.forEachLine { lines += it }
+
+        reader.index shouldBe null
+        lines shouldContainExactly messages.map { it.first }
+    }
+})
@@ -0,0 +1,40 @@
+package dev.robocode.tankroyale.common.util
+
+import io.kotest.core.spec.style.FunSpec
+import io.kotest.matchers.shouldBe
+
+class JsonScannerTest : FunSpec({
+
+    val tick = """{"roundNumber":2,"botStates":[{"id":1,"type":"nested"}],""" +
+            """"events":[{"text":"\"type\":\"fake\"","type":"BotDeathEvent"}],""" +
+            """"turnNumber":-3,"type":"TickEventForObserver"}"""
+
+    test("fields of the top-level object must be found, while nested fields and strings are skipped") {
+        JsonScanner.stringField(tick, "type") shouldBe "TickEventForObserver"
+        JsonScanner.intField(tick, "roundNumber") shouldBe 2
+        JsonScanner.intField(tick, "turnNumber") shouldBe -3
+    }
+
+    test("whitespace between the tokens must be skipped") {
+        val handshake = """ { "name" : "x", "type" :  "ServerHandshake" } """
+
+        JsonScanner.stringField(handshake, "type") shouldBe "ServerHandshake"
+    }
+
+    test("missing fields and fields of other types must not be found") {
+        JsonScanner.stringField("""{"types":"x","value":{"type":"nested"}}""", "type") shouldBe null
+        JsonScanner.stringField("""{"type":1}""", "type") shouldBe null
+        JsonScanner.intField("""{"turnNumber":"1"}""", "turnNumber") shouldBe null
+        JsonScanner.stringField("""["type","x"]""", "type") shouldBe null
+    }
+
+    test("string values with escapes must be left to a JSON parser") {
+        JsonScanner.stringField("""{"type":"Tick\"Event"}""", "type") shouldBe null
+    }
+
+    test("malformed messages must not be scanned beyond their end") {
+        JsonScanner.stringField("""{"type":"unclosed""", "type") shouldBe null
+        JsonScanner.stringField("""{"type""", "type") shouldBe null
+        JsonScanner.stringField("", "type") shouldBe null
+    }
+})
@@ -1,5 +1,7 @@
 package dev.robocode.tankroyale.recorder
 
+import dev.robocode.tankroyale.recorder.core.ColumnarConverter
+import dev.robocode.tankroyale.recorder.core.RecordingFormat
 import dev.robocode.tankroyale.recorder.core.RecordingObserver
 import dev.robocode.tankroyale.recorder.util.VersionFileProvider
 import org.slf4j.LoggerFactory
@@ -16,6 +18,7 @@ fun main(args: Array<String>) {
     cmdLine.apply {
         isSubcommandsCaseInsensitive = true
         isOptionsCaseInsensitive = true
+        isCaseInsensitiveEnumValuesAllowed = true
 
         exitProcess(execute(*args))
     }
@@ -66,6 +69,20 @@ class Recorder : Runnable {
         )
         private var dir: String? = null
 
+        @Option(
+            names = ["-f", "--format"],
+            type = [RecordingFormat::class],
+            description = ["Format of recordings, which is ndjson or columnar (default: ndjson)"]
+        )
+        private var format: RecordingFormat = RecordingFormat.NDJSON
+
+        @Option(
+            names = ["--convert"],
+            arity = "1..*",
+            paramLabel = "<file>",
+            description = ["Convert recordings into the columnar format and exit"]
+        )
+        private var convertFiles: List<File> = emptyList()
     }
 
     private val log = LoggerFactory.getLogger(this::class.java)
@@ -77,6 +94,7 @@ class Recorder : Runnable {
         when {
             isUsageHelpRequested -> cmdLine.usage(System.out)
             isVersionInfoRequested -> cmdLine.printVersionHelp(System.out)
+            convertFiles.isNotEmpty() -> convertRecordings()
             else -> {
                 cmdLine.printVersionHelp(System.out)
                 startExitInputMonitorThread()
@@ -87,6 +105,15 @@ class Recorder : Runnable {
         }
     }
 
+    private fun convertRecordings() {
+        convertFiles.forEach { file ->
+            val name = file.name.removeSuffix(".gz").removeSuffix(".battle")
+            val output = File(dir ?: file.absoluteFile.parent, "$name.${RecordingFormat.COLUMNAR.fileExtension}")
+            log.info("Converting ${file.absolutePath} to ${output.absolutePath}")
+            ColumnarConverter.convert(file, output)
+        }
+    }
+
     private fun startExitInputMonitorThread() {
         Thread {
             monitorStandardInputForExit()
@@ -122,7 +149,7 @@ class Recorder : Runnable {
     }
 
     private fun startRecorder() {
-        recordingObserver = RecordingObserver(url, secret, dir)
+        recordingObserver = RecordingObserver(url, secret, dir, format)
         recordingObserver.start()
         recordingObserver.awaitClose()
     }
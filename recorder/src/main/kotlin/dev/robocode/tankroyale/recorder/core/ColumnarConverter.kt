@@ -0,0 +1,181 @@
+package dev.robocode.tankroyale.recorder.core
+
+import dev.robocode.tankroyale.client.model.BotDeathEvent
+import dev.robocode.tankroyale.client.model.BotHitBotEvent
+import dev.robocode.tankroyale.client.model.BotHitWallEvent
+import dev.robocode.tankroyale.client.model.BulletFiredEvent
+import dev.robocode.tankroyale.client.model.BulletHitBotEvent
+import dev.robocode.tankroyale.client.model.BulletHitBulletEvent
+import dev.robocode.tankroyale.client.model.BulletHitWallEvent
+import dev.robocode.tankroyale.client.model.Event
+import dev.robocode.tankroyale.client.model.Message
+import dev.robocode.tankroyale.client.model.MessageConstants
+import dev.robocode.tankroyale.client.model.ScannedBotEvent
+import dev.robocode.tankroyale.client.model.TickEvent
+import dev.robocode.tankroyale.common.recording.ColumnarRecording
+import dev.robocode.tankroyale.common.recording.ColumnarRecordingWriter
+import dev.robocode.tankroyale.common.recording.RecordingReader
+import dev.robocode.tankroyale.common.recording.RecordingWriter
+import java.io.BufferedOutputStream
+import java.io.Closeable
+import java.io.File
+import java.io.FileOutputStream
+import java.io.OutputStream
+
+/**
+ * Converter of the messages of a game into a columnar recording, where the bot states, bullet states, and events of
+ * each tick are appended as rows of the [ColumnarRecording.BOTS], [ColumnarRecording.BULLETS], and
+ * [ColumnarRecording.EVENTS] tables. Messages other than ticks are not stored.
+ *
+ * @param output is the output stream of the columnar recording, which should be buffered.
+ */
+class ColumnarConverter(output: OutputStream) : Closeable {
+
+    companion object {
+        private const val BUFFER_SIZE = 64 * 1024
+
+        /**
+         * Converts an ND-JSON recording into a columnar recording.
+         * @param input is the recording, which can be indexed, gzip compressed, or plain text.
+         * @param output is the file of the columnar recording.
+         */
+        fun convert(input: File, output: File) {
+            ColumnarConverter(BufferedOutputStream(FileOutputStream(output), BUFFER_SIZE)).use { converter ->
+                RecordingReader(input).forEachLine { converter.write(it, null) }
+            }
+        }
+    }
+
+    private val json = MessageConstants.json
+
+    private val writer = ColumnarRecordingWriter(output)
+    private val bots = writer.table(ColumnarRecording.BOTS, ColumnarRecording.BOT_COLUMNS)
+    private val bullets = writer.table(ColumnarRecording.BULLETS, ColumnarRecording.BULLET_COLUMNS)
+    private val events = writer.table(ColumnarRecording.EVENTS, ColumnarRecording.EVENT_COLUMNS)
+
+    /**
+     * Writes the rows of a message, if the message is a tick.
+     * @param message is the JSON message.
+     * @param type is the type of the message, or null if it must be read from the message.
+     */
+    fun write(message: String, type: String?) {
+        if (type != null && type != RecordingWriter.TICK_EVENT_TYPE) return
+        if (type == null && !message.contains(RecordingWriter.TICK_EVENT_TYPE)) return
+
+        val tick = json.decodeFromString<Message>(message) as? TickEvent ?: return
+        tick.botStates.forEach {
+            bots.apply {
+                int(tick.roundNumber)
+                int(tick.turnNumber)
+                int(it.id)
+                double(it.energy)
+                double(it.x)
+                double(it.y)
+                double(it.direction)
+                double(it.gunDirection)
+                double(it.radarDirection)
+                double(it.radarSweep)
+                double(it.speed)
+                double(it.turnRate)
+                double(it.gunTurnRate)
+                double(it.radarTurnRate)
+                double(it.gunHeat)
+                int(it.enemyCount)
+                endRow()
+            }
+        }
+        tick.bulletStates.forEach {
+            bullets.apply {
+                int(tick.roundNumber)
+                int(tick.turnNumber)
+                int(it.bulletId)
+                int(it.ownerId)
+                double(it.power)
+                double(it.x)
+                double(it.y)
+                double(it.direction)
+                endRow()
+            }
+        }
+        tick.events.forEach { writeEvent(tick, it) }
+    }
+
+    private fun writeEvent(tick: TickEvent, event: Event) {
+        var botId = -1
+        var otherBotId = -1
+        var bulletId = -1
+        var energy = Double.NaN
+        var value = Double.NaN
+        var x = Double.NaN
+        var y = Double.NaN
+
+        when (event) {
+            is BotDeathEvent -> botId = event.victimId
+            is BotHitWallEvent -> botId = event.victimId
+            is BotHitBotEvent -> {
+                botId = event.botId
+                otherBotId = event.victimId
+                energy = event.energy
+                x = event.x
+                y = event.y
+            }
+            is BulletFiredEvent -> {
+                botId = event.bullet.ownerId
+                bulletId = event.bullet.bulletId
+                value = event.bullet.power
+                x = event.bullet.x
+                y = event.bullet.y
+            }
+            is BulletHitBotEvent -> {
+                botId = event.bullet.ownerId
+                otherBotId = event.victimId
+                bulletId = event.bullet.bulletId
+                energy = event.energy
+                value = event.damage
+                x = event.bullet.x
+                y = event.bullet.y
+            }
+            is BulletHitBulletEvent -> {
+                botId = event.bullet.ownerId
+                otherBotId = event.hitBullet.ownerId
+                bulletId = event.bullet.bulletId
+                x = event.bullet.x
+                y = event.bullet.y
+            }
+            is BulletHitWallEvent -> {
+                botId = event.bullet.ownerId
+                bulletId = event.bullet.bulletId
+                x = event.bullet.x
+                y = event.bullet.y
+            }
+            is ScannedBotEvent -> {
+                botId = event.scannedByBotId
+                otherBotId = event.scannedBotId
+                energy = event.energy
+                value = event.speed
+                x = event.x
+                y = event.y
+            }
+            else -> {} // Other events are stored by their type only
+        }
+
+        events.apply {
+            int(tick.roundNumber)
+            int(tick.turnNumber)
+            int(writer.code(event::class.simpleName ?: "Event"))
+            int(botId)
+            int(otherBotId)
+            int(bulletId)
+            double(energy)
+            double(value)
+            double(x)
+            double(y)
+            endRow()
+        }
+    }
+
+    /** Writes the buffered rows and the footer, and closes the output. */
+    override fun close() {
+        writer.close()
+    }
+}
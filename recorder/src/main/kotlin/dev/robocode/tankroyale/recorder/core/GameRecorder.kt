@@ -1,35 +1,71 @@
 package dev.robocode.tankroyale.recorder.core
 
+import dev.robocode.tankroyale.common.recording.QueuedRecordingWriter
+import dev.robocode.tankroyale.common.recording.RecordingWriter
 import kotlinx.serialization.json.Json
 import kotlinx.serialization.json.JsonElement
+import java.io.BufferedOutputStream
+import java.io.Closeable
 import java.io.File
 import java.io.FileOutputStream
-import java.io.PrintWriter
 import java.time.LocalDateTime
 import java.time.format.DateTimeFormatter
-import java.util.zip.GZIPOutputStream
 
+/**
+ * Recorder of the messages of a game into an indexed recording, which is a gzip compressed ND-JSON file written by a
+ * [RecordingWriter], where the index allows players to seek to any turn without reading the whole file.
+ *
+ * Messages are written as received from the server, i.e. without being parsed and encoded again. The compression and
+ * disk I/O are done by a [QueuedRecordingWriter], so recording a message only waits for the writer when the queue is
+ * full. No messages are dropped, except for the messages recorded after the recorder has been closed.
+ *
+ * With the [RecordingFormat.COLUMNAR] format, the ticks are instead converted by a [ColumnarConverter] on the writer
+ * thread.
+ */
 class GameRecorder (
     dir: String?,
+    format: RecordingFormat = RecordingFormat.NDJSON,
 ): AutoCloseable {
     companion object {
         private val ndJson = Json { prettyPrint = false }
+
+        private const val BUFFER_SIZE = 64 * 1024
     }
 
     val file: File
-    private val output: PrintWriter
+    private val writer: QueuedRecordingWriter
 
     init {
         val now = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd-HH-mm-ss"))
-        file = File(dir, "game-$now.battle.gz")
-        output = PrintWriter(GZIPOutputStream(FileOutputStream(file)))
+        file = File(dir, "game-$now.${format.fileExtension}")
+        val stream = BufferedOutputStream(FileOutputStream(file), BUFFER_SIZE)
+        writer = when (format) {
+            RecordingFormat.NDJSON -> RecordingWriter(stream).let { createWriter(it, it::write) }
+            RecordingFormat.COLUMNAR -> ColumnarConverter(stream).let { createWriter(it, it::write) }
+        }
     }
 
-    fun record(event: JsonElement) {
-        output.println(ndJson.encodeToString(JsonElement.serializer(), event))
+    private fun createWriter(output: Closeable, writeMessage: (message: String, type: String?) -> Unit) =
+        QueuedRecordingWriter(file, output, "Recorder writer") { message, type ->
+            writeMessage(toLine(message), type)
+        }
+
+    /**
+     * Records a message, which is written as a line of the file.
+     * @param message is the JSON message as received from the server.
+     * @param type is the type of the message.
+     */
+    fun record(message: String, type: String?) {
+        writer.write(message, type)
     }
 
+    private fun toLine(message: String): String =
+        // A message must be on a single line, which is the case for the compact JSON sent by the server
+        if (message.indexOf('\n') < 0 && message.indexOf('\r') < 0) message else
+            ndJson.encodeToString(JsonElement.serializer(), Json.parseToJsonElement(message))
+
+    /** Writes the messages recorded so far and closes the file. */
     override fun close() {
-        output.close()
+        writer.close()
     }
 }
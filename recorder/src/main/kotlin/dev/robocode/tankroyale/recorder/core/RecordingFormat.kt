@@ -0,0 +1,13 @@
+package dev.robocode.tankroyale.recorder.core
+
+/**
+ * Format of the recordings.
+ * @param fileExtension is the extension of the recording files.
+ */
+enum class RecordingFormat(val fileExtension: String) {
+    /** Indexed recording of the messages as gzip compressed ND-JSON, which can be replayed */
+    NDJSON("battle.gz"),
+
+    /** Columnar recording of the bot states, bullet states, and events of the ticks, which is used for analytics */
+    COLUMNAR("battle.cols"),
+}
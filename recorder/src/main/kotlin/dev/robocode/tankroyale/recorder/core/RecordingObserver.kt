@@ -5,6 +5,8 @@ import dev.robocode.tankroyale.client.WebSocketClientEvents
 import dev.robocode.tankroyale.client.model.MessageConstants
 import dev.robocode.tankroyale.client.model.ObserverHandshake
 import dev.robocode.tankroyale.client.model.ServerHandshake
+import dev.robocode.tankroyale.common.recording.RecordingWriter
+import dev.robocode.tankroyale.common.util.JsonScanner
 import dev.robocode.tankroyale.common.util.Version
 import kotlinx.serialization.json.Json
 import kotlinx.serialization.json.JsonElement
@@ -17,7 +19,8 @@ import java.util.concurrent.CountDownLatch
 class RecordingObserver(
     private val url: String,
     private val secret: String? = null,
-    private val dir: String? = null
+    private val dir: String? = null,
+    private val format: RecordingFormat = RecordingFormat.NDJSON,
 ) {
     companion object {
         private val startRecordingEvents: Set<String> = setOf("GameStartedEventForObserver")
@@ -27,8 +30,8 @@ class RecordingObserver(
             "GameEndedEventForObserver",
             "GameStartedEventForObserver",
             "RoundEndedEventForObserver",
-            "RoundStartedEventForObserver",
-            "TickEventForObserver",
+            RecordingWriter.ROUND_STARTED_EVENT_TYPE,
+            RecordingWriter.TICK_EVENT_TYPE,
         )
     }
 
@@ -74,10 +77,10 @@ class RecordingObserver(
 
     private fun onMessage(msg: String) {
         log.debug("Received message: {}", msg)
-        val jsonElement: JsonElement = Json.parseToJsonElement(msg)
-        val type = extractType(jsonElement)
+        // The type is peeked without parsing, so recorded messages are passed through to the recorder as received
+        val type = JsonScanner.stringField(msg, "type") ?: extractType(Json.parseToJsonElement(msg))
         if (type == "ServerHandshake") {
-            handleServerHandshake(jsonElement)
+            handleServerHandshake(Json.parseToJsonElement(msg))
         } else {
             if (startRecordingEvents.contains(type)) {
                 startRecording()
@@ -89,7 +92,7 @@ class RecordingObserver(
                     startRecording()
                     log.info("Starting recording to file: ${recorder?.file?.absolutePath}")
                 }
-                recorder?.record(jsonElement)
+                recorder?.record(msg, type)
             }
             if (endRecordingEvents.contains(type)) {
                 stopRecording()
@@ -117,7 +120,7 @@ class RecordingObserver(
 
     fun startRecording() {
         stopRecording()
-        recorder = GameRecorder(dir)
+        recorder = GameRecorder(dir, format)
     }
 
     fun stopRecordingKeepFile() {
@@ -1,6 +1,9 @@
 -libraryjar <java.home>/jmods/java.base.jmod(!**.jar;!module-info.class)
 -libraryjar <java.home>/jmods/java.sql.jmod(!**.jar;!module-info.class)
 -libraryjar <java.home>/jmods/java.compiler.jmod(!**.jar;!module-info.class)
+-libraryjar <java.home>/jmods/jdk.jfr.jmod(!**.jar;!module-info.class)
+-libraryjar <java.home>/jmods/jdk.httpserver.jmod(!**.jar;!module-info.class)
+-libraryjar <java.home>/jmods/java.management.jmod(!**.jar;!module-info.class)
 
 -dontoptimize
 -dontobfuscate
@@ -1,6 +1,9 @@
 package dev.robocode.tankroyale.server
 
+import dev.robocode.tankroyale.server.batch.BatchCommand
+import dev.robocode.tankroyale.server.connection.ObserverQueuePolicy
 import dev.robocode.tankroyale.server.core.GameServer
+import dev.robocode.tankroyale.server.model.TurnHistoryPolicy
 import dev.robocode.tankroyale.server.rules.DEFAULT_GAME_TYPE
 import dev.robocode.tankroyale.server.rules.DEFAULT_TURNS_PER_SECOND
 import dev.robocode.tankroyale.server.util.VersionFileProvider
@@ -8,11 +11,16 @@ import org.slf4j.LoggerFactory
 import picocli.CommandLine
 import picocli.CommandLine.*
 import picocli.CommandLine.Model.CommandSpec
+import java.io.File
 import java.nio.channels.ServerSocketChannel
 import java.util.*
 import kotlin.system.exitProcess
+import kotlin.time.Duration
+import kotlin.time.Duration.Companion.microseconds
 
 private const val DEFAULT_PORT: Int = 7654
+private const val DEFAULT_OBSERVER_QUEUE_SIZE: Int = 256
+private const val DEFAULT_TICK_KEYFRAME_INTERVAL: Int = 50
 
 fun main(args: Array<String>) {
     Server.cmdLine.apply {
@@ -39,13 +47,15 @@ fun main(args: Array<String>) {
         ""
     ],
     descriptionHeading = "Description:%n",
-    description = ["Runs a Robocode Tank Royale server"]
+    description = ["Runs a Robocode Tank Royale server"],
+    subcommands = [BatchCommand::class]
 )
 class Server : Runnable {
 
     companion object {
 
         private const val EXIT_COMMAND = "quit"
+        private const val PROFILE_COMMAND = "profile"
 
         private const val MIN_PORT = 1000
         private const val MAX_PORT = 65535
@@ -105,6 +115,70 @@ class Server : Runnable {
         )
         var tps: Int = DEFAULT_TURNS_PER_SECOND
 
+        @Option(
+            names = ["--turn-history"],
+            type = [String::class],
+            description = ["Turn history kept by the server: 'last' (default) keeps the last turn only, 'ring:<N>' keeps the last N turns, and 'disk:<dir>' writes all turns to files in a directory, which slows down each turn"]
+        )
+        private var turnHistory: String = TurnHistoryPolicy.LastTurnOnly.toString()
+
+        val turnHistoryPolicy: TurnHistoryPolicy
+            get() = TurnHistoryPolicy.parse(turnHistory)
+
+        @Option(
+            names = ["--timer-spin"],
+            type = [Long::class],
+            description = ["Remaining wait time in microseconds, where the turn timer busy-spins instead of parking the thread (default: 0, meaning never). Gives a more precise tick cadence for sub-millisecond turn timeouts at the cost of CPU time."]
+        )
+        private var timerSpinMicros: Long = 0
+
+        @Option(
+            names = ["--observer-queue-policy"],
+            type = [String::class],
+            description = ["Policy for ticks to observers that cannot keep up: 'drop' (default) drops new ticks when the observer queue is full, and 'coalesce' only keeps the most recent tick"]
+        )
+        private var observerQueuePolicyName: String = ObserverQueuePolicy.DROP.toString()
+
+        val observerQueuePolicy: ObserverQueuePolicy
+            get() = ObserverQueuePolicy.valueOf(observerQueuePolicyName.trim().uppercase())
+
+        @Option(
+            names = ["--observer-queue-size"],
+            type = [Int::class],
+            description = ["Maximum number of ticks queued per observer with the 'drop' policy (default: $DEFAULT_OBSERVER_QUEUE_SIZE)"]
+        )
+        var observerQueueSize: Int = DEFAULT_OBSERVER_QUEUE_SIZE
+
+        @Option(
+            names = ["--tick-keyframe-interval"],
+            type = [Int::class],
+            description = ["Maximum number of turns between full ticks (keyframes) for observers receiving tick deltas (default: $DEFAULT_TICK_KEYFRAME_INTERVAL)"]
+        )
+        var tickKeyframeInterval: Int = DEFAULT_TICK_KEYFRAME_INTERVAL
+
+        @Option(
+            names = ["--profile-turns"],
+            description = ["Profile the time spent in each phase of the turns (default: false). The timings are logged when a game ends, or when '$PROFILE_COMMAND' is entered in the console, and are emitted as JDK Flight Recorder events."]
+        )
+        var turnPhaseProfilingEnabled = false
+
+        @Option(
+            names = ["--metrics-port"],
+            type = [Int::class],
+            description = ["Port number for serving metrics in the Prometheus text format at the '/metrics' path (default: disabled)"]
+        )
+        var metricsPort: Int? = null
+
+        @Option(
+            names = ["--record-dir"],
+            type = [File::class],
+            description = ["Directory where every game is recorded by the server in the file format of the recorder (default: disabled)"]
+        )
+        var recordingDir: File? = null
+
+        val timerSpinThreshold: Duration
+            get() = timerSpinMicros.coerceAtLeast(0).microseconds
+
         val cmdLine = CommandLine(Server())
 
         private fun getInheritedPort(): Int {
@@ -126,6 +200,10 @@ class Server : Runnable {
     override fun run() {
         handleCommandLineOptions()
         validatePort()
+        validateTurnHistory()
+        validateObserverQueue()
+        validateMetricsPort()
+        validateRecordingDir()
         startExitInputMonitorThread()
         startGameServer()
     }
@@ -180,20 +258,65 @@ class Server : Runnable {
         )
     }
 
+    private fun validateTurnHistory() {
+        try {
+            turnHistoryPolicy
+        } catch (e: IllegalArgumentException) {
+            System.err.println(
+                """
+                    ${e.message}
+                    Turn history must be either 'last', 'ring:<N>' where N is at least 1, or 'disk:<directory>'.
+                """.trimIndent()
+            )
+            exitProcess(1) // general error
+        }
+    }
+
+    private fun validateMetricsPort() {
+        metricsPort?.let {
+            if (it !in MIN_PORT..MAX_PORT || (!useInheritedChannel && it == portNumber)) {
+                System.err.println(
+                    "Metrics port must be a number between $MIN_PORT and $MAX_PORT, and must differ from the server port."
+                )
+                exitProcess(1) // general error
+            }
+        }
+    }
+
+    private fun validateRecordingDir() {
+        recordingDir?.let {
+            if (!it.isDirectory && !it.mkdirs()) {
+                System.err.println("Recording directory could not be created: ${it.absolutePath}")
+                exitProcess(1) // general error
+            }
+        }
+    }
+
+    private fun validateObserverQueue() {
+        val isPolicyValid = ObserverQueuePolicy.entries.any { it.name.equals(observerQueuePolicyName.trim(), true) }
+        if (!isPolicyValid || observerQueueSize < 1 || tickKeyframeInterval < 1) {
+            System.err.println(
+                "Observer queue policy must be either 'drop' or 'coalesce', and the queue size and tick keyframe " +
+                        "interval must be at least 1."
+            )
+            exitProcess(1) // general error
+        }
+    }
+
     private fun startExitInputMonitorThread() {
         // When inheriting a channel, it is passed as FD3, i.e. stdin. In this case, it does not
         // make sense to monitor for an exit command.
         if (useInheritedChannel) return
 
         Thread {
-            monitorStandardInputForExit()
+            monitorStandardInputForCommands()
         }.apply {
             isDaemon = true
             start()
         }
     }
 
-    private fun monitorStandardInputForExit() {
+    private fun monitorStandardInputForCommands() {
         Scanner(System.`in`).use { scanner ->
             while (scanner.hasNextLine()) {
                 val input = scanner.nextLine().trim()
@@ -201,6 +324,9 @@ class Server : Runnable {
                     gameServer.stop()
                     exitProcess(1)
                 }
+                if (input.equals(PROFILE_COMMAND, ignoreCase = true)) {
+                    gameServer.logTurnPhaseProfiles()
+                }
             }
         }
     }
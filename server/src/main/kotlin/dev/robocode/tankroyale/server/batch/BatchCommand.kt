@@ -0,0 +1,49 @@
+package dev.robocode.tankroyale.server.batch
+
+import picocli.CommandLine.*
+import java.io.File
+import java.io.OutputStreamWriter
+import java.util.concurrent.Callable
+
+@Command(
+    name = "batch",
+    mixinStandardHelpOptions = true,
+    descriptionHeading = "Description:%n",
+    description = [
+        "Runs headless battles between HeadlessBot or Bot API bots in parallel at unlimited TPS.",
+        "The battle specs are read from a JSON array, and the results are written as one JSON line per battle."
+    ]
+)
+class BatchCommand : Callable<Int> {
+
+    @Parameters(index = "0", paramLabel = "<battles>", description = ["JSON file containing an array of battle specs"])
+    private lateinit var specsFile: File
+
+    @Option(
+        names = ["--threads"],
+        description = ["Maximum number of battles run in parallel (default: number of available processors)"]
+    )
+    private var threadCount: Int = Runtime.getRuntime().availableProcessors()
+
+    @Option(
+        names = ["-o", "--output"],
+        description = ["File the results are written to as JSON lines (default: standard output)"]
+    )
+    private var outputFile: File? = null
+
+    override fun call(): Int {
+        val specs = specsFile.reader().use { BatchRunner.readSpecs(it) }
+
+        var failedBattles = 0
+        val writer = outputFile?.bufferedWriter() ?: OutputStreamWriter(System.out)
+        try {
+            BatchRunner(threadCount.coerceAtLeast(1)).run(specs) { result ->
+                if (result.error != null) failedBattles++
+                BatchRunner.writeResult(result, writer)
+            }
+        } finally {
+            if (outputFile != null) writer.close() else writer.flush()
+        }
+        return if (failedBattles == 0) 0 else 1
+    }
+}
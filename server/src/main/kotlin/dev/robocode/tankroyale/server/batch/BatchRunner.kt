@@ -0,0 +1,81 @@
+package dev.robocode.tankroyale.server.batch
+
+import com.google.gson.GsonBuilder
+import com.google.gson.InstanceCreator
+import com.google.gson.reflect.TypeToken
+import dev.robocode.tankroyale.schema.GameSetup
+import dev.robocode.tankroyale.server.mapper.GameSetupMapper
+import java.io.Reader
+import java.io.Writer
+import java.util.concurrent.ExecutorCompletionService
+import java.util.concurrent.Executors
+
+/**
+ * Runner of headless battles, which runs many independent battles concurrently in one JVM. Each battle is played by a
+ * [HeadlessBattle] on a single thread at unlimited TPS, so the battles are spread across all cores.
+ *
+ * @param threadCount is the maximum number of battles run concurrently.
+ */
+class BatchRunner(private val threadCount: Int = Runtime.getRuntime().availableProcessors()) {
+
+    companion object {
+        /** Gson, where missing fields of the game setup of a battle spec are set to the default game setup */
+        private val gson = GsonBuilder()
+            .registerTypeAdapter(GameSetup::class.java, InstanceCreator { createDefaultGameSetup() })
+            .create()
+
+        /** Creates the default game setup, which is the setup of the classic game type. */
+        fun createDefaultGameSetup(): GameSetup = GameSetupMapper.map(
+            dev.robocode.tankroyale.server.model.GameSetup(
+                maxNumberOfParticipants = null,
+                isArenaWidthLocked = false,
+                isArenaHeightLocked = false,
+                isMinNumberOfParticipantsLocked = false,
+                isMaxNumberOfParticipantsLocked = false,
+                isNumberOfRoundsLocked = false,
+                isGunCoolingRateLocked = false,
+                isMaxInactivityTurnsLocked = false,
+                isTurnTimeoutLocked = false,
+                isReadyTimeoutLocked = false,
+            )
+        )
+
+        /**
+         * Reads battle specs.
+         * @param reader is the reader of a JSON array of battle specs.
+         * @return the battle specs.
+         */
+        fun readSpecs(reader: Reader): List<BattleSpec> =
+            gson.fromJson(reader, object : TypeToken<List<BattleSpec>>() {}.type) ?: emptyList()
+
+        /**
+         * Writes a battle result as a single line of JSON, so results can be streamed as battles complete.
+         * @param result is the battle result.
+         * @param writer is the writer of the JSON line.
+         */
+        fun writeResult(result: BattleResult, writer: Writer) {
+            writer.write(gson.toJson(result))
+            writer.write(System.lineSeparator())
+            writer.flush()
+        }
+    }
+
+    /**
+     * Runs battles concurrently.
+     * @param specs is the specifications of the battles.
+     * @param onResult is called on the calling thread with the result of each battle in the order the battles complete.
+     */
+    fun run(specs: List<BattleSpec>, onResult: (BattleResult) -> Unit) {
+        val executor = Executors.newFixedThreadPool(threadCount.coerceIn(1, specs.size.coerceAtLeast(1)))
+        try {
+            val completionService = ExecutorCompletionService<BattleResult>(executor)
+            specs.forEach { spec -> completionService.submit { HeadlessBattle(spec).run() } }
+
+            repeat(specs.size) {
+                onResult(completionService.take().get())
+            }
+        } finally {
+            executor.shutdownNow()
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package dev.robocode.tankroyale.server.batch
+
+import dev.robocode.tankroyale.schema.ResultsForObserver
+
+/**
+ * Result of a headless battle.
+ * @param name is the name of the battle.
+ * @param seed is the seed used for the battle.
+ * @param numberOfRounds is the number of rounds played.
+ * @param numberOfTurns is the total number of turns played in all rounds.
+ * @param durationMillis is the wall-clock time it took to run the battle.
+ * @param results is the results in the same shape as sent to observers and controllers when the game has ended.
+ * @param error is the error that made the battle fail, or `null` if the battle was played to the end.
+ */
+data class BattleResult(
+    val name: String?,
+    val seed: Long,
+    val numberOfRounds: Int,
+    val numberOfTurns: Int,
+    val durationMillis: Long,
+    val results: List<ResultsForObserver>,
+    val error: String? = null,
+)
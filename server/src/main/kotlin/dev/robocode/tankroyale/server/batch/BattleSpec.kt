@@ -0,0 +1,40 @@
+package dev.robocode.tankroyale.server.batch
+
+import dev.robocode.tankroyale.schema.GameSetup
+
+/**
+ * Specification of a headless battle.
+ * @param name is the name of the battle, which is written with the results.
+ * @param gameSetup is the game setup, where missing fields are set to the defaults of the classic game type.
+ * @param rounds is the number of rounds, which overrides the number of rounds of the game setup, if specified.
+ * @param seed is the seed of the random generators of the game and the bots.
+ * @param bots is the bots taking part in the battle.
+ */
+data class BattleSpec(
+    val name: String? = null,
+    val gameSetup: GameSetup? = null,
+    val rounds: Int? = null,
+    val seed: Long? = null,
+    val bots: List<BattleBotSpec>? = null,
+)
+
+/**
+ * Specification of a bot taking part in a headless battle.
+ * @param className is the fully qualified name of the class of the bot, which is either a [HeadlessBot] or a bot
+ * written with the Bot API, which is hosted by an [InProcessBotHost].
+ * @param name is the name of the bot used in the results. The simple class name is used by default.
+ * @param version is the version of the bot used in the results.
+ * @param teamId is the id of the team of the bot, if the bot is a member of a team.
+ * @param teamName is the name of the team used in the results.
+ * @param teamVersion is the version of the team used in the results.
+ * @param isDroid is a flag specifying if the bot is a droid.
+ */
+data class BattleBotSpec(
+    val className: String? = null,
+    val name: String? = null,
+    val version: String? = null,
+    val teamId: Int? = null,
+    val teamName: String? = null,
+    val teamVersion: String? = null,
+    val isDroid: Boolean? = null,
+)
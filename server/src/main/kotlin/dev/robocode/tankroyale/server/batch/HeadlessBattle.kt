@@ -0,0 +1,225 @@
+package dev.robocode.tankroyale.server.batch
+
+import dev.robocode.tankroyale.schema.GameEndedEventForBot
+import dev.robocode.tankroyale.schema.GameStartedEventForBot
+import dev.robocode.tankroyale.schema.Message
+import dev.robocode.tankroyale.schema.Participant
+import dev.robocode.tankroyale.schema.RoundEndedEventForBot
+import dev.robocode.tankroyale.schema.RoundStartedEvent
+import dev.robocode.tankroyale.server.core.ModelUpdater
+import dev.robocode.tankroyale.server.mapper.BotIntentMapper
+import dev.robocode.tankroyale.server.mapper.GameSetupMapper
+import dev.robocode.tankroyale.server.mapper.ResultsForBotMapper
+import dev.robocode.tankroyale.server.mapper.ResultsForObserverMapper
+import dev.robocode.tankroyale.server.mapper.TurnToTickEventForBotMapper
+import dev.robocode.tankroyale.server.model.*
+import org.slf4j.LoggerFactory
+import java.util.*
+
+/**
+ * Headless battle, which plays a game between [HeadlessBot]s directly with a [ModelUpdater] on the calling thread.
+ * Turns are played as fast as the bots respond, as there are no network connections, timers, or observers.
+ *
+ * Bots written with the Bot API are hosted by an [InProcessBotHost], where they run on their own threads and connect
+ * with the in-process transport. These bots are given the turn timeout of the game setup to send their intents.
+ *
+ * @param spec is the specification of the battle.
+ */
+class HeadlessBattle(private val spec: BattleSpec) {
+
+    private val log = LoggerFactory.getLogger(this::class.java)
+
+    private val seed = spec.seed ?: Random().nextLong()
+
+    private val botSpecs = spec.bots ?: emptyList()
+
+    private val botIds = List(botSpecs.size) { BotId(it + 1) }
+
+    private val participantIds = botSpecs.mapIndexed { index, botSpec ->
+        ParticipantId(botIds[index], botSpec.teamId?.let { TeamId(it) })
+    }
+
+    /** Participants by bot id, which are used for writing the results as for observers */
+    private val participantMap = botSpecs.mapIndexed { index, botSpec ->
+        botIds[index] to Participant().apply {
+            id = botIds[index].value
+            name = botSpec.name ?: botSpec.className?.substringAfterLast('.')
+            version = botSpec.version ?: ""
+            teamId = botSpec.teamId
+            teamName = botSpec.teamName
+            teamVersion = botSpec.teamVersion
+            isDroid = botSpec.isDroid
+        }
+    }.toMap()
+
+    /**
+     * Plays the battle until the game has ended.
+     * @return the result of the battle. If the battle failed, the result contains the error and the scores so far.
+     */
+    fun run(): BattleResult {
+        val startTime = System.nanoTime()
+
+        var modelUpdater: ModelUpdater? = null
+        var botHost: InProcessBotHost? = null
+        val bots = mutableListOf<HeadlessBot>()
+        var numberOfTurns = 0
+        var error: String? = null
+        try {
+            require(botSpecs.isNotEmpty()) { "No bots specified for battle: ${spec.name}" }
+
+            val gameSetup = createGameSetup()
+            botSpecs.forEach { botSpec ->
+                bots += createBot(botSpec) {
+                    botHost ?: InProcessBotHost(spec.name, gameSetup.readyTimeout, gameSetup.turnTimeout)
+                        .also { botHost = it }
+                }
+            }
+            modelUpdater = ModelUpdater(
+                gameSetup,
+                participantIds.toSet(),
+                emptyMap(),
+                participantMap.mapValues { it.value.isDroid == true }
+            )
+            val botIntents = HashMap<BotId, IBotIntent>()
+
+            do {
+                val gameState = modelUpdater.update(botIntents)
+                botIntents.clear()
+                numberOfTurns++
+
+                val round = gameState.lastRound ?: break
+                val turn = round.lastTurn ?: break
+
+                if (numberOfTurns == 1) {
+                    startBots(bots, gameSetup, turn)
+                }
+                if (turn.turnNumber == 1) {
+                    val roundStarted = RoundStartedEvent().apply {
+                        type = Message.Type.ROUND_STARTED_EVENT
+                        roundNumber = round.roundNumber
+                    }
+                    notifyBots(bots) { _, bot -> bot.onRoundStarted(roundStarted) }
+                }
+                val enemyCounts = countEnemies(modelUpdater)
+
+                bots.forEachIndexed { index, bot ->
+                    val botId = botIds[index]
+                    val enemyCount = enemyCounts[botId] ?: return@forEachIndexed // bot is dead
+                    val tick = TurnToTickEventForBotMapper.map(round.roundNumber, turn, botId, enemyCount)
+                        ?: return@forEachIndexed
+
+                    try {
+                        bot.onTick(tick)?.let { botIntents[botId] = BotIntentMapper.mapChanges(it) }
+                    } catch (exception: Exception) {
+                        // The bot skips the turn, as a bot that fails to send its intent in time
+                        log.warn("Bot failed on turn ${turn.turnNumber}: ${participantMap[botId]?.name}", exception)
+                    }
+                }
+
+                if (round.roundEnded) {
+                    val scores = modelUpdater.getResults()
+                    notifyBots(bots) { botId, bot ->
+                        bot.onRoundEnded(RoundEndedEventForBot().apply {
+                            type = Message.Type.ROUND_ENDED_EVENT_FOR_BOT
+                            roundNumber = round.roundNumber
+                            turnNumber = turn.turnNumber
+                            results = ResultsForBotMapper.map(scores, botId)
+                        })
+                    }
+                }
+            } while (!gameState.isGameEnded)
+
+            val scores = modelUpdater.getResults()
+            val numberOfRounds = modelUpdater.numberOfRounds
+            notifyBots(bots) { botId, bot ->
+                bot.onGameEnded(GameEndedEventForBot().apply {
+                    type = Message.Type.GAME_ENDED_EVENT_FOR_BOT
+                    this.numberOfRounds = numberOfRounds
+                    results = ResultsForBotMapper.map(scores, botId)
+                })
+            }
+        } catch (exception: Exception) {
+            log.error("Battle failed: ${spec.name}", exception)
+            error = exception.toString()
+        } finally {
+            bots.forEach { it.close() }
+            botHost?.close()
+            modelUpdater?.close()
+        }
+
+        return BattleResult(
+            name = spec.name,
+            seed = seed,
+            numberOfRounds = modelUpdater?.numberOfRounds ?: 0,
+            numberOfTurns = numberOfTurns,
+            durationMillis = (System.nanoTime() - startTime) / 1_000_000,
+            results = modelUpdater?.getResults()?.let { ResultsForObserverMapper.map(it, participantMap) }
+                ?: emptyList(),
+            error = error,
+        )
+    }
+
+    /**
+     * Creates a bot from the class name of its spec. A [HeadlessBot] is created directly, and other bots are launched
+     * as Bot API bots by the in-process bot host.
+     */
+    private fun createBot(botSpec: BattleBotSpec, botHost: () -> InProcessBotHost): HeadlessBot {
+        val className = requireNotNull(botSpec.className) { "Missing class name of bot in battle: ${spec.name}" }
+        val botClass = Class.forName(className)
+        return if (HeadlessBot::class.java.isAssignableFrom(botClass)) {
+            botClass.getDeclaredConstructor().newInstance() as HeadlessBot
+        } else {
+            botHost().launch(botClass)
+        }
+    }
+
+    /** Passes an event to each bot, where a bot failing to handle the event is logged and otherwise ignored. */
+    private fun notifyBots(bots: List<HeadlessBot>, notify: (BotId, HeadlessBot) -> Unit) {
+        bots.forEachIndexed { index, bot ->
+            try {
+                notify(botIds[index], bot)
+            } catch (exception: Exception) {
+                log.warn("Bot failed to handle event: ${participantMap[botIds[index]]?.name}", exception)
+            }
+        }
+    }
+
+    /** Creates the game setup, where the seed of the battle is used for the random generator of the game. */
+    private fun createGameSetup(): GameSetup {
+        val gameSetup = GameSetupMapper.map(spec.gameSetup ?: BatchRunner.createDefaultGameSetup()).copy(seed = seed)
+        return spec.rounds?.let { gameSetup.copy(numberOfRounds = it) } ?: gameSetup
+    }
+
+    /** Sends the game started event to the bots, where each bot is given a random generator derived from the seed. */
+    private fun startBots(bots: List<HeadlessBot>, gameSetup: GameSetup, turn: ITurn) {
+        val seeds = Random(seed)
+        val schemaGameSetup = GameSetupMapper.map(gameSetup)
+
+        bots.forEachIndexed { index, bot ->
+            val botId = botIds[index]
+            val teamId = participantIds[index].teamId
+
+            val gameStarted = GameStartedEventForBot().apply {
+                type = Message.Type.GAME_STARTED_EVENT_FOR_BOT
+                myId = botId.value
+                teammateIds = participantIds.filter { teamId != null && it.teamId == teamId && it.botId != botId }
+                    .map { it.botId.value }
+                this.gameSetup = schemaGameSetup
+                turn.getBot(botId)?.let {
+                    startX = it.x
+                    startY = it.y
+                    startDirection = it.direction
+                }
+            }
+            bot.onGameStarted(gameStarted, Random(seeds.nextLong()))
+        }
+    }
+
+    /** Counts the enemies of each alive bot, where teammates are not enemies. */
+    private fun countEnemies(modelUpdater: ModelUpdater): Map<BotId, Int> {
+        val aliveParticipantIds = participantIds.filter { modelUpdater.isAlive(it.botId) }
+        return aliveParticipantIds.associate { participantId ->
+            participantId.botId to aliveParticipantIds.count { it.id != participantId.id }
+        }
+    }
+}
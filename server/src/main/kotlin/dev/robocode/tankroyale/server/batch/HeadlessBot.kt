@@ -0,0 +1,53 @@
+package dev.robocode.tankroyale.server.batch
+
+import dev.robocode.tankroyale.schema.BotIntent
+import dev.robocode.tankroyale.schema.GameEndedEventForBot
+import dev.robocode.tankroyale.schema.GameStartedEventForBot
+import dev.robocode.tankroyale.schema.RoundEndedEventForBot
+import dev.robocode.tankroyale.schema.RoundStartedEvent
+import dev.robocode.tankroyale.schema.TickEventForBot
+import java.util.*
+
+/**
+ * Bot that takes part in headless battles run by the [BatchRunner]. It is called directly on the thread running the
+ * battle with the same events as a bot receives from the server, and hence has no turn timeout.
+ *
+ * Implementations must have a public no-argument constructor, as the bots are created by their class names.
+ */
+interface HeadlessBot : AutoCloseable {
+
+    /**
+     * Called when the game has started.
+     * @param gameStarted is the game started event that the bot would receive from the server.
+     * @param random is the random generator of the bot, which is seeded by the seed of the battle.
+     */
+    fun onGameStarted(gameStarted: GameStartedEventForBot, random: Random) {}
+
+    /**
+     * Called when a new round has started, before the first tick of the round.
+     * @param roundStarted is the round started event that the bot would receive from the server.
+     */
+    fun onRoundStarted(roundStarted: RoundStartedEvent) {}
+
+    /**
+     * Called each turn while the bot is alive.
+     * @param tick is the tick event that the bot would receive from the server.
+     * @return the intent of the bot, where `null` values are left unchanged, or `null` if nothing has changed.
+     */
+    fun onTick(tick: TickEventForBot): BotIntent?
+
+    /**
+     * Called when a round has ended, after the last tick of the round.
+     * @param roundEnded is the round ended event that the bot would receive from the server.
+     */
+    fun onRoundEnded(roundEnded: RoundEndedEventForBot) {}
+
+    /**
+     * Called when the game has ended.
+     * @param gameEnded is the game ended event that the bot would receive from the server.
+     */
+    fun onGameEnded(gameEnded: GameEndedEventForBot) {}
+
+    /** Called when the battle is over, also if it failed, so the bot can release its resources. */
+    override fun close() {}
+}
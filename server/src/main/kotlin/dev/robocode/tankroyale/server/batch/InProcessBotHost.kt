@@ -0,0 +1,215 @@
+package dev.robocode.tankroyale.server.batch
+
+import com.google.gson.Gson
+import dev.robocode.tankroyale.common.util.Version
+import dev.robocode.tankroyale.schema.*
+import dev.robocode.tankroyale.server.connection.ClientMessageDecoder
+import dev.robocode.tankroyale.server.connection.IClientWebSocketObserver
+import dev.robocode.tankroyale.server.connection.InProcessTransport
+import org.java_websocket.WebSocket
+import org.java_websocket.framing.CloseFrame
+import org.java_websocket.handshake.ClientHandshake
+import org.slf4j.LoggerFactory
+import java.nio.ByteBuffer
+import java.util.*
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.LinkedBlockingQueue
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+import kotlin.time.Duration
+
+/**
+ * Host of bots written with the Bot API in a headless battle. The bots connect to the host with the in-process
+ * transport, as they would connect to a server running in the same JVM, and exchange the same JSON messages. Each
+ * hosted bot is driven by the battle as a [HeadlessBot], which sends the events to the bot and waits for its intent.
+ *
+ * A Bot API bot reads the server URL when it is created, where the `server.url` system property takes precedence over
+ * the `SERVER_URL` environment variable. Hence, the property is set to the URL of the host while a bot is created.
+ *
+ * @param battleName is the name of the battle, which is used for logging.
+ * @param readyTimeout is the time to wait for a bot to join the battle.
+ * @param turnTimeout is the time to wait for the intent of a bot, where the bot skips the turn if it is exceeded.
+ */
+class InProcessBotHost(
+    private val battleName: String?,
+    private val readyTimeout: Duration,
+    private val turnTimeout: Duration,
+) : IClientWebSocketObserver, AutoCloseable {
+
+    companion object {
+        private const val SERVER_URL_PROPERTY = "server.url"
+
+        /** Ports of the hosts, which are outside the range of TCP ports, so they never clash with a server port */
+        private val nextPort = AtomicInteger(0x10000)
+
+        /** Lock for setting the server URL property while a bot is created */
+        private val serverUrlLock = Any()
+    }
+
+    private val log = LoggerFactory.getLogger(this::class.java)
+
+    private val gson = Gson()
+
+    private val port = nextPort.getAndIncrement()
+
+    private val hostedBots = ConcurrentHashMap<WebSocket, HostedBot>()
+
+    private val joinedBots = LinkedBlockingQueue<HostedBot>()
+
+    init {
+        InProcessTransport.register(port, this)
+    }
+
+    /**
+     * Creates a Bot API bot, which must have a public no-argument constructor and a `start()` method, and starts it on
+     * its own thread.
+     * @param botClass is the class of the bot.
+     * @return the hosted bot, which has joined the battle.
+     * @throws IllegalStateException if the bot did not join the battle within the ready timeout.
+     */
+    fun launch(botClass: Class<*>): HeadlessBot {
+        val bot = synchronized(serverUrlLock) {
+            val serverUrl = System.getProperty(SERVER_URL_PROPERTY)
+            System.setProperty(SERVER_URL_PROPERTY, "inproc://localhost:$port")
+            try {
+                botClass.getDeclaredConstructor().newInstance()
+            } finally {
+                if (serverUrl == null) System.clearProperty(SERVER_URL_PROPERTY)
+                else System.setProperty(SERVER_URL_PROPERTY, serverUrl)
+            }
+        }
+        val start = botClass.getMethod("start")
+
+        Thread({
+            try {
+                start.invoke(bot) // returns when the connection has been closed
+            } catch (exception: Exception) {
+                log.error("Hosted bot failed in battle $battleName: ${botClass.name}", exception)
+            }
+        }, "InProcessBotHost-${botClass.simpleName}").apply {
+            isDaemon = true
+            start()
+        }
+
+        return joinedBots.poll(readyTimeout.inWholeNanoseconds, TimeUnit.NANOSECONDS)
+            ?: throw IllegalStateException("Bot did not join battle $battleName in time: ${botClass.name}")
+    }
+
+    override fun onOpen(clientSocket: WebSocket, handshake: ClientHandshake) {
+        hostedBots[clientSocket] = HostedBot(clientSocket)
+
+        send(clientSocket, gson.toJson(ServerHandshake().apply {
+            type = Message.Type.SERVER_HANDSHAKE
+            name = "Robocode Tank Royale headless battle"
+            sessionId = UUID.randomUUID().toString()
+            variant = "Tank Royale"
+            version = Version.version
+            capabilities = emptySet() // messages are exchanged as JSON
+        }))
+    }
+
+    override fun onClose(clientSocket: WebSocket, code: Int, reason: String, remote: Boolean) {
+        hostedBots.remove(clientSocket)?.onClosed()
+    }
+
+    override fun onMessage(clientSocket: WebSocket, message: String) {
+        val hostedBot = hostedBots[clientSocket] ?: return
+        try {
+            when (val decoded = ClientMessageDecoder.decode(message)) {
+                is BotHandshake -> joinedBots += hostedBot
+                is BotIntent -> hostedBot.intents += decoded
+                is BotReady -> {} // the bot is ready as soon as it has joined
+                else -> log.warn("Ignoring message from hosted bot in battle {}: {}", battleName, decoded?.type)
+            }
+        } catch (exception: Exception) {
+            log.error("Invalid message from hosted bot in battle $battleName: $message", exception)
+        }
+    }
+
+    override fun onMessage(clientSocket: WebSocket, message: ByteBuffer) {
+        log.warn("Ignoring binary message from hosted bot in battle {}", battleName)
+    }
+
+    override fun onError(clientSocket: WebSocket?, exception: Exception) {
+        log.error("Error with hosted bot in battle $battleName", exception)
+    }
+
+    override fun send(clientSocket: WebSocket, message: String) {
+        clientSocket.send(message)
+    }
+
+    override fun send(clientSocket: WebSocket, message: ByteBuffer) {
+        clientSocket.send(message)
+    }
+
+    override fun broadcast(clientSockets: Collection<WebSocket>, message: String) {
+        clientSockets.forEach { it.send(message) }
+    }
+
+    /** Closes the connections to the hosted bots, which stops the bots. */
+    override fun close() {
+        InProcessTransport.unregister(port)
+        hostedBots.keys.forEach { it.close(CloseFrame.NORMAL, "Battle is over") }
+    }
+
+    /** Bot hosted by this host, which is driven by the battle. */
+    private inner class HostedBot(private val connection: WebSocket) : HeadlessBot {
+
+        /** Intents received from the bot, where an intent is only taken in the turn it was received in */
+        val intents = LinkedBlockingQueue<BotIntent>()
+
+        @Volatile
+        private var isClosed = false
+
+        /** Marks that the connection has been closed, so the battle stops waiting for an intent */
+        private val closedMarker = BotIntent()
+
+        fun onClosed() {
+            isClosed = true
+            intents += closedMarker
+        }
+
+        override fun onGameStarted(gameStarted: GameStartedEventForBot, random: Random) {
+            send(gameStarted) // the bot uses its own random generator
+        }
+
+        override fun onRoundStarted(roundStarted: RoundStartedEvent) {
+            send(roundStarted)
+        }
+
+        override fun onTick(tick: TickEventForBot): BotIntent? {
+            if (isClosed) return null // the bot has left the battle
+
+            // Intents that arrived too late for previous turns are dropped, as with the turn timeout of a server
+            intents.clear()
+            send(tick)
+
+            val intent = intents.poll(turnTimeout.inWholeNanoseconds, TimeUnit.NANOSECONDS)
+            if (intent == null) {
+                send(SkippedTurnEvent().apply {
+                    type = Message.Type.SKIPPED_TURN_EVENT
+                    turnNumber = tick.turnNumber
+                })
+            }
+            return intent?.takeUnless { it === closedMarker }
+        }
+
+        override fun onRoundEnded(roundEnded: RoundEndedEventForBot) {
+            send(roundEnded)
+        }
+
+        override fun onGameEnded(gameEnded: GameEndedEventForBot) {
+            send(gameEnded)
+        }
+
+        override fun close() {
+            connection.close(CloseFrame.NORMAL, "Battle is over")
+        }
+
+        private fun send(message: Message) {
+            if (connection.isOpen) {
+                connection.send(gson.toJson(message))
+            }
+        }
+    }
+}
@@ -0,0 +1,423 @@
+package dev.robocode.tankroyale.server.connection
+
+import com.google.gson.GsonBuilder
+import com.google.gson.TypeAdapter
+import com.google.gson.stream.JsonReader
+import com.google.gson.stream.JsonToken
+import com.google.gson.stream.JsonWriter
+import dev.robocode.tankroyale.schema.Message
+import java.io.ByteArrayOutputStream
+import java.io.EOFException
+import java.io.Reader
+import java.io.Writer
+import java.math.BigInteger
+import java.nio.ByteBuffer
+import kotlin.math.abs
+
+/**
+ * Codec for the binary encoding of messages, which is used with bots that have the binary capability.
+ *
+ * A binary frame contains a format version byte, the message type as a string, and then the message encoded as a
+ * value following the JSON structure of the message. The encoding is described in the README of the schemas.
+ * The messages are written and read with Gson through a binary [JsonWriter] and [JsonReader], so the binary encoding
+ * supports exactly the same schema classes as the JSON encoding.
+ */
+object BinaryMessageCodec {
+
+    /** Capability of servers and bots for sending and receiving messages in the binary encoding */
+    const val BINARY_CAPABILITY = "binary"
+
+    /** Version of the binary format */
+    private const val FORMAT_VERSION: Byte = 1
+
+    /**
+     * Booleans are written with the primitive [JsonWriter.value], as the boxed variant used by the built-in adapter of
+     * Gson cannot be overridden from Kotlin next to the primitive variant.
+     */
+    private val booleanAdapter = object : TypeAdapter<Boolean?>() {
+        override fun write(out: JsonWriter, value: Boolean?) {
+            if (value == null) out.nullValue() else out.value(value)
+        }
+
+        override fun read(reader: JsonReader): Boolean? =
+            if (reader.peek() == JsonToken.NULL) null.also { reader.nextNull() } else reader.nextBoolean()
+    }
+
+    private val gson = GsonBuilder()
+        .registerTypeAdapter(Boolean::class.javaPrimitiveType, booleanAdapter)
+        .registerTypeAdapter(Boolean::class.javaObjectType, booleanAdapter)
+        .create()
+
+    /**
+     * Encodes a message into a binary frame payload.
+     * @param message is the message to encode.
+     * @return the payload of the binary frame.
+     */
+    fun encode(message: Message): ByteBuffer =
+        BinaryJsonWriter().run {
+            writeHeader(message.type.value())
+            gson.toJson(message, message.javaClass, this)
+            toByteBuffer()
+        }
+
+    /**
+     * Decodes the message type from the header of a binary frame payload. The position of the buffer is moved to the
+     * message, which can then be decoded with [decode].
+     * @param buffer is the payload of the binary frame.
+     * @return the message type.
+     */
+    fun decodeType(buffer: ByteBuffer): Message.Type {
+        val version = buffer.get()
+        require(version == FORMAT_VERSION) { "Unsupported binary format version: $version" }
+        return Message.Type.fromValue(readString(buffer))
+    }
+
+    /**
+     * Decodes a message from a binary frame payload, where the header has been read with [decodeType].
+     * @param buffer is the payload of the binary frame.
+     * @param type is the class of the message.
+     * @return the decoded message.
+     */
+    fun <T> decode(buffer: ByteBuffer, type: Class<T>): T = gson.fromJson<T>(BinaryJsonReader(buffer), type)
+
+    private class BinaryJsonWriter : JsonWriter(Writer.nullWriter()) {
+
+        private val out = ByteArrayOutputStream(256)
+
+        private val names = HashMap<String, Int>()
+
+        private var pendingName: String? = null
+
+        fun writeHeader(type: String) {
+            out.write(FORMAT_VERSION.toInt())
+            writeString(type)
+        }
+
+        fun toByteBuffer(): ByteBuffer = ByteBuffer.wrap(out.toByteArray())
+
+        override fun beginArray(): JsonWriter {
+            writeTag(TAG_ARRAY)
+            return this
+        }
+
+        override fun endArray(): JsonWriter {
+            out.write(TAG_END_ARRAY)
+            return this
+        }
+
+        override fun beginObject(): JsonWriter {
+            writeTag(TAG_OBJECT)
+            return this
+        }
+
+        override fun endObject(): JsonWriter {
+            out.write(KEY_END_OBJECT)
+            return this
+        }
+
+        override fun name(name: String): JsonWriter {
+            check(pendingName == null) { "Name has already been written: $pendingName" }
+            pendingName = name
+            return this
+        }
+
+        override fun nullValue(): JsonWriter {
+            if (pendingName != null && !serializeNulls) {
+                pendingName = null // skip the member
+            } else {
+                writeTag(TAG_NULL)
+            }
+            return this
+        }
+
+        override fun value(value: String?): JsonWriter {
+            if (value == null) return nullValue()
+            writeTag(TAG_STRING)
+            writeString(value)
+            return this
+        }
+
+        override fun value(value: Boolean): JsonWriter {
+            writeTag(if (value) TAG_TRUE else TAG_FALSE)
+            return this
+        }
+
+        override fun value(value: Float): JsonWriter = value(value.toDouble())
+
+        override fun value(value: Double): JsonWriter {
+            if (isWholeNumber(value)) return value(value.toLong())
+            writeTag(TAG_DOUBLE)
+            writeLong(java.lang.Double.doubleToRawLongBits(value))
+            return this
+        }
+
+        override fun value(value: Long): JsonWriter {
+            writeTag(TAG_INT)
+            writeVarLong((value shl 1) xor (value shr 63)) // ZigZag encoding
+            return this
+        }
+
+        override fun value(value: Number?): JsonWriter = when (value) {
+            null -> nullValue()
+            is Int, is Long, is Short, is Byte, is BigInteger -> value(value.toLong())
+            else -> value(value.toDouble())
+        }
+
+        override fun jsonValue(value: String?): JsonWriter =
+            throw UnsupportedOperationException("Raw JSON values cannot be binary encoded")
+
+        override fun flush() {}
+
+        override fun close() {}
+
+        private fun writeTag(tag: Int) {
+            pendingName?.let { name ->
+                val index = names[name]
+                if (index != null) {
+                    writeVarLong((index + KEY_FIRST_NAME_INDEX).toLong())
+                } else {
+                    names[name] = names.size
+                    writeVarLong(KEY_NEW_NAME.toLong())
+                    writeString(name)
+                }
+                pendingName = null
+            }
+            out.write(tag)
+        }
+
+        private fun writeVarLong(value: Long) {
+            var v = value
+            while (v and 0x7FL.inv() != 0L) {
+                out.write(((v and 0x7F) or 0x80).toInt())
+                v = v ushr 7
+            }
+            out.write(v.toInt())
+        }
+
+        private fun writeLong(value: Long) {
+            for (shift in 56 downTo 0 step 8) {
+                out.write((value shr shift).toInt() and 0xFF)
+            }
+        }
+
+        private fun writeString(value: String) {
+            val bytes = value.toByteArray(Charsets.UTF_8)
+            writeVarLong(bytes.size.toLong())
+            out.write(bytes)
+        }
+
+        private fun isWholeNumber(value: Double) =
+            value == Math.rint(value) && abs(value) <= MAX_SAFE_INTEGER &&
+                    java.lang.Double.doubleToRawLongBits(value) != NEGATIVE_ZERO_BITS
+    }
+
+    private class BinaryJsonReader(private val buffer: ByteBuffer) : JsonReader(Reader.nullReader()) {
+
+        private val names = ArrayList<String>()
+
+        private var scopes = IntArray(16)
+        private var depth = 1
+
+        init {
+            scopes[0] = SCOPE_TOP
+        }
+
+        override fun peek(): JsonToken = when (scopes[depth - 1]) {
+            SCOPE_OBJECT_NAME -> if (peekByte() == KEY_END_OBJECT) JsonToken.END_OBJECT else JsonToken.NAME
+            SCOPE_TOP_DONE -> JsonToken.END_DOCUMENT
+            else -> when (val tag = peekByte()) {
+                TAG_NULL -> JsonToken.NULL
+                TAG_FALSE, TAG_TRUE -> JsonToken.BOOLEAN
+                TAG_INT, TAG_DOUBLE -> JsonToken.NUMBER
+                TAG_STRING -> JsonToken.STRING
+                TAG_ARRAY -> JsonToken.BEGIN_ARRAY
+                TAG_END_ARRAY -> JsonToken.END_ARRAY
+                TAG_OBJECT -> JsonToken.BEGIN_OBJECT
+                else -> throw IllegalStateException("Unknown tag: $tag")
+            }
+        }
+
+        override fun hasNext(): Boolean = when (peek()) {
+            JsonToken.END_OBJECT, JsonToken.END_ARRAY, JsonToken.END_DOCUMENT -> false
+            else -> true
+        }
+
+        override fun beginArray() {
+            readTag(TAG_ARRAY)
+            pushScope(SCOPE_ARRAY)
+        }
+
+        override fun endArray() {
+            check(scopes[depth - 1] == SCOPE_ARRAY && buffer.get().toInt() == TAG_END_ARRAY) { "Expected end of array" }
+            depth--
+        }
+
+        override fun beginObject() {
+            readTag(TAG_OBJECT)
+            pushScope(SCOPE_OBJECT_NAME)
+        }
+
+        override fun endObject() {
+            check(scopes[depth - 1] == SCOPE_OBJECT_NAME && buffer.get().toInt() == KEY_END_OBJECT) {
+                "Expected end of object"
+            }
+            depth--
+        }
+
+        override fun nextName(): String {
+            check(scopes[depth - 1] == SCOPE_OBJECT_NAME) { "Expected a name" }
+            val name = when (val key = readVarLong()) {
+                KEY_END_OBJECT.toLong() -> throw IllegalStateException("Expected a name but was end of object")
+                KEY_NEW_NAME.toLong() -> readString(buffer).also { names += it }
+                else -> names[(key - KEY_FIRST_NAME_INDEX).toInt()]
+            }
+            scopes[depth - 1] = SCOPE_OBJECT_VALUE
+            return name
+        }
+
+        override fun nextString(): String = when (val tag = readValueTag()) {
+            TAG_STRING -> readString(buffer)
+            TAG_INT -> readZigZagLong().toString()
+            TAG_DOUBLE -> readDouble().toString()
+            else -> throw IllegalStateException("Expected a string but was tag: $tag")
+        }
+
+        override fun nextBoolean(): Boolean = when (val tag = readValueTag()) {
+            TAG_TRUE -> true
+            TAG_FALSE -> false
+            else -> throw IllegalStateException("Expected a boolean but was tag: $tag")
+        }
+
+        override fun nextNull() {
+            readTag(TAG_NULL)
+        }
+
+        override fun nextDouble(): Double = when (val tag = readValueTag()) {
+            TAG_DOUBLE -> readDouble()
+            TAG_INT -> readZigZagLong().toDouble()
+            else -> throw IllegalStateException("Expected a number but was tag: $tag")
+        }
+
+        override fun nextLong(): Long = when (val tag = readValueTag()) {
+            TAG_INT -> readZigZagLong()
+            TAG_DOUBLE -> readDouble().let { value ->
+                value.toLong().also {
+                    if (it.toDouble() != value) throw NumberFormatException("Expected a long: $value")
+                }
+            }
+
+            else -> throw IllegalStateException("Expected a number but was tag: $tag")
+        }
+
+        override fun nextInt(): Int {
+            val value = nextLong()
+            if (value.toInt().toLong() != value) throw NumberFormatException("Expected an int: $value")
+            return value.toInt()
+        }
+
+        override fun skipValue() {
+            when (peek()) {
+                JsonToken.NAME -> nextName()
+                JsonToken.BEGIN_ARRAY -> {
+                    beginArray()
+                    while (hasNext()) skipValue()
+                    endArray()
+                }
+
+                JsonToken.BEGIN_OBJECT -> {
+                    beginObject()
+                    while (hasNext()) {
+                        nextName()
+                        skipValue()
+                    }
+                    endObject()
+                }
+
+                JsonToken.NULL -> nextNull()
+                JsonToken.BOOLEAN -> nextBoolean()
+                JsonToken.NUMBER, JsonToken.STRING -> nextString()
+                else -> throw IllegalStateException("Cannot skip: ${peek()}")
+            }
+        }
+
+        override fun close() {}
+
+        private fun peekByte(): Int {
+            if (!buffer.hasRemaining()) throw EOFException("End of binary message")
+            return buffer.get(buffer.position()).toInt()
+        }
+
+        private fun readTag(expectedTag: Int) {
+            val tag = readValueTag()
+            check(tag == expectedTag) { "Expected tag: $expectedTag, but was: $tag" }
+        }
+
+        /** Reads the tag of the next value, and moves the enclosing scope past the value. */
+        private fun readValueTag(): Int {
+            when (scopes[depth - 1]) {
+                SCOPE_OBJECT_VALUE -> scopes[depth - 1] = SCOPE_OBJECT_NAME
+                SCOPE_TOP -> scopes[depth - 1] = SCOPE_TOP_DONE
+                SCOPE_ARRAY -> {}
+                else -> throw IllegalStateException("Expected a name or end of document")
+            }
+            if (!buffer.hasRemaining()) throw EOFException("End of binary message")
+            return buffer.get().toInt()
+        }
+
+        private fun pushScope(scope: Int) {
+            if (depth == scopes.size) {
+                scopes = scopes.copyOf(depth * 2)
+            }
+            scopes[depth++] = scope
+        }
+
+        private fun readVarLong() = readVarLong(buffer)
+
+        private fun readZigZagLong() = readVarLong().let { (it ushr 1) xor -(it and 1) }
+
+        private fun readDouble() = buffer.getDouble() // ByteBuffer is big endian by default
+    }
+
+    private fun readVarLong(buffer: ByteBuffer): Long {
+        var value = 0L
+        var shift = 0
+        while (true) {
+            val b = buffer.get().toInt()
+            value = value or ((b and 0x7F).toLong() shl shift)
+            if (b and 0x80 == 0) return value
+            shift += 7
+            if (shift > 63) throw IllegalStateException("Malformed varint")
+        }
+    }
+
+    private fun readString(buffer: ByteBuffer): String {
+        val bytes = ByteArray(readVarLong(buffer).toInt())
+        buffer.get(bytes)
+        return String(bytes, Charsets.UTF_8)
+    }
+}
+
+private const val TAG_NULL = 0x00
+private const val TAG_FALSE = 0x01
+private const val TAG_TRUE = 0x02
+private const val TAG_INT = 0x03
+private const val TAG_DOUBLE = 0x04
+private const val TAG_STRING = 0x05
+private const val TAG_ARRAY = 0x06
+private const val TAG_END_ARRAY = 0x07
+private const val TAG_OBJECT = 0x08
+
+private const val KEY_END_OBJECT = 0
+private const val KEY_NEW_NAME = 1
+private const val KEY_FIRST_NAME_INDEX = 2
+
+private const val SCOPE_TOP = 0
+private const val SCOPE_TOP_DONE = 1
+private const val SCOPE_ARRAY = 2
+private const val SCOPE_OBJECT_NAME = 3
+private const val SCOPE_OBJECT_VALUE = 4
+
+/** Largest whole number that can be represented exactly by a double */
+private const val MAX_SAFE_INTEGER = 9007199254740992.0
+
+private val NEGATIVE_ZERO_BITS = java.lang.Double.doubleToRawLongBits(-0.0)
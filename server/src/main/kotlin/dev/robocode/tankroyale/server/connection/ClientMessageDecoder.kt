@@ -0,0 +1,103 @@
+package dev.robocode.tankroyale.server.connection
+
+import com.google.gson.Gson
+import com.google.gson.JsonSyntaxException
+import com.google.gson.stream.JsonReader
+import dev.robocode.tankroyale.schema.*
+import java.io.IOException
+import java.io.StringReader
+import java.nio.ByteBuffer
+
+/**
+ * Decoder of messages received from clients, which decodes each message into its schema class without building a
+ * tree of the message.
+ *
+ * The type of a JSON message is peeked with a streaming reader, which skips the values of all other top-level
+ * properties without building a tree. The `type` is usually the last property, as it is defined by the message base
+ * class. The type of a binary message is read from its header.
+ *
+ * The JSON messages of bots that have sent their handshake are nearly all bot intents. These messages are parsed
+ * directly into a bot intent, so an intent is read once instead of peeking its type first.
+ */
+object ClientMessageDecoder {
+
+    private const val TYPE = "type"
+
+    private val gson = Gson()
+
+    /** Schema classes of the messages that clients can send to the server, by message type */
+    private val messageClasses: Map<String, Class<out Message>> = mapOf(
+        Message.Type.BOT_INTENT to BotIntent::class.java,
+        Message.Type.BOT_HANDSHAKE to BotHandshake::class.java,
+        Message.Type.OBSERVER_HANDSHAKE to ObserverHandshake::class.java,
+        Message.Type.CONTROLLER_HANDSHAKE to ControllerHandshake::class.java,
+        Message.Type.BOT_READY to BotReady::class.java,
+        Message.Type.START_GAME to StartGame::class.java,
+        Message.Type.STOP_GAME to StopGame::class.java,
+        Message.Type.PAUSE_GAME to PauseGame::class.java,
+        Message.Type.RESUME_GAME to ResumeGame::class.java,
+        Message.Type.NEXT_TURN to NextTurn::class.java,
+        Message.Type.CHANGE_TPS to ChangeTps::class.java,
+        Message.Type.BOT_POLICY_UPDATE to BotPolicyUpdate::class.java,
+    ).mapKeys { it.key.value() }
+
+    /**
+     * Decodes a JSON message.
+     * @param message is the JSON message.
+     * @return the decoded message, or `null` if the message has no type.
+     * @throws JsonSyntaxException if the message is not a valid JSON object.
+     * @throws IllegalArgumentException if the message type cannot be sent by clients.
+     */
+    fun decode(message: String): Message? {
+        val type = peekType(message) ?: return null
+        return gson.fromJson(message, messageClassOf(type))
+    }
+
+    /**
+     * Decodes a JSON message from a bot that has sent its handshake, which is parsed as a bot intent in a single pass.
+     * Only a message that turns out to be another message is decoded again by its type.
+     * @param message is the JSON message.
+     * @return the decoded message, or `null` if the message has no type.
+     * @throws JsonSyntaxException if the message is not a valid JSON object.
+     * @throws IllegalArgumentException if the message type cannot be sent by clients.
+     */
+    fun decodeFromBot(message: String): Message? {
+        val intent = try {
+            gson.fromJson(message, BotIntent::class.java)
+        } catch (_: JsonSyntaxException) {
+            null // e.g. another message with properties that are not those of an intent
+        }
+        return if (intent?.type == Message.Type.BOT_INTENT) intent else decode(message)
+    }
+
+    /**
+     * Decodes a binary message.
+     * @param message is the payload of the binary frame.
+     * @return the decoded message.
+     * @throws IllegalArgumentException if the message type cannot be sent by clients.
+     */
+    fun decode(message: ByteBuffer): Message {
+        val type = BinaryMessageCodec.decodeType(message)
+        return BinaryMessageCodec.decode(message, messageClassOf(type.value()))
+    }
+
+    private fun messageClassOf(type: String) =
+        messageClasses[type] ?: throw IllegalArgumentException("Unhandled message type: $type")
+
+    private fun peekType(message: String): String? {
+        try {
+            JsonReader(StringReader(message)).use { reader ->
+                reader.beginObject()
+                while (reader.hasNext()) {
+                    if (reader.nextName() == TYPE) return reader.nextString()
+                    reader.skipValue()
+                }
+            }
+        } catch (exception: IOException) {
+            throw JsonSyntaxException(exception)
+        } catch (exception: IllegalStateException) {
+            throw JsonSyntaxException(exception)
+        }
+        return null
+    }
+}
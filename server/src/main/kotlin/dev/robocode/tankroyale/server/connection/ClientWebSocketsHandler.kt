@@ -1,12 +1,13 @@
 package dev.robocode.tankroyale.server.connection
 
 import com.google.gson.Gson
-import com.google.gson.JsonObject
 import com.google.gson.JsonSyntaxException
 import dev.robocode.tankroyale.common.util.Version
 import dev.robocode.tankroyale.schema.*
+import dev.robocode.tankroyale.server.core.GameRoom
 import dev.robocode.tankroyale.server.core.ServerSetup
 import dev.robocode.tankroyale.server.core.StatusCode
+import dev.robocode.tankroyale.server.util.utf8Length
 import org.java_websocket.WebSocket
 import org.java_websocket.exceptions.WebsocketNotConnectedException
 import org.java_websocket.handshake.ClientHandshake
@@ -17,7 +18,9 @@ import java.util.*
 import java.util.concurrent.ConcurrentHashMap
 import java.util.concurrent.ExecutorService
 import java.util.concurrent.Executors
+import java.util.concurrent.ThreadPoolExecutor
 import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.LongAdder
 
 class ClientWebSocketsHandler(
     private val setup: ServerSetup,
@@ -30,6 +33,12 @@ class ClientWebSocketsHandler(
     companion object {
         private const val MISSING_SESSION_ID = "Missing session id"
         private const val INVALID_SECRET = "Invalid secret"
+
+        /** Capability of observers and controllers for receiving tick deltas */
+        const val TICK_DELTA_CAPABILITY = "tick-delta"
+
+        /** Capability of the server for hosting multiple games in game rooms */
+        const val ROOMS_CAPABILITY = "rooms"
     }
 
     private val log = LoggerFactory.getLogger(this::class.java)
@@ -39,16 +48,31 @@ class ClientWebSocketsHandler(
     private val botSockets = ConcurrentHashMap.newKeySet<WebSocket>()
     private val observerSockets = ConcurrentHashMap.newKeySet<WebSocket>()
     private val controllerSockets = ConcurrentHashMap.newKeySet<WebSocket>()
+    private val tickDeltaSockets = ConcurrentHashMap.newKeySet<WebSocket>()
+    private val binarySockets = ConcurrentHashMap.newKeySet<WebSocket>()
 
     private val sessionIds = ConcurrentHashMap<WebSocket, String /* sessionId */>()
 
+    /** Map over the game rooms observed by observers and controllers */
+    private val roomIds = ConcurrentHashMap<WebSocket, String /* roomId */>()
+
     private val botHandshakes = ConcurrentHashMap<WebSocket, BotHandshake>()
     private val observerHandshakes = ConcurrentHashMap<WebSocket, ObserverHandshake>()
     private val controllerHandshakes = ConcurrentHashMap<WebSocket, ControllerHandshake>()
 
-    private val executorService = Executors.newCachedThreadPool()
+    /** Map over the number of bytes sent to each client */
+    private val sentBytes = ConcurrentHashMap<WebSocket, LongAdder>()
+
+    private val executorService = Executors.newCachedThreadPool() as ThreadPoolExecutor
 
-    private val gson = Gson()
+    /** Number of threads of the executor that are currently handling messages */
+    val executorActiveCount: Int get() = executorService.activeCount
+
+    /** Number of threads in the pool of the executor */
+    val executorPoolSize: Int get() = executorService.poolSize
+
+    /** Number of messages handled by the executor */
+    val executorCompletedTaskCount: Long get() = executorService.completedTaskCount
 
     private var currentGameSetup: GameSetup? = null
 
@@ -68,12 +92,17 @@ class ClientWebSocketsHandler(
         processMessage(clientSocket, message)
     }
 
+    override fun onMessage(clientSocket: WebSocket, message: ByteBuffer) {
+        processBinaryMessage(clientSocket, message)
+    }
+
     override fun onError(clientSocket: WebSocket?, exception: Exception) {
         handleException(clientSocket, exception)
     }
 
     private fun addSocketAndSendServerHandshake(clientSocket: WebSocket) {
         allSockets += clientSocket
+        sentBytes[clientSocket] = LongAdder()
 
         ServerHandshake().apply {
             type = Message.Type.SERVER_HANDSHAKE
@@ -83,6 +112,7 @@ class ClientWebSocketsHandler(
             version = Version.version
             gameTypes = setup.gameTypes
             gameSetup = currentGameSetup
+            capabilities = setOf(TICK_DELTA_CAPABILITY, BinaryMessageCodec.BINARY_CAPABILITY, ROOMS_CAPABILITY)
         }.also {
             send(clientSocket, Gson().toJson(it))
         }
@@ -93,52 +123,116 @@ class ClientWebSocketsHandler(
     }
 
     private fun processMessage(clientSocket: WebSocket, message: String) {
-        executorService.submit {
-            try {
-                gson.fromJson(message, JsonObject::class.java)["type"]?.let { jsonType ->
-                    try {
-                        val type = Message.Type.fromValue(jsonType.asString)
-
-                        log.debug("Handling message: {}", type)
-                        when (type) {
-                            Message.Type.BOT_INTENT -> handleIntent(clientSocket, message)
-                            Message.Type.BOT_HANDSHAKE -> handleBotHandshake(clientSocket, message)
-                            Message.Type.OBSERVER_HANDSHAKE -> handleObserverHandshake(clientSocket, message)
-                            Message.Type.CONTROLLER_HANDSHAKE -> handleControllerHandshake(clientSocket, message)
-                            Message.Type.BOT_READY -> handleBotReady(clientSocket)
-                            Message.Type.START_GAME -> handleStartGame(message)
-                            Message.Type.STOP_GAME -> handleStopGame()
-                            Message.Type.PAUSE_GAME -> handlePauseGame()
-                            Message.Type.RESUME_GAME -> handleResumeGame()
-                            Message.Type.NEXT_TURN -> handleNextTurn()
-                            Message.Type.CHANGE_TPS -> handleChangeTps(message)
-                            Message.Type.BOT_POLICY_UPDATE -> handleBotPolicyUpdated(message)
-                            else -> handleException(
-                                clientSocket,
-                                IllegalStateException("Unhandled message type: $type")
-                            )
-                        }
-                    } catch (ex: IllegalArgumentException) {
-                        handleException(
-                            clientSocket,
-                            IllegalStateException("Unhandled message type: ${jsonType.asString}")
-                        )
-                    }
+        try {
+            val decoded = if (botHandshakes.containsKey(clientSocket)) {
+                ClientMessageDecoder.decodeFromBot(message)
+            } else {
+                ClientMessageDecoder.decode(message)
+            }
+            decoded?.let { dispatchMessage(clientSocket, it) }
+        } catch (exception: JsonSyntaxException) {
+            log.error("Invalid message: $message", exception)
+        } catch (exception: IllegalArgumentException) {
+            handleException(clientSocket, IllegalStateException(exception.message))
+        } catch (exception: Exception) {
+            log.error("Error when passing message: $message", exception)
+        }
+    }
+
+    private fun processBinaryMessage(clientSocket: WebSocket, message: ByteBuffer) {
+        try {
+            dispatchMessage(clientSocket, ClientMessageDecoder.decode(message))
+        } catch (exception: IllegalArgumentException) {
+            handleException(clientSocket, IllegalStateException(exception.message))
+        } catch (exception: Exception) {
+            log.error("Error when passing binary message of ${message.limit()} bytes", exception)
+        }
+    }
+
+    /**
+     * Dispatches a decoded message. Bot intents are handled directly on the socket thread, as they are received once
+     * per bot per turn and must reach the game as soon as possible. The game room only locks the intents briefly, so
+     * the socket thread does not wait for a turn being executed. All other messages are handled by the executor.
+     */
+    private fun dispatchMessage(clientSocket: WebSocket, message: Message) {
+        log.debug("Handling message: {}", message.type)
+        if (message is BotIntent) {
+            handleIntent(clientSocket, message)
+        } else {
+            executorService.submit {
+                try {
+                    handleMessage(clientSocket, message)
+                } catch (exception: Exception) {
+                    log.error("Error when handling message: ${message.type}", exception)
                 }
-            } catch (exception: JsonSyntaxException) {
-                log.error("Invalid message: $message", exception)
-            } catch (exception: Exception) {
-                log.error("Error when passing message: $message", exception)
             }
         }
     }
 
+    private fun handleMessage(clientSocket: WebSocket, message: Message) {
+        when (message) {
+            is BotHandshake -> handleBotHandshake(clientSocket, message)
+            is ObserverHandshake -> handleObserverHandshake(clientSocket, message)
+            is ControllerHandshake -> handleControllerHandshake(clientSocket, message)
+            is BotReady -> handleBotReady(clientSocket)
+            is StartGame -> handleStartGame(clientSocket, message)
+            is StopGame -> listener.onAbortGame(getRoomId(clientSocket))
+            is PauseGame -> listener.onPauseGame(getRoomId(clientSocket))
+            is ResumeGame -> listener.onResumeGame(getRoomId(clientSocket))
+            is NextTurn -> listener.onNextTurn(getRoomId(clientSocket))
+            is ChangeTps -> listener.onChangeTps(getRoomId(clientSocket), message.tps)
+            is BotPolicyUpdate -> listener.onBotPolicyUpdated(getRoomId(clientSocket), message)
+            else -> handleException(
+                clientSocket,
+                IllegalStateException("Unhandled message type: ${message.type}")
+            )
+        }
+    }
+
     fun getBotSockets(): Set<WebSocket> = botSockets.toSet()
 
     fun getObserverAndControllerSockets(): Set<WebSocket> = observerSockets.union(controllerSockets)
 
+    /** Returns the sockets of the observers and controllers observing a game room. */
+    fun getObserverAndControllerSockets(roomId: String): Set<WebSocket> =
+        getObserverAndControllerSockets().filterTo(HashSet()) { getRoomId(it) == roomId }
+
+    /** Returns the id of the game room observed or controlled by a client. */
+    private fun getRoomId(clientSocket: WebSocket): String = roomIds[clientSocket] ?: GameRoom.DEFAULT_ROOM_ID
+
+    fun getTickDeltaSockets(): Set<WebSocket> = tickDeltaSockets
+
     fun getBotHandshakes(): Map<WebSocket, BotHandshake> = botHandshakes
 
+    /** Checks if messages to and from a client must use the binary encoding. */
+    fun isBinaryEncoding(clientSocket: WebSocket): Boolean = clientSocket in binarySockets
+
+    /**
+     * Records bytes sent to a client, which is not done for messages passed to clients hosted in the server JVM.
+     * @param clientSocket is the client.
+     * @param bytes is the number of bytes sent.
+     */
+    fun recordBytesSent(clientSocket: WebSocket, bytes: Int) {
+        sentBytes[clientSocket]?.add(bytes.toLong())
+    }
+
+    /** Returns the number of bytes sent to each connected client. */
+    fun getSentBytes(): Map<WebSocket, Long> = sentBytes.mapValues { it.value.sum() }
+
+    /** Returns the type of a client, i.e. `bot`, `observer`, `controller`, or `unknown` before the handshake. */
+    fun getClientType(clientSocket: WebSocket): String = when (clientSocket) {
+        in botSockets -> "bot"
+        in observerSockets -> "observer"
+        in controllerSockets -> "controller"
+        else -> "unknown"
+    }
+
+    /** Returns the name of a client given by its handshake, or `null` before the handshake. */
+    fun getClientName(clientSocket: WebSocket): String? =
+        botHandshakes[clientSocket]?.name
+            ?: observerHandshakes[clientSocket]?.name
+            ?: controllerHandshakes[clientSocket]?.name
+
     private fun shutdownAndAwaitTermination(pool: ExecutorService) {
         pool.apply {
             shutdown() // Disable new tasks from being submitted
@@ -158,6 +252,20 @@ class ClientWebSocketsHandler(
 
     override fun send(clientSocket: WebSocket, message: String) {
         log.debug("Send to: client: {}, message: {}", clientSocket.remoteSocketAddress, message)
+        recordBytesSent(clientSocket, message.utf8Length())
+
+        executorService.submit {
+            try {
+                clientSocket.send(message)
+            } catch (e: WebsocketNotConnectedException) {
+                closeSocket(clientSocket)
+            }
+        }
+    }
+
+    override fun send(clientSocket: WebSocket, message: ByteBuffer) {
+        log.debug("Send to: client: {}, binary message of {} bytes", clientSocket.remoteSocketAddress, message.limit())
+        recordBytesSent(clientSocket, message.remaining())
 
         executorService.submit {
             try {
@@ -178,12 +286,16 @@ class ClientWebSocketsHandler(
 
     private fun closeSocket(clientSocket: WebSocket) {
         allSockets -= clientSocket
+        tickDeltaSockets -= clientSocket
+        binarySockets -= clientSocket
         when {
             botSockets.remove(clientSocket) -> handleBotLeft(clientSocket)
             observerSockets.remove(clientSocket) -> handleObserverLeft(clientSocket)
             controllerSockets.remove(clientSocket) -> handleControllerLeft(clientSocket)
         }
         sessionIds.remove(clientSocket)
+        roomIds.remove(clientSocket)
+        sentBytes.remove(clientSocket)
     }
 
     private fun handleBotLeft(clientSocket: WebSocket) {
@@ -224,15 +336,14 @@ class ClientWebSocketsHandler(
         return Base64.getEncoder().withoutPadding().encodeToString(byteBuffer.array())
     }
 
-    private fun handleIntent(clientSocket: WebSocket, message: String) {
+    private fun handleIntent(clientSocket: WebSocket, intent: BotIntent) {
         botHandshakes[clientSocket]?.let { botHandshake ->
-            val intent = gson.fromJson(message, BotIntent::class.java)
             listener.onBotIntent(clientSocket, botHandshake, intent)
         }
     }
 
-    private fun handleBotHandshake(clientSocket: WebSocket, message: String) {
-        gson.fromJson(message, BotHandshake::class.java).apply {
+    private fun handleBotHandshake(clientSocket: WebSocket, handshake: BotHandshake) {
+        handshake.apply {
             if (sessionId.isNullOrBlank() || !sessionIds.values.contains(sessionId)) {
                 log.info("Ignoring bot missing session id: $name, version: $version")
                 clientSocket.close(StatusCode.POLICY_VIOLATION.value, MISSING_SESSION_ID)
@@ -242,6 +353,9 @@ class ClientWebSocketsHandler(
                 clientSocket.close(StatusCode.POLICY_VIOLATION.value, INVALID_SECRET)
 
             } else {
+                if (capabilities?.contains(BinaryMessageCodec.BINARY_CAPABILITY) == true) {
+                    binarySockets += clientSocket
+                }
                 botSockets += clientSocket
                 botHandshakes[clientSocket] = this
                 listener.onBotJoined(clientSocket, this)
@@ -249,8 +363,8 @@ class ClientWebSocketsHandler(
         }
     }
 
-    private fun handleObserverHandshake(clientSocket: WebSocket, message: String) {
-        gson.fromJson(message, ObserverHandshake::class.java).apply {
+    private fun handleObserverHandshake(clientSocket: WebSocket, handshake: ObserverHandshake) {
+        handshake.apply {
             if (sessionId.isNullOrBlank() || !sessionIds.values.contains(sessionId)) {
                 log.info("Ignoring observer missing session id: $name, version: $version")
                 clientSocket.close(StatusCode.POLICY_VIOLATION.value, MISSING_SESSION_ID)
@@ -260,6 +374,10 @@ class ClientWebSocketsHandler(
                 clientSocket.close(StatusCode.POLICY_VIOLATION.value, INVALID_SECRET)
 
             } else {
+                if (capabilities?.contains(TICK_DELTA_CAPABILITY) == true) {
+                    tickDeltaSockets += clientSocket
+                }
+                roomId?.let { roomIds[clientSocket] = it }
                 observerSockets += clientSocket
                 observerHandshakes[clientSocket] = this
                 listener.onObserverJoined(clientSocket, this)
@@ -267,8 +385,8 @@ class ClientWebSocketsHandler(
         }
     }
 
-    private fun handleControllerHandshake(clientSocket: WebSocket, message: String) {
-        gson.fromJson(message, ControllerHandshake::class.java).apply {
+    private fun handleControllerHandshake(clientSocket: WebSocket, handshake: ControllerHandshake) {
+        handshake.apply {
             if (sessionId.isNullOrBlank() || !sessionIds.values.contains(sessionId)) {
                 log.info("Ignoring controller missing session id: $name, version: $version")
                 clientSocket.close(StatusCode.POLICY_VIOLATION.value, MISSING_SESSION_ID)
@@ -278,6 +396,10 @@ class ClientWebSocketsHandler(
                 clientSocket.close(StatusCode.POLICY_VIOLATION.value, INVALID_SECRET)
 
             } else {
+                if (capabilities?.contains(TICK_DELTA_CAPABILITY) == true) {
+                    tickDeltaSockets += clientSocket
+                }
+                roomId?.let { roomIds[clientSocket] = it }
                 controllerSockets += clientSocket
                 controllerHandshakes[clientSocket] = this
                 listener.onControllerJoined(clientSocket, this)
@@ -291,42 +413,16 @@ class ClientWebSocketsHandler(
         }
     }
 
-    private fun handleStartGame(message: String) {
-        gson.fromJson(message, StartGame::class.java).apply {
-            currentGameSetup = gameSetup
-            listener.onStartGame(gameSetup, botAddresses.toSet())
-        }
-    }
+    private fun handleStartGame(clientSocket: WebSocket, startGame: StartGame) {
+        // The controller controls and observes the room of the game it starts
+        val roomId = startGame.roomId ?: getRoomId(clientSocket)
+        roomIds[clientSocket] = roomId
 
-    private fun handleStopGame() {
-        executorService.submit(listener::onAbortGame)
-    }
-
-    private fun handlePauseGame() {
-        executorService.submit(listener::onPauseGame)
-    }
-
-    private fun handleResumeGame() {
-        executorService.submit(listener::onResumeGame)
-    }
-
-    private fun handleNextTurn() {
-        executorService.submit(listener::onNextTurn)
-    }
-
-    private fun handleChangeTps(message: String) {
-        executorService.submit {
-            gson.fromJson(message, ChangeTps::class.java).apply {
-                listener.onChangeTps(tps)
-            }
-        }
-    }
-
-    private fun handleBotPolicyUpdated(message: String) {
-        executorService.submit {
-            gson.fromJson(message, BotPolicyUpdate::class.java).apply {
-                listener.onBotPolicyUpdated(this)
+        startGame.apply {
+            if (roomId == GameRoom.DEFAULT_ROOM_ID) {
+                currentGameSetup = gameSetup
             }
+            listener.onStartGame(roomId, gameSetup, botAddresses.toSet())
         }
     }
 
@@ -337,3 +433,4 @@ class ClientWebSocketsHandler(
         }
     }
 }
+
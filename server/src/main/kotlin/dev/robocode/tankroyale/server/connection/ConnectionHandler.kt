@@ -1,18 +1,25 @@
 package dev.robocode.tankroyale.server.connection
 
+import com.google.gson.Gson
 import dev.robocode.tankroyale.schema.*
+import dev.robocode.tankroyale.server.Server
 import dev.robocode.tankroyale.server.connection.ClientWebSocketsHandler
 import dev.robocode.tankroyale.server.core.ServerSetup
+import dev.robocode.tankroyale.server.metrics.MetricsRegistry
+import dev.robocode.tankroyale.server.metrics.PrometheusWriter
+import dev.robocode.tankroyale.server.util.utf8Length
 import org.java_websocket.WebSocket
 import org.slf4j.LoggerFactory
 import java.net.InetAddress
 import java.net.InetSocketAddress
+import java.util.concurrent.ConcurrentHashMap
 
 class ConnectionHandler(
     setup: ServerSetup,
     listener: IConnectionListener,
     controllerSecrets: Set<String>,
     botSecrets: Set<String>,
+    metrics: MetricsRegistry,
 ) {
     private val log = LoggerFactory.getLogger(this::class.java)
 
@@ -20,22 +27,128 @@ class ConnectionHandler(
 
     private val webSocketObserver = WebSocketObserver(clientHandler)
 
+    private val observerFanOut =
+        ObserverFanOut(Server.observerQueuePolicy, Server.observerQueueSize, clientHandler::recordBytesSent)
+
+    /** Tick deltas are encoded per room, as a tick delta depends on the previous tick of the same game */
+    private val tickDeltaStreams = ConcurrentHashMap<String /* roomId */, TickDeltaStream>()
+
+    private val gson = Gson()
+
+    init {
+        metrics.register(::collectMetrics)
+    }
+
     fun start() {
+        startInProcess()
         webSocketObserver.start()
     }
 
+    /** Starts accepting the clients of the in-process transport only, e.g. for running games without the network. */
+    fun startInProcess() {
+        InProcessTransport.register(Server.portNumber, clientHandler)
+    }
+
     fun stop() {
+        InProcessTransport.unregister(Server.portNumber)
+        observerFanOut.close()
         clientHandler.close()
     }
 
+    /** Broadcasts a message to the observers and controllers of all rooms. */
     fun broadcastToObserverAndControllers(message: String) {
-        broadcast(clientHandler.getObserverAndControllerSockets(), message)
+        log.debug("Broadcast message to observers and controllers: $message")
+        val subscribers = clientHandler.getObserverAndControllerSockets()
+        observerFanOut.retainSubscribers(subscribers)
+        observerFanOut.publish(subscribers, message, isTick = false)
+    }
+
+    /** Broadcasts a message to the observers and controllers of a room. */
+    fun broadcastToObserverAndControllers(roomId: String, message: String) {
+        log.debug("Broadcast message to observers and controllers in room {}: {}", roomId, message)
+        observerFanOut.retainSubscribers(clientHandler.getObserverAndControllerSockets())
+        observerFanOut.publish(clientHandler.getObserverAndControllerSockets(roomId), message, isTick = false)
+    }
+
+    /**
+     * Broadcasts a tick to the observers and controllers of a room. Subscribers with the tick-delta capability receive a
+     * tick delta, unless the tick is a keyframe. Each variant of the tick is only encoded once.
+     * @return the tick encoded as JSON, e.g. for recording it without encoding it again.
+     */
+    fun broadcastTickToObserverAndControllers(roomId: String, tickEvent: TickEventForObserver): String {
+        observerFanOut.retainSubscribers(clientHandler.getObserverAndControllerSockets())
+        val subscribers = clientHandler.getObserverAndControllerSockets(roomId)
+
+        val tickDeltaStream = tickDeltaStreams.computeIfAbsent(roomId) { TickDeltaStream() }
+        val deltaSubscribers = clientHandler.getTickDeltaSockets().filterTo(HashSet()) { it in subscribers }
+        if (!tickDeltaStream.subscribers.containsAll(deltaSubscribers)) {
+            tickDeltaStream.encoder.requestKeyframe() // new subscribers must start from a keyframe
+        }
+        tickDeltaStream.subscribers = deltaSubscribers
+
+        // Without delta subscribers, no delta is encoded, where the next delta subscriber starts from a keyframe
+        val tickDelta = if (deltaSubscribers.isEmpty()) {
+            tickDeltaStream.encoder.requestKeyframe()
+            null
+        } else {
+            tickDeltaStream.encoder.encode(tickEvent)
+        }
+        val fullSubscribers = if (tickDelta == null) subscribers else subscribers - deltaSubscribers
+
+        val json = gson.toJson(tickEvent)
+        log.debug("Broadcast tick to observers and controllers: $json")
+        observerFanOut.publish(fullSubscribers, json, isTick = true)
+
+        tickDelta?.let {
+            val deltaJson = gson.toJson(it)
+            log.debug("Broadcast tick delta to observers and controllers: $deltaJson")
+            observerFanOut.publish(deltaSubscribers, deltaJson, isTick = true, isDelta = true)
+        }
+        return json
+    }
+
+    /** Removes the state kept for a room that has been removed. */
+    fun removeRoom(roomId: String) {
+        tickDeltaStreams -= roomId
+    }
+
+    /** Records bytes sent directly to a client, i.e. not via this handler. */
+    fun recordBytesSent(clientSocket: WebSocket, bytes: Int) = clientHandler.recordBytesSent(clientSocket, bytes)
+
+    private fun collectMetrics(writer: PrometheusWriter) {
+        writer.gauge(
+            "robocode_executor_active_threads", "Number of threads handling client messages",
+            clientHandler.executorActiveCount.toDouble()
+        )
+        writer.gauge(
+            "robocode_executor_pool_threads", "Number of threads in the pool for handling client messages",
+            clientHandler.executorPoolSize.toDouble()
+        )
+        writer.counter(
+            "robocode_executor_completed_tasks_total", "Number of client messages handled by the thread pool",
+            clientHandler.executorCompletedTaskCount.toDouble()
+        )
+        writer.counter(
+            "robocode_observer_dropped_ticks_total", "Number of ticks dropped or coalesced for slow observers",
+            observerFanOut.droppedTickCount.toDouble()
+        )
+        clientHandler.getSentBytes().forEach { (clientSocket, bytes) ->
+            writer.counter(
+                "robocode_client_sent_bytes_total", "Number of bytes sent to a client", bytes.toDouble(),
+                "type" to clientHandler.getClientType(clientSocket),
+                "client" to (clientHandler.getClientName(clientSocket) ?: ""),
+                "address" to clientSocket.remoteSocketAddress?.toString().orEmpty(),
+            )
+        }
     }
 
     fun mapToBotSockets(): Set<WebSocket> = clientHandler.getBotSockets()
 
     fun getBotHandshakes(): Map<WebSocket, BotHandshake> = clientHandler.getBotHandshakes()
 
+    /** Checks if messages to and from a client must use the binary encoding. */
+    fun isBinaryEncoding(clientSocket: WebSocket): Boolean = clientHandler.isBinaryEncoding(clientSocket)
+
     fun mapToBotSockets(botAddresses: Collection<BotAddress>): Set<WebSocket> {
         val botSockets = mutableSetOf<WebSocket>()
         for (clientSocket in getBotHandshakes().keys) {
@@ -76,5 +189,39 @@ class ConnectionHandler(
     fun broadcast(clientSockets: Collection<WebSocket>, message: String) {
         log.debug("Broadcast message: $message")
         webSocketObserver.broadcast(clientSockets, message)
+
+        val bytes = message.utf8Length()
+        clientSockets.forEach { recordBytesSent(it, bytes) }
+    }
+
+    /** Sends a message to a bot using the encoding negotiated with the bot. */
+    fun send(clientSocket: WebSocket, message: Message) {
+        if (isBinaryEncoding(clientSocket)) {
+            clientHandler.send(clientSocket, BinaryMessageCodec.encode(message))
+        } else {
+            send(clientSocket, gson.toJson(message))
+        }
+    }
+
+    /** Broadcasts a message to bots, where the message is only encoded once per encoding used by the bots. */
+    fun broadcast(clientSockets: Collection<WebSocket>, message: Message) {
+        val (binarySockets, jsonSockets) = clientSockets.partition(::isBinaryEncoding)
+        if (jsonSockets.isNotEmpty()) {
+            broadcast(jsonSockets, gson.toJson(message))
+        }
+        if (binarySockets.isNotEmpty()) {
+            log.debug("Broadcast binary message: {}", message.type)
+            val buffer = BinaryMessageCodec.encode(message)
+            val bytes = buffer.remaining()
+            webSocketObserver.broadcast(binarySockets, buffer)
+            binarySockets.forEach { recordBytesSent(it, bytes) }
+        }
     }
 }
+
+/** Tick deltas sent to the observers and controllers of a room. */
+private class TickDeltaStream {
+    val encoder = TickDeltaEncoder(Server.tickKeyframeInterval)
+
+    var subscribers = emptySet<WebSocket>()
+}
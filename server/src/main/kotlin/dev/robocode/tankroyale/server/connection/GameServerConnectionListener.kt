@@ -55,40 +55,40 @@ class GameServerConnectionListener(private val gameServer: GameServer) : IConnec
         log.info("Controller left: {}", getDisplayName(handshake))
     }
 
-    override fun onStartGame(gameSetup: GameSetup, botAddresses: Set<BotAddress>) {
-        log.debug("Game is requested to start")
-        gameServer.handleStartGame(gameSetup, botAddresses)
+    override fun onStartGame(roomId: String, gameSetup: GameSetup, botAddresses: Set<BotAddress>) {
+        log.debug("Game is requested to start in room: {}", roomId)
+        gameServer.handleStartGame(roomId, gameSetup, botAddresses)
     }
 
-    override fun onAbortGame() {
-        log.debug("Game is requested to abort")
-        gameServer.handleAbortGame()
+    override fun onAbortGame(roomId: String) {
+        log.debug("Game is requested to abort in room: {}", roomId)
+        gameServer.handleAbortGame(roomId)
     }
 
-    override fun onPauseGame() {
-        log.debug("Game is requested to pause")
-        gameServer.handlePauseGame()
+    override fun onPauseGame(roomId: String) {
+        log.debug("Game is requested to pause in room: {}", roomId)
+        gameServer.handlePauseGame(roomId)
     }
 
-    override fun onResumeGame() {
-        log.debug("Game is requested to resume")
-        gameServer.handleResumeGame()
+    override fun onResumeGame(roomId: String) {
+        log.debug("Game is requested to resume in room: {}", roomId)
+        gameServer.handleResumeGame(roomId)
     }
 
-    override fun onNextTurn() {
-        log.debug("Game is requested to do next turn")
-        gameServer.handleNextTurn()
+    override fun onNextTurn(roomId: String) {
+        log.debug("Game is requested to do next turn in room: {}", roomId)
+        gameServer.handleNextTurn(roomId)
     }
 
-    override fun onChangeTps(tps: Int) {
-        log.info("TPS is requested to change to {}", tps)
-        gameServer.handleChangeTps(tps)
+    override fun onChangeTps(roomId: String, tps: Int) {
+        log.info("TPS is requested to change to {} in room: {}", tps, roomId)
+        gameServer.handleChangeTps(roomId, tps)
     }
 
-    override fun onBotPolicyUpdated(botPolicyUpdate: BotPolicyUpdate) {
+    override fun onBotPolicyUpdated(roomId: String, botPolicyUpdate: BotPolicyUpdate) {
         log.debug("Bot policy updated for botId {}: debugGraphics is {}", botPolicyUpdate.botId,
             if (botPolicyUpdate.debuggingEnabled) "enabled" else "disabled")
-        gameServer.handleBotPolicyUpdate(botPolicyUpdate)
+        gameServer.handleBotPolicyUpdate(roomId, botPolicyUpdate)
     }
 
     private fun getDisplayName(handshake: BotHandshake): String =
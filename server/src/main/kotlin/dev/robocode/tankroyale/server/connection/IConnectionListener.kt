@@ -3,7 +3,9 @@ package dev.robocode.tankroyale.server.connection
 import dev.robocode.tankroyale.schema.*
 import org.java_websocket.WebSocket
 
-/** Connection listener interface. */
+/**
+ * Connection listener interface. Commands from controllers are passed with the id of the game room they apply to.
+ */
 interface IConnectionListener {
     fun onException(clientSocket: WebSocket?, exception: Exception)
     fun onBotJoined(clientSocket: WebSocket, handshake: BotHandshake)
@@ -14,11 +16,11 @@ interface IConnectionListener {
     fun onObserverLeft(clientSocket: WebSocket, handshake: ObserverHandshake)
     fun onControllerJoined(clientSocket: WebSocket, handshake: ControllerHandshake)
     fun onControllerLeft(clientSocket: WebSocket, handshake: ControllerHandshake)
-    fun onStartGame(gameSetup: GameSetup, botAddresses: Set<BotAddress>)
-    fun onAbortGame()
-    fun onPauseGame()
-    fun onResumeGame()
-    fun onNextTurn()
-    fun onChangeTps(tps: Int)
-    fun onBotPolicyUpdated(botPolicyUpdate: BotPolicyUpdate)
+    fun onStartGame(roomId: String, gameSetup: GameSetup, botAddresses: Set<BotAddress>)
+    fun onAbortGame(roomId: String)
+    fun onPauseGame(roomId: String)
+    fun onResumeGame(roomId: String)
+    fun onNextTurn(roomId: String)
+    fun onChangeTps(roomId: String, tps: Int)
+    fun onBotPolicyUpdated(roomId: String, botPolicyUpdate: BotPolicyUpdate)
 }
@@ -0,0 +1,186 @@
+package dev.robocode.tankroyale.server.connection
+
+import org.java_websocket.WebSocket
+import org.java_websocket.drafts.Draft
+import org.java_websocket.drafts.Draft_6455
+import org.java_websocket.enums.Opcode
+import org.java_websocket.enums.ReadyState
+import org.java_websocket.framing.CloseFrame
+import org.java_websocket.framing.Framedata
+import org.java_websocket.protocols.IProtocol
+import org.slf4j.LoggerFactory
+import java.io.ByteArrayOutputStream
+import java.net.InetSocketAddress
+import java.nio.ByteBuffer
+import java.util.AbstractMap.SimpleImmutableEntry
+import java.util.function.Consumer
+import javax.net.ssl.SSLSession
+
+/**
+ * Connection to a bot hosted inside the server JVM, which is handled as any other client web socket by the server.
+ *
+ * Messages are passed to the bot as JSON strings, as the bot and server may use different copies of the schema
+ * classes. Frames sent by the generic web socket paths, e.g. broadcasts, are decoded into the messages they carry. The
+ * bot receives the messages on its own thread via the receiver. When the connection is closed, the receiver is passed
+ * an entry with the status code and reason.
+ *
+ * @param receiver is the receiver of the messages sent to the bot.
+ * @param address is the unique address identifying the bot, as the address of a remote bot does.
+ * @param observer is the observer of the connection, which is notified when the connection is closed.
+ */
+class InProcessConnection(
+    private val receiver: Consumer<Any>,
+    private val address: InetSocketAddress,
+    private val observer: IClientWebSocketObserver,
+) : WebSocket {
+
+    private val log = LoggerFactory.getLogger(this::class.java)
+
+    @Volatile
+    private var state = ReadyState.OPEN
+
+    private var attached: Any? = null
+
+    /** Draft used by the web socket server for creating the frames of broadcasts */
+    private val draft = Draft_6455()
+
+    /** Opcode of the first frame of a fragmented message, which is delivered when its last frame has been sent */
+    private var fragmentOpcode: Opcode? = null
+
+    /** Payload of the frames of a fragmented message sent so far */
+    private val fragments = ByteArrayOutputStream()
+
+    override fun send(text: String) {
+        deliver(text)
+    }
+
+    override fun send(bytes: ByteBuffer) {
+        deliver(bytes)
+    }
+
+    override fun send(bytes: ByteArray) {
+        deliver(ByteBuffer.wrap(bytes))
+    }
+
+    /** Handles a message received from the bot. */
+    internal fun receive(message: Any) {
+        if (!isOpen) return
+        when (message) {
+            is String -> observer.onMessage(this, message)
+            is ByteBuffer -> observer.onMessage(this, message)
+            is Map.Entry<*, *> -> closeConnection(message.key as Int, message.value as String, remote = true)
+            else -> log.warn("Ignoring in-process message of unknown class: {}", message.javaClass.name)
+        }
+    }
+
+    private fun deliver(message: Any) {
+        if (isOpen) { // messages sent after the connection has been closed are dropped, as the bot has been removed
+            receiver.accept(message)
+        }
+    }
+
+    override fun close(code: Int, message: String) {
+        closeConnection(code, message)
+    }
+
+    override fun close(code: Int) {
+        closeConnection(code, "")
+    }
+
+    override fun close() {
+        closeConnection(CloseFrame.NORMAL, "")
+    }
+
+    override fun closeConnection(code: Int, message: String) {
+        closeConnection(code, message, remote = false)
+    }
+
+    private fun closeConnection(code: Int, reason: String, remote: Boolean) {
+        synchronized(this) {
+            if (state != ReadyState.OPEN) return
+            state = ReadyState.CLOSED
+        }
+        if (!remote) {
+            receiver.accept(SimpleImmutableEntry(code, reason))
+        }
+        observer.onClose(this, code, reason, remote)
+    }
+
+    override fun sendFrame(framedata: Framedata) {
+        when (framedata.opcode) {
+            Opcode.CLOSING -> (framedata as? CloseFrame).let {
+                closeConnection(it?.closeCode ?: CloseFrame.NORMAL, it?.message ?: "")
+            }
+
+            Opcode.PING, Opcode.PONG -> {} // nothing to keep alive
+            else -> sendFragmentedFrame(framedata.opcode, framedata.payloadData, framedata.isFin)
+        }
+    }
+
+    override fun sendFrame(frames: Collection<Framedata>) {
+        frames.forEach(::sendFrame)
+    }
+
+    override fun sendPing() {
+        // Nothing to keep alive
+    }
+
+    /**
+     * Sends a frame of a text or binary message, where the message is delivered to the bot when its last frame has
+     * been sent. The payload is copied, so the position of the buffer is kept, as a frame may be shared between sockets.
+     */
+    @Synchronized
+    override fun sendFragmentedFrame(op: Opcode, buffer: ByteBuffer, fin: Boolean) {
+        if (op != Opcode.CONTINUOUS) {
+            fragmentOpcode = op
+            fragments.reset()
+        }
+        buffer.duplicate().let { payload ->
+            fragments.write(ByteArray(payload.remaining()).also { payload.get(it) })
+        }
+        if (!fin) return
+
+        val bytes = fragments.toByteArray()
+        fragments.reset()
+        when (fragmentOpcode) {
+            Opcode.TEXT -> deliver(String(bytes, Charsets.UTF_8))
+            Opcode.BINARY -> deliver(ByteBuffer.wrap(bytes))
+            else -> log.warn("Ignoring in-process frame with opcode: {}", fragmentOpcode)
+        }
+        fragmentOpcode = null
+    }
+
+    override fun hasBufferedData() = false
+
+    override fun getRemoteSocketAddress() = address
+
+    override fun getLocalSocketAddress(): InetSocketAddress? = null
+
+    override fun isOpen() = state == ReadyState.OPEN
+
+    override fun isClosing() = false
+
+    override fun isFlushAndClose() = false
+
+    override fun isClosed() = state == ReadyState.CLOSED
+
+    override fun getDraft(): Draft = draft
+
+    override fun getReadyState() = state
+
+    override fun getResourceDescriptor() = "/"
+
+    override fun <T> setAttachment(attachment: T) {
+        attached = attachment
+    }
+
+    @Suppress("UNCHECKED_CAST")
+    override fun <T> getAttachment(): T = attached as T
+
+    override fun hasSSLSupport() = false
+
+    override fun getSSLSession(): SSLSession =
+        throw IllegalArgumentException("No SSL session for in-process connections")
+
+    override fun getProtocol(): IProtocol? = null
+}
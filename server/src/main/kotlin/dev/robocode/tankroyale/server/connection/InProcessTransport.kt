@@ -0,0 +1,58 @@
+package dev.robocode.tankroyale.server.connection
+
+import org.java_websocket.handshake.HandshakeImpl1Client
+import java.net.InetAddress
+import java.net.InetSocketAddress
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.function.Consumer
+
+/**
+ * Transport for bots hosted inside the server JVM, which connect to the server with direct queues instead of web
+ * sockets. Bots use an `inproc://host:port` server URL, where the port is the port of the server.
+ *
+ * The Bot API looks up this class by name and calls [connect], as the Bot API and server do not depend on each other.
+ * Hence, only JDK types are used in its signature, and the messages are passed as JSON strings, as the Bot API and
+ * server each have their own copy of the schema classes, which may differ.
+ */
+object InProcessTransport {
+
+    /**
+     * In-process bots are identified by a loopback address, which is distinct from the address used by local bots
+     * connecting via web sockets. Each bot gets its own port number.
+     */
+    private val loopbackAddress = InetAddress.getByAddress(byteArrayOf(127, 0, 0, 2))
+
+    private val nextPort = AtomicInteger()
+
+    private val observers = ConcurrentHashMap<Int /* port */, IClientWebSocketObserver>()
+
+    /** Registers the observer of the client connections for a server port. */
+    fun register(port: Int, observer: IClientWebSocketObserver) {
+        observers[port] = observer
+    }
+
+    /** Unregisters the observer of the client connections for a server port. */
+    fun unregister(port: Int) {
+        observers -= port
+    }
+
+    /**
+     * Connects a bot to the server running on a port. The server handshake is sent to the bot as soon as it is
+     * connected.
+     * @param port is the port of the server.
+     * @param receiver is the receiver of the messages sent from the server to the bot.
+     * @return the receiver of the messages sent from the bot to the server.
+     * @throws IllegalStateException if no server is running on the port in this JVM.
+     */
+    @JvmStatic
+    fun connect(port: Int, receiver: Consumer<Any>): Consumer<Any> {
+        val observer = observers[port] ?: throw IllegalStateException("No in-process server running on port: $port")
+
+        val address = InetSocketAddress(loopbackAddress, nextPort.updateAndGet { it % 0xFFFF + 1 })
+        val connection = InProcessConnection(receiver, address, observer)
+
+        observer.onOpen(connection, HandshakeImpl1Client())
+        return Consumer { connection.receive(it) }
+    }
+}
@@ -0,0 +1,236 @@
+package dev.robocode.tankroyale.server.connection
+
+import org.java_websocket.WebSocket
+import org.java_websocket.exceptions.WebsocketNotConnectedException
+import org.java_websocket.framing.TextFrame
+import org.slf4j.LoggerFactory
+import java.io.Closeable
+import java.nio.ByteBuffer
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicLong
+import java.util.concurrent.locks.LockSupport
+
+/**
+ * Fan-out stage for messages to observers and controllers. Each message is encoded once into a WebSocket text
+ * frame, and the same frame is written to every subscriber, like the broadcast of the WebSocket server does.
+ *
+ * The frames are put into an outbound queue per subscriber, which is drained by a single writer thread. Frames are
+ * only written to a socket when it has no buffered data left, so a slow subscriber gets its frames queued up here,
+ * where the [ObserverQueuePolicy] decides which ticks to drop. This way a lagging subscriber never blocks the caller,
+ * i.e. the turn loop, and does not make the server buffer an unbounded number of ticks for it.
+ *
+ * @param policy is the policy for dropping ticks for slow subscribers.
+ * @param queueCapacity is the maximum number of ticks queued per subscriber with the [ObserverQueuePolicy.DROP] policy.
+ * @param onBytesSent is called with the number of payload bytes written to a subscriber.
+ */
+class ObserverFanOut(
+    private val policy: ObserverQueuePolicy,
+    private val queueCapacity: Int,
+    private val onBytesSent: (socket: WebSocket, bytes: Int) -> Unit = { _, _ -> },
+) : Closeable {
+
+    companion object {
+        /** Interval for retrying to drain queues of subscribers that had buffered data */
+        private val DRAIN_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(5)
+    }
+
+    private val log = LoggerFactory.getLogger(this::class.java)
+
+    private val queues = ConcurrentHashMap<WebSocket, ObserverQueue>()
+
+    private val writerThread = Thread(::runWriter, "ObserverFanOut").apply { isDaemon = true }
+
+    @Volatile
+    private var isClosed = false
+
+    private val droppedTicks = AtomicLong()
+
+    /** Total number of ticks dropped or coalesced for slow subscribers */
+    val droppedTickCount: Long get() = droppedTicks.get()
+
+    /**
+     * Publishes a message to subscribers.
+     * @param subscribers is the sockets of the subscribers.
+     * @param message is the message to publish.
+     * @param isTick is `true` if the message is a tick, which may be dropped for slow subscribers; `false` if
+     * the message must always be delivered.
+     * @param isDelta is `true` if the message is a tick delta, which depends on the previous tick.
+     */
+    fun publish(subscribers: Set<WebSocket>, message: String, isTick: Boolean, isDelta: Boolean = false) {
+        if (isClosed || subscribers.isEmpty()) return
+
+        val frame = EncodedFrame(ByteBuffer.wrap(message.toByteArray(Charsets.UTF_8)), isTick, isDelta)
+
+        subscribers.forEach { socket ->
+            val queue = queues.computeIfAbsent(socket) { ObserverQueue(policy, queueCapacity) }
+            if (!queue.offer(frame) && droppedTicks.getAndIncrement() == 0L) {
+                log.warn("Dropping ticks for slow observer: {} (policy: {})", socket.remoteSocketAddress, policy)
+            }
+        }
+        startWriterIfNeeded()
+        LockSupport.unpark(writerThread)
+    }
+
+    /**
+     * Removes the queues of sockets that are no longer subscribing.
+     * @param subscribers is the sockets of all current subscribers.
+     */
+    fun retainSubscribers(subscribers: Set<WebSocket>) {
+        queues.keys.retainAll(subscribers)
+    }
+
+    override fun close() {
+        isClosed = true
+        queues.clear()
+        LockSupport.unpark(writerThread)
+    }
+
+    @Synchronized
+    private fun startWriterIfNeeded() {
+        if (writerThread.state == Thread.State.NEW) {
+            writerThread.start()
+        }
+    }
+
+    private fun runWriter() {
+        while (!isClosed) {
+            var hasPendingFrames = false
+            queues.forEach { (socket, queue) ->
+                hasPendingFrames = drain(socket, queue) || hasPendingFrames
+            }
+            if (hasPendingFrames) {
+                LockSupport.parkNanos(this, DRAIN_INTERVAL_NANOS)
+            } else {
+                LockSupport.park(this)
+            }
+        }
+    }
+
+    /** Writes the queued frames to the socket, if it has no buffered data. Returns `true` if frames are pending. */
+    private fun drain(socket: WebSocket, queue: ObserverQueue): Boolean {
+        if (!socket.isOpen) {
+            queues.remove(socket)
+            return false
+        }
+        if (socket.hasBufferedData()) return !queue.isEmpty()
+
+        try {
+            queue.pollAll().forEach {
+                socket.sendFrame(it.frame)
+                onBytesSent(socket, it.size)
+            }
+        } catch (_: WebsocketNotConnectedException) {
+            queues.remove(socket)
+        }
+        return false
+    }
+}
+
+/** Policy for handling ticks for subscribers that cannot keep up with the tick rate. */
+enum class ObserverQueuePolicy {
+    /** New ticks are dropped when the queue is full */
+    DROP,
+
+    /** A new tick replaces the queued ticks, so the subscriber always receives the most recent tick */
+    COALESCE;
+
+    override fun toString() = name.lowercase()
+}
+
+/**
+ * Message encoded once into a WebSocket text frame.
+ * @param payload is the UTF-8 encoded payload.
+ * @param isTick is `true` if the message is a tick, which may be dropped.
+ * @param isDelta is `true` if the message is a tick delta, which cannot be applied if the previous tick was dropped.
+ */
+class EncodedFrame(payload: ByteBuffer, val isTick: Boolean, val isDelta: Boolean = false) {
+
+    /** Size of the payload in bytes */
+    val size: Int = payload.remaining()
+
+    /**
+     * Text frame shared between all subscribers. The WebSocket draft resets the position of the payload after it
+     * has been written to a socket, so the frame can be written again, as long as it is written by one thread only.
+     */
+    val frame = TextFrame().apply { setPayload(payload) }
+}
+
+/**
+ * Outbound queue of a single subscriber.
+ *
+ * When a tick has been dropped, all following tick deltas are dropped as well until the next full tick (keyframe),
+ * as a tick delta can only be applied to the tick of the previous turn.
+ *
+ * @param policy is the policy for dropping ticks.
+ * @param capacity is the maximum number of queued ticks. Messages that are not ticks are never dropped.
+ */
+class ObserverQueue(private val policy: ObserverQueuePolicy, private val capacity: Int) {
+
+    private val frames = ArrayDeque<EncodedFrame>()
+
+    private var tickCount = 0
+
+    private var isAwaitingKeyframe = false
+
+    /**
+     * Offers a frame to the queue.
+     * @return `true` if the frame was queued without dropping any ticks; `false` otherwise.
+     */
+    @Synchronized
+    fun offer(frame: EncodedFrame): Boolean {
+        if (!frame.isTick) {
+            frames.addLast(frame)
+            return true
+        }
+        if (frame.isDelta && isAwaitingKeyframe) return false
+
+        val isQueued = when (policy) {
+            ObserverQueuePolicy.DROP -> {
+                if (tickCount >= capacity) return dropTick()
+                addTick(frame)
+                true
+            }
+
+            ObserverQueuePolicy.COALESCE -> {
+                // A tick delta cannot replace the queued ticks, as it depends on the last of them
+                if (tickCount > 0 && frame.isDelta) return dropTick()
+
+                val hadTicks = tickCount > 0
+                if (hadTicks) {
+                    frames.removeAll { it.isTick }
+                    tickCount = 0
+                }
+                addTick(frame)
+                !hadTicks
+            }
+        }
+        if (!frame.isDelta) {
+            isAwaitingKeyframe = false
+        }
+        return isQueued
+    }
+
+    /** Removes and returns all queued frames in the order they were queued. */
+    @Synchronized
+    fun pollAll(): List<EncodedFrame> {
+        val polled = frames.toList()
+        frames.clear()
+        tickCount = 0
+        return polled
+    }
+
+    /** Checks if the queue is empty. */
+    @Synchronized
+    fun isEmpty() = frames.isEmpty()
+
+    private fun dropTick(): Boolean {
+        isAwaitingKeyframe = true
+        return false
+    }
+
+    private fun addTick(frame: EncodedFrame) {
+        frames.addLast(frame)
+        tickCount++
+    }
+}
@@ -5,6 +5,7 @@ import org.java_websocket.handshake.ClientHandshake
 import org.java_websocket.server.WebSocketServer
 import org.slf4j.LoggerFactory
 import java.net.InetSocketAddress
+import java.nio.ByteBuffer
 import java.nio.channels.ServerSocketChannel
 
 class ServerWebSocketObserver : WebSocketServer {
@@ -51,6 +52,11 @@ class ServerWebSocketObserver : WebSocketServer {
         observer.onMessage(clientSocket, message)
     }
 
+    override fun onMessage(clientSocket: WebSocket, message: ByteBuffer) {
+        log.debug("onMessage: client: {}, bytes: {}", clientSocket.remoteSocketAddress, message.limit())
+        observer.onMessage(clientSocket, message)
+    }
+
     override fun onError(clientSocket: WebSocket?, exception: Exception) {
         observer.onError(clientSocket, exception)
     }
@@ -0,0 +1,163 @@
+package dev.robocode.tankroyale.server.connection
+
+import dev.robocode.tankroyale.schema.*
+
+/**
+ * Encoder of tick deltas for observers and controllers with the tick-delta capability. A delta only contains the
+ * bot and bullet state fields that changed since the tick of the previous turn. A full tick is used as keyframe at
+ * the first turn of each round, periodically, and when a keyframe has been requested, e.g. when a new subscriber
+ * has joined.
+ *
+ * @param keyframeInterval is the maximum number of turns between keyframes.
+ */
+class TickDeltaEncoder(private val keyframeInterval: Int) {
+
+    private var previousTick: TickEventForObserver? = null
+
+    private var turnsSinceKeyframe = 0
+
+    private var isKeyframeRequested = true
+
+    /** Requests the next tick to be a keyframe. */
+    fun requestKeyframe() {
+        isKeyframeRequested = true
+    }
+
+    /**
+     * Encodes a tick as a delta to the tick of the previous turn.
+     * @param tick is the tick to encode.
+     * @return the tick delta, or `null` if the tick must be sent in full as a keyframe.
+     */
+    fun encode(tick: TickEventForObserver): TickDeltaEventForObserver? {
+        val previous = previousTick
+        previousTick = tick
+
+        if (previous == null || isKeyframeRequested || ++turnsSinceKeyframe >= keyframeInterval ||
+            previous.roundNumber != tick.roundNumber || previous.turnNumber != tick.turnNumber - 1
+        ) {
+            isKeyframeRequested = false
+            turnsSinceKeyframe = 0
+            return null
+        }
+        return createDelta(previous, tick)
+    }
+
+    private fun createDelta(previous: TickEventForObserver, tick: TickEventForObserver) =
+        TickDeltaEventForObserver().apply {
+            type = Message.Type.TICK_DELTA_EVENT_FOR_OBSERVER
+            turnNumber = tick.turnNumber
+            roundNumber = tick.roundNumber
+
+            val previousBots = previous.botStates.associateBy { it.id }
+            botStates = tick.botStates.mapNotNull { createBotStateDelta(previousBots[it.id], it) }
+            removedBotIds = (previousBots.keys - tick.botStates.map { it.id }.toSet()).toList().ifEmpty { null }
+
+            val previousBullets = previous.bulletStates.associateBy { it.bulletId }
+            bulletStates = tick.bulletStates.mapNotNull { createBulletStateDelta(previousBullets[it.bulletId], it) }
+            removedBulletIds =
+                (previousBullets.keys - tick.bulletStates.map { it.bulletId }.toSet()).toList().ifEmpty { null }
+
+            events = tick.events
+        }
+
+    private fun createBotStateDelta(previous: BotStateWithId?, current: BotStateWithId): BotStateDelta? {
+        val delta = BotStateDelta().apply { id = current.id }
+        val clearedFields = mutableListOf<String>()
+
+        var isChanged = false
+        botStateFields.forEach { isChanged = it.diff(previous, current, delta, clearedFields) || isChanged }
+        if (!isChanged) return null
+
+        delta.clearedFields = clearedFields.ifEmpty { null }
+        return delta
+    }
+
+    private fun createBulletStateDelta(previous: BulletState?, current: BulletState): BulletStateDelta? {
+        val delta = BulletStateDelta().apply { bulletId = current.bulletId }
+
+        var isChanged = false
+        bulletStateFields.forEach { isChanged = it.diff(previous, current, delta, null) || isChanged }
+        return if (isChanged) delta else null
+    }
+}
+
+/**
+ * Field of a state, which is copied to a delta if the field has changed.
+ * @param name is the name of the field.
+ * @param getter is used for reading the field value from a state.
+ * @param setter is used for writing the field value to a delta.
+ */
+private class DeltaField<S, D, V>(
+    val name: String,
+    private val getter: (S) -> V?,
+    private val setter: (D, V?) -> Unit,
+) {
+    /**
+     * Copies the field value to the delta if it has changed.
+     * @param previous is the previous state, or `null` if the state is new.
+     * @param current is the current state.
+     * @param delta is the delta receiving the changed field value.
+     * @param clearedFields receives the field name if the field has been cleared, i.e. it is no longer present.
+     * @return `true` if the field has changed; `false` otherwise.
+     */
+    fun diff(previous: S?, current: S, delta: D, clearedFields: MutableList<String>?): Boolean {
+        val value = getter(current)
+        if (previous == null) {
+            if (value == null) return false
+        } else if (getter(previous) == value) {
+            return false
+        }
+        if (value == null) {
+            clearedFields?.add(name)
+        } else {
+            setter(delta, value)
+        }
+        return true
+    }
+}
+
+private fun <V> botStateField(
+    name: String, getter: (BotStateWithId) -> V?, setter: (BotStateDelta, V?) -> Unit
+) = DeltaField(name, getter, setter)
+
+private val botStateFields = listOf(
+    botStateField("sessionId", { it.sessionId }, { d, v -> d.sessionId = v }),
+    botStateField("isDroid", { it.isDroid }, { d, v -> d.isDroid = v }),
+    botStateField("energy", { it.energy }, { d, v -> d.energy = v }),
+    botStateField("x", { it.x }, { d, v -> d.x = v }),
+    botStateField("y", { it.y }, { d, v -> d.y = v }),
+    botStateField("direction", { it.direction }, { d, v -> d.direction = v }),
+    botStateField("gunDirection", { it.gunDirection }, { d, v -> d.gunDirection = v }),
+    botStateField("radarDirection", { it.radarDirection }, { d, v -> d.radarDirection = v }),
+    botStateField("radarSweep", { it.radarSweep }, { d, v -> d.radarSweep = v }),
+    botStateField("speed", { it.speed }, { d, v -> d.speed = v }),
+    botStateField("turnRate", { it.turnRate }, { d, v -> d.turnRate = v }),
+    botStateField("gunTurnRate", { it.gunTurnRate }, { d, v -> d.gunTurnRate = v }),
+    botStateField("radarTurnRate", { it.radarTurnRate }, { d, v -> d.radarTurnRate = v }),
+    botStateField("gunHeat", { it.gunHeat }, { d, v -> d.gunHeat = v }),
+    botStateField("enemyCount", { it.enemyCount }, { d, v -> d.enemyCount = v }),
+    botStateField("bodyColor", { it.bodyColor }, { d, v -> d.bodyColor = v }),
+    botStateField("turretColor", { it.turretColor }, { d, v -> d.turretColor = v }),
+    botStateField("radarColor", { it.radarColor }, { d, v -> d.radarColor = v }),
+    botStateField("bulletColor", { it.bulletColor }, { d, v -> d.bulletColor = v }),
+    botStateField("scanColor", { it.scanColor }, { d, v -> d.scanColor = v }),
+    botStateField("tracksColor", { it.tracksColor }, { d, v -> d.tracksColor = v }),
+    botStateField("gunColor", { it.gunColor }, { d, v -> d.gunColor = v }),
+    botStateField("isDebuggingEnabled", { it.isDebuggingEnabled }, { d, v -> d.isDebuggingEnabled = v }),
+    botStateField("stdOut", { it.stdOut }, { d, v -> d.stdOut = v }),
+    botStateField("stdErr", { it.stdErr }, { d, v -> d.stdErr = v }),
+    botStateField("debugGraphics", { it.debugGraphics }, { d, v -> d.debugGraphics = v }),
+)
+
+private fun <V> bulletStateField(
+    name: String, getter: (BulletState) -> V?, setter: (BulletStateDelta, V?) -> Unit
+) = DeltaField(name, getter, setter)
+
+private val bulletStateFields = listOf(
+    bulletStateField("ownerId", { it.ownerId }, { d, v -> d.ownerId = v }),
+    bulletStateField("power", { it.power }, { d, v -> d.power = v }),
+    bulletStateField("x", { it.x }, { d, v -> d.x = v }),
+    bulletStateField("y", { it.y }, { d, v -> d.y = v }),
+    bulletStateField("direction", { it.direction }, { d, v -> d.direction = v }),
+    bulletStateField("color", { it.color }, { d, v -> d.color = v }),
+)
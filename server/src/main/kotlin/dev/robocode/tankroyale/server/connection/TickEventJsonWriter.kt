@@ -0,0 +1,218 @@
+package dev.robocode.tankroyale.server.connection
+
+import com.google.gson.Gson
+import dev.robocode.tankroyale.schema.Message
+import dev.robocode.tankroyale.server.event.Event
+import dev.robocode.tankroyale.server.event.TeamMessageEvent
+import dev.robocode.tankroyale.server.mapper.EventsMapper
+import dev.robocode.tankroyale.server.mapper.TurnToTickEventForBotMapper
+import dev.robocode.tankroyale.server.model.Color
+import dev.robocode.tankroyale.server.model.IBot
+import dev.robocode.tankroyale.server.model.IBullet
+import dev.robocode.tankroyale.server.model.ITurn
+import dev.robocode.tankroyale.server.model.normalizeAbsoluteDegrees
+import java.nio.ByteBuffer
+import java.util.concurrent.ConcurrentHashMap
+
+/**
+ * Writer of the JSON of tick events for bots, which writes the state of a bot and its bullets directly from a turn
+ * into a reused UTF-8 buffer, instead of mapping the turn into schema objects that are serialized by Gson into a
+ * string. The events of the turn are few, and are still mapped and serialized by Gson into the same buffer.
+ *
+ * The JSON is identical to the JSON written by Gson for the tick created by [TurnToTickEventForBotMapper], i.e. the
+ * fields of a class are written before the fields of its superclass, fields with null values are left out, and strings
+ * are escaped as HTML-safe strings.
+ *
+ * A writer is not thread-safe, so each thread uses its own writer given by [forCurrentThread].
+ */
+class TickEventJsonWriter {
+
+    companion object {
+        private val TICK_EVENT_FOR_BOT_TYPE = Message.Type.TICK_EVENT_FOR_BOT.value()
+
+        private val HEX_DIGITS = "0123456789abcdef".toCharArray()
+
+        private val writers = ThreadLocal.withInitial { TickEventJsonWriter() }
+
+        /** Returns the writer of the current thread. */
+        fun forCurrentThread(): TickEventJsonWriter = writers.get()
+    }
+
+    private val gson = Gson()
+
+    private val json = StringBuilder(4096)
+
+    private var buffer = ByteBuffer.allocate(4096)
+
+    /**
+     * Writes the tick event for a bot.
+     * @param roundNumber is the current round number.
+     * @param turn is the current turn.
+     * @param bot is the bot receiving the tick.
+     * @param enemyCount is the number of enemies left for the bot.
+     * @param bullets is the bullets fired by the bot.
+     * @param sharedEvents is the JSON of the events shared with the ticks of other bots in the turn, if any.
+     * @return the UTF-8 encoded JSON, which is only valid until the next tick is written by this writer.
+     */
+    fun writeTickEventForBot(
+        roundNumber: Int, turn: ITurn, bot: IBot, enemyCount: Int, bullets: Collection<IBullet>,
+        sharedEvents: SharedEventJson? = null,
+    ): ByteBuffer {
+        json.setLength(0)
+        json.append("{\"roundNumber\":").append(roundNumber)
+        json.append(",\"botState\":")
+        appendBotState(bot, enemyCount)
+        json.append(",\"bulletStates\":[")
+        bullets.forEachIndexed { index, bullet ->
+            if (index > 0) json.append(',')
+            appendBulletState(bullet)
+        }
+        json.append("],\"events\":[")
+        turn.getEvents(bot.id).forEachIndexed { index, event ->
+            if (index > 0) json.append(',')
+            if (event is TeamMessageEvent && sharedEvents != null) {
+                json.append(sharedEvents.jsonOf(event))
+            } else {
+                gson.toJson(EventsMapper.map(event), json)
+            }
+        }
+        json.append("],\"turnNumber\":").append(turn.turnNumber)
+        json.append(",\"type\":")
+        appendString(TICK_EVENT_FOR_BOT_TYPE)
+        json.append('}')
+
+        return encodeJson()
+    }
+
+    private fun appendBotState(bot: IBot, enemyCount: Int) {
+        bot.apply {
+            json.append("{\"isDroid\":").append(isDroid)
+            appendNumber("energy", energy)
+            appendNumber("x", x)
+            appendNumber("y", y)
+            appendNumber("direction", normalizeAbsoluteDegrees(direction))
+            appendNumber("gunDirection", normalizeAbsoluteDegrees(gunDirection))
+            appendNumber("radarDirection", normalizeAbsoluteDegrees(radarDirection))
+            appendNumber("radarSweep", radarSpreadAngle)
+            appendNumber("speed", speed)
+            appendNumber("turnRate", turnRate)
+            appendNumber("gunTurnRate", gunTurnRate)
+            appendNumber("radarTurnRate", radarTurnRate)
+            appendNumber("gunHeat", gunHeat)
+            json.append(",\"enemyCount\":").append(enemyCount)
+            appendColor("bodyColor", bodyColor)
+            appendColor("turretColor", turretColor)
+            appendColor("radarColor", radarColor)
+            appendColor("bulletColor", bulletColor)
+            appendColor("scanColor", scanColor)
+            appendColor("tracksColor", tracksColor)
+            appendColor("gunColor", gunColor)
+            json.append(",\"isDebuggingEnabled\":").append(isDebuggingEnabled).append('}')
+        }
+    }
+
+    private fun appendBulletState(bullet: IBullet) {
+        val position = bullet.position()
+
+        json.append("{\"bulletId\":").append(bullet.id.value)
+        json.append(",\"ownerId\":").append(bullet.botId.value)
+        appendNumber("power", bullet.power)
+        appendNumber("x", position.x)
+        appendNumber("y", position.y)
+        appendNumber("direction", normalizeAbsoluteDegrees(bullet.direction))
+        appendColor("color", bullet.color)
+        json.append('}')
+    }
+
+    private fun appendNumber(name: String, value: Double) {
+        // Gson does not serialize NaN and infinite values by default either
+        require(value.isFinite()) { "$value is not a valid double value as per JSON specification" }
+        json.append(",\"").append(name).append("\":").append(value)
+    }
+
+    private fun appendColor(name: String, color: Color?) {
+        if (color == null) return
+        json.append(",\"").append(name).append("\":")
+        appendString(color.value)
+    }
+
+    /** Appends a string escaped like the HTML-safe strings written by Gson. */
+    private fun appendString(value: String) {
+        json.append('"')
+        for (c in value) {
+            when (c) {
+                '"' -> json.append("\\\"")
+                '\\' -> json.append("\\\\")
+                '\t' -> json.append("\\t")
+                '\b' -> json.append("\\b")
+                '\n' -> json.append("\\n")
+                '\r' -> json.append("\\r")
+                '\u000c' -> json.append("\\f")
+                '<', '>', '&', '=', '\'', '\u2028', '\u2029' -> appendUnicodeEscape(c)
+                else -> if (c < ' ') appendUnicodeEscape(c) else json.append(c)
+            }
+        }
+        json.append('"')
+    }
+
+    private fun appendUnicodeEscape(c: Char) {
+        json.append("\\u")
+        for (shift in 12 downTo 0 step 4) {
+            json.append(HEX_DIGITS[(c.code shr shift) and 0xF])
+        }
+    }
+
+    /** Encodes the JSON into the buffer as UTF-8, where the buffer is grown if it is too small. */
+    private fun encodeJson(): ByteBuffer {
+        val maxSize = json.length * 3 // a char takes at most 3 bytes, as a surrogate pair takes 4 bytes for 2 chars
+        if (buffer.capacity() < maxSize) {
+            buffer = ByteBuffer.allocate(Integer.highestOneBit(maxSize) shl 1)
+        }
+        buffer.clear()
+
+        var index = 0
+        while (index < json.length) {
+            val c = json[index++]
+            when {
+                c.code < 0x80 -> buffer.put(c.code.toByte())
+                c.code < 0x800 -> {
+                    buffer.put((0xC0 or (c.code shr 6)).toByte())
+                    buffer.put((0x80 or (c.code and 0x3F)).toByte())
+                }
+                Character.isHighSurrogate(c) && index < json.length && Character.isLowSurrogate(json[index]) -> {
+                    val codePoint = Character.toCodePoint(c, json[index++])
+                    buffer.put((0xF0 or (codePoint shr 18)).toByte())
+                    buffer.put((0x80 or ((codePoint shr 12) and 0x3F)).toByte())
+                    buffer.put((0x80 or ((codePoint shr 6) and 0x3F)).toByte())
+                    buffer.put((0x80 or (codePoint and 0x3F)).toByte())
+                }
+                Character.isSurrogate(c) -> buffer.put('?'.code.toByte()) // unpaired surrogate, as String.getBytes()
+                else -> {
+                    buffer.put((0xE0 or (c.code shr 12)).toByte())
+                    buffer.put((0x80 or ((c.code shr 6) and 0x3F)).toByte())
+                    buffer.put((0x80 or (c.code and 0x3F)).toByte())
+                }
+            }
+        }
+        return buffer.flip()
+    }
+}
+
+/**
+ * JSON of the events shared by the ticks of several bots in a turn, e.g. team messages broadcast to all teammates, so
+ * each event is only encoded once per turn. An instance is created per turn, and is shared by the writers of all
+ * threads sending ticks.
+ */
+class SharedEventJson {
+
+    private val gson = Gson()
+
+    private val eventJson = ConcurrentHashMap<Event, String>()
+
+    /**
+     * Returns the JSON of an event, which is encoded on the first call for the event.
+     * @param event is the event, which is identified by identity.
+     * @return the JSON of the event.
+     */
+    fun jsonOf(event: Event): String = eventJson.computeIfAbsent(event) { gson.toJson(EventsMapper.map(it)) }
+}
@@ -0,0 +1,120 @@
+package dev.robocode.tankroyale.server.core
+
+import dev.robocode.tankroyale.server.model.BotId
+import dev.robocode.tankroyale.server.util.Histogram
+import kotlin.math.roundToLong
+
+/**
+ * Adaptive turn timeout, which gives each bot a budget for sending its intent derived from the tail latency of its
+ * recent responses. Each bot has its own deadline, where a bot that misses its budget skips the turn, and a turn ends
+ * when every alive bot has responded or missed its budget. Hence, games with fast bots are not slowed down by a fixed
+ * turn timeout, and a slower bot gets the time it usually needs without pacing the turns of the faster bots.
+ *
+ * The budget of a bot is the turn timeout until enough responses have been measured. A skipped turn is measured as a
+ * response that took the whole budget, and a response that missed the budget is measured as is, so the budget of a bot
+ * that starts falling behind grows towards the turn timeout, which keeps the rules fair for slow bots.
+ *
+ * @param maxTimeoutInNanos is the turn timeout of the game setup, which is the upper bound of all budgets.
+ */
+class AdaptiveTurnTimeout(private val maxTimeoutInNanos: Long) {
+
+    companion object {
+        /** Number of responses per window of the rolling response times */
+        const val WINDOW_SIZE = 200
+
+        /** Number of responses of a bot that must be measured before it gets a budget below the turn timeout */
+        const val MIN_RESPONSES = 20
+
+        /** Percentile of the response times used for the budget */
+        const val BUDGET_PERCENTILE = 99.0
+
+        /** Factor the response time at the budget percentile is multiplied with to leave room for outliers */
+        const val BUDGET_HEADROOM = 1.5
+
+        /** Smallest budget in nanoseconds, which covers the jitter of the scheduling and the network */
+        const val MIN_BUDGET_IN_NANOS = 1_000_000L
+    }
+
+    private val responseTimes = HashMap<BotId, RollingResponseTimes>()
+
+    /** Removes all measured response times, e.g. when a new game is started. */
+    @Synchronized
+    fun reset() {
+        responseTimes.clear()
+    }
+
+    /**
+     * Records the time from a tick was sent until the intent of a bot was received.
+     * @param botId is the id of the bot.
+     * @param responseTimeInNanos is the response time in nanoseconds.
+     * @return `true` if the response was within the budget of the bot; `false` if the bot missed its budget.
+     */
+    @Synchronized
+    fun recordResponse(botId: BotId, responseTimeInNanos: Long): Boolean {
+        val isWithinBudget = responseTimeInNanos <= budgetOf(botId)
+        responseTimesOf(botId).record(responseTimeInNanos)
+        return isWithinBudget
+    }
+
+    /**
+     * Records that a bot skipped a turn, which is measured as a response that took the whole budget of the bot.
+     * @param botId is the id of the bot.
+     */
+    @Synchronized
+    fun recordSkippedTurn(botId: BotId) {
+        responseTimesOf(botId).record(budgetOf(botId))
+    }
+
+    /**
+     * Returns the current budget of a bot.
+     * @param botId is the id of the bot.
+     * @return the budget in nanoseconds.
+     */
+    @Synchronized
+    fun budgetOf(botId: BotId): Long {
+        val times = responseTimes[botId]
+        if (times == null || times.count < MIN_RESPONSES) return maxTimeoutInNanos
+
+        val budget = (times.valueAtPercentile(BUDGET_PERCENTILE) * BUDGET_HEADROOM).roundToLong()
+        return budget.coerceIn(MIN_BUDGET_IN_NANOS.coerceAtMost(maxTimeoutInNanos), maxTimeoutInNanos)
+    }
+
+    /**
+     * Returns the time a turn must wait for the bots that have not responded yet, which is the largest budget of these
+     * bots, as each of them skips the turn when its own budget has expired.
+     * @param pendingBotIds is the ids of the alive bots that have not responded to the tick yet.
+     * @return the turn timeout in nanoseconds, which is 0 if there are no pending bots.
+     */
+    @Synchronized
+    fun turnTimeout(pendingBotIds: Collection<BotId>): Long = pendingBotIds.maxOfOrNull { budgetOf(it) } ?: 0
+
+    private fun responseTimesOf(botId: BotId) = responseTimes.getOrPut(botId) { RollingResponseTimes() }
+
+    /**
+     * Response times of a bot over the last one to two windows, where the histogram of the current window replaces
+     * the histogram of the previous window when it is full, so old responses are forgotten.
+     */
+    private class RollingResponseTimes {
+        private var previous = Histogram()
+        private var current = Histogram()
+        private val merged = Histogram()
+
+        val count: Long get() = previous.count + current.count
+
+        fun record(responseTimeInNanos: Long) {
+            current.record(responseTimeInNanos)
+            if (current.count >= WINDOW_SIZE) {
+                val full = current
+                current = previous.apply { reset() }
+                previous = full
+            }
+        }
+
+        fun valueAtPercentile(percentile: Double): Long = merged.run {
+            reset()
+            add(previous)
+            add(current)
+            valueAtPercentile(percentile)
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package dev.robocode.tankroyale.server.core
+
+import dev.robocode.tankroyale.common.recording.QueuedRecordingWriter
+import dev.robocode.tankroyale.common.recording.RecordingWriter
+import java.io.BufferedOutputStream
+import java.io.File
+import java.io.FileOutputStream
+import java.time.LocalDateTime
+import java.time.format.DateTimeFormatter
+
+/**
+ * Recorder embedded in the server, which records a game of a room into an indexed recording in the file format of the
+ * recorder, so games can be recorded without a recorder connected as an observer.
+ *
+ * The messages are recorded as encoded for the observers, i.e. they are not encoded again. The compression and disk
+ * I/O are done by a [QueuedRecordingWriter] as with the recorder, so recording a message only waits for the writer
+ * when the queue is full. No messages are dropped, except for the messages recorded after the recorder has been closed.
+ *
+ * @param dir is the directory of the recordings.
+ * @param roomId is the id of the room of the game, which is part of the file name.
+ */
+class GameRecorder(dir: File, roomId: String) : AutoCloseable {
+
+    companion object {
+        /** Types of the messages that are recorded, which are the same as the ones recorded by the recorder */
+        private val RECORDED_TYPES = setOf(
+            "GameAbortedEvent",
+            "GameEndedEventForObserver",
+            "GameStartedEventForObserver",
+            RecordingWriter.ROUND_ENDED_EVENT_TYPE,
+            RecordingWriter.ROUND_STARTED_EVENT_TYPE,
+            RecordingWriter.TICK_EVENT_TYPE,
+        )
+
+        private const val BUFFER_SIZE = 64 * 1024
+    }
+
+    /** File of the recording */
+    val file: File
+
+    private val writer: QueuedRecordingWriter
+
+    init {
+        val now = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd-HH-mm-ss-SSS"))
+        val room = if (roomId == GameRoom.DEFAULT_ROOM_ID) "" else roomId.replace(Regex("[^A-Za-z0-9_-]"), "_") + "-"
+        file = File(dir, "game-$room$now.battle.gz")
+        val output = RecordingWriter(BufferedOutputStream(FileOutputStream(file), BUFFER_SIZE))
+        writer = QueuedRecordingWriter(file, output, "Game recorder writer", writeMessage = output::write)
+    }
+
+    /**
+     * Records a message sent to the observers, if it is part of a recording.
+     * @param message is the JSON message.
+     * @param type is the type of the message.
+     */
+    fun record(message: String, type: String) {
+        if (type in RECORDED_TYPES) {
+            writer.write(message, type)
+        }
+    }
+
+    /** Writes the messages recorded so far and closes the file. */
+    override fun close() {
+        writer.close()
+    }
+}
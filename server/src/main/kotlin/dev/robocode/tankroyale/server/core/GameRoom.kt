@@ -0,0 +1,1082 @@
+package dev.robocode.tankroyale.server.core
+
+import com.google.gson.Gson
+import dev.robocode.tankroyale.schema.*
+import dev.robocode.tankroyale.schema.BotIntent
+import dev.robocode.tankroyale.schema.GameSetup
+import dev.robocode.tankroyale.server.Server
+import dev.robocode.tankroyale.server.connection.BinaryMessageCodec
+import dev.robocode.tankroyale.server.connection.ConnectionHandler
+import dev.robocode.tankroyale.server.connection.SharedEventJson
+import dev.robocode.tankroyale.server.connection.TickEventJsonWriter
+import dev.robocode.tankroyale.server.mapper.*
+import dev.robocode.tankroyale.server.metrics.MetricsCollector
+import dev.robocode.tankroyale.server.metrics.MetricsRegistry
+import dev.robocode.tankroyale.server.metrics.PrometheusWriter
+import dev.robocode.tankroyale.server.metrics.SummaryMetric
+import dev.robocode.tankroyale.server.model.*
+import dev.robocode.tankroyale.server.model.InitialPosition
+import dev.robocode.tankroyale.server.util.utf8Length
+import org.java_websocket.WebSocket
+import org.java_websocket.exceptions.WebsocketNotConnectedException
+import org.java_websocket.framing.TextFrame
+import org.slf4j.LoggerFactory
+import java.util.Random
+import java.util.concurrent.Callable
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.ForkJoinPool
+import java.util.concurrent.atomic.LongAdder
+import kotlin.time.Duration
+import kotlin.time.Duration.Companion.hours
+import kotlin.time.Duration.Companion.nanoseconds
+
+
+/**
+ * Game room, which runs the games started in the room isolated from the games in other rooms on the same server.
+ * Each room has its own state machine, participants, model updater, turn timer, and TPS, whereas the connections are
+ * shared between all rooms. Observers and controllers only receive the events of the room they are observing.
+ */
+class GameRoom(
+    /** Id of this room */
+    val roomId: String,
+    /** Connection handler shared by all rooms */
+    private val connectionHandler: ConnectionHandler,
+    /** Registry of the server metrics */
+    private val metrics: MetricsRegistry,
+    /** Called when the game in this room has stopped, i.e. has ended, has been aborted, or could not be started */
+    private val onGameStopped: (GameRoom) -> Unit,
+) {
+    companion object {
+        const val TYPE_IS_REQUIRED_ON_MESSAGE = "'type' is required on the message"
+
+        /** Id of the room used by clients that do not provide a room id */
+        const val DEFAULT_ROOM_ID = "default"
+
+        /** Minimum number of participants for creating and sending their ticks in parallel */
+        private const val PARALLEL_TICK_MIN_PARTICIPANTS = 8
+
+        /** Turn timeout in lockstep mode, which is practically no timeout */
+        private val LOCKSTEP_TURN_TIMEOUT = 24.hours
+
+        /** Pool shared by all rooms for creating and sending the ticks of the participants in parallel */
+        private val tickPool = ForkJoinPool(Runtime.getRuntime().availableProcessors())
+    }
+
+    /** Current server state */
+    private var serverState = ServerState.WAIT_FOR_PARTICIPANTS_TO_JOIN
+
+    /** Current game setup */
+    private lateinit var gameSetup: dev.robocode.tankroyale.server.model.GameSetup
+
+    /** Game participants (bots connections) */
+    private val participants = ConcurrentHashMap.newKeySet<WebSocket>()
+
+    /** Game participants that signalled 'ready' for battle */
+    private val readyParticipants = ConcurrentHashMap.newKeySet<WebSocket>()
+
+    /** Map over participant ids: bot connection -> bot id */
+    private val participantIds = ConcurrentHashMap<WebSocket, BotId>()
+
+    /** Map over bot intents: bot connection -> bot intent */
+    private val botIntents = ConcurrentHashMap<WebSocket, dev.robocode.tankroyale.server.model.BotIntent>()
+
+    /** Map over participants sent to clients */
+    private val participantMap = ConcurrentHashMap<BotId, Participant>()
+
+    /** Model updater that keeps track of the game state/model */
+    private var modelUpdater: ModelUpdater? = null
+
+    /** Timer for 'ready' timeout */
+    private lateinit var readyTimeoutTimer: NanoTimer
+
+    /** Scheduler that executes the turns of this room on a single long-lived thread */
+    private val turnScheduler = TurnScheduler(Server.timerSpinThreshold.inWholeNanoseconds, "TurnScheduler-$roomId")
+
+    /** Profiler of the turn phases, if enabled */
+    private val phaseProfiler = if (Server.turnPhaseProfilingEnabled) TurnPhaseProfiler("room $roomId") else null
+
+    /** Timer for 'turn' timeout */
+    private var turnTimeoutTimer: TurnScheduler.ScheduledTurn? = null
+
+    /** Current TPS setting (Turns Per Second) */
+    private var tps = Server.tps
+
+    /** Logger */
+    private val log = LoggerFactory.getLogger(this::class.java)
+
+    /** JSON handler */
+    private val gson = Gson()
+
+    /** Tick lock for onNextTurn() */
+    private val tickLock = Any()
+
+    /**
+     * Lock for the bot intents received for the current tick. It is only held briefly, and not while a turn is
+     * executed, so the socket threads receiving the intents never wait for a turn.
+     */
+    private val intentLock = Any()
+
+    /** Lock for participant-related operations */
+    private val participantsLock = Any()
+
+    /** Map over debug graphics enable flags */
+    private val debugGraphicsEnableMap = ConcurrentHashMap<BotId, Boolean /* isDebugEnabled */>()
+
+    /** Number of turns executed in this room */
+    private val turnCount = LongAdder()
+
+    /** Time from a tick was sent until the intent of the last bot was received */
+    private val lastIntentTime = SummaryMetric()
+
+    /** Time from a tick was sent until the intent of a bot was received per bot of the current game */
+    private val botResponseTimes = ConcurrentHashMap<BotId, SummaryMetric>()
+
+    /** Number of skipped turns per bot of the current game */
+    private val botSkippedTurns = ConcurrentHashMap<BotId, LongAdder>()
+
+    /** Team messages sent per team of the current game */
+    private val teamMessageStatistics = TeamMessageStatistics()
+
+    /** Adaptive turn timeout of the current game, if enabled by the game setup */
+    @Volatile
+    private var adaptiveTurnTimeout: AdaptiveTurnTimeout? = null
+
+    /** Recorder of the current game, if games are recorded by the server */
+    @Volatile
+    private var recorder: GameRecorder? = null
+
+    /** Time in nanoseconds when the last tick was sent to the participants, which is 0 while the next tick is computed */
+    @Volatile
+    private var tickSentTime = 0L
+
+    private val metricsCollector = MetricsCollector(::collectMetrics)
+
+    init {
+        metrics.register(metricsCollector)
+    }
+
+    /** Logs the time spent in the turn phases of the current or last game, if profiling is enabled */
+    fun logTurnPhaseProfile() {
+        phaseProfiler?.let { log.info(it.report()) }
+    }
+
+    /** Closes this room, and stops its turn timer */
+    fun close() {
+        metrics.unregister(metricsCollector)
+        turnScheduler.shutdown()
+        stopRecording()
+    }
+
+    private fun collectMetrics(writer: PrometheusWriter) {
+        val room = "room" to roomId
+        val timing = turnScheduler.statistics.snapshot()
+
+        writer.gauge("robocode_tps_target", "Turns per second setting", tps.toDouble(), room)
+        writer.gauge(
+            "robocode_tps_achieved", "Turns per second achieved in the current or last game",
+            if (timing.turnCount > 1) timing.achievedTps else 0.0, room
+        )
+        writer.counter("robocode_turns_total", "Number of executed turns", turnCount.sum().toDouble(), room)
+        writer.summary(
+            "robocode_turn_last_intent_seconds", "Time from a tick was sent until all bot intents were received",
+            lastIntentTime, room
+        )
+        botResponseTimes.forEach { (botId, responseTime) ->
+            writer.summary(
+                "robocode_bot_response_seconds", "Time from a tick was sent until the bot intent was received",
+                responseTime, room, "bot" to botLabel(botId)
+            )
+        }
+        botSkippedTurns.forEach { (botId, skippedTurns) ->
+            writer.counter(
+                "robocode_bot_skipped_turns_total", "Number of turns skipped by a bot",
+                skippedTurns.sum().toDouble(), room, "bot" to botLabel(botId)
+            )
+        }
+        teamMessageStatistics.forEach { teamId, counters ->
+            val team = "team" to teamLabel(teamId)
+            writer.counter(
+                "robocode_team_messages_total", "Number of team messages sent by the bots of a team",
+                counters.messages.sum().toDouble(), room, team
+            )
+            writer.counter(
+                "robocode_team_message_bytes_total", "Number of bytes of the team messages sent by the bots of a team",
+                counters.bytes.sum().toDouble(), room, team
+            )
+            writer.counter(
+                "robocode_team_message_deliveries_total", "Number of team messages received by the teammates",
+                counters.deliveries.sum().toDouble(), room, team
+            )
+        }
+        adaptiveTurnTimeout?.let { timeout ->
+            botResponseTimes.keys.forEach { botId ->
+                writer.gauge(
+                    "robocode_bot_turn_timeout_budget_seconds", "Adaptive turn timeout budget of a bot",
+                    timeout.budgetOf(botId) / 1e9, room, "bot" to botLabel(botId)
+                )
+            }
+        }
+    }
+
+    private fun botLabel(botId: BotId) = "${participantMap[botId]?.name ?: "bot"} (${botId.value})"
+
+    private fun teamLabel(teamId: TeamId) =
+        "${participantMap.values.firstOrNull { it.teamId == teamId.id }?.teamName ?: "team"} (${teamId.id})"
+
+    /** Prepares the game and wait for participants to become 'ready' */
+    private fun prepareGame() {
+        log.debug("Preparing game")
+
+        serverState = ServerState.WAIT_FOR_READY_PARTICIPANTS
+
+        participantIds.clear()
+        readyParticipants.clear()
+        botIntents.clear()
+        participantMap.clear()
+        botsThatSentIntent.clear()
+
+        modelUpdater?.close()
+        modelUpdater = null
+
+        debugGraphicsEnableMap.clear()
+
+        turnTimeoutTimer?.stop()
+        turnTimeoutTimer = null
+
+        prepareParticipantIds()
+        prepareModelUpdater()
+        sendGameStartedToParticipants()
+        startReadyTimer()
+    }
+
+    private val startGameLock = Any()
+
+    /** Starts the game if all participants are ready */
+    private fun startGameIfParticipantsReady() {
+        synchronized(startGameLock) {
+            // Make a local copy of participant size to prevent race condition
+            val currentParticipantSize = participants.size
+            val currentReadyParticipantSize = readyParticipants.size
+
+            if (currentReadyParticipantSize == currentParticipantSize && currentParticipantSize > 0) {
+                // Try to stop the timer, but if we can't (already stopped), make sure we're in the right state
+                if (!readyTimeoutTimer.stop() && serverState != ServerState.WAIT_FOR_READY_PARTICIPANTS) return
+
+                startGame()
+            }
+        }
+    }
+
+    /** Assigns the bot ids in the order of the bot names and versions, so the same bots get the same ids */
+    private fun prepareParticipantIds() {
+        val botHandshakes = connectionHandler.getBotHandshakes()
+        participants.sortedWith(
+            compareBy(
+                { botHandshakes[it]?.name }, { botHandshakes[it]?.version }, { it.remoteSocketAddress?.toString() }
+            )
+        ).forEachIndexed { index, conn ->
+            participantIds[conn] = BotId(index + 1)
+        }
+    }
+
+    /** Send game-started event to all participant bots to get them started */
+    private fun sendGameStartedToParticipants() {
+        val gameSetup = GameSetupMapper.map(gameSetup)
+        val botHandshakes = connectionHandler.getBotHandshakes()
+
+        participantIds.forEach { (conn, botId) ->
+            val teamId = botHandshakes[conn]?.teamId
+            val gameStartedForBot = createGameStartedEventForBot(botId, teamId, gameSetup)
+            send(conn, gameStartedForBot)
+        }
+    }
+
+    private fun getTeammateIds(botId: BotId, teamId: Int?): Set<BotId> =
+        teamId?.let { getParticipantTeamIds().filterValues { it == teamId }.keys.toSet().minus(botId) }
+            ?: emptySet()
+
+    private fun getParticipantTeamIds(): Map<BotId, Int?> = participantIds
+        .mapNotNull { (conn, botId) -> connectionHandler.getBotHandshakes()[conn]?.teamId?.let { botId to it } }
+        .associateBy({ it.first }, { it.second })
+
+    /** Creates a GameStartedEventForBot with current game setup */
+    private fun createGameStartedEventForBot(botId: BotId, teamId: Int?, gameSetup: GameSetup) =
+        GameStartedEventForBot().apply {
+            type = Message.Type.GAME_STARTED_EVENT_FOR_BOT
+            myId = botId.value
+            teammateIds = getTeammateIds(botId, teamId).map { it.value }
+            this.gameSetup = gameSetup
+
+            modelUpdater?.getBot(botId)?.let {
+                startX = it.x
+                startY = it.y
+                startDirection = it.direction
+            }
+        }
+
+    /** Starts the 'ready' timer */
+    private fun startReadyTimer() {
+        readyTimeoutTimer = NanoTimer(
+            minPeriodInNanos = 0,
+            maxPeriodInNanos = gameSetup.readyTimeout.inWholeNanoseconds,
+            job = { onReadyTimeout() }
+        ).apply { start() }
+    }
+
+    /** Starts a new game */
+    private fun startGame() {
+        log.info("Starting game in room: $roomId")
+        readyParticipants.clear()
+        participantMap.putAll(createParticipantMap())
+
+        serverState = ServerState.GAME_RUNNING
+
+        startRecording()
+        sendGameStartedToObservers()
+        prepareModelUpdater()
+        turnScheduler.statistics.reset()
+        phaseProfiler?.reset()
+        log.info("Game seed in room {}: {}", roomId, gameSetup.seed)
+        botResponseTimes.clear()
+        botSkippedTurns.clear()
+        teamMessageStatistics.reset()
+        participantMap.keys.forEach {
+            botResponseTimes[it] = SummaryMetric()
+            botSkippedTurns[it] = LongAdder()
+        }
+        adaptiveTurnTimeout = if (gameSetup.isAdaptiveTurnTimeout && !gameSetup.isLockstep) {
+            AdaptiveTurnTimeout(gameSetup.turnTimeout.inWholeNanoseconds)
+        } else null
+        resetTurnTimeout()
+
+        // The first turn has no tick for the bots to respond to
+        if (gameSetup.isLockstep) {
+            turnTimeoutTimer?.notifyReady()
+        }
+    }
+
+    /** Starts recording the game, if games are recorded by the server */
+    private fun startRecording() {
+        stopRecording()
+        val dir = Server.recordingDir ?: return
+        recorder = try {
+            GameRecorder(dir, roomId).also { log.info("Recording game in room {} to file: {}", roomId, it.file) }
+        } catch (e: Exception) {
+            log.error("Failed to start recording game in room $roomId", e)
+            null
+        }
+    }
+
+    /** Stops recording the game, where the messages recorded so far are written */
+    private fun stopRecording() {
+        recorder?.let {
+            recorder = null
+            it.close()
+        }
+    }
+
+    /** Send GameStarted to all participant observers to get them started */
+    private fun sendGameStartedToObservers() {
+        broadcastToObserverAndControllers(GameStartedEventForObserver().apply {
+            type = Message.Type.GAME_STARTED_EVENT_FOR_OBSERVER
+            gameSetup = GameSetupMapper.map(this@GameRoom.gameSetup)
+            participants = participantMap.values.toList()
+        })
+    }
+
+    /** Creates a map over participants from the bot connection handshakes */
+    private fun createParticipantMap(): Map<BotId, Participant> {
+        val participantMap = mutableMapOf<BotId, Participant>()
+        for (conn in participants) {
+            val handshake = connectionHandler.getBotHandshakes()[conn]
+            val botId = participantIds[conn] ?: continue
+            val participant = Participant().apply {
+                id = botId.value
+                sessionId = handshake!!.sessionId
+                name = handshake.name
+                version = handshake.version
+                description = handshake.description
+                authors = handshake.authors
+                homepage = handshake.homepage
+                countryCodes = handshake.countryCodes
+                gameTypes = handshake.gameTypes
+                platform = handshake.platform
+                programmingLang = handshake.programmingLang
+                initialPosition = handshake.initialPosition
+                teamId = handshake.teamId
+                teamName = handshake.teamName
+                teamVersion = handshake.teamVersion
+                isDroid = handshake.isDroid
+            }
+            participantMap[botId] = participant
+        }
+        return participantMap
+    }
+
+    /** Prepares model-updater */
+    private fun prepareModelUpdater() {
+        val participantIds = createParticipantIds()
+
+        val initialPositions = participantMap.filter { it.value.initialPosition != null }.mapValues {
+            val p = it.value.initialPosition
+            InitialPosition(p.x, p.y, p.direction)
+        }
+        val droidFlags = participantMap.mapValues { it.value.isDroid == true }
+
+        modelUpdater?.close()
+        modelUpdater = ModelUpdater(
+            gameSetup, participantIds, initialPositions, droidFlags, turnHistoryPolicy = Server.turnHistoryPolicy,
+            phaseProfiler = phaseProfiler, teamMessageStatistics = teamMessageStatistics,
+        )
+    }
+
+    private fun createParticipantIds(): Set<ParticipantId> {
+
+        val participantIds = mutableSetOf<ParticipantId>()
+
+        connectionHandler.getBotHandshakes().forEach { (conn, botHandshake) ->
+            this.participantIds[conn]?.let { botId ->
+                val teamId = botHandshake.teamId?.let { TeamId(it) }
+                participantIds += ParticipantId(botId, teamId)
+            }
+        }
+        return participantIds
+    }
+
+    /** Resets turn timeout timer with min and max bounds */
+    private fun resetTurnTimeout() {
+        turnTimeoutTimer = turnScheduler.schedule(
+            minPeriodInNanos = calculateTurnTimeoutMinPeriod().inWholeNanoseconds,
+            maxPeriodInNanos = calculateTurnTimeoutMaxPeriod().inWholeNanoseconds,
+            job = { onNextTurn() }
+        )
+    }
+
+    private fun calculateTurnTimeoutMinPeriod(): Duration {
+        return if (tps <= 0) Duration.ZERO else 1_000_000_000.nanoseconds / tps
+    }
+
+    private fun calculateTurnTimeoutMaxPeriod(): Duration {
+        if (gameSetup.isLockstep) return LOCKSTEP_TURN_TIMEOUT
+
+        return adaptiveTurnTimeout?.let { timeout ->
+            synchronized(intentLock) { timeout.turnTimeout(getPendingBotIds()) }.nanoseconds
+        } ?: gameSetup.turnTimeout
+    }
+
+    /** Returns the ids of the alive bots that have not sent an intent for the current tick yet */
+    private fun getPendingBotIds(): List<BotId> =
+        participants.filter { it !in botsThatSentIntent }
+            .mapNotNull { participantIds[it] }.filter { modelUpdater?.isAlive(it) == true }
+
+    /** Broadcast game-aborted event to all observers and controllers */
+    private fun broadcastGameAborted() {
+        broadcastToAll(GameAbortedEvent().apply {
+            type = Message.Type.GAME_ABORTED_EVENT
+        })
+    }
+
+    /** Returns a list of bot results (for bots) ordered on the score ranks */
+    private fun getResultsForBot(botId: BotId): ResultsForBot =
+        ResultsForBotMapper.map(modelUpdater!!.getResults(), botId)
+
+    /** Returns a list of bot results (for observers and controllers) ordered on the score ranks */
+    private fun getResultsForObservers(): List<ResultsForObserver> =
+        ResultsForObserverMapper.map(modelUpdater!!.getResults(), participantMap)
+
+    /** Returns the response statistics of the bots (for observers and controllers) ordered on the bot ids */
+    private fun getBotStatistics(): List<BotStatistics> =
+        participantMap.keys.sortedBy { it.value }.map { botId ->
+            val responseTimes = botResponseTimes[botId]?.snapshot()?.quantiles
+            BotStatistics().apply {
+                id = botId.value
+                skippedTurns = botSkippedTurns[botId]?.sum()?.toInt() ?: 0
+                medianResponseTime = toMicroseconds(responseTimes?.get(0) ?: 0)
+                p99ResponseTime = toMicroseconds(responseTimes?.get(2) ?: 0)
+                turnTimeoutBudget = adaptiveTurnTimeout?.budgetOf(botId)?.let { toMicroseconds(it) }
+            }
+        }
+
+    private fun toMicroseconds(nanos: Long): Int = (nanos / 1000).toInt()
+
+
+    /** Broadcast pause event to all observers */
+    private fun broadcastGamedPausedToObservers() {
+        broadcastToObserverAndControllers(GamePausedEventForObserver().apply {
+            type = Message.Type.GAME_PAUSED_EVENT_FOR_OBSERVER
+        })
+    }
+
+    /** Broadcast resume event to all observers */
+    private fun broadcastGameResumedToObservers() {
+        broadcastToObserverAndControllers(GameResumedEventForObserver().apply {
+            type = Message.Type.GAME_RESUMED_EVENT_FOR_OBSERVER
+        })
+    }
+
+    /** Broadcast TPS-changed event to all observers */
+    private fun broadcastTpsChangedToObservers(tps: Int) {
+        broadcastToObserverAndControllers(TpsChangedEvent().apply {
+            type = Message.Type.TPS_CHANGED_EVENT
+            this.tps = tps
+        })
+    }
+
+    private fun updateGameState(): GameState {
+        val botIntentsSnapshot = synchronized(intentLock) {
+            lateParticipants = botsThatMissedBudget.toSet()
+            respondedParticipants = botIntents.keys - lateParticipants
+            tickSentTime = 0L
+
+            botIntents.mapNotNull { (key, value) ->
+                if (key in lateParticipants) return@mapNotNull null
+                participantIds[key]?.let { botId ->
+                    botId to dev.robocode.tankroyale.server.model.BotIntent().apply {
+                        update(value)
+                    }
+                }
+            }.toMap().also {
+                // Intents received from now on are for the next turn, where the late intents are carried over to it
+                botIntents.keys.retainAll(lateParticipants)
+                botsThatSentIntent.clear()
+                botsThatMissedBudget.clear()
+            }
+        }
+
+        return modelUpdater?.update(botIntentsSnapshot)
+            ?: throw IllegalStateException("Model updater is null when trying to update game state")
+    }
+
+    private fun onReadyTimeout() {
+        log.debug("Ready timeout")
+        synchronized(startGameLock) {
+            // Check again in case state changed during timer
+            if (serverState !== ServerState.WAIT_FOR_READY_PARTICIPANTS) return
+
+            if (readyParticipants.size >= gameSetup.minNumberOfParticipants) {
+                // Start the game with the participants that are ready
+                log.warn("Starting game with ${readyParticipants.size}/${participants.size} participants ready because of timeout")
+                val participantIterator = participants.iterator()
+                while (participantIterator.hasNext()) {
+                    val participantConn = participantIterator.next()
+                    if (!readyParticipants.contains(participantConn)) {
+                        participantIterator.remove()
+                        participantIds.remove(participantConn)
+                    }
+                }
+                startGame()
+            } else {
+                // Not enough participants -> prepare another game
+                log.warn("Aborting the game as only ${readyParticipants.size}/${participants.size} participants are ready")
+                serverState = ServerState.WAIT_FOR_PARTICIPANTS_TO_JOIN
+                broadcastGameAborted()
+                onGameStopped(this)
+            }
+        }
+    }
+
+    private fun onNextTurn() {
+        if (serverState !== ServerState.GAME_RUNNING) return
+
+        // Required as this method can be called again while already running.
+        // This would give a race condition without the synchronized lock.
+        var isRoundEnded = false
+        synchronized(tickLock) {
+            turnCount.increment()
+
+            // Update game state
+            updateGameState().apply {
+                onNextTick(lastRound)
+                isRoundEnded = lastRound?.roundEnded == true
+
+                if (isGameEnded) {
+                    onGameEnded()
+                }
+            }
+        }
+
+        if (serverState !== ServerState.GAME_STOPPED) {
+            resetTurnTimeout()
+
+            // In lockstep mode, the next turn is ready if all intents were received before it was scheduled, or if the
+            // round has ended, as the bots need not respond to the last tick of a round
+            if (gameSetup.isLockstep) {
+                synchronized(intentLock) {
+                    if (isRoundEnded || isReadyForNextTurn()) {
+                        turnTimeoutTimer?.notifyReady()
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks if the next turn can be executed before the turn timeout, which requires the intents of all alive
+     * participants, where a dead participant has no tick to respond to.
+     */
+    private fun isReadyForNextTurn(): Boolean = getPendingBotIds().isEmpty()
+
+    private fun onGameEnded() {
+        log.info("Game ended in room: $roomId")
+        log.info("Turn timing: ${turnScheduler.statistics.snapshot()}")
+        logTurnPhaseProfile()
+
+        broadcastGameEndedToParticipants()
+        broadcastGameEndedToObservers()
+
+        // Must be done after the broadcasting
+        serverState = ServerState.GAME_STOPPED
+
+        cleanupAfterGameStopped()
+    }
+
+    private fun onNextTick(lastRound: IRound?) {
+        lastRound?.apply {
+            lastTurn?.apply {
+                if (turnNumber == 1) {
+                    log.debug("Round started: $roundNumber")
+
+                    botsThatSkippedTurn = emptySet()
+
+                    transferDebugGraphicsFlagToModel()
+
+                    broadcastRoundStartedToAll(roundNumber)
+
+                } else { // not turn 1
+                    // Send SkippedTurn, except in turn 1
+                    checkForSkippedTurns(turnNumber)
+                }
+                sendTickToParticipants(roundNumber, this)
+                broadcastGameTickToObservers(roundNumber, this)
+
+                // Send round ended _after_ tick has been sent
+                if (roundEnded) {
+                    log.debug("Round ended: $roundNumber")
+                    broadcastRoundEndedToParticipants(roundNumber, turnNumber)
+                    broadcastRoundEndedToObservers(roundNumber, turnNumber)
+                }
+            }
+        }
+    }
+
+    private fun broadcastGameEndedToParticipants() {
+        participants.forEach { conn ->
+            participantIds[conn]?.let { botId ->
+                GameEndedEventForBot().apply {
+                    type = Message.Type.GAME_ENDED_EVENT_FOR_BOT
+                    numberOfRounds = modelUpdater!!.numberOfRounds
+                    results = getResultsForBot(botId)
+
+                    send(conn, this)
+                }
+            }
+        }
+    }
+
+    private fun broadcastGameEndedToObservers() {
+        broadcastToObserverAndControllers(GameEndedEventForObserver().apply {
+            type = Message.Type.GAME_ENDED_EVENT_FOR_OBSERVER
+            numberOfRounds = modelUpdater!!.numberOfRounds
+            results = getResultsForObservers() // Use the stored score!
+            botStatistics = getBotStatistics()
+        })
+    }
+
+    private fun broadcastRoundStartedToAll(roundNumber: Int) {
+        broadcastToAll(RoundStartedEvent().also {
+            it.type = Message.Type.ROUND_STARTED_EVENT
+            it.roundNumber = roundNumber
+        })
+    }
+
+    private fun broadcastRoundEndedToParticipants(roundNumber: Int, turnNumber: Int) {
+        participants.forEach { conn ->
+            participantIds[conn]?.let { botId ->
+                RoundEndedEventForBot().apply {
+                    type = Message.Type.ROUND_ENDED_EVENT_FOR_BOT
+                    this.roundNumber = roundNumber
+                    this.turnNumber = turnNumber
+                    results = getResultsForBot(botId)
+
+                    send(conn, this)
+                }
+            }
+        }
+    }
+
+    private fun broadcastRoundEndedToObservers(roundNumber: Int, turnNumber: Int) {
+        broadcastToObserverAndControllers(RoundEndedEventForObserver().also {
+            it.type = Message.Type.ROUND_ENDED_EVENT_FOR_OBSERVER
+            it.roundNumber = roundNumber
+            it.turnNumber = turnNumber
+            it.results = getResultsForObservers()
+            it.botStatistics = getBotStatistics()
+        })
+    }
+
+    /**
+     * Sends the tick to each alive participant. With many participants, the ticks are created, encoded, and sent in
+     * parallel, where each bot gets its tick as soon as it has been encoded. Returns when all ticks have been sent.
+     */
+    private fun sendTickToParticipants(roundNumber: Int, turn: ITurn) {
+        synchronized(intentLock) {
+            tickSentTime = System.nanoTime()
+        }
+
+        val enemyCounts = countEnemies(aliveBotToTeamIdMap())
+        val bots = turn.bots.associateBy { it.id }
+        val bulletsByOwner = turn.bullets.groupBy { it.botId }
+        val sharedEvents = SharedEventJson()
+
+        val tickTasks = participants.mapNotNull { conn ->
+            val botId = participantIds[conn] ?: return@mapNotNull null
+            val enemyCount = enemyCounts[botId] ?: return@mapNotNull null // bot is dead
+            val bot = bots[botId] ?: return@mapNotNull null
+
+            Callable {
+                try {
+                    sendTick(conn, roundNumber, turn, bot, enemyCount, bulletsByOwner[botId].orEmpty(), sharedEvents)
+                } catch (exception: Exception) {
+                    log.error("Failed to send tick to bot: ${participantMap[botId]?.name}", exception)
+                }
+            }
+        }
+        if (tickTasks.size < PARALLEL_TICK_MIN_PARTICIPANTS) {
+            tickTasks.forEach { it.call() }
+        } else {
+            tickPool.invokeAll(tickTasks)
+        }
+    }
+
+    /**
+     * Sends a tick to a bot, where the JSON of the tick is written directly from the turn without mapping it into a
+     * schema object first, unless the bot uses the binary encoding.
+     */
+    private fun sendTick(
+        conn: WebSocket, roundNumber: Int, turn: ITurn, bot: IBot, enemyCount: Int, bullets: Collection<IBullet>,
+        sharedEvents: SharedEventJson,
+    ) {
+        if (connectionHandler.isBinaryEncoding(conn)) {
+            send(conn, TurnToTickEventForBotMapper.map(roundNumber, turn, bot, enemyCount, bullets))
+            return
+        }
+        val payload = TickEventJsonWriter.forCurrentThread().writeTickEventForBot(
+            roundNumber, turn, bot, enemyCount, bullets, sharedEvents
+        )
+        connectionHandler.recordBytesSent(conn, payload.remaining())
+        try {
+            // The payload is copied into the frame when sent, so the buffer of the writer can be reused afterwards
+            conn.sendFrame(TextFrame().apply { setPayload(payload) })
+        } catch (_: WebsocketNotConnectedException) {
+            // Bot cannot receive events and send new intents.
+        }
+    }
+
+    private fun aliveBotToTeamIdMap(): Map<BotId, Int> =
+        participantMap.filterKeys { botId -> modelUpdater?.isAlive(botId) == true }.mapValues { (botId, participant) ->
+            participant.teamId ?: -botId.value
+        }
+
+    /** Counts the enemies of each alive bot, i.e. the alive bots not on the same team, in linear time */
+    private fun countEnemies(aliveBotTeamIds: Map<BotId, Int>): Map<BotId, Int> {
+        val teamSizes = aliveBotTeamIds.values.groupingBy { it }.eachCount()
+        return aliveBotTeamIds.mapValues { (_, teamId) -> aliveBotTeamIds.size - teamSizes.getValue(teamId) }
+    }
+
+    private fun broadcastGameTickToObservers(roundNumber: Int, turn: ITurn) {
+        val aliveBotTeamIds = aliveBotToTeamIdMap()
+        val enemyCounts = countEnemies(aliveBotTeamIds)
+
+        // Dead bots count all alive bots as enemies
+        val enemyCountMap = participantMap.keys.associateWith { enemyCounts[it] ?: aliveBotTeamIds.size }
+
+        // Ticks may be dropped or coalesced for slow observers, and are sent as deltas to observers supporting it
+        val json = connectionHandler.broadcastTickToObserverAndControllers(
+            roomId,
+            TurnToTickEventForObserverMapper
+                .map(roundNumber, turn, participantMap, enemyCountMap, debugGraphicsEnableMap)
+        )
+        recorder?.record(json, Message.Type.TICK_EVENT_FOR_OBSERVER.value())
+    }
+
+    private fun checkForSkippedTurns(currentTurnNumber: Int) {
+        val botsSkippingTurn = getParticipantsThatSkippedTurn()
+        botsThatSkippedTurn = botsSkippingTurn.toSet() - lateParticipants
+
+        if (botsSkippingTurn.isNotEmpty()) {
+            val skippedTurn = SkippedTurnEvent().apply {
+                type = Message.Type.SKIPPED_TURN_EVENT
+                turnNumber = currentTurnNumber - 1 // last turn number
+            }
+            botsSkippingTurn.forEach { bot ->
+                participantIds[bot]?.let {
+                    botSkippedTurns[it]?.increment()
+                    // The late response of a bot that missed its budget has already been measured
+                    if (bot !in lateParticipants) {
+                        adaptiveTurnTimeout?.recordSkippedTurn(it)
+                    }
+                }
+                connectionHandler.send(bot, skippedTurn)
+            }
+        }
+    }
+
+    private fun getParticipantsThatSkippedTurn(): Collection<WebSocket> =
+        mutableListOf<WebSocket>().apply {
+            participants.forEach { participant ->
+                participantIds[participant]?.let {
+                    // Check if no intent was received from the (alive) participant during the turn
+                    if (modelUpdater?.isAlive(it) == true && participant !in respondedParticipants) {
+                        this += participant
+                    }
+                }
+            }
+        }
+
+    private val botsThatSentIntent = mutableSetOf<WebSocket>()
+
+    /**
+     * Participants that sent their intent after their adaptive turn timeout budget had expired, where the intent is
+     * not used for the current turn, but carried over to the next turn as an intent received after the turn
+     */
+    private val botsThatMissedBudget = mutableSetOf<WebSocket>()
+
+    /** Participants that sent an intent within their budget before the intents were taken for the current turn */
+    private var respondedParticipants: Set<WebSocket> = emptySet()
+
+    /** Participants that sent an intent for the current turn after their budget had expired */
+    private var lateParticipants: Set<WebSocket> = emptySet()
+
+    /**
+     * Participants that skipped the last turn without sending an intent, where the first intent received from such a
+     * participant might be its late intent for the previous tick, so it cannot be measured as the response to the
+     * current tick.
+     */
+    @Volatile
+    private var botsThatSkippedTurn: Set<WebSocket> = emptySet()
+
+    private fun send(conn: WebSocket, msg: Message) {
+        requireNotNull(msg.type) { TYPE_IS_REQUIRED_ON_MESSAGE }
+        try {
+            when {
+                connectionHandler.isBinaryEncoding(conn) -> BinaryMessageCodec.encode(msg).let {
+                    connectionHandler.recordBytesSent(conn, it.remaining())
+                    conn.send(it)
+                }
+                else -> gson.toJson(msg).let {
+                    connectionHandler.recordBytesSent(conn, it.utf8Length())
+                    conn.send(it)
+                }
+            }
+        } catch (_: WebsocketNotConnectedException) {
+            // Bot cannot receive events and send new intents.
+        }
+    }
+
+    private fun broadcastToObserverAndControllers(msg: Message) {
+        requireNotNull(msg.type) { TYPE_IS_REQUIRED_ON_MESSAGE }
+        val json = gson.toJson(msg)
+        connectionHandler.broadcastToObserverAndControllers(roomId, json)
+        recorder?.record(json, msg.type.value())
+    }
+
+    private fun broadcastToAll(msg: Message) {
+        broadcastToObserverAndControllers(msg)
+        connectionHandler.broadcast(participants, msg) // note: it is only participants, not all bots
+    }
+
+    internal fun handleBotLeft(conn: WebSocket) {
+        val shouldAbortGame = synchronized(participantsLock) {
+            val wasRemoved = participants.remove(conn)
+            wasRemoved && participants.isEmpty() &&
+                    (serverState === ServerState.GAME_RUNNING || serverState === ServerState.GAME_PAUSED)
+        }
+
+        if (shouldAbortGame) {
+            handleAbortGame() // Abort the battle when all bots left it!
+        }
+
+        synchronized(intentLock) {
+            // If a bot leaves while in a game, make sure to reset all intent values to zeroes
+            botIntents[conn]?.disableMovement()
+
+            // In lockstep mode, the turn must not wait for a bot that has left
+            if (gameSetup.isLockstep && isReadyForNextTurn()) {
+                turnTimeoutTimer?.notifyReady()
+            }
+        }
+    }
+
+    internal fun handleBotReady(conn: WebSocket) {
+        synchronized(participantsLock) {
+            if (serverState === ServerState.WAIT_FOR_READY_PARTICIPANTS) {
+                readyParticipants += conn
+                // Start the game check from within the synchronized block
+                startGameIfParticipantsReady()
+            }
+        }
+    }
+
+    internal fun handleBotIntent(conn: WebSocket, intent: BotIntent) {
+        if (!participants.contains(conn)) return
+
+        // Update bot intent using a synchronized block to ensure atomic operation
+        synchronized(intentLock) {
+            // Get existing intent or null if it doesn't exist yet
+            val existingIntent = botIntents[conn]
+
+            if (existingIntent == null) {
+                // If there's no existing intent, create a new one with default values for null fields
+                botIntents[conn] = BotIntentMapper.map(intent)
+            } else {
+                // If intent exists, only update non-null values from new intent
+                intent.apply {
+                    // Only update fields that aren't null
+                    targetSpeed?.let { existingIntent.targetSpeed = it }
+                    turnRate?.let { existingIntent.turnRate = it }
+                    gunTurnRate?.let { existingIntent.gunTurnRate = it }
+                    radarTurnRate?.let { existingIntent.radarTurnRate = it }
+                    firepower?.let { existingIntent.firepower = it }
+                    adjustGunForBodyTurn?.let { existingIntent.adjustGunForBodyTurn = it }
+                    adjustRadarForBodyTurn?.let { existingIntent.adjustRadarForBodyTurn = it }
+                    adjustRadarForGunTurn?.let { existingIntent.adjustRadarForGunTurn = it }
+                    rescan?.let { existingIntent.rescan = it }
+                    fireAssist?.let { existingIntent.fireAssist = it }
+                    bodyColor?.let { existingIntent.bodyColor = it.ifBlank { null } }
+                    turretColor?.let { existingIntent.turretColor = it.ifBlank { null } }
+                    radarColor?.let { existingIntent.radarColor = it.ifBlank { null } }
+                    bulletColor?.let { existingIntent.bulletColor = it.ifBlank { null } }
+                    scanColor?.let { existingIntent.scanColor = it.ifBlank { null } }
+                    tracksColor?.let { existingIntent.tracksColor = it.ifBlank { null } }
+                    gunColor?.let { existingIntent.gunColor = it.ifBlank { null } }
+                    stdOut?.let { existingIntent.stdOut = it.ifBlank { null } }
+                    stdErr?.let { existingIntent.stdErr = it.ifBlank { null } }
+                    teamMessages?.let { existingIntent.teamMessages = TeamMessageMapper.map(it) }
+                    debugGraphics?.let { existingIntent.debugGraphics = it.ifBlank { null } }
+                }
+            }
+
+            // Only the first intent of a bot in a turn is its response to the tick
+            if (botsThatSentIntent.add(conn)) {
+                // Intents received while the next tick is computed answer the previous tick, and are not measured
+                val isMeasured = tickSentTime != 0L && conn !in botsThatSkippedTurn
+                val responseTime = System.nanoTime() - tickSentTime
+                if (isMeasured) {
+                    participantIds[conn]?.let {
+                        botResponseTimes[it]?.record(responseTime)
+                        if (adaptiveTurnTimeout?.recordResponse(it, responseTime) == false) {
+                            // The bot skips the turn, where its intent is carried over to the next turn
+                            botsThatMissedBudget += conn
+                        }
+                    }
+                }
+
+                // If all bot intents have been received, we can start next turn
+                if (isReadyForNextTurn()) {
+                    if (isMeasured) lastIntentTime.record(responseTime)
+                    turnTimeoutTimer?.notifyReady()
+                } else {
+                    // The turn only waits for the bots that have not responded, until their own budgets have expired
+                    adaptiveTurnTimeout?.let { timeout ->
+                        turnTimeoutTimer?.shortenMaxPeriod(timeout.turnTimeout(getPendingBotIds()))
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Starts a new game in this room, which replaces the current game, if any.
+     * @param gameSetup is the game setup.
+     * @param botSockets is the connections of the participant bots.
+     * @return `true` if the game was started; `false` if there are no participants.
+     */
+    internal fun handleStartGame(gameSetup: GameSetup, botSockets: Collection<WebSocket>): Boolean {
+        // The seed is picked here if not given, so it is passed to the clients, and the game can be reproduced
+        this.gameSetup = GameSetupMapper.map(gameSetup).let { it.copy(seed = it.seed ?: Random().nextLong()) }
+
+        participants.apply {
+            clear()
+            this += botSockets
+
+            if (isEmpty()) return false
+        }
+        prepareGame()
+        return true
+    }
+
+    internal fun handleAbortGame() {
+        log.info("Aborting game")
+        serverState = ServerState.GAME_STOPPED
+        broadcastGameAborted()
+        cleanupAfterGameStopped()
+
+        // No score is generated for aborted games
+    }
+
+    internal fun handlePauseGame() {
+        if (serverState === ServerState.GAME_RUNNING) {
+            log.info("Pausing game")
+            serverState = ServerState.GAME_PAUSED
+            turnTimeoutTimer?.pause()
+            broadcastGamedPausedToObservers()
+        }
+    }
+
+    internal fun handleResumeGame() {
+        if (serverState === ServerState.GAME_PAUSED) {
+            log.info("Resuming game")
+            serverState = ServerState.GAME_RUNNING
+            turnTimeoutTimer?.resume()
+            broadcastGameResumedToObservers()
+        }
+    }
+
+    internal fun handleNextTurn() {
+        if (serverState === ServerState.GAME_PAUSED) {
+            handleResumeGame()
+            onNextTurn()
+            handlePauseGame()
+        }
+    }
+
+    internal fun handleChangeTps(newTps: Int) {
+        if (tps == newTps) return
+        tps = newTps
+
+        broadcastTpsChangedToObservers(newTps)
+
+        if (tps == 0) {
+            handlePauseGame()
+        } else {
+            if (serverState === ServerState.GAME_PAUSED) {
+                handleResumeGame()
+            }
+            resetTurnTimeout()
+        }
+    }
+
+    internal fun handleBotPolicyUpdate(botPolicyUpdate: BotPolicyUpdate) {
+        val botId = BotId(botPolicyUpdate.botId)
+        debugGraphicsEnableMap[botId] = botPolicyUpdate.debuggingEnabled
+
+        // Update the current flag as well
+        modelUpdater?.setDebuggingEnabled(botId, botPolicyUpdate.debuggingEnabled)
+    }
+
+    private fun cleanupAfterGameStopped() {
+        turnTimeoutTimer?.stop()
+        stopRecording()
+
+        modelUpdater?.close()
+        modelUpdater = null
+
+        onGameStopped(this)
+    }
+
+    private fun transferDebugGraphicsFlagToModel() {
+        modelUpdater?.apply {
+            getBotIds().forEach { botId -> setDebuggingEnabled(botId, debugGraphicsEnableMap[botId] ?: false) }
+        }
+    }
+}
\ No newline at end of file
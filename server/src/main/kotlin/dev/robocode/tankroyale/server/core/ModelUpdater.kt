@@ -10,6 +10,8 @@ import dev.robocode.tankroyale.server.model.Color.Companion.from
 import dev.robocode.tankroyale.server.rules.*
 import dev.robocode.tankroyale.server.score.ScoreTracker
 import dev.robocode.tankroyale.server.Server
+import dev.robocode.tankroyale.server.util.IntArrayList
+import dev.robocode.tankroyale.server.util.utf8Length
 import java.lang.Math.toDegrees
 import java.util.*
 import kotlin.math.abs
@@ -26,6 +28,15 @@ private val bulletMaxBoundingCircleDiameterSquared: Double =
 private const val BOT_BOUNDING_CIRCLE_DIAMETER_SQUARED: Double =
     BOT_BOUNDING_CIRCLE_DIAMETER.toDouble() * BOT_BOUNDING_CIRCLE_DIAMETER
 
+/** Cell size of the spatial grids used for bot and bullet collisions */
+private const val COLLISION_GRID_CELL_SIZE = 100.0
+
+/** Cell size of the spatial grid used for radar scans */
+private const val SCAN_GRID_CELL_SIZE = RADAR_RADIUS / 4
+
+/** Max. distance between the center of a bot and the end of a bullet line hitting the bot */
+private val bulletHitBotMaxDistance: Double = BOT_BOUNDING_CIRCLE_RADIUS + MAX_BULLET_SPEED
+
 
 /** Model updater, which is used for keeping track of the model state for each turn and round of a game. */
 class ModelUpdater(
@@ -37,28 +48,39 @@ class ModelUpdater(
     private val initialPositions: Map<BotId, InitialPosition>,
     /** Droid flags */
     private val droidFlags: Map<BotId, Boolean /* isDroid */>,
+    /** Flag specifying if spatial grids are used for narrowing down collision and scan checks */
+    private val isSpatialIndexEnabled: Boolean = true,
+    /** Policy for how many turns are retained in the turn history of each round */
+    private val turnHistoryPolicy: TurnHistoryPolicy = TurnHistoryPolicy.LastTurnOnly,
+    /** Optional profiler of the turn phases. The phases are not measured without it */
+    private val phaseProfiler: TurnPhaseProfiler? = null,
+    /** Optional statistics over the team messages sent by the teams */
+    private val teamMessageStatistics: TeamMessageStatistics? = null,
 ) {
+    /** Random generator of the game, which makes games with the same seed and bot behavior reproducible */
+    private val random = setup.seed?.let { Random(it) } ?: Random()
+
+    /** Index over the participants, which gives each bot a dense slot */
+    private val participantIndex = ParticipantIndex(participantIds)
+
     /** Score tracking */
-    private val scoreTracker = ScoreTracker(participantIds)
+    private val scoreTracker = ScoreTracker(participantIndex)
     private val scoreCalculator = ScoreCalculator(participantIds, scoreTracker)
     private val accumulatedScoreCalculator = AccumulatedScoreCalculator()
 
-    /** Map over all bots */
-    internal val botsMap = mutableMapOf<BotId, MutableBot>()
+    /** State of the bots in the current round, which is kept in columns indexed by the slots of the bots */
+    private val bots = BotColumns(participantIndex.size)
 
-    /** Map over copied bots from previous turn */
-    private val botsCopies = mutableMapOf<BotId, MutableBot>()
+    /** Bot intents indexed by the slots of the bots */
+    private val intents = arrayOfNulls<BotIntent>(participantIndex.size)
 
-    /** Map over all bot intents */
-    private val botIntentsMap = mutableMapOf<BotId, BotIntent>()
-
-    /** Bullets */
-    private val bullets = mutableSetOf<MutableBullet>()
+    /** Bullets in the arena */
+    private val bullets = BulletColumns()
 
     /** Game state */
     private var gameState = GameState(Arena(setup.arenaWidth, setup.arenaHeight))
 
-    /** Round record */
+    /** Round record, which gets a new turn history from the turn history policy for each round */
     private var round = MutableRound(0)
 
     /** Turn record */
@@ -70,13 +92,55 @@ class ModelUpdater(
     /** Inactivity counter */
     private var inactivityCounter = 0
 
+    /** Spatial grid over bot positions used for bot collisions and bullet hits */
+    private val botGrid = UniformGrid(setup.arenaWidth, setup.arenaHeight, COLLISION_GRID_CELL_SIZE)
+
+    /** Spatial grid over bot positions used for radar scans */
+    private val scanGrid = UniformGrid(setup.arenaWidth, setup.arenaHeight, SCAN_GRID_CELL_SIZE)
+
+    /** Spatial grid over the end positions of bullet lines */
+    private val bulletGrid = UniformGrid(setup.arenaWidth, setup.arenaHeight, COLLISION_GRID_CELL_SIZE)
+
+    /** Reusable bitset over team indices used for counting teams */
+    private val teamBits = BitSet(participantIndex.teamCount)
+
+    /** Reusable list of candidate indices returned from the spatial grids */
+    private val candidates = IntArrayList()
+
     /** The accumulated results ordered with higher total scores first */
     internal fun getResults() = accumulatedScoreCalculator.getScores()
 
     /** The number of rounds played so far */
     internal val numberOfRounds: Int get() = gameState.rounds.size
 
-    internal fun isAlive(botId: BotId) = botsMap[botId]?.isAlive ?: false
+    internal fun isAlive(botId: BotId) = participantIndex.slotOrNull(botId)?.let { bots.isInRound(it) && bots.isAlive(it) } ?: false
+
+    /**
+     * Returns a copy of the current state of a bot.
+     * @param botId is the id of the bot.
+     * @return a copy of the state of the bot, or `null` if the bot is not in the current round.
+     */
+    internal fun getBot(botId: BotId): IBot? =
+        participantIndex.slotOrNull(botId)?.takeIf { bots.isInRound(it) }?.let { bots.toBot(it) }
+
+    /** The ids of the bots in the current round */
+    internal fun getBotIds(): List<BotId> = List(bots.count) { bots.idOf(bots.slotAt(it)) }
+
+    /**
+     * Sets the flag indicating if graphical debugging is enabled for a bot in the current round.
+     * @param botId is the id of the bot.
+     * @param isDebuggingEnabled is `true` if graphical debugging is enabled; `false` otherwise.
+     */
+    internal fun setDebuggingEnabled(botId: BotId, isDebuggingEnabled: Boolean) {
+        participantIndex.slotOrNull(botId)?.takeIf { bots.isInRound(it) }?.let {
+            bots.isDebuggingEnabled[it] = isDebuggingEnabled
+        }
+    }
+
+    /** Closes the turn history of the current round, e.g. when the game has ended or has been aborted. */
+    internal fun close() {
+        round.turnHistory.close()
+    }
 
     /**
      * Updates game state.
@@ -98,26 +162,26 @@ class ModelUpdater(
      */
     private fun updateBotIntents(botIntents: Map<BotId, IBotIntent>) {
         for ((botId, updateIntent) in botIntents.entries) {
-            (botIntentsMap[botId] ?: BotIntent()).apply {
+            val slot = participantIndex.slotOrNull(botId) ?: continue // not a participant
+            (intents[slot] ?: BotIntent()).apply {
                 update(updateIntent)
-                botIntentsMap[botId] = this
+                intents[slot] = this
             }
         }
     }
 
     /** Proceed with the next round. */
     private fun nextRound() {
-        round = round.copy(roundNumber = round.roundNumber).apply {
-            roundEnded = false
-            roundNumber++
-        }
+        // The previous round keeps its last turn only, and the new round starts with its own turn history
+        round.endTurnHistory()
+        round = MutableRound(round.roundNumber + 1, turnHistoryPolicy.createHistory())
         // Initialize to 0; nextTurn() will increment it to 1 before the first TickEvent is mapped/sent
         turn.turnNumber = 0
 
         nextBulletId = 0
-        botIntentsMap.clear()
+        intents.fill(null)
         bullets.clear()
-        botsMap.clear()
+        bots.clear()
         scoreTracker.clear()
         inactivityCounter = 0
 
@@ -130,57 +194,72 @@ class ModelUpdater(
         turn.turnNumber++
         turn.resetEvents()
 
-        deepCopyBots()
+        phaseProfiler?.beginTurn(round.roundNumber, turn.turnNumber)
 
-        coolDownAndFireGuns()
+        profile(TurnPhase.STORE_PREVIOUS_BOT_STATES) { storePreviousBotStates() }
 
-        executeBotIntents()
+        profile(TurnPhase.COOL_DOWN_AND_FIRE_GUNS) { coolDownAndFireGuns() }
 
-        checkAndHandleBotWallCollisions()
-        checkAndHandleBotCollisions()
-        constrainBotPositions()
+        profile(TurnPhase.EXECUTE_BOT_INTENTS) { executeBotIntents() }
 
-        checkAndHandleScans()
+        profile(TurnPhase.BOT_WALL_COLLISIONS) { checkAndHandleBotWallCollisions() }
+        profile(TurnPhase.BOT_COLLISIONS) { checkAndHandleBotCollisions() }
+        profile(TurnPhase.CONSTRAIN_BOT_POSITIONS) { constrainBotPositions() }
 
-        updateBulletPositions()
-        checkAndHandleBulletWallCollisions()
-        checkAndHandleBulletHits()
+        profile(TurnPhase.SCANS) { checkAndHandleScans() }
 
-        checkAndHandleInactivity()
-        checkForAndHandleDisabledBots()
-        checkAndHandleDefeatedBots()
+        profile(TurnPhase.BULLET_MOVEMENT) { updateBulletPositions() }
+        profile(TurnPhase.BULLET_WALL_COLLISIONS) { checkAndHandleBulletWallCollisions() }
+        profile(TurnPhase.BULLET_HITS) { checkAndHandleBulletHits() }
 
-        checkAndHandleRoundOrGameOver()
+        profile(TurnPhase.INACTIVITY) { checkAndHandleInactivity() }
+        profile(TurnPhase.DISABLED_BOTS) { checkForAndHandleDisabledBots() }
+        profile(TurnPhase.DEFEATED_BOTS) { checkAndHandleDefeatedBots() }
 
-        // Store bot and bullet snapshots
-        turn.copyBots(botsMap.values)
-        turn.copyBullets(bullets)
+        profile(TurnPhase.ROUND_OR_GAME_OVER) { checkAndHandleRoundOrGameOver() }
 
-        // Remove dead bots
-        botsMap.values.removeIf(IBot::isDead)
+        profile(TurnPhase.SNAPSHOTS) {
+            // Store bot and bullet snapshots
+            turn.bots = bots.snapshot()
+            turn.bullets = bullets.snapshot()
+
+            // Remove dead bots
+            bots.removeDeadBots()
+        }
+
+        phaseProfiler?.endTurn()
     }
 
-    private fun deepCopyBots() {
-        botsMap.forEach {
-            botsCopies[it.key] = deepCopy(it.value)
+    /** Executes a phase of the turn, which is only timed when a phase profiler is present. */
+    private inline fun profile(phase: TurnPhase, block: () -> Unit) {
+        val profiler = phaseProfiler
+        if (profiler == null) {
+            block()
+        } else {
+            val startTime = System.nanoTime()
+            block()
+            profiler.record(phase, System.nanoTime() - startTime)
         }
     }
 
-    private fun deepCopy(bot: MutableBot) = MutableBot(
-        id = bot.id,
-        isDroid = bot.isDroid,
-        position = MutablePoint(bot.x, bot.y),
-        direction = bot.direction,
-        gunDirection = bot.gunDirection,
-        radarDirection = bot.radarDirection,
-    )
+    /** Stores the current bot states into the columns of previous bot states. */
+    private fun storePreviousBotStates() {
+        bots.storePreviousStates()
+    }
+
+    /**
+     * Returns the dense slot index of a bot.
+     * @param botId is the id of the bot.
+     * @return the slot index of the bot.
+     */
+    private fun slotOf(botId: BotId): Int = participantIndex.slotOf(botId)
 
     /**
      * Updates the game state.
      * @return new game state.
      */
     private fun updateGameState(): GameState {
-        round.turns += turn.toTurn()
+        round.turnHistory.add(turn.toTurn())
         if (gameState.rounds.size == 0 || gameState.rounds.last().roundNumber != round.roundNumber) {
             gameState.rounds += round
         }
@@ -190,7 +269,8 @@ class ModelUpdater(
     /** Initializes bot states. */
     private fun initializeBotStates() {
         val occupiedCells = mutableSetOf<Int>()
-        for (teamOrBotId in participantIds) {
+        // The bots are placed in the order of their ids, so the same seed gives the same positions
+        for (teamOrBotId in participantIds.sortedBy { it.botId.value }) {
             val botId = teamOrBotId.botId
 
             val isDroid = droidFlags[botId] ?: false
@@ -199,28 +279,16 @@ class ModelUpdater(
             val randomPosition = randomBotPosition(occupiedCells)
             val position = adjustForInitialPosition(botId, randomPosition)
             // note: body, gun, and radar starts in the same direction
-            val randomDirection = randomDirection()
+            val randomDirection = randomDirection(random)
             val direction = adjustForInitialAngle(botId, randomDirection)
 
-            val teammateIds: Set<BotId> =
-                teamOrBotId.teamId?.let {
-                    participantIds.filter { it.teamId == teamOrBotId.teamId }.map { it.botId }.toSet()
-                        .minus(botId)
-                } ?: emptySet()
-
-            botsMap[botId] = MutableBot(
-                id = botId,
-                isDroid = isDroid,
-                energy = energy,
-                teammateIds = teammateIds,
-                position = position.toMutablePoint(),
-                direction = direction,
-                gunDirection = direction,
-                radarDirection = direction,
-            )
+            val slot = slotOf(botId)
+            val teammateIds = participantIndex.teammateIdsOf(slot)
+
+            bots.add(slot, botId, teammateIds, isDroid, energy, position.x, position.y, direction)
         }
         // Store bot snapshots into the turn
-        turn.copyBots(botsMap.values)
+        turn.bots = bots.snapshot()
     }
 
     private fun adjustForInitialPosition(botId: BotId, point: Point): Point {
@@ -269,59 +337,123 @@ class ModelUpdater(
         val cellWidth = setup.arenaWidth / gridWidth
         val cellHeight = setup.arenaHeight / gridHeight
 
-        return randomBotPoint(occupiedCells, cellCount, gridWidth, cellWidth, cellHeight)
+        return randomBotPoint(random, occupiedCells, cellCount, gridWidth, cellWidth, cellHeight)
     }
 
     /** Execute bot intents for all bots that are not disabled */
     private fun executeBotIntents() {
-        botsMap.values.forEach { bot ->
-            if (bot.isEnabled) executeBotIntent(bot)
+        for (index in 0 until bots.count) {
+            val slot = bots.slotAt(index)
+            if (bots.isEnabled(slot)) executeBotIntent(slot)
         }
     }
 
     /**
      * Executes the bot states intent.
-     * @param bot is the bot top execute the bot intent for.
+     * @param slot is the slot of the bot to execute the bot intent for.
      */
-    private fun executeBotIntent(bot: MutableBot) {
-        botIntentsMap[bot.id]?.apply {
-            bot.speed = calcNewBotSpeed(bot.speed, targetSpeed ?: 0.0)
-            bot.moveToNewPosition()
-
-            updateBotTurnRatesAndDirections(bot, this)
-            updateBotColors(bot, this)
-            updateDebugGraphics(bot, this)
-            processStdErrAndStdOut(bot, this)
-            processTeamMessages(bot, this)
+    private fun executeBotIntent(slot: Int) {
+        intents[slot]?.apply {
+            bots.speed[slot] = calcNewBotSpeed(bots.speed[slot], targetSpeed ?: 0.0)
+            bots.moveToNewPosition(slot)
+
+            updateBotTurnRatesAndDirections(bots, slot, this)
+            updateBotColors(bots, slot, this)
+            updateDebugGraphics(bots, slot, this)
+            processStdErrAndStdOut(bots, slot, this)
+            processTeamMessages(slot, this)
         }
     }
 
     /** Checks and handles bullet hits. */
     private fun checkAndHandleBulletHits() {
-        val bulletCount = bullets.size
+        val bulletCount = bullets.count
         if (bulletCount > 0) {
-            // Create list of bullet line segments used for checking for bullet hits
-            val bulletLines = mutableListOf<BulletLine>()
-            bullets.forEach { bulletLines += BulletLine(it.toBullet()) }
-
-            // Check for bullet hits
-            for (i in 0 until bulletCount) {
-                for (j in i + 1 until bulletCount) {
-                    if (isColliding(bulletLines[i], bulletLines[j])) {
-                        handleBulletHitBullet(bulletLines[i].bullet, bulletLines[j].bullet)
+            // The bullet line segments used for checking for bullet hits go from the current to the next positions of
+            // the bullets. Bullets that are hit are only marked as removed, so they can still hit other bullets and bots
+            if (isSpatialIndexEnabled) {
+                checkAndHandleBulletHitsUsingGrids()
+            } else {
+                // Check for bullet hits
+                for (i in 0 until bulletCount) {
+                    for (j in i + 1 until bulletCount) {
+                        if (isColliding(i, j)) {
+                            handleBulletHitBullet(i, j)
+                        }
+                    }
+                    for (index in 0 until bots.count) {
+                        checkAndHandleBulletHitBot(i, bots.slotAt(index))
                     }
                 }
-                checkAndHandleBulletHitBot(bulletLines[i])
             }
+            bullets.removeMarked()
         }
     }
 
+    /**
+     * Checks and handles bullet hits, where the spatial grids are used for finding the candidate bullets and bots
+     * that must be checked for collisions. The candidates are processed in the same order as the brute-force
+     * check, so the outcome is identical.
+     */
+    private fun checkAndHandleBulletHitsUsingGrids() {
+        botGrid.clear()
+        for (index in 0 until bots.count) {
+            val slot = bots.slotAt(index)
+            botGrid.insert(index, bots.x[slot], bots.y[slot])
+        }
+
+        bulletGrid.clear()
+        for (i in 0 until bullets.count) {
+            bulletGrid.insert(i, bullets.nextX[i], bullets.nextY[i])
+        }
+
+        for (i in 0 until bullets.count) {
+            val endX = bullets.nextX[i]
+            val endY = bullets.nextY[i]
+
+            val start = collectCandidates(bulletGrid, endX, endY, bulletMaxBoundingCircleDiameter, i)
+            for (k in start until candidates.size) {
+                val j = candidates[k]
+                if (isColliding(i, j)) {
+                    handleBulletHitBullet(i, j)
+                }
+            }
+
+            collectCandidates(botGrid, endX, endY, bulletHitBotMaxDistance, -1)
+            for (k in 0 until candidates.size) {
+                checkAndHandleBulletHitBot(i, bots.slotAt(candidates[k]))
+            }
+        }
+    }
+
+    /**
+     * Collects the sorted indices of the grid items that might be within a radius of a point into [candidates].
+     * @param grid is the spatial grid to query.
+     * @param x is the x coordinate of the query point.
+     * @param y is the y coordinate of the query point.
+     * @param radius is the query radius.
+     * @param afterIndex is the index that the returned start position must skip past.
+     * @return the position in [candidates] of the first index greater than [afterIndex].
+     */
+    private fun collectCandidates(grid: UniformGrid, x: Double, y: Double, radius: Double, afterIndex: Int): Int {
+        candidates.clear()
+        grid.query(x, y, radius, candidates)
+        candidates.sort()
+
+        var start = 0
+        while (start < candidates.size && candidates[start] <= afterIndex) start++
+        return start
+    }
+
     /**
      * Handles when a bullet has hit another bullet.
-     * @param bullet1 is the first bullet.
-     * @param bullet2 is the second bullet.
+     * @param index1 is the index of the first bullet.
+     * @param index2 is the index of the second bullet.
      */
-    private fun handleBulletHitBullet(bullet1: IBullet, bullet2: IBullet) {
+    private fun handleBulletHitBullet(index1: Int, index2: Int) {
+        val bullet1 = bullets.toBullet(index1)
+        val bullet2 = bullets.toBullet(index2)
+
         val event1 = BulletHitBulletEvent(turn.turnNumber, bullet1, bullet2)
         val event2 = BulletHitBulletEvent(turn.turnNumber, bullet2, bullet1)
 
@@ -332,75 +464,79 @@ class ModelUpdater(
             addObserverEvent(event1)
         }
         // Remove bullets from the arena
-        bullets -= (bullet1 as Bullet).toMutableBullet()
-        bullets -= (bullet2 as Bullet).toMutableBullet()
+        bullets.remove(index1)
+        bullets.remove(index2)
     }
 
     /**
      * Checks if two bullet bullets are colliding, i.e. if their two line segments are intersecting.
      * @return `true` if the two bullet line segments are intersection; `false` otherwise.
      */
-    private fun isColliding(bulletLine1: BulletLine, bulletLine2: BulletLine): Boolean =
+    private fun isColliding(index1: Int, index2: Int): Boolean = bullets.run {
         // Check if the bullets bounding circles intersects (is fast) before
-        isBulletsMaxBoundingCirclesColliding(bulletLine1.end, bulletLine2.end) &&
+        isBulletsMaxBoundingCirclesColliding(nextX[index1], nextY[index1], nextX[index2], nextY[index2]) &&
                 // checking if the bullets bounding lines intersect (is slower)
-                isLineIntersectingLine(bulletLine1.line, bulletLine2.line)
+                isLineIntersectingLine(
+                    x[index1], y[index1], nextX[index1], nextY[index1],
+                    x[index2], y[index2], nextX[index2], nextY[index2]
+                )
+    }
 
     /**
      * Checks and handles if a bullet hits a bot.
-     * @param bulletLine is the bullet line of the bullet.
+     * @param index is the index of the bullet.
+     * @param slot is the slot of the bot that might be hit.
      */
-    private fun checkAndHandleBulletHitBot(bulletLine: BulletLine) {
+    private fun checkAndHandleBulletHitBot(index: Int, slot: Int) {
         // Check bullet-hit-bot collision (hit)
-        for (bot in botsMap.values) {
-            if (bulletLine.bullet.botId == bot.id) {
-                continue // A bot cannot shoot itself
-            }
-            if (isBulletHittingBot(bulletLine, bot)) {
-                handleBulletHittingBot(bulletLine.bullet, bot)
+        if (bullets.botId[index] == bots.id[slot]) {
+            return // A bot cannot shoot itself
+        }
+        if (isBulletHittingBot(index, slot)) {
+            handleBulletHittingBot(index, slot)
 
-                // Remove bullet from the arena
-                bullets.removeIf { bullet -> bullet.id == bulletLine.bullet.id }
-            }
+            // Remove bullet from the arena
+            bullets.remove(index)
         }
     }
 
     /**
      * Checks if a bullet is hitting a bot.
-     * @param bulletLine is the line of the bullet.
-     * @param bot is the bot that might be hit.
+     * @param index is the index of the bullet.
+     * @param slot is the slot of the bot that might be hit.
      * @return `true` if the bot has been hit; `false` otherwise.
      */
-    private fun isBulletHittingBot(bulletLine: BulletLine, bot: IBot): Boolean =
-        isLineIntersectingCircle(bulletLine.line, bot.position, BOT_BOUNDING_CIRCLE_RADIUS)
+    private fun isBulletHittingBot(index: Int, slot: Int): Boolean = isLineIntersectingCircle(
+        bullets.x[index], bullets.y[index], bullets.nextX[index], bullets.nextY[index],
+        bots.x[slot], bots.y[slot], BOT_BOUNDING_CIRCLE_RADIUS
+    )
 
     /**
      * Handles when a bullet has hit a bot.
-     * @param bullet is the bullet that has hit.
-     * @param bot is the bot that have been hit.
+     * @param index is the index of the bullet that has hit.
+     * @param slot is the slot of the bot that have been hit.
      */
-    private fun handleBulletHittingBot(bullet: IBullet, bot: MutableBot) {
-        val botId = bullet.botId
-        val teamOrBotId = participantIds.first { it.botId == botId }
-        val victimId = bot.id
-        val victimTeamOrBotId = participantIds.first { it.botId == victimId }
+    private fun handleBulletHittingBot(index: Int, slot: Int) {
+        val power = bullets.power[index]
+        val shooterSlot = slotOf(bullets.botIdOf(index))
 
         inactivityCounter = 0 // reset collective inactivity counter due to bot taking bullet damage
 
-        val damage = calcBulletDamage(bullet.power)
-        val isKilled = bot.addDamage(damage)
+        val damage = calcBulletDamage(power)
+        val isKilled = bots.addDamage(slot, damage)
 
-        val energyBonus = BULLET_HIT_ENERGY_GAIN_FACTOR * bullet.power
-        botsMap[botId]?.changeEnergy(energyBonus)
+        val energyBonus = BULLET_HIT_ENERGY_GAIN_FACTOR * power
+        if (bots.isInRound(shooterSlot)) bots.changeEnergy(shooterSlot, energyBonus)
 
         scoreTracker.registerBulletHit(
-            teamOrBotId,
-            victimTeamOrBotId,
+            participantIndex[shooterSlot],
+            participantIndex[slot],
             damage,
             isKilled
         )
 
-        val bulletHitBotEvent = BulletHitBotEvent(turn.turnNumber, bullet, victimId, damage, bot.energy)
+        val bulletHitBotEvent =
+            BulletHitBotEvent(turn.turnNumber, bullets.toBullet(index), bots.idOf(slot), damage, bots.energy[slot])
         turn.apply {
             addPrivateBotEvent(bulletHitBotEvent.bullet.botId, bulletHitBotEvent) // Bot itself gets event
             addPrivateBotEvent(bulletHitBotEvent.victimId, bulletHitBotEvent) // Victim bot gets event too
@@ -410,34 +546,77 @@ class ModelUpdater(
 
     /** Check collisions between bots */
     private fun checkAndHandleBotCollisions() {
-        val bots = botsMap.values.toList()
-        for (i in bots.indices) {
-            for (j in i + 1 until bots.size) {
-                if (isBotsBoundingCirclesColliding(bots[i], bots[j])) {
-                    handleBotHitBot(bots[i], bots[j])
+        if (isSpatialIndexEnabled) {
+            checkAndHandleBotCollisionsUsingGrid()
+            return
+        }
+        for (i in 0 until bots.count) {
+            for (j in i + 1 until bots.count) {
+                if (isBotsBoundingCirclesColliding(bots.slotAt(i), bots.slotAt(j))) {
+                    handleBotHitBot(bots.slotAt(i), bots.slotAt(j))
                 }
             }
         }
     }
 
+    /**
+     * Check collisions between bots, where the spatial grid is used for finding the candidate bots.
+     * As colliding bots are moved back, the grid is updated and the candidates are queried again after each
+     * collision to keep the outcome identical to the brute-force check.
+     */
+    private fun checkAndHandleBotCollisionsUsingGrid() {
+        botGrid.clear()
+        for (index in 0 until bots.count) {
+            val slot = bots.slotAt(index)
+            botGrid.insert(index, bots.x[slot], bots.y[slot])
+        }
+
+        for (i in 0 until bots.count) {
+            val slot1 = bots.slotAt(i)
+            var lastIndex = i
+            var collided: Boolean
+            do {
+                collided = false
+                val start = collectCandidates(
+                    botGrid, bots.x[slot1], bots.y[slot1], BOT_BOUNDING_CIRCLE_DIAMETER.toDouble(), lastIndex
+                )
+                for (k in start until candidates.size) {
+                    val j = candidates[k]
+                    val slot2 = bots.slotAt(j)
+                    lastIndex = j
+                    if (isBotsBoundingCirclesColliding(slot1, slot2)) {
+                        handleBotHitBot(slot1, slot2)
+
+                        botGrid.move(i, bots.x[slot1], bots.y[slot1])
+                        botGrid.move(j, bots.x[slot2], bots.y[slot2])
+                        collided = true
+                        break
+                    }
+                }
+            } while (collided)
+        }
+    }
+
     /** Constrain all bot positions, so they are kept inside the battle arena. */
     private fun constrainBotPositions() {
-        botsMap.values.forEach { bot ->
-            val (previousX, previousY) = botsCopies[bot.id]!!.position
-            val (x, y) = constrainBotPosition(previousX, previousY, bot.x, bot.y)
-            bot.x = x
-            bot.y = y
+        for (index in 0 until bots.count) {
+            constrainBotPosition(bots.slotAt(index))
         }
     }
 
     /**
-     * Constrain the bot position, so it is kept inside the battle arena.
+     * Constrain the bot position, so it is kept inside the battle arena, where the bot is moved back along the line
+     * from its position in the previous turn.
      *
-     * @param x is the current x coordinate of the bot position.
-     * @param y is the current y coordinate of the bot position.
-     * @return new (x, y) coordinates that has been constrained.
+     * @param slot is the slot of the bot.
+     * @return `true` if the bot position has been constrained; `false` otherwise.
      */
-    private fun constrainBotPosition(oldX: Double, oldY: Double, x: Double, y: Double): Pair<Double, Double> {
+    private fun constrainBotPosition(slot: Int): Boolean {
+        val oldX = bots.previousX[slot]
+        val oldY = bots.previousY[slot]
+        val x = bots.x[slot]
+        val y = bots.y[slot]
+
         var newX = x
         var newY = y
 
@@ -489,45 +668,54 @@ class ModelUpdater(
             }
         }
 
-        return Pair(newX, newY)
+        bots.x[slot] = newX
+        bots.y[slot] = newY
+        return newX != x || newY != y
     }
 
     /**
      * Handles when a bot and hit another bot.
-     * @param bot1 is the first bot.
-     * @param bot2 is the second bot.
+     * @param slot1 is the slot of the first bot.
+     * @param slot2 is the slot of the second bot.
      */
-    private fun handleBotHitBot(bot1: MutableBot, bot2: MutableBot) {
-        val isBot1RammingBot2 = isRamming(bot1, bot2)
-        val isBot2RammingBot1 = isRamming(bot2, bot1)
+    private fun handleBotHitBot(slot1: Int, slot2: Int) {
+        val isBot1RammingBot2 = isRamming(slot1, slot2)
+        val isBot2RammingBot1 = isRamming(slot2, slot1)
 
         // Both bots take damage when hitting each other
-        registerRamHit(bot1, bot2, isBot1RammingBot2, isBot2RammingBot1)
+        registerRamHit(slot1, slot2, isBot1RammingBot2, isBot2RammingBot1)
 
         // Restore both bot's old position
-        val lastTurn = round.lastTurn
-        if (turn.turnNumber == 1 || lastTurn == null) {
+        if (turn.turnNumber == 1 || round.lastTurn == null) {
             // Same position on first turn? => Move the second bot to a random position
-            val x = BOT_BOUNDING_CIRCLE_RADIUS + Math.random() * (setup.arenaWidth - BOT_BOUNDING_CIRCLE_DIAMETER)
-            val y = BOT_BOUNDING_CIRCLE_RADIUS + Math.random() * (setup.arenaHeight - BOT_BOUNDING_CIRCLE_DIAMETER)
-            bot2.position = MutablePoint(x, y)
+            bots.x[slot2] =
+                BOT_BOUNDING_CIRCLE_RADIUS + random.nextDouble() * (setup.arenaWidth - BOT_BOUNDING_CIRCLE_DIAMETER)
+            bots.y[slot2] =
+                BOT_BOUNDING_CIRCLE_RADIUS + random.nextDouble() * (setup.arenaHeight - BOT_BOUNDING_CIRCLE_DIAMETER)
         } else {
-            val oldPos1 = lastTurn.getBot(bot1.id)!!.position
-            val oldPos2 = lastTurn.getBot(bot2.id)!!.position
-            bot1.position = MutablePoint(oldPos1.x, oldPos1.y)
-            bot2.position = MutablePoint(oldPos2.x, oldPos2.y)
+            // The positions from the start of the turn are the positions of the bots in the last turn
+            bots.x[slot1] = bots.previousX[slot1]
+            bots.y[slot1] = bots.previousY[slot1]
+            bots.x[slot2] = bots.previousX[slot2]
+            bots.y[slot2] = bots.previousY[slot2]
         }
 
         // Stop bots by setting speed to 0
-        if (isBot1RammingBot2) bot1.speed = 0.0
-        if (isBot2RammingBot1) bot2.speed = 0.0
+        if (isBot1RammingBot2) bots.speed[slot1] = 0.0
+        if (isBot2RammingBot1) bots.speed[slot2] = 0.0
 
         // Create bot-hit-bot events
-        val event1 = BotHitBotEvent(turn.turnNumber, bot1.id, bot2.id, bot2.energy, bot2.x, bot2.y, isBot1RammingBot2)
-        val event2 = BotHitBotEvent(turn.turnNumber, bot2.id, bot1.id, bot1.energy, bot1.x, bot1.y, isBot2RammingBot1)
+        val botId1 = bots.idOf(slot1)
+        val botId2 = bots.idOf(slot2)
+        val event1 = BotHitBotEvent(
+            turn.turnNumber, botId1, botId2, bots.energy[slot2], bots.x[slot2], bots.y[slot2], isBot1RammingBot2
+        )
+        val event2 = BotHitBotEvent(
+            turn.turnNumber, botId2, botId1, bots.energy[slot1], bots.x[slot1], bots.y[slot1], isBot2RammingBot1
+        )
         turn.apply {
-            addPrivateBotEvent(bot1.id, event1)
-            addPrivateBotEvent(bot2.id, event2)
+            addPrivateBotEvent(botId1, event1)
+            addPrivateBotEvent(botId2, event2)
             addObserverEvent(event1)
             addObserverEvent(event2)
         }
@@ -535,57 +723,51 @@ class ModelUpdater(
 
     /**
      * Registers a ram hit.
-     * @param bot1 is the first bot.
-     * @param bot2 is the second bot.
-     * @param isBot1RammingBot2 is `true` if `bot1` has rammed `bot2`; `false` otherwise.
-     * @param isBot2RammingBot1 is `true` if `bot2` has rammed `bot1`; `false` otherwise.
+     * @param slot1 is the slot of the first bot.
+     * @param slot2 is the slot of the second bot.
+     * @param isBot1RammingBot2 is `true` if the first bot has rammed the second bot; `false` otherwise.
+     * @param isBot2RammingBot1 is `true` if the second bot has rammed the first bot; `false` otherwise.
      */
     private fun registerRamHit(
-        bot1: MutableBot,
-        bot2: MutableBot,
+        slot1: Int,
+        slot2: Int,
         isBot1RammingBot2: Boolean,
         isBot2RammingBot1: Boolean
     ) {
         // Both bots take damage when hitting each other
-        val bot1Killed = bot1.addDamage(RAM_DAMAGE)
-        val bot2Killed = bot2.addDamage(RAM_DAMAGE)
+        val bot1Killed = bots.addDamage(slot1, RAM_DAMAGE)
+        val bot2Killed = bots.addDamage(slot2, RAM_DAMAGE)
         if (isBot1RammingBot2) {
-            scoreTracker.registerRamHit(
-                participantIds.first { it.botId == bot1.id },
-                participantIds.first { it.botId == bot2.id },
-                bot2Killed
-            )
+            scoreTracker.registerRamHit(participantIndex[slot1], participantIndex[slot2], bot2Killed)
         }
         if (isBot2RammingBot1) {
-            scoreTracker.registerRamHit(
-                participantIds.first { it.botId == bot2.id },
-                participantIds.first { it.botId == bot1.id },
-                bot1Killed
-            )
+            scoreTracker.registerRamHit(participantIndex[slot2], participantIndex[slot1], bot1Killed)
         }
     }
 
     /** Updates bullet positions */
     private fun updateBulletPositions() {
-        bullets.forEach { bullet -> bullet.incrementTick() }
+        bullets.incrementTicks()
     }
 
     /** Checks collisions between bots and the walls. */
     private fun checkAndHandleBotWallCollisions() {
-        for (bot in botsMap.values) {
-            val hitWall = adjustBotCoordinatesIfHitWall(bot)
+        for (index in 0 until bots.count) {
+            val slot = bots.slotAt(index)
+            val hitWall = adjustBotCoordinatesIfHitWall(slot)
             if (hitWall) {
+                val botId = bots.idOf(slot)
                 // Omit sending hit-wall-event if the bot hit the wall in the previous turn
-                if (round.lastTurn!!.getEvents(bot.id).none { event -> event is BotHitWallEvent }) {
+                if (round.lastTurn!!.getEvents(botId).none { event -> event is BotHitWallEvent }) {
 
-                    val botHitWallEvent = BotHitWallEvent(turn.turnNumber, bot.id)
-                    turn.addPrivateBotEvent(bot.id, botHitWallEvent)
+                    val botHitWallEvent = BotHitWallEvent(turn.turnNumber, botId)
+                    turn.addPrivateBotEvent(botId, botHitWallEvent)
                     turn.addObserverEvent(botHitWallEvent)
 
-                    bot.addDamage(calcWallDamage(bot.speed))
+                    bots.addDamage(slot, calcWallDamage(bots.speed[slot]))
                 }
                 // Bot is stopped to zero speed regardless of its previous direction
-                bot.speed = 0.0
+                bots.speed[slot] = 0.0
             }
         }
     }
@@ -594,46 +776,35 @@ class ModelUpdater(
      * Adjust the coordinates of the bot, if it has hit the wall.
      * If the (x,y) coordinate is adjusted, the direction of the bot is used for calculating the new (x,y).
      */
-    private fun adjustBotCoordinatesIfHitWall(bot: MutableBot): Boolean {
-        var hitWall = false
-        if (round.lastTurn != null) {
-            val (previousX, previousY) = botsCopies[bot.id]!!.position
-            val (x, y) = constrainBotPosition(previousX, previousY, bot.x, bot.y)
-            hitWall = bot.x != x || bot.y != y
-            if (hitWall) {
-                bot.x = x
-                bot.y = y
-            }
-        }
-        return hitWall
-    }
+    private fun adjustBotCoordinatesIfHitWall(slot: Int): Boolean =
+        round.lastTurn != null && constrainBotPosition(slot)
 
     /** Checks collisions between the bullets and the walls. */
     private fun checkAndHandleBulletWallCollisions() {
-        val iterator = bullets.iterator() // due to removal
-        while (iterator.hasNext()) {
-            val bullet = iterator.next()
-            if (isPointOutsideArena(bullet.position())) {
+        for (index in 0 until bullets.count) {
+            if (isPointOutsideArena(bullets.x[index], bullets.y[index])) {
                 // remove bullet from arena
-                iterator.remove()
+                bullets.remove(index)
 
-                val bulletHitWallEvent = BulletHitWallEvent(turn.turnNumber, bullet.copy())
-                turn.addPrivateBotEvent(bullet.botId, bulletHitWallEvent)
+                val bulletHitWallEvent = BulletHitWallEvent(turn.turnNumber, bullets.toBullet(index))
+                turn.addPrivateBotEvent(bulletHitWallEvent.bullet.botId, bulletHitWallEvent)
                 turn.addObserverEvent(bulletHitWallEvent)
             }
         }
+        bullets.removeMarked()
     }
 
     /**
      * Checks if a point is outside the arena.
-     * @param point is the point
+     * @param x is the x coordinate of the point.
+     * @param y is the y coordinate of the point.
      * @return `true` if the point is outside the arena; `false` otherwise.
      */
-    private fun isPointOutsideArena(point: IPoint): Boolean {
-        return point.x <= 0 ||
-                point.y <= 0 ||
-                point.x >= setup.arenaWidth ||
-                point.y >= setup.arenaHeight
+    private fun isPointOutsideArena(x: Double, y: Double): Boolean {
+        return x <= 0 ||
+                y <= 0 ||
+                x >= setup.arenaWidth ||
+                y >= setup.arenaHeight
     }
 
     /**
@@ -642,25 +813,34 @@ class ModelUpdater(
      */
     private fun checkAndHandleInactivity() {
         if (inactivityCounter++ > setup.maxInactivityTurns) {
-            botsMap.values.forEach { it.addDamage(INACTIVITY_DAMAGE) }
+            for (index in 0 until bots.count) {
+                bots.addDamage(bots.slotAt(index), INACTIVITY_DAMAGE)
+            }
         }
     }
 
     /** Check and handles if the bots have been disabled (when energy is zero or close to zero). */
     private fun checkForAndHandleDisabledBots() {
-        botsMap.values.forEach { bot ->
+        for (index in 0 until bots.count) {
+            val slot = bots.slotAt(index)
 
             // If bot is disabled => Set then reset bot movement with the bot intent
-            if (bot.isDisabled) {
-                botIntentsMap[bot.id]?.disableMovement()
+            if (bots.isDisabled(slot)) {
+                intents[slot]?.disableMovement()
             }
         }
     }
 
     /** Checks and handles if any bots have been defeated. */
     private fun checkAndHandleDefeatedBots() {
-        val deadBotIds =
-            botsMap.values.filter { it.isDead }.map { bot -> participantIds.first { it.botId == bot.id } }.toSet()
+        var deadBotIds: MutableSet<ParticipantId>? = null
+        for (index in 0 until bots.count) {
+            val slot = bots.slotAt(index)
+            if (bots.isDead(slot)) {
+                (deadBotIds ?: HashSet<ParticipantId>().also { deadBotIds = it }) += participantIndex[slot]
+            }
+        }
+        if (deadBotIds == null) return
 
         deadBotIds.forEach {
             val botDeathEvent = BotDeathEvent(turn.turnNumber, it.botId)
@@ -673,212 +853,234 @@ class ModelUpdater(
 
     /** Cool down and fire guns. */
     private fun coolDownAndFireGuns() {
-        botsMap.values.forEach { bot ->
+        for (index in 0 until bots.count) {
+            val slot = bots.slotAt(index)
             // If gun heat is zero and the bot is enabled, it is able to fire
-            if (bot.gunHeat == 0.0 && bot.isEnabled) { // Gun can fire
-                checkIfGunMustFire(bot)
+            if (bots.gunHeat[slot] == 0.0 && bots.isEnabled(slot)) { // Gun can fire
+                checkIfGunMustFire(slot)
             } else { // Gun is too hot => Cool down gun
-                coolDownGun(bot)
+                coolDownGun(slot)
             }
         }
     }
 
     /**
      * Checks and determines if the gun for a bot must be fired.
-     * @param bot is the bot.
+     * @param slot is the slot of the bot.
      */
-    private fun checkIfGunMustFire(bot: MutableBot) {
-        botIntentsMap[bot.id]?.let {
+    private fun checkIfGunMustFire(slot: Int) {
+        intents[slot]?.let {
             val firepower = it.firepower ?: 0.0
-            if (firepower >= MIN_FIREPOWER && bot.energy > firepower) {
-                fireBullet(bot, firepower)
+            if (firepower >= MIN_FIREPOWER && bots.energy[slot] > firepower) {
+                fireBullet(slot, firepower)
             }
         }
     }
 
     /**
      * Cools down gun for a bot.
-     * @param bot is the bot.
+     * @param slot is the slot of the bot.
      */
-    private fun coolDownGun(bot: MutableBot) {
-        bot.gunHeat = (bot.gunHeat - setup.gunCoolingRate).coerceAtLeast(0.0)
+    private fun coolDownGun(slot: Int) {
+        bots.gunHeat[slot] = (bots.gunHeat[slot] - setup.gunCoolingRate).coerceAtLeast(0.0)
     }
 
     /**
      * Fires a bullet for a bot.
-     * @param bot is the bot.
+     * @param slot is the slot of the bot.
      * @param firepower is the amount of firepower.
      */
-    private fun fireBullet(bot: MutableBot, firepower: Double) {
+    private fun fireBullet(slot: Int, firepower: Double) {
         val power = firepower.coerceAtMost(MAX_FIREPOWER)
 
-        val previousBotState = botsCopies[bot.id]!!
-        var fireDirection = bot.gunDirection
+        val botId = bots.idOf(slot)
+        var fireDirection = bots.gunDirection[slot]
 
         // fire assistance (fireAssist = true, bot is scanning other bot, and gun and radar angle must be the same
-        if (botIntentsMap[bot.id]?.fireAssist == true &&
-            bot.gunDirection == bot.radarDirection &&
-            previousBotState.gunDirection == previousBotState.radarDirection
+        if (intents[slot]?.fireAssist == true &&
+            bots.gunDirection[slot] == bots.radarDirection[slot] &&
+            bots.previousGunDirection[slot] == bots.previousRadarDirection[slot]
         ) {
             round.lastTurn?.let { previousTurn ->
-                previousTurn.botEvents[bot.id]?.find { it is ScannedBotEvent }?.let {
+                previousTurn.getEvents(botId).find { it is ScannedBotEvent }?.let {
                     val scan = (it as ScannedBotEvent)
-                    fireDirection = angle(bot.x, bot.y, scan.x, scan.y) // fire assisted angle
+                    fireDirection = angle(bots.x[slot], bots.y[slot], scan.x, scan.y) // fire assisted angle
                 }
             }
         }
 
-        bot.gunHeat = calcGunHeat(power)
+        bots.gunHeat[slot] = calcGunHeat(power)
 
-        val bullet = MutableBullet(
+        val index = bullets.add(
             id = BulletId(++nextBulletId),
-            botId = bot.id,
-            startPosition = bot.position.toPoint(),
-            direction = fireDirection,
+            botId = botId,
             power = power,
-            color = bot.bulletColor,
+            direction = fireDirection,
+            color = bots.bulletColor[slot],
+            startX = bots.x[slot],
+            startY = bots.y[slot],
         )
-        bullets += bullet
 
-        val bulletFiredEvent = BulletFiredEvent(turn.turnNumber, bullet.copy())
-        turn.addPrivateBotEvent(bot.id, bulletFiredEvent)
+        val bulletFiredEvent = BulletFiredEvent(turn.turnNumber, bullets.toBullet(index))
+        turn.addPrivateBotEvent(botId, bulletFiredEvent)
         turn.addObserverEvent(bulletFiredEvent)
 
         // Firing a bullet cost energy
-        bot.changeEnergy(-firepower)
+        bots.changeEnergy(slot, -firepower)
     }
 
     /** Checks the scan field for scanned bots. */
     private fun checkAndHandleScans() {
-        val bots = botsMap.values.toList()
-        for (i in bots.indices) {
-            val scanningBot = bots[i]
+        if (isSpatialIndexEnabled) {
+            checkAndHandleScansUsingGrid()
+            return
+        }
+        for (i in 0 until bots.count) {
+            val scanningSlot = bots.slotAt(i)
 
-            if (scanningBot.isDroid) continue // droids cannot use scanning
+            if (bots.isDroid[scanningSlot]) continue // droids cannot use scanning
 
-            val (startAngle, endAngle) = getScanAngles(scanningBot)
+            val startAngle = getScanStartAngle(scanningSlot)
+            val endAngle = getScanEndAngle(scanningSlot)
 
-            for (j in bots.indices) {
+            for (j in 0 until bots.count) {
                 if (i != j) {
-                    val botBeingScanned = bots[j]
-                    if (isBotScanned(scanningBot, botBeingScanned, startAngle, endAngle)) {
-                        handleScannedBot(scanningBot, botBeingScanned)
+                    val scannedSlot = bots.slotAt(j)
+                    if (isBotScanned(scanningSlot, scannedSlot, startAngle, endAngle)) {
+                        handleScannedBot(scanningSlot, scannedSlot)
                     }
                 }
             }
         }
     }
 
-    /**
-     * Handle scanned bot.
-     * @param scanningBot the bot scanning an opponent bot.
-     * @param botBeingScanned the bot being scanned.
-     */
-    private fun handleScannedBot(scanningBot: MutableBot, botBeingScanned: IBot) {
-        createAndAddScannedBotEventToTurn(scanningBot.id, botBeingScanned)
+    /** Checks the scan field for scanned bots, where the spatial grid is used for finding the bots within radar range. */
+    private fun checkAndHandleScansUsingGrid() {
+        scanGrid.clear()
+        for (index in 0 until bots.count) {
+            val slot = bots.slotAt(index)
+            scanGrid.insert(index, bots.x[slot], bots.y[slot])
+        }
+
+        for (i in 0 until bots.count) {
+            val scanningSlot = bots.slotAt(i)
+
+            if (bots.isDroid[scanningSlot]) continue // droids cannot use scanning
+            if (!isScanningOrMoving(scanningSlot)) continue
+
+            val startAngle = getScanStartAngle(scanningSlot)
+            val endAngle = getScanEndAngle(scanningSlot)
+
+            collectCandidates(
+                scanGrid, bots.x[scanningSlot], bots.y[scanningSlot], RADAR_RADIUS + BOT_BOUNDING_CIRCLE_RADIUS, -1
+            )
+            for (k in 0 until candidates.size) {
+                val j = candidates[k]
+                if (i != j) {
+                    val scannedSlot = bots.slotAt(j)
+                    if (isBotScanned(scanningSlot, scannedSlot, startAngle, endAngle)) {
+                        handleScannedBot(scanningSlot, scannedSlot)
+                    }
+                }
+            }
+        }
     }
 
     /**
      * Checks if a bot is scanning another bot.
-     * @param scanningBot is the bot performing the scanning.
-     * @param scannedBot is the bot exposed for scanning.
+     * @param scanningSlot is the slot of the bot performing the scanning.
+     * @param scannedSlot is the slot of the bot exposed for scanning.
      * @param scanStartAngle is the start angle of the scan arc.
      * @param scanEndAngle is the end angle of the scan arc.
-     * @return `true` if the scannedBot was scanned; `false` otherwise.
+     * @return `true` if the scanned bot was scanned; `false` otherwise.
      */
     private fun isBotScanned(
-        scanningBot: IBot,
-        scannedBot: IBot,
+        scanningSlot: Int,
+        scannedSlot: Int,
         scanStartAngle: Double,
         scanEndAngle: Double
 
-    ) = isScanningOrMoving(scanningBot.id) &&
+    ) = isScanningOrMoving(scanningSlot) &&
             isCircleIntersectingCircleSector(
-                scannedBot.position, BOT_BOUNDING_CIRCLE_RADIUS,
-                scanningBot.position, RADAR_RADIUS,
+                bots.x[scannedSlot], bots.y[scannedSlot], BOT_BOUNDING_CIRCLE_RADIUS,
+                bots.x[scanningSlot], bots.y[scanningSlot], RADAR_RADIUS,
                 scanStartAngle, scanEndAngle
             )
 
     /**
      * Checks if a bot is scanning, meaning that it must be either rescanning or moving.
-     * @param botId is the id of the bot.
+     * @param slot is the slot of the bot.
      * @return `true` if the bot is scanning; `false` otherwise.
      */
-    private fun isScanningOrMoving(botId: BotId): Boolean {
-        return isRescanning(botId) || isMoving(botId)
+    private fun isScanningOrMoving(slot: Int): Boolean {
+        return isRescanning(slot) || isMoving(slot)
     }
 
     /**
      * Checks if a bot is rescanning.
-     * @param botId is the id of the bot.
+     * @param slot is the slot of the bot.
      * @return `true` if the bot is scanning; `false` otherwise.
      */
-    private fun isRescanning(botId: BotId): Boolean {
-        return botIntentsMap[botId]?.rescan ?: false
+    private fun isRescanning(slot: Int): Boolean {
+        return intents[slot]?.rescan ?: false
     }
 
     /**
      * Checks if a bot is moving, meaning that the x,y position or a direction has changed.
-     * @param botId is the id of the bot.
+     * @param slot is the slot of the bot.
      * @return `true` if the bot is moving; `false` otherwise.
      */
-    private fun isMoving(botId: BotId): Boolean {
-        val currentState = botsMap[botId]!!
-        val previousState = botsCopies[botId]!!
-
-        return currentState.x != previousState.x
-                || currentState.y != previousState.y
-                || currentState.direction != previousState.direction
-                || currentState.gunDirection != previousState.gunDirection
-                || currentState.radarDirection != previousState.radarDirection
+    private fun isMoving(slot: Int): Boolean = bots.run {
+        x[slot] != previousX[slot]
+                || y[slot] != previousY[slot]
+                || direction[slot] != previousDirection[slot]
+                || gunDirection[slot] != previousGunDirection[slot]
+                || radarDirection[slot] != previousRadarDirection[slot]
     }
 
     /**
-     * Creates and adds scanned-bot-events to the turn.
-     * @param scanningBotId is the id of the bot performing the scanning.
-     * @param scannedBot is the bot exposed for scanning.
+     * Handle scanned bot by creating and adding scanned-bot-events to the turn.
+     * @param scanningSlot is the slot of the bot performing the scanning.
+     * @param scannedSlot is the slot of the bot exposed for scanning.
      */
-    private fun createAndAddScannedBotEventToTurn(scanningBotId: BotId, scannedBot: IBot) {
+    private fun handleScannedBot(scanningSlot: Int, scannedSlot: Int) {
+        val scanningBotId = bots.idOf(scanningSlot)
         val scannedBotEvent = ScannedBotEvent(
             turn.turnNumber,
             scanningBotId,
-            scannedBot.id,
-            scannedBot.energy,
-            scannedBot.x,
-            scannedBot.y,
-            scannedBot.direction,
-            scannedBot.speed
+            bots.idOf(scannedSlot),
+            bots.energy[scannedSlot],
+            bots.x[scannedSlot],
+            bots.y[scannedSlot],
+            bots.direction[scannedSlot],
+            bots.speed[scannedSlot]
         )
         turn.addPrivateBotEvent(scanningBotId, scannedBotEvent)
         turn.addObserverEvent(scannedBotEvent)
     }
 
     /**
-     * Returns the scan angles for a bot.
-     * @param bot is the bot.
-     * @return a pair of doubles, where the first double is the start angle, and the second double is the end angle.
+     * Returns the start angle of the scan arc for a bot, where the radar direction is always used as the reference
+     * point, and the start and end angles depend on the sign of the spread angle.
+     * @param slot is the slot of the bot.
+     * @return the start angle of the scan arc in degrees.
      */
-    private fun getScanAngles(bot: IBot): Pair<Double, Double> {
-        val spreadAngle = bot.radarSpreadAngle
-        val absSpreadAngle = abs(spreadAngle)
-
-        // Always use the radar direction as the reference point
-        val radarDirection = bot.radarDirection
-
-        // Calculate start and end based on the sign of the spread angle
-        val (startAngle, endAngle) = if (spreadAngle >= 0) {
-            Pair(
-                normalizeAbsoluteDegrees(radarDirection - absSpreadAngle),
-                radarDirection
-            )
-        } else {
-            Pair(
-                radarDirection,
-                normalizeAbsoluteDegrees(radarDirection + absSpreadAngle)
-            )
-        }
+    private fun getScanStartAngle(slot: Int): Double {
+        val spreadAngle = bots.radarSpreadAngle[slot]
+        val radarDirection = bots.radarDirection[slot]
+        return if (spreadAngle >= 0) normalizeAbsoluteDegrees(radarDirection - abs(spreadAngle)) else radarDirection
+    }
 
-        return Pair(startAngle, endAngle)
+    /**
+     * Returns the end angle of the scan arc for a bot.
+     * @param slot is the slot of the bot.
+     * @return the end angle of the scan arc in degrees.
+     * @see getScanStartAngle
+     */
+    private fun getScanEndAngle(slot: Int): Double {
+        val spreadAngle = bots.radarSpreadAngle[slot]
+        val radarDirection = bots.radarDirection[slot]
+        return if (spreadAngle >= 0) radarDirection else normalizeAbsoluteDegrees(radarDirection + abs(spreadAngle))
     }
 
     /** Checks and handles if the round is ended or game is over. */
@@ -904,43 +1106,46 @@ class ModelUpdater(
     }
 
     private fun isRoundOver() = run {
-        // distinctBy(id) is necessary to take account for both bots and teams
-        val aliveCount = getBotsOrTeams(MutableBot::isAlive).distinctBy { it.id }.count()
+        // Teams are counted, where a bot that is not a member of a team is a team of its own
+        val aliveCount = countTeams { bots.isAlive(it) }
         if (aliveCount <= 1) {
             true
         } else {
-            if (bullets.size > 0) {
+            if (bullets.count > 0) {
                 false
             } else {
                 // When no bullets or functioning bots remain, the round ends immediately as a draw to speed things up
-                val disabledCount = getBotsOrTeams(MutableBot::isDisabled).distinctBy { it.id }.count()
+                val disabledCount = countTeams { bots.isDisabled(it) }
                 disabledCount == aliveCount
             }
         }
     }
 
-    private fun getBotsOrTeams(filter: (MutableBot) -> Boolean): Collection<ParticipantId> {
-        val botIds = botsMap.values.filter { filter.invoke(it) }.map { it.id }
-
-        return participantIds.filter { botIds.contains(it.botId) }.distinct()
+    /** Counts the teams with bots matching a filter on their slots, where the teams are marked in a reused bitset */
+    private inline fun countTeams(filter: (Int) -> Boolean): Int {
+        teamBits.clear()
+        for (index in 0 until bots.count) {
+            val slot = bots.slotAt(index)
+            if (filter(slot)) teamBits.set(participantIndex.teamIndexOf(slot))
+        }
+        return teamBits.cardinality()
     }
 
-    private fun processTeamMessages(bot: MutableBot, intent: BotIntent) {
+    private fun processTeamMessages(slot: Int, intent: BotIntent) {
         intent.teamMessages?.let { teamMessages ->
+            val botId = bots.idOf(slot)
             for (index in 0 until (teamMessages.size).coerceAtMost(MAX_NUMBER_OF_TEAM_MESSAGES_PER_TURN)) {
                 teamMessages[index].let { teamMessage ->
                     teamMessage.apply {
                         if (message.length <= MAX_TEAM_MESSAGE_SIZE) { // ignore this and follower messages if one message is too big
-                            if (receiverId != null) {
-                                turn.addPrivateBotEvent(
-                                    receiverId, TeamMessageEvent(turn.turnNumber, message, messageType, bot.id)
-                                )
-                            } else {
-                                bot.teammateIds.forEach { teammateId ->
-                                    turn.addPrivateBotEvent(
-                                        teammateId, TeamMessageEvent(turn.turnNumber, message, messageType, bot.id)
-                                    )
-                                }
+                            // A broadcast message is a single event shared by all teammates, so it is encoded once
+                            val event = TeamMessageEvent(turn.turnNumber, message, messageType, botId)
+                            val receiverIds = receiverId?.let { setOf(it) } ?: bots.teammateIds[slot]
+                            receiverIds.forEach { turn.addPrivateBotEvent(it, event) }
+
+                            // Only messages of bots in a team are counted, as the statistics are kept per team
+                            participantIndex[slot].teamId?.let { teamId ->
+                                teamMessageStatistics?.record(teamId, message.utf8Length(), receiverIds.size)
                             }
                         }
                     }
@@ -951,63 +1156,66 @@ class ModelUpdater(
         intent.teamMessages = null
     }
 
-
-    /** for static methods */
-    companion object {
-        /**
-         * Checks if the maximum bounding circles of two bullets are colliding.
-         * This is a pre-check if two bullets might be colliding.
-         * @param pos1 is the position of the 1st bullet.
-         * @param pos2 is the position of the 2nd bullet.
-         * @return `true` if the bounding circles are colliding; `false` otherwise.
-         */
-        private fun isBulletsMaxBoundingCirclesColliding(pos1: IPoint, pos2: IPoint): Boolean {
-            val dx = pos2.x - pos1.x
-            if (abs(dx) > bulletMaxBoundingCircleDiameter) {
-                return false
-            }
-            val dy = pos2.y - pos1.y
-            return abs(dy) <= bulletMaxBoundingCircleDiameter &&
-                    ((dx * dx) + (dy * dy) <= bulletMaxBoundingCircleDiameterSquared)
+    /**
+     * Checks if the maximum bounding circles of two bullets are colliding.
+     * This is a pre-check if two bullets might be colliding.
+     * @param x1 is the x coordinate of the 1st bullet.
+     * @param y1 is the y coordinate of the 1st bullet.
+     * @param x2 is the x coordinate of the 2nd bullet.
+     * @param y2 is the y coordinate of the 2nd bullet.
+     * @return `true` if the bounding circles are colliding; `false` otherwise.
+     */
+    private fun isBulletsMaxBoundingCirclesColliding(x1: Double, y1: Double, x2: Double, y2: Double): Boolean {
+        val dx = x2 - x1
+        if (abs(dx) > bulletMaxBoundingCircleDiameter) {
+            return false
         }
+        val dy = y2 - y1
+        return abs(dy) <= bulletMaxBoundingCircleDiameter &&
+                ((dx * dx) + (dy * dy) <= bulletMaxBoundingCircleDiameterSquared)
+    }
 
-        /**
-         * Checks if the bounding circles of two bots are colliding.
-         * @param bot1 is the first bot.
-         * @param bot2 is the second bot.
-         * @return `true` if the bounding circles are colliding; `false` otherwise.
-         */
-        private fun isBotsBoundingCirclesColliding(bot1: IBot, bot2: IBot): Boolean {
-            val dx = bot2.x - bot1.x
-            if (abs(dx) > BOT_BOUNDING_CIRCLE_DIAMETER) { // 2 x radius
-                return false
-            }
-            val dy = bot2.y - bot1.y
-            // 2 x radius
-            return abs(dy) <= BOT_BOUNDING_CIRCLE_DIAMETER &&
-                    ((dx * dx) + (dy * dy) <= BOT_BOUNDING_CIRCLE_DIAMETER_SQUARED)
+    /**
+     * Checks if the bounding circles of two bots are colliding.
+     * @param slot1 is the slot of the first bot.
+     * @param slot2 is the slot of the second bot.
+     * @return `true` if the bounding circles are colliding; `false` otherwise.
+     */
+    private fun isBotsBoundingCirclesColliding(slot1: Int, slot2: Int): Boolean {
+        val dx = bots.x[slot2] - bots.x[slot1]
+        if (abs(dx) > BOT_BOUNDING_CIRCLE_DIAMETER) { // 2 x radius
+            return false
         }
+        val dy = bots.y[slot2] - bots.y[slot1]
+        // 2 x radius
+        return abs(dy) <= BOT_BOUNDING_CIRCLE_DIAMETER &&
+                ((dx * dx) + (dy * dy) <= BOT_BOUNDING_CIRCLE_DIAMETER_SQUARED)
+    }
 
-        /**
-         * Checks if a bot is ramming another bot.
-         * @param bot is the potential ramming bot.
-         * @param victim is the potential bot being victim of ramming.
-         * @return `true` if the bot is ramming the victim bot; `false` otherwise.
-         */
-        private fun isRamming(bot: IBot, victim: IBot): Boolean {
-            val dx = victim.x - bot.x
-            val dy = victim.y - bot.y
-            val angle = atan2(dy, dx)
-            val bearing = normalizeRelativeDegrees(toDegrees(angle) - bot.direction)
-            return (((bot.speed > 0 && (bearing > -90 && bearing < 90))
-                    || (bot.speed < 0 && (bearing < -90 || bearing > 90))))
-        }
+    /**
+     * Checks if a bot is ramming another bot.
+     * @param slot is the slot of the potential ramming bot.
+     * @param victimSlot is the slot of the potential bot being victim of ramming.
+     * @return `true` if the bot is ramming the victim bot; `false` otherwise.
+     */
+    private fun isRamming(slot: Int, victimSlot: Int): Boolean {
+        val dx = bots.x[victimSlot] - bots.x[slot]
+        val dy = bots.y[victimSlot] - bots.y[slot]
+        val angle = atan2(dy, dx)
+        val bearing = normalizeRelativeDegrees(toDegrees(angle) - bots.direction[slot])
+        val speed = bots.speed[slot]
+        return (((speed > 0 && (bearing > -90 && bearing < 90))
+                || (speed < 0 && (bearing < -90 || bearing > 90))))
+    }
 
+    /** for static methods */
+    companion object {
         /**
          * Returns a random point for an arena of split into x * y virtual and big square cells larger than the bot size.
          * The idea is that only one bot can occupy a specific cell. So the number of cells limits how many bots that
          * can be placed on the arena. Hence, the lesser the sizes of the cells are, the more bots can be placed on the
          * arena.
+         * @param random is the random generator.
          * @param occupiedCells is a set of cell occupied indices. So if the arena is split into e.g. 3 x 2 cells,
          * the total number of cells will be 6, and the indices 1, 2, 3 will be the indices of the cells for the first
          * row, and the indices 4, 5, 6 will be the indices of the cells for the second row.
@@ -1018,6 +1226,7 @@ class ModelUpdater(
          * @return a random point on the arena in an unoccupied cell.
          */
         private fun randomBotPoint(
+            random: Random,
             occupiedCells: MutableSet<Int>,
             cellCount: Int,
             gridWidth: Int,
@@ -1025,15 +1234,15 @@ class ModelUpdater(
             cellHeight: Int
         ): Point {
             while (true) {
-                val cell = Random().nextInt(cellCount)
+                val cell = random.nextInt(cellCount)
                 if (!occupiedCells.contains(cell)) {
                     occupiedCells += cell
                     var y = (cell / gridWidth).toDouble()
                     var x = cell - y * gridWidth
                     x *= cellWidth.toDouble()
                     y *= cellHeight.toDouble()
-                    x += BOT_BOUNDING_CIRCLE_RADIUS + Math.random() * (cellWidth - BOT_BOUNDING_CIRCLE_DIAMETER)
-                    y += BOT_BOUNDING_CIRCLE_RADIUS + Math.random() * (cellHeight - BOT_BOUNDING_CIRCLE_DIAMETER)
+                    x += BOT_BOUNDING_CIRCLE_RADIUS + random.nextDouble() * (cellWidth - BOT_BOUNDING_CIRCLE_DIAMETER)
+                    y += BOT_BOUNDING_CIRCLE_RADIUS + random.nextDouble() * (cellHeight - BOT_BOUNDING_CIRCLE_DIAMETER)
                     return Point(x, y)
                 }
             }
@@ -1041,17 +1250,18 @@ class ModelUpdater(
 
         /**
          * Update bot turn rates and directions.
-         * @param bot is the bot.
+         * @param bots is the bot columns.
+         * @param slot is the slot of the bot.
          * @param intent is the bot's intent.
          */
-        private fun updateBotTurnRatesAndDirections(bot: MutableBot, intent: BotIntent) {
-            val turnRate = limitTurnRate(intent.turnRate ?: 0.0, bot.speed)
+        private fun updateBotTurnRatesAndDirections(bots: BotColumns, slot: Int, intent: BotIntent) {
+            val turnRate = limitTurnRate(intent.turnRate ?: 0.0, bots.speed[slot])
             val gunTurnRate = limitGunTurnRate(intent.gunTurnRate ?: 0.0)
             val radarTurnRate = limitRadarTurnRate(intent.radarTurnRate ?: 0.0)
 
-            bot.turnRate = turnRate
-            bot.gunTurnRate = gunTurnRate
-            bot.radarTurnRate = radarTurnRate
+            bots.turnRate[slot] = turnRate
+            bots.gunTurnRate[slot] = gunTurnRate
+            bots.radarTurnRate[slot] = radarTurnRate
 
             // -- Gun adjustment
             var gunAdjustment = turnRate + gunTurnRate
@@ -1072,46 +1282,47 @@ class ModelUpdater(
                 radarAdjustment -= turnRate
             }
 
-            bot.direction = normalizeAbsoluteDegrees(bot.direction + turnRate)
-            bot.gunDirection = normalizeAbsoluteDegrees(bot.gunDirection + gunAdjustment)
-            bot.radarDirection = normalizeAbsoluteDegrees(bot.radarDirection + radarAdjustment)
-            bot.radarSpreadAngle = radarAdjustment
+            bots.direction[slot] = normalizeAbsoluteDegrees(bots.direction[slot] + turnRate)
+            bots.gunDirection[slot] = normalizeAbsoluteDegrees(bots.gunDirection[slot] + gunAdjustment)
+            bots.radarDirection[slot] = normalizeAbsoluteDegrees(bots.radarDirection[slot] + radarAdjustment)
+            bots.radarSpreadAngle[slot] = radarAdjustment
         }
 
         /**
          * Updates the bot colors.
-         * @param bot is the bot.
+         * @param bots is the bot columns.
+         * @param slot is the slot of the bot.
          * @param intent is the bot's intent.
          */
-        private fun updateBotColors(bot: MutableBot, intent: BotIntent) {
-            bot.apply {
-                bodyColor = fromColor(intent.bodyColor)
-                turretColor = fromColor(intent.turretColor)
-                radarColor = fromColor(intent.radarColor)
-                bulletColor = fromColor(intent.bulletColor)
-                scanColor = fromColor(intent.scanColor)
-                tracksColor = fromColor(intent.tracksColor)
-                gunColor = fromColor(intent.gunColor)
+        private fun updateBotColors(bots: BotColumns, slot: Int, intent: BotIntent) {
+            bots.apply {
+                bodyColor[slot] = fromColor(intent.bodyColor)
+                turretColor[slot] = fromColor(intent.turretColor)
+                radarColor[slot] = fromColor(intent.radarColor)
+                bulletColor[slot] = fromColor(intent.bulletColor)
+                scanColor[slot] = fromColor(intent.scanColor)
+                tracksColor[slot] = fromColor(intent.tracksColor)
+                gunColor[slot] = fromColor(intent.gunColor)
             }
         }
 
-        private fun updateDebugGraphics(bot: MutableBot, intent: BotIntent) {
-            bot.debugGraphics = intent.debugGraphics
+        private fun updateDebugGraphics(bots: BotColumns, slot: Int, intent: BotIntent) {
+            bots.debugGraphics[slot] = intent.debugGraphics
         }
 
         private fun fromColor(color: String?) = color?.let { from(it) }
 
         /**
          * Updates last received data from standard output and standard error.
-         * @param bot is the bot.
+         * @param bots is the bot columns.
+         * @param slot is the slot of the bot.
          * @param intent is the bot's intent.
          */
-        private fun processStdErrAndStdOut(bot: MutableBot, intent: BotIntent) {
+        private fun processStdErrAndStdOut(bots: BotColumns, slot: Int, intent: BotIntent) {
             // transfer from intent to state
-            bot.apply {
-                stdOut = intent.stdOut
-                stdErr = intent.stdErr
-            }
+            bots.stdOut[slot] = intent.stdOut
+            bots.stdErr[slot] = intent.stdErr
+
             // reset stdout and stderr
             intent.apply {
                 stdOut = null
@@ -1119,4 +1330,4 @@ class ModelUpdater(
             }
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,51 @@
+package dev.robocode.tankroyale.server.core
+
+import dev.robocode.tankroyale.server.model.TeamId
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.atomic.LongAdder
+
+/**
+ * Thread-safe statistics over the team messages sent by the bots of each team, which are recorded by the
+ * [ModelUpdater] and read when the server metrics are scraped. Messages sent by bots that are not in a team are not
+ * counted.
+ */
+class TeamMessageStatistics {
+
+    /** Counters of the team messages sent by the bots of a team */
+    class Counters {
+        /** Number of messages sent */
+        val messages = LongAdder()
+
+        /** Number of UTF-8 bytes of the sent messages, where a broadcast message is counted once */
+        val bytes = LongAdder()
+
+        /** Number of messages received by teammates, where a broadcast message is received by every teammate */
+        val deliveries = LongAdder()
+    }
+
+    private val counters = ConcurrentHashMap<TeamId, Counters>()
+
+    /**
+     * Records a message sent by a bot of a team.
+     * @param teamId is the id of the team of the sender.
+     * @param messageBytes is the number of UTF-8 bytes of the message.
+     * @param receiverCount is the number of bots the message is delivered to.
+     */
+    fun record(teamId: TeamId, messageBytes: Int, receiverCount: Int) {
+        counters.computeIfAbsent(teamId) { Counters() }.apply {
+            messages.increment()
+            bytes.add(messageBytes.toLong())
+            deliveries.add(receiverCount.toLong())
+        }
+    }
+
+    /** Performs an action for the counters of each team that has sent messages. */
+    fun forEach(action: (TeamId, Counters) -> Unit) {
+        counters.forEach { (teamId, teamCounters) -> action(teamId, teamCounters) }
+    }
+
+    /** Resets the statistics, e.g. when a new game is started. */
+    fun reset() {
+        counters.clear()
+    }
+}
@@ -0,0 +1,141 @@
+package dev.robocode.tankroyale.server.core
+
+import dev.robocode.tankroyale.server.util.Histogram
+import jdk.jfr.*
+
+/** Phases of a turn executed by the [ModelUpdater] in the order they are executed. */
+enum class TurnPhase(val description: String) {
+    STORE_PREVIOUS_BOT_STATES("store previous bot states"),
+    COOL_DOWN_AND_FIRE_GUNS("cool down and fire guns"),
+    EXECUTE_BOT_INTENTS("execute bot intents"),
+    BOT_WALL_COLLISIONS("bot wall collisions"),
+    BOT_COLLISIONS("bot collisions"),
+    CONSTRAIN_BOT_POSITIONS("constrain bot positions"),
+    SCANS("scans"),
+    BULLET_MOVEMENT("bullet movement"),
+    BULLET_WALL_COLLISIONS("bullet wall collisions"),
+    BULLET_HITS("bullet hits"),
+    INACTIVITY("inactivity"),
+    DISABLED_BOTS("disabled bots"),
+    DEFEATED_BOTS("defeated bots"),
+    ROUND_OR_GAME_OVER("round or game over"),
+    SNAPSHOTS("bot and bullet snapshots"),
+}
+
+/** JDK Flight Recorder event with the time spent in a phase of a turn. */
+@Name("dev.robocode.tankroyale.TurnPhase")
+@Label("Turn Phase")
+@Category("Robocode Tank Royale")
+@Description("Time spent in a phase of a turn executed by the model updater")
+@StackTrace(false)
+class TurnPhaseEvent : Event() {
+    @JvmField
+    @Label("Game")
+    var game: String? = null
+
+    @JvmField
+    @Label("Round")
+    var round: Int = 0
+
+    @JvmField
+    @Label("Turn")
+    var turn: Int = 0
+
+    @JvmField
+    @Label("Phase")
+    var phase: String? = null
+
+    @JvmField
+    @Label("Phase Duration")
+    @Timespan(Timespan.NANOSECONDS)
+    var phaseDuration: Long = 0
+}
+
+/**
+ * Profiler of the phases of the turns executed by a [ModelUpdater]. The time spent in each phase is recorded in a
+ * histogram per phase, and is emitted as a [TurnPhaseEvent] when a JDK Flight Recorder recording is enabled for it,
+ * e.g. with `-XX:StartFlightRecording`.
+ *
+ * A profiler is only created when profiling is enabled. The model updater does not measure anything without it.
+ * @param game is the name of the profiled game, e.g. the id of the game room.
+ */
+class TurnPhaseProfiler(private val game: String) {
+
+    private val eventType = EventType.getEventType(TurnPhaseEvent::class.java)
+
+    private val phaseHistograms = Array(TurnPhase.entries.size) { Histogram() }
+
+    private val turnHistogram = Histogram()
+
+    private var roundNumber = 0
+    private var turnNumber = 0
+    private var turnStartTime = 0L
+
+    /** Begins the profiling of a turn. */
+    @Synchronized
+    fun beginTurn(roundNumber: Int, turnNumber: Int) {
+        this.roundNumber = roundNumber
+        this.turnNumber = turnNumber
+        turnStartTime = System.nanoTime()
+    }
+
+    /**
+     * Records the time spent in a phase of the current turn.
+     * @param phase is the turn phase.
+     * @param durationInNanos is the time spent in the phase in nanoseconds.
+     */
+    @Synchronized
+    fun record(phase: TurnPhase, durationInNanos: Long) {
+        phaseHistograms[phase.ordinal].record(durationInNanos)
+
+        if (eventType.isEnabled) {
+            TurnPhaseEvent().apply {
+                game = this@TurnPhaseProfiler.game
+                round = roundNumber
+                turn = turnNumber
+                this.phase = phase.description
+                phaseDuration = durationInNanos
+                commit()
+            }
+        }
+    }
+
+    /** Ends the profiling of the current turn, and records the time spent in the turn. */
+    @Synchronized
+    fun endTurn() {
+        turnHistogram.record(System.nanoTime() - turnStartTime)
+    }
+
+    /** Resets the timings, e.g. when a new game is started. */
+    @Synchronized
+    fun reset() {
+        phaseHistograms.forEach { it.reset() }
+        turnHistogram.reset()
+    }
+
+    /** Returns a report with the time distribution of each phase over the profiled turns. */
+    @Synchronized
+    fun report(): String = buildString {
+        appendLine("Turn phases of $game over ${turnHistogram.count} turns (times in microseconds):")
+        appendLine(
+            "%-26s %10s %10s %10s %10s %10s %7s".format("phase", "mean", "p50", "p90", "p99", "max", "share")
+        )
+        TurnPhase.entries.forEach { appendRow(it.description, phaseHistograms[it.ordinal]) }
+        appendRow("turn", turnHistogram)
+    }
+
+    private fun StringBuilder.appendRow(name: String, histogram: Histogram) {
+        val share = if (turnHistogram.sum > 0) 100.0 * histogram.sum / turnHistogram.sum else 0.0
+        appendLine(
+            "%-26s %10.1f %10.1f %10.1f %10.1f %10.1f %6.1f%%".format(
+                name,
+                histogram.mean / 1000,
+                histogram.valueAtPercentile(50.0) / 1000.0,
+                histogram.valueAtPercentile(90.0) / 1000.0,
+                histogram.valueAtPercentile(99.0) / 1000.0,
+                histogram.max / 1000.0,
+                share,
+            )
+        )
+    }
+}
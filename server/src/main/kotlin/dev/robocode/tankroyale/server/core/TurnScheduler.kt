@@ -0,0 +1,183 @@
+package dev.robocode.tankroyale.server.core
+
+import java.util.concurrent.atomic.AtomicBoolean
+import java.util.concurrent.atomic.AtomicLong
+import java.util.concurrent.locks.LockSupport
+import kotlin.math.max
+
+/**
+ * Turn scheduler that executes turn jobs on a single long-lived thread, instead of starting a new thread for
+ * each turn. Only one turn is scheduled at a time, where scheduling a new turn stops the current one.
+ *
+ * The scheduler thread parks until the current turn is due. If a spin threshold is set, the thread parks until
+ * the remaining wait time is below the threshold, and then busy-spins the rest of the time, which gives a more
+ * precise tick cadence for sub-millisecond turn timeouts at the cost of CPU time.
+ */
+class TurnScheduler(
+    /** Remaining wait time in nanoseconds, where the scheduler thread spins instead of parking. 0 means never spin */
+    private val spinThresholdInNanos: Long = 0,
+
+    /** Name of the scheduler thread */
+    threadName: String = "TurnScheduler",
+) {
+    /** Timing statistics over the executed turns */
+    val statistics = TurnTimingStatistics()
+
+    private val thread = Thread(::run, threadName).apply { isDaemon = true }
+
+    @Volatile
+    private var currentTurn: ScheduledTurn? = null
+
+    @Volatile
+    private var isShutdown = false
+
+    /**
+     * Schedules a new turn, and stops the current turn if it has not been executed yet.
+     * @param minPeriodInNanos is the minimum time in nanoseconds before the job can be executed.
+     * @param maxPeriodInNanos is the maximum time in nanoseconds before the job is definitely executed.
+     * @param job is the job to execute when the turn is due.
+     * @return the scheduled turn.
+     */
+    fun schedule(minPeriodInNanos: Long, maxPeriodInNanos: Long, job: Runnable): ScheduledTurn {
+        check(!isShutdown) { "Turn scheduler has been shut down" }
+
+        val turn = ScheduledTurn(minPeriodInNanos, maxPeriodInNanos, job)
+        currentTurn?.stop()
+        currentTurn = turn
+
+        startThreadIfNeeded()
+        wakeUp()
+        return turn
+    }
+
+    /** Shuts down the scheduler, and stops the current turn. */
+    fun shutdown() {
+        isShutdown = true
+        currentTurn?.stop()
+        currentTurn = null
+        wakeUp()
+    }
+
+    @Synchronized
+    private fun startThreadIfNeeded() {
+        if (thread.state == Thread.State.NEW) {
+            thread.start()
+        }
+    }
+
+    private fun wakeUp() {
+        LockSupport.unpark(thread)
+    }
+
+    private fun run() {
+        while (!isShutdown) {
+            val turn = currentTurn
+            if (turn == null || turn.isExecuted) {
+                LockSupport.park(this)
+                continue
+            }
+
+            val dueTime = turn.dueTime()
+            if (dueTime == Long.MAX_VALUE) {
+                LockSupport.park(this) // paused until woken up
+                continue
+            }
+
+            val now = System.nanoTime()
+            val remaining = dueTime - now
+            when {
+                remaining <= 0 -> turn.execute(now, now - dueTime)
+                remaining > spinThresholdInNanos -> LockSupport.parkNanos(this, remaining - spinThresholdInNanos)
+                else -> Thread.onSpinWait()
+            }
+        }
+    }
+
+    /**
+     * Turn scheduled on the turn scheduler with the same min-period/max-period semantics as the [NanoTimer].
+     * The job is executed when the minimum period has passed, and either the turn has been notified as ready or
+     * the maximum period has passed. The time while being paused is not counted as part of the periods.
+     */
+    inner class ScheduledTurn internal constructor(
+        /** Minimum time in nanoseconds before job can be executed */
+        private val minPeriodInNanos: Long,
+
+        /** Maximum time in nanoseconds before job is definitely executed */
+        @Volatile
+        private var maxPeriodInNanos: Long,
+
+        /** Job to execute when turn is due */
+        private val job: Runnable,
+    ) {
+        private val startTime = System.nanoTime()
+        private val jobExecuted = AtomicBoolean(false)
+        private val ready = AtomicBoolean(false)
+        private var readyTime = 0L
+        private val pauseStartTime = AtomicLong(0L)
+        private val totalPauseDuration = AtomicLong(0L)
+
+        internal val isExecuted get() = jobExecuted.get()
+
+        /** Stops the turn, so its job will not be executed by the scheduler. */
+        fun stop(): Boolean {
+            // This will prevent any other threads from executing the job, even if we haven't
+            val success = !jobExecuted.getAndSet(true)
+            wakeUp()
+            return success
+        }
+
+        /** Pauses the turn. */
+        fun pause() {
+            pauseStartTime.compareAndSet(0L, System.nanoTime())
+        }
+
+        /** Resumes the turn after having been paused. */
+        fun resume() {
+            val pauseStart = pauseStartTime.getAndSet(0L)
+            if (pauseStart == 0L) return
+
+            totalPauseDuration.addAndGet(System.nanoTime() - pauseStart)
+            wakeUp()
+        }
+
+        /**
+         * Shortens the maximum period of the turn, e.g. when the turn no longer needs to wait for the bot that needed
+         * the most time. A longer maximum period is ignored.
+         * @param maxPeriodInNanos is the new maximum time in nanoseconds before the job is definitely executed.
+         */
+        fun shortenMaxPeriod(maxPeriodInNanos: Long) {
+            if (maxPeriodInNanos < this.maxPeriodInNanos) {
+                this.maxPeriodInNanos = maxPeriodInNanos
+                wakeUp()
+            }
+        }
+
+        /** Notifies that the job is ready to be executed. */
+        fun notifyReady() {
+            readyTime = System.nanoTime()
+            ready.set(true)
+            wakeUp()
+        }
+
+        /** Returns the time when the job is due in nanoseconds, or [Long.MAX_VALUE] if the turn is paused. */
+        internal fun dueTime(): Long {
+            if (pauseStartTime.get() != 0L) return Long.MAX_VALUE
+
+            val pauseDuration = totalPauseDuration.get()
+            val minDueTime = startTime + minPeriodInNanos + pauseDuration
+
+            return if (ready.get()) {
+                max(minDueTime, readyTime)
+            } else {
+                max(minDueTime, startTime + maxPeriodInNanos + pauseDuration)
+            }
+        }
+
+        internal fun execute(now: Long, latenessInNanos: Long) {
+            if (jobExecuted.getAndSet(true)) return
+
+            statistics.record(now, minPeriodInNanos, totalPauseDuration.get(), latenessInNanos)
+            job.run()
+        }
+    }
+}
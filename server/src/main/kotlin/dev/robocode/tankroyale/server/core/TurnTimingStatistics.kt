@@ -0,0 +1,100 @@
+package dev.robocode.tankroyale.server.core
+
+import kotlin.math.sqrt
+
+/** Timing statistics over the turns executed by a [TurnScheduler]. */
+class TurnTimingStatistics {
+
+    private var lastExecutionTime = 0L
+    private var turnCount = 0L
+    private var intervalCount = 0L
+    private var intervalSum = 0.0
+    private var intervalSquareSum = 0.0
+    private var requestedPeriodSum = 0.0
+    private var latenessSum = 0.0
+    private var maxLateness = 0L
+
+    /**
+     * Records an executed turn.
+     * @param executionTime is the time in nanoseconds when the turn was executed.
+     * @param requestedPeriodInNanos is the requested (minimum) period of the turn in nanoseconds.
+     * @param pauseDurationInNanos is the time in nanoseconds the turn has been paused.
+     * @param latenessInNanos is the time in nanoseconds from the turn was due until it was executed.
+     */
+    @Synchronized
+    fun record(executionTime: Long, requestedPeriodInNanos: Long, pauseDurationInNanos: Long, latenessInNanos: Long) {
+        if (turnCount > 0) {
+            val interval = (executionTime - lastExecutionTime - pauseDurationInNanos).toDouble()
+            intervalCount++
+            intervalSum += interval
+            intervalSquareSum += interval * interval
+            requestedPeriodSum += requestedPeriodInNanos
+        }
+        lastExecutionTime = executionTime
+        turnCount++
+
+        latenessSum += latenessInNanos
+        if (latenessInNanos > maxLateness) maxLateness = latenessInNanos
+    }
+
+    /** Resets the statistics, e.g. when a new game is started. */
+    @Synchronized
+    fun reset() {
+        lastExecutionTime = 0L
+        turnCount = 0L
+        intervalCount = 0L
+        intervalSum = 0.0
+        intervalSquareSum = 0.0
+        requestedPeriodSum = 0.0
+        latenessSum = 0.0
+        maxLateness = 0L
+    }
+
+    /** Returns a snapshot of the current statistics. */
+    @Synchronized
+    fun snapshot(): TurnTimingSnapshot {
+        val meanInterval = if (intervalCount > 0) intervalSum / intervalCount else 0.0
+        val meanRequestedPeriod = if (intervalCount > 0) requestedPeriodSum / intervalCount else 0.0
+        val variance = if (intervalCount > 0) intervalSquareSum / intervalCount - meanInterval * meanInterval else 0.0
+
+        return TurnTimingSnapshot(
+            turnCount = turnCount,
+            achievedTps = tps(meanInterval),
+            requestedTps = tps(meanRequestedPeriod),
+            intervalStdDevInMillis = sqrt(variance.coerceAtLeast(0.0)) / 1_000_000,
+            meanJitterInMillis = if (turnCount > 0) latenessSum / turnCount / 1_000_000 else 0.0,
+            maxJitterInMillis = maxLateness / 1_000_000.0,
+        )
+    }
+
+    private fun tps(periodInNanos: Double) =
+        if (periodInNanos > 0) 1_000_000_000 / periodInNanos else Double.POSITIVE_INFINITY
+}
+
+/** Snapshot of [TurnTimingStatistics]. */
+data class TurnTimingSnapshot(
+    /** Number of executed turns */
+    val turnCount: Long,
+
+    /** Achieved turns per second, measured from the interval between executed turns */
+    val achievedTps: Double,
+
+    /** Requested turns per second, where infinity means as fast as possible */
+    val requestedTps: Double,
+
+    /** Standard deviation of the interval between executed turns in milliseconds */
+    val intervalStdDevInMillis: Double,
+
+    /** Mean time in milliseconds from a turn was due until it was executed */
+    val meanJitterInMillis: Double,
+
+    /** Max time in milliseconds from a turn was due until it was executed */
+    val maxJitterInMillis: Double,
+) {
+    override fun toString(): String {
+        val requested = if (requestedTps.isInfinite()) "max" else "%.1f".format(requestedTps)
+        return "turns: $turnCount, requested TPS: $requested, achieved TPS: ${"%.1f".format(achievedTps)}, " +
+                "interval std dev: ${"%.3f".format(intervalStdDevInMillis)} ms, " +
+                "jitter mean/max: ${"%.3f".format(meanJitterInMillis)}/${"%.3f".format(maxJitterInMillis)} ms"
+    }
+}
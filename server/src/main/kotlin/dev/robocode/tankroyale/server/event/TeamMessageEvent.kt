@@ -7,10 +7,10 @@ class TeamMessageEvent(
     override val turnNumber: Int,
 
     /** Message that was received */
-    var message: String,
+    val message: String,
 
     /** The type of message that was received */
-    var messageType: String,
+    val messageType: String,
 
     /** ID of the teammate that sent the message */
     val senderId: BotId,
@@ -39,4 +39,33 @@ object BotIntentMapper {
         
         return result
     }
+
+    /**
+     * Maps a schema BotIntent to a server model BotIntent that only contains the changes of the intent.
+     * Null values are kept, so the corresponding fields are left unchanged when the intent is applied to the current
+     * intent of the bot with [dev.robocode.tankroyale.server.model.BotIntent.update].
+     */
+    fun mapChanges(intent: BotIntent) = dev.robocode.tankroyale.server.model.BotIntent(
+        targetSpeed = intent.targetSpeed,
+        turnRate = intent.turnRate,
+        gunTurnRate = intent.gunTurnRate,
+        radarTurnRate = intent.radarTurnRate,
+        firepower = intent.firepower,
+        adjustGunForBodyTurn = intent.adjustGunForBodyTurn,
+        adjustRadarForBodyTurn = intent.adjustRadarForBodyTurn,
+        adjustRadarForGunTurn = intent.adjustRadarForGunTurn,
+        rescan = intent.rescan,
+        fireAssist = intent.fireAssist,
+        bodyColor = intent.bodyColor,
+        turretColor = intent.turretColor,
+        radarColor = intent.radarColor,
+        bulletColor = intent.bulletColor,
+        scanColor = intent.scanColor,
+        tracksColor = intent.tracksColor,
+        gunColor = intent.gunColor,
+        stdOut = intent.stdOut,
+        stdErr = intent.stdErr,
+        teamMessages = intent.teamMessages?.let { TeamMessageMapper.map(it) },
+        debugGraphics = intent.debugGraphics,
+    )
 }
\ No newline at end of file
@@ -4,7 +4,7 @@ import dev.robocode.tankroyale.schema.BulletState
 import dev.robocode.tankroyale.server.model.IBullet
 
 object BulletsToBulletStatesMapper {
-    fun map(bullets: Set<IBullet>): List<BulletState> {
+    fun map(bullets: Collection<IBullet>): List<BulletState> {
         val bulletStates = mutableListOf<BulletState>()
         bullets.forEach { bulletStates += BulletToBulletStateMapper.map(it) }
         return bulletStates
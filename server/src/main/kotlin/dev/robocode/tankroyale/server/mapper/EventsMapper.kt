@@ -3,13 +3,14 @@ package dev.robocode.tankroyale.server.mapper
 import dev.robocode.tankroyale.schema.*
 
 object EventsMapper {
-    fun map(events: Set<dev.robocode.tankroyale.server.event.Event>): List<Event> {
+    fun map(events: Collection<dev.robocode.tankroyale.server.event.Event>): List<Event> {
         val mappedEvents = mutableListOf<Event>()
         events.forEach { mappedEvents += map(it) }
         return mappedEvents
     }
 
-    private fun map(event: dev.robocode.tankroyale.server.event.Event): Event {
+    /** Maps a single event, e.g. when the events of a turn are read one by one from the turn events. */
+    fun map(event: dev.robocode.tankroyale.server.event.Event): Event {
         return when (event) {
             is dev.robocode.tankroyale.server.event.BotDeathEvent -> map(event)
             is dev.robocode.tankroyale.server.event.BotHitBotEvent -> map(event)
@@ -18,6 +18,9 @@ object GameSetupMapper {
             setup.turnTimeout = turnTimeout.inWholeMicroseconds.toInt()
             setup.readyTimeout = readyTimeout.inWholeMicroseconds.toInt()
             setup.defaultTurnsPerSecond = defaultTurnsPerSecond
+            setup.seed = seed
+            setup.isLockstep = isLockstep
+            setup.isAdaptiveTurnTimeout = isAdaptiveTurnTimeout
             setup.isArenaWidthLocked = isArenaWidthLocked
             setup.isArenaHeightLocked = isArenaHeightLocked
             setup.isMinNumberOfParticipantsLocked = isMinNumberOfParticipantsLocked
@@ -45,6 +48,9 @@ object GameSetupMapper {
                 turnTimeout = turnTimeout.microseconds,
                 readyTimeout = readyTimeout.microseconds,
                 defaultTurnsPerSecond = defaultTurnsPerSecond,
+                seed = seed,
+                isLockstep = isLockstep == true,
+                isAdaptiveTurnTimeout = isAdaptiveTurnTimeout == true,
                 isArenaWidthLocked = isArenaWidthLocked,
                 isArenaHeightLocked = isArenaHeightLocked,
                 isMinNumberOfParticipantsLocked = isMinNumberOfParticipantsLocked,
@@ -0,0 +1,34 @@
+package dev.robocode.tankroyale.server.mapper
+
+import dev.robocode.tankroyale.schema.ResultsForBot
+import dev.robocode.tankroyale.server.model.BotId
+import dev.robocode.tankroyale.server.model.Score
+import kotlin.math.roundToInt
+
+object ResultsForBotMapper {
+    /**
+     * Maps the accumulated scores of a game to the results of a single bot.
+     * @param scores is the accumulated scores of the bots ordered on the score ranks.
+     * @param botId is the id of the bot.
+     * @return the results of the bot.
+     */
+    fun map(scores: List<Score>, botId: BotId): ResultsForBot {
+        val index = scores.indexOfFirst { it.participantId.botId == botId }
+        check(index >= 0) { "botId was not found in results: $botId" }
+
+        val score = scores[index]
+        return ResultsForBot().apply {
+            this.rank = index + 1
+            survival = score.survivalScore.roundToInt()
+            lastSurvivorBonus = score.lastSurvivorBonus.roundToInt()
+            bulletDamage = score.bulletDamageScore.roundToInt()
+            bulletKillBonus = score.bulletKillBonus.toInt()
+            ramDamage = score.ramDamageScore.roundToInt()
+            ramKillBonus = score.ramKillBonus.roundToInt()
+            totalScore = score.totalScore.roundToInt()
+            firstPlaces = score.firstPlaces
+            secondPlaces = score.secondPlaces
+            thirdPlaces = score.thirdPlaces
+        }
+    }
+}
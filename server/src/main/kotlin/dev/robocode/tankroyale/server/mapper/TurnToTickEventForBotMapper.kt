@@ -5,18 +5,27 @@ import dev.robocode.tankroyale.schema.TickEventForBot
 import dev.robocode.tankroyale.server.mapper.BotToBotStateMapper.map
 import dev.robocode.tankroyale.server.mapper.BulletsToBulletStatesMapper.map
 import dev.robocode.tankroyale.server.model.BotId
+import dev.robocode.tankroyale.server.model.IBot
+import dev.robocode.tankroyale.server.model.IBullet
 import dev.robocode.tankroyale.server.model.ITurn
 
 object TurnToTickEventForBotMapper {
     fun map(roundNumber: Int, turn: ITurn, botId: BotId, enemyCount: Int): TickEventForBot? {
         val bot = turn.getBot(botId) ?: return null
-        return TickEventForBot().apply {
+        return map(roundNumber, turn, bot, enemyCount, turn.bullets.filter { it.botId == bot.id })
+    }
+
+    /**
+     * Maps a turn into a tick event for a bot, where the bullets of the bot are given, e.g. when the bullets of a turn
+     * have been grouped by owner once for all bots.
+     */
+    fun map(roundNumber: Int, turn: ITurn, bot: IBot, enemyCount: Int, bullets: Collection<IBullet>) =
+        TickEventForBot().apply {
             type = Message.Type.TICK_EVENT_FOR_BOT
             this.roundNumber = roundNumber
             turnNumber = turn.turnNumber
             botState = map(bot, enemyCount)
-            bulletStates = map(turn.bullets.filter { it.botId == bot.id }.toSet())
-            events = EventsMapper.map(turn.getEvents(botId))
+            bulletStates = map(bullets)
+            events = EventsMapper.map(turn.getEvents(bot.id))
         }
-    }
-}
\ No newline at end of file
+}
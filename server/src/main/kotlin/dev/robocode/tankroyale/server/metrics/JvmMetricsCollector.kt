@@ -0,0 +1,27 @@
+package dev.robocode.tankroyale.server.metrics
+
+import java.lang.management.ManagementFactory
+
+/** Collector of JVM metrics, i.e. the garbage collections and memory usage of the server. */
+class JvmMetricsCollector : MetricsCollector {
+
+    private val garbageCollectors = ManagementFactory.getGarbageCollectorMXBeans()
+
+    private val memory = ManagementFactory.getMemoryMXBean()
+
+    override fun collect(writer: PrometheusWriter) {
+        garbageCollectors.forEach { gc ->
+            writer.counter(
+                "robocode_jvm_gc_collections_total", "Number of garbage collections",
+                gc.collectionCount.toDouble(), "gc" to gc.name
+            )
+            writer.counter(
+                "robocode_jvm_gc_collection_seconds_total", "Accumulated time spent in garbage collections",
+                gc.collectionTime / 1000.0, "gc" to gc.name
+            )
+        }
+        writer.gauge(
+            "robocode_jvm_heap_used_bytes", "Used heap memory", memory.heapMemoryUsage.used.toDouble()
+        )
+    }
+}
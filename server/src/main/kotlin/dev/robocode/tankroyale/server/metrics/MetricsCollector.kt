@@ -0,0 +1,11 @@
+package dev.robocode.tankroyale.server.metrics
+
+/** Collector of metrics, which writes the current values of its metrics when the metrics are scraped. */
+fun interface MetricsCollector {
+
+    /**
+     * Writes the current values of the metrics.
+     * @param writer is the writer of the metrics.
+     */
+    fun collect(writer: PrometheusWriter)
+}
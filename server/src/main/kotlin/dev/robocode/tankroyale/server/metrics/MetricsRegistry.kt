@@ -0,0 +1,29 @@
+package dev.robocode.tankroyale.server.metrics
+
+import java.util.concurrent.CopyOnWriteArrayList
+
+/**
+ * Registry of the metrics collectors of the server. The metrics are kept by their owners in low-overhead counters and
+ * summaries, and are only read by the collectors when the metrics are scraped.
+ */
+class MetricsRegistry {
+
+    private val collectors = CopyOnWriteArrayList<MetricsCollector>()
+
+    /** Registers a collector. */
+    fun register(collector: MetricsCollector) {
+        collectors += collector
+    }
+
+    /** Unregisters a collector, e.g. when a game room has been removed. */
+    fun unregister(collector: MetricsCollector) {
+        collectors -= collector
+    }
+
+    /** Returns the current values of all metrics in the Prometheus text format. */
+    fun scrape(): String {
+        val writer = PrometheusWriter()
+        collectors.forEach { it.collect(writer) }
+        return writer.toString()
+    }
+}
@@ -0,0 +1,59 @@
+package dev.robocode.tankroyale.server.metrics
+
+import com.sun.net.httpserver.HttpExchange
+import com.sun.net.httpserver.HttpServer
+import org.slf4j.LoggerFactory
+import java.net.InetSocketAddress
+import java.util.concurrent.Executors
+
+/**
+ * HTTP server serving the metrics in the Prometheus text format at the `/metrics` path. It runs on its own port and
+ * thread, so scraping the metrics does not interfere with the game connections.
+ *
+ * @param port is the port of the HTTP server.
+ * @param registry is the registry of the metrics to serve.
+ */
+class MetricsServer(private val port: Int, private val registry: MetricsRegistry) {
+
+    companion object {
+        const val PATH = "/metrics"
+        private const val CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8"
+    }
+
+    private val log = LoggerFactory.getLogger(this::class.java)
+
+    private var httpServer: HttpServer? = null
+
+    /** Starts serving the metrics. */
+    fun start() {
+        httpServer = HttpServer.create(InetSocketAddress(port), 0).apply {
+            createContext(PATH, ::handle)
+            executor = Executors.newSingleThreadExecutor { Thread(it, "MetricsServer").apply { isDaemon = true } }
+            start()
+        }
+        log.info("Serving metrics on port $port at $PATH")
+    }
+
+    /** Stops serving the metrics. */
+    fun stop() {
+        httpServer?.stop(0)
+        httpServer = null
+    }
+
+    private fun handle(exchange: HttpExchange) {
+        try {
+            if (exchange.requestMethod != "GET") {
+                exchange.sendResponseHeaders(405, -1)
+                return
+            }
+            val body = registry.scrape().toByteArray(Charsets.UTF_8)
+            exchange.responseHeaders["Content-Type"] = CONTENT_TYPE
+            exchange.sendResponseHeaders(200, body.size.toLong())
+            exchange.responseBody.write(body)
+        } catch (exception: Exception) {
+            log.error("Failed to serve metrics", exception)
+        } finally {
+            exchange.close()
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package dev.robocode.tankroyale.server.metrics
+
+/**
+ * Writer of metrics in the Prometheus text exposition format (version 0.0.4). The samples are grouped by metric
+ * family, so multiple collectors can write samples to the same family, e.g. one collector per game room.
+ */
+class PrometheusWriter {
+
+    private class Family(val type: String, val help: String) {
+        val samples = StringBuilder()
+    }
+
+    private val families = LinkedHashMap<String, Family>()
+
+    /**
+     * Writes a counter sample.
+     * @param name is the name of the counter, which should end with `_total`.
+     * @param help is the description of the counter.
+     * @param value is the value of the counter.
+     * @param labels is the labels of the sample.
+     */
+    fun counter(name: String, help: String, value: Double, vararg labels: Pair<String, String>) {
+        sample(family(name, "counter", help), name, value, labels)
+    }
+
+    /**
+     * Writes a gauge sample.
+     * @param name is the name of the gauge.
+     * @param help is the description of the gauge.
+     * @param value is the value of the gauge.
+     * @param labels is the labels of the sample.
+     */
+    fun gauge(name: String, help: String, value: Double, vararg labels: Pair<String, String>) {
+        sample(family(name, "gauge", help), name, value, labels)
+    }
+
+    /**
+     * Writes the samples of a summary with durations, where the durations are written in seconds.
+     * @param name is the name of the summary, which should end with `_seconds`.
+     * @param help is the description of the summary.
+     * @param summary is the summary of durations in nanoseconds.
+     * @param labels is the labels of the samples.
+     */
+    fun summary(name: String, help: String, summary: SummaryMetric, vararg labels: Pair<String, String>) {
+        val family = family(name, "summary", help)
+        val snapshot = summary.snapshot()
+
+        QUANTILES.forEachIndexed { index, quantile ->
+            sample(family, name, snapshot.quantiles[index] / 1e9, arrayOf(*labels, "quantile" to quantile.toString()))
+        }
+        sample(family, "${name}_sum", snapshot.sum / 1e9, labels)
+        sample(family, "${name}_count", snapshot.count.toDouble(), labels)
+    }
+
+    private fun family(name: String, type: String, help: String): Family =
+        families.getOrPut(name) { Family(type, help) }
+
+    private fun sample(family: Family, name: String, value: Double, labels: Array<out Pair<String, String>>) {
+        family.samples.apply {
+            append(name)
+            if (labels.isNotEmpty()) {
+                labels.joinTo(this, ",", "{", "}") { (key, labelValue) -> "$key=\"${escape(labelValue)}\"" }
+            }
+            append(' ').append(format(value)).append('\n')
+        }
+    }
+
+    override fun toString(): String = buildString {
+        families.forEach { (name, family) ->
+            append("# HELP ").append(name).append(' ').append(family.help).append('\n')
+            append("# TYPE ").append(name).append(' ').append(family.type).append('\n')
+            append(family.samples)
+        }
+    }
+
+    private fun escape(value: String) = value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n")
+
+    private fun format(value: Double) = when {
+        value.isNaN() -> "NaN"
+        value == Double.POSITIVE_INFINITY -> "+Inf"
+        value == Double.NEGATIVE_INFINITY -> "-Inf"
+        value == Math.rint(value) && Math.abs(value) < 1e15 -> value.toLong().toString()
+        else -> value.toString()
+    }
+}
@@ -0,0 +1,29 @@
+package dev.robocode.tankroyale.server.metrics
+
+import dev.robocode.tankroyale.server.util.Histogram
+
+/** Quantiles written for summaries */
+internal val QUANTILES = doubleArrayOf(0.5, 0.9, 0.99)
+
+/** Thread-safe summary over durations in nanoseconds, which is backed by a [Histogram]. */
+class SummaryMetric {
+
+    private val histogram = Histogram()
+
+    /** Records a duration in nanoseconds. */
+    @Synchronized
+    fun record(durationInNanos: Long) {
+        histogram.record(durationInNanos)
+    }
+
+    /** Returns a snapshot with the count, sum, and [QUANTILES] of the recorded durations. */
+    @Synchronized
+    fun snapshot() = SummarySnapshot(
+        count = histogram.count,
+        sum = histogram.sum,
+        quantiles = QUANTILES.map { histogram.valueAtPercentile(it * 100) },
+    )
+}
+
+/** Snapshot of a [SummaryMetric], where the sum and quantiles are in nanoseconds. */
+data class SummarySnapshot(val count: Long, val sum: Long, val quantiles: List<Long>)
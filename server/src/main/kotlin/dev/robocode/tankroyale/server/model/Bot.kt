@@ -63,4 +63,40 @@ data class Bot(
     /** Y coordinate which is a shortcut for `position.y`. */
     override val y: Double
         get() = position.y
+
+    companion object {
+        /**
+         * Returns an immutable copy of a bot.
+         * @param bot is the bot to copy.
+         * @return a [Bot] instance that is a copy of the bot.
+         */
+        fun copyOf(bot: IBot) = Bot(
+            bot.id,
+            bot.isDroid,
+            bot.sessionId,
+            bot.energy,
+            Point(bot.x, bot.y),
+            bot.direction,
+            bot.gunDirection,
+            bot.radarDirection,
+            bot.radarSpreadAngle,
+            bot.speed,
+            bot.turnRate,
+            bot.gunTurnRate,
+            bot.radarTurnRate,
+            bot.gunHeat,
+            bot.bodyColor,
+            bot.turretColor,
+            bot.radarColor,
+            bot.bulletColor,
+            bot.scanColor,
+            bot.tracksColor,
+            bot.gunColor,
+            bot.stdOut,
+            bot.stdErr,
+            bot.isDebuggingEnabled,
+            bot.debugGraphics,
+            bot.teammateIds,
+        )
+    }
 }
\ No newline at end of file
@@ -0,0 +1,298 @@
+package dev.robocode.tankroyale.server.model
+
+import dev.robocode.tankroyale.server.rules.INITIAL_GUN_HEAT
+import kotlin.math.cos
+import kotlin.math.sin
+
+/**
+ * Structure-of-arrays over the state of the bots in a round, where each state field is kept in a column indexed by a
+ * dense bot slot, e.g. the slot given by a [ParticipantIndex]. The phases of a turn loop over the columns of the bots
+ * in the round, so the bots are updated without allocating bot objects, and the bots of a turn are read from the
+ * [BotSnapshots] taken by [snapshot].
+ *
+ * The bots in the round are kept in the order they were added, which is the order the bots are processed in.
+ * @param capacity is the number of bot slots.
+ */
+class BotColumns(capacity: Int) {
+
+    /** Bot id values */
+    val id = IntArray(capacity)
+
+    /** Teammate ids */
+    val teammateIds = Array<Set<BotId>>(capacity) { emptySet() }
+
+    /** Flags specifying if the bots are droids */
+    val isDroid = BooleanArray(capacity)
+
+    /** Energy levels */
+    val energy = DoubleArray(capacity)
+
+    /** X coordinates */
+    val x = DoubleArray(capacity)
+
+    /** Y coordinates */
+    val y = DoubleArray(capacity)
+
+    /** Driving directions in degrees */
+    val direction = DoubleArray(capacity)
+
+    /** Gun directions in degrees */
+    val gunDirection = DoubleArray(capacity)
+
+    /** Radar directions in degrees */
+    val radarDirection = DoubleArray(capacity)
+
+    /** Radar spread angles in degrees */
+    val radarSpreadAngle = DoubleArray(capacity)
+
+    /** Speeds */
+    val speed = DoubleArray(capacity)
+
+    /** Turn rates */
+    val turnRate = DoubleArray(capacity)
+
+    /** Gun turn rates */
+    val gunTurnRate = DoubleArray(capacity)
+
+    /** Radar turn rates */
+    val radarTurnRate = DoubleArray(capacity)
+
+    /** Gun heats */
+    val gunHeat = DoubleArray(capacity)
+
+    /** Body colors */
+    val bodyColor = arrayOfNulls<Color>(capacity)
+
+    /** Gun turret colors */
+    val turretColor = arrayOfNulls<Color>(capacity)
+
+    /** Radar colors */
+    val radarColor = arrayOfNulls<Color>(capacity)
+
+    /** Bullet colors */
+    val bulletColor = arrayOfNulls<Color>(capacity)
+
+    /** Scan colors */
+    val scanColor = arrayOfNulls<Color>(capacity)
+
+    /** Tracks colors */
+    val tracksColor = arrayOfNulls<Color>(capacity)
+
+    /** Gun colors */
+    val gunColor = arrayOfNulls<Color>(capacity)
+
+    /** Standard output (last data) */
+    val stdOut = arrayOfNulls<String>(capacity)
+
+    /** Standard error (last data) */
+    val stdErr = arrayOfNulls<String>(capacity)
+
+    /** Flags indicating if graphical debugging is enabled */
+    val isDebuggingEnabled = BooleanArray(capacity)
+
+    /** Debug graphics as SVG strings */
+    val debugGraphics = arrayOfNulls<String>(capacity)
+
+    /** X coordinates from the start of the current turn, i.e. from the previous turn */
+    val previousX = DoubleArray(capacity)
+
+    /** Y coordinates from the start of the current turn, i.e. from the previous turn */
+    val previousY = DoubleArray(capacity)
+
+    /** Driving directions from the start of the current turn, i.e. from the previous turn */
+    val previousDirection = DoubleArray(capacity)
+
+    /** Gun directions from the start of the current turn, i.e. from the previous turn */
+    val previousGunDirection = DoubleArray(capacity)
+
+    /** Radar directions from the start of the current turn, i.e. from the previous turn */
+    val previousRadarDirection = DoubleArray(capacity)
+
+    /** Slots of the bots in the round in the order the bots were added */
+    private val slots = IntArray(capacity)
+
+    /** Flags specifying if the bots are in the round */
+    private val isInRound = BooleanArray(capacity)
+
+    /** Number of bots in the round */
+    var count = 0
+        private set
+
+    /**
+     * Returns the slot of a bot in the round.
+     * @param index is the index of the bot in the order the bots were added in the range [0..count[.
+     * @return the slot of the bot.
+     */
+    fun slotAt(index: Int): Int = slots[index]
+
+    /** Checks if the bot in a slot is in the round. */
+    fun isInRound(slot: Int): Boolean = isInRound[slot]
+
+    /** Returns the id of the bot in a slot. */
+    fun idOf(slot: Int) = BotId(id[slot])
+
+    /** Removes all bots from the round. */
+    fun clear() {
+        for (index in 0 until count) isInRound[slots[index]] = false
+        count = 0
+    }
+
+    /**
+     * Adds a bot to the round, where all state of the bot is reset to the initial state.
+     * @param slot is the slot of the bot.
+     * @param botId is the id of the bot.
+     * @param teammateIds is the ids of the teammates of the bot.
+     * @param isDroid is the flag specifying if the bot is a droid.
+     * @param energy is the initial energy level.
+     * @param x is the initial x coordinate.
+     * @param y is the initial y coordinate.
+     * @param direction is the initial direction of the body, gun, and radar in degrees.
+     */
+    fun add(
+        slot: Int,
+        botId: BotId,
+        teammateIds: Set<BotId>,
+        isDroid: Boolean,
+        energy: Double,
+        x: Double,
+        y: Double,
+        direction: Double,
+    ) {
+        check(!isInRound[slot]) { "Slot $slot is already in the round" }
+
+        id[slot] = botId.value
+        this.teammateIds[slot] = teammateIds
+        this.isDroid[slot] = isDroid
+        this.energy[slot] = energy
+        this.x[slot] = x
+        this.y[slot] = y
+        this.direction[slot] = direction
+        gunDirection[slot] = direction
+        radarDirection[slot] = direction
+        radarSpreadAngle[slot] = 0.0
+        speed[slot] = 0.0
+        turnRate[slot] = 0.0
+        gunTurnRate[slot] = 0.0
+        radarTurnRate[slot] = 0.0
+        gunHeat[slot] = INITIAL_GUN_HEAT
+        bodyColor[slot] = null
+        turretColor[slot] = null
+        radarColor[slot] = null
+        bulletColor[slot] = null
+        scanColor[slot] = null
+        tracksColor[slot] = null
+        gunColor[slot] = null
+        stdOut[slot] = null
+        stdErr[slot] = null
+        isDebuggingEnabled[slot] = false
+        debugGraphics[slot] = null
+
+        isInRound[slot] = true
+        slots[count++] = slot
+    }
+
+    /** Removes the dead bots from the round, where the remaining bots keep their order. */
+    fun removeDeadBots() {
+        var remaining = 0
+        for (index in 0 until count) {
+            val slot = slots[index]
+            if (isDead(slot)) {
+                isInRound[slot] = false
+            } else {
+                slots[remaining++] = slot
+            }
+        }
+        count = remaining
+    }
+
+    /** Stores the current positions and directions of all bots into the columns of the previous turn. */
+    fun storePreviousStates() {
+        x.copyInto(previousX)
+        y.copyInto(previousY)
+        direction.copyInto(previousDirection)
+        gunDirection.copyInto(previousGunDirection)
+        radarDirection.copyInto(previousRadarDirection)
+    }
+
+    /** Checks if the bot in a slot is alive. */
+    fun isAlive(slot: Int): Boolean = energy[slot] >= 0
+
+    /** Checks if the bot in a slot is dead. */
+    fun isDead(slot: Int): Boolean = !isAlive(slot)
+
+    /** Checks if the bot in a slot is enabled (can move). */
+    fun isEnabled(slot: Int): Boolean = isAlive(slot) && energy[slot].isNotNearTo(.0)
+
+    /** Checks if the bot in a slot is disabled (cannot move). */
+    fun isDisabled(slot: Int): Boolean = isAlive(slot) && energy[slot].isNearTo(.0)
+
+    /**
+     * Adds damage to the bot in a slot.
+     * @param slot is the slot of the bot.
+     * @param damage is the damage done to the bot.
+     * @return `true` if the bot got killed due to the damage, `false` otherwise.
+     */
+    fun addDamage(slot: Int, damage: Double): Boolean {
+        val aliveBefore = isAlive(slot)
+        energy[slot] -= damage
+        return isDead(slot) && aliveBefore
+    }
+
+    /**
+     * Change the energy level of the bot in a slot.
+     * @param slot is the slot of the bot.
+     * @param deltaEnergy is the delta energy to add to the current energy level,
+     * which can be both positive and negative.
+     */
+    fun changeEnergy(slot: Int, deltaEnergy: Double) {
+        energy[slot] += deltaEnergy
+    }
+
+    /**
+     * Moves the bot in a slot to the new (next turn) position based on the current position, the driving direction,
+     * and the speed.
+     * @param slot is the slot of the bot.
+     */
+    fun moveToNewPosition(slot: Int) {
+        val angle = Math.toRadians(direction[slot])
+        x[slot] += cos(angle) * speed[slot]
+        y[slot] += sin(angle) * speed[slot]
+    }
+
+    /**
+     * Returns an immutable copy of the bot in a slot.
+     * @param slot is the slot of the bot.
+     * @return a [Bot] with the current state of the bot.
+     */
+    fun toBot(slot: Int) = Bot(
+        id = idOf(slot),
+        isDroid = isDroid[slot],
+        sessionId = null,
+        energy = energy[slot],
+        position = Point(x[slot], y[slot]),
+        direction = direction[slot],
+        gunDirection = gunDirection[slot],
+        radarDirection = radarDirection[slot],
+        radarSpreadAngle = radarSpreadAngle[slot],
+        speed = speed[slot],
+        turnRate = turnRate[slot],
+        gunTurnRate = gunTurnRate[slot],
+        radarTurnRate = radarTurnRate[slot],
+        gunHeat = gunHeat[slot],
+        bodyColor = bodyColor[slot],
+        turretColor = turretColor[slot],
+        radarColor = radarColor[slot],
+        bulletColor = bulletColor[slot],
+        scanColor = scanColor[slot],
+        tracksColor = tracksColor[slot],
+        gunColor = gunColor[slot],
+        stdOut = stdOut[slot],
+        stdErr = stdErr[slot],
+        isDebuggingEnabled = isDebuggingEnabled[slot],
+        debugGraphics = debugGraphics[slot],
+        teammateIds = teammateIds[slot],
+    )
+
+    /** Returns immutable snapshots of the bots in the round in the order of the bots. */
+    fun snapshot(): BotSnapshots = BotSnapshots.of(this)
+}
@@ -0,0 +1,172 @@
+package dev.robocode.tankroyale.server.model
+
+/**
+ * Immutable snapshots of the bots of a turn, where the state of the bots is packed into a few arrays with a row per
+ * bot instead of being copied into a bot object per bot. The bots are read through views over the rows, which are
+ * created when a bot is read for the first time.
+ */
+class BotSnapshots private constructor(
+    /** Number of bots */
+    override val size: Int,
+    /** Bot id values per row */
+    private val ids: IntArray,
+    /** Numeric fields with [NUMBER_FIELDS] values per row */
+    private val numbers: DoubleArray,
+    /** Object fields with [OBJECT_FIELDS] values per row */
+    private val objects: Array<Any?>,
+    /** Flag fields with [FLAG_FIELDS] values per row */
+    private val flags: BooleanArray,
+) : AbstractSet<IBot>() {
+
+    /** Views over the rows, which are created on demand */
+    private val views = arrayOfNulls<IBot>(size)
+
+    /**
+     * Returns the bot in a row.
+     * @param row is the row in the range [0..size[.
+     * @return a view over the bot in the row.
+     */
+    operator fun get(row: Int): IBot = views[row] ?: BotView(row).also { views[row] = it }
+
+    /** Returns the id of the bot in a row without creating a view of the bot. */
+    fun idAt(row: Int) = BotId(ids[row])
+
+    override fun iterator(): Iterator<IBot> = object : Iterator<IBot> {
+        private var row = 0
+
+        override fun hasNext() = row < size
+
+        override fun next(): IBot {
+            if (row >= size) throw NoSuchElementException()
+            return get(row++)
+        }
+    }
+
+    /** View over a bot in a row of the snapshots */
+    private inner class BotView(private val row: Int) : IBot {
+
+        private fun number(field: Int) = numbers[row * NUMBER_FIELDS + field]
+
+        @Suppress("UNCHECKED_CAST")
+        private fun <T> obj(field: Int) = objects[row * OBJECT_FIELDS + field] as T
+
+        private fun flag(field: Int) = flags[row * FLAG_FIELDS + field]
+
+        override val id get() = BotId(ids[row])
+        override val teammateIds: Set<BotId> get() = obj(TEAMMATE_IDS)
+        override val isDroid get() = flag(IS_DROID)
+        override val sessionId: String? get() = null
+        override val energy get() = number(ENERGY)
+        override val position: IPoint get() = Point(x, y)
+        override val x get() = number(X)
+        override val y get() = number(Y)
+        override val direction get() = number(DIRECTION)
+        override val gunDirection get() = number(GUN_DIRECTION)
+        override val radarDirection get() = number(RADAR_DIRECTION)
+        override val radarSpreadAngle get() = number(RADAR_SPREAD_ANGLE)
+        override val speed get() = number(SPEED)
+        override val turnRate get() = number(TURN_RATE)
+        override val gunTurnRate get() = number(GUN_TURN_RATE)
+        override val radarTurnRate get() = number(RADAR_TURN_RATE)
+        override val gunHeat get() = number(GUN_HEAT)
+        override val bodyColor: Color? get() = obj(BODY_COLOR)
+        override val turretColor: Color? get() = obj(TURRET_COLOR)
+        override val radarColor: Color? get() = obj(RADAR_COLOR)
+        override val bulletColor: Color? get() = obj(BULLET_COLOR)
+        override val scanColor: Color? get() = obj(SCAN_COLOR)
+        override val tracksColor: Color? get() = obj(TRACKS_COLOR)
+        override val gunColor: Color? get() = obj(GUN_COLOR)
+        override val stdOut: String? get() = obj(STD_OUT)
+        override val stdErr: String? get() = obj(STD_ERR)
+        override val isDebuggingEnabled get() = flag(IS_DEBUGGING_ENABLED)
+        override val debugGraphics: String? get() = obj(DEBUG_GRAPHICS)
+
+        override fun toString() = "Bot(id=$id, energy=$energy, x=$x, y=$y, direction=$direction)"
+    }
+
+    companion object {
+        private const val ENERGY = 0
+        private const val X = 1
+        private const val Y = 2
+        private const val DIRECTION = 3
+        private const val GUN_DIRECTION = 4
+        private const val RADAR_DIRECTION = 5
+        private const val RADAR_SPREAD_ANGLE = 6
+        private const val SPEED = 7
+        private const val TURN_RATE = 8
+        private const val GUN_TURN_RATE = 9
+        private const val RADAR_TURN_RATE = 10
+        private const val GUN_HEAT = 11
+        private const val NUMBER_FIELDS = 12
+
+        private const val TEAMMATE_IDS = 0
+        private const val BODY_COLOR = 1
+        private const val TURRET_COLOR = 2
+        private const val RADAR_COLOR = 3
+        private const val BULLET_COLOR = 4
+        private const val SCAN_COLOR = 5
+        private const val TRACKS_COLOR = 6
+        private const val GUN_COLOR = 7
+        private const val STD_OUT = 8
+        private const val STD_ERR = 9
+        private const val DEBUG_GRAPHICS = 10
+        private const val OBJECT_FIELDS = 11
+
+        private const val IS_DROID = 0
+        private const val IS_DEBUGGING_ENABLED = 1
+        private const val FLAG_FIELDS = 2
+
+        /** Snapshots without any bots */
+        val EMPTY = BotSnapshots(0, IntArray(0), DoubleArray(0), emptyArray(), BooleanArray(0))
+
+        /**
+         * Takes snapshots of the bots in a round.
+         * @param bots is the columns with the bots.
+         * @return snapshots of the bots in the round in the order of the bots.
+         */
+        fun of(bots: BotColumns): BotSnapshots {
+            val size = bots.count
+            val ids = IntArray(size)
+            val numbers = DoubleArray(size * NUMBER_FIELDS)
+            val objects = arrayOfNulls<Any>(size * OBJECT_FIELDS)
+            val flags = BooleanArray(size * FLAG_FIELDS)
+
+            for (row in 0 until size) {
+                val slot = bots.slotAt(row)
+                ids[row] = bots.id[slot]
+
+                val n = row * NUMBER_FIELDS
+                numbers[n + ENERGY] = bots.energy[slot]
+                numbers[n + X] = bots.x[slot]
+                numbers[n + Y] = bots.y[slot]
+                numbers[n + DIRECTION] = bots.direction[slot]
+                numbers[n + GUN_DIRECTION] = bots.gunDirection[slot]
+                numbers[n + RADAR_DIRECTION] = bots.radarDirection[slot]
+                numbers[n + RADAR_SPREAD_ANGLE] = bots.radarSpreadAngle[slot]
+                numbers[n + SPEED] = bots.speed[slot]
+                numbers[n + TURN_RATE] = bots.turnRate[slot]
+                numbers[n + GUN_TURN_RATE] = bots.gunTurnRate[slot]
+                numbers[n + RADAR_TURN_RATE] = bots.radarTurnRate[slot]
+                numbers[n + GUN_HEAT] = bots.gunHeat[slot]
+
+                val o = row * OBJECT_FIELDS
+                objects[o + TEAMMATE_IDS] = bots.teammateIds[slot]
+                objects[o + BODY_COLOR] = bots.bodyColor[slot]
+                objects[o + TURRET_COLOR] = bots.turretColor[slot]
+                objects[o + RADAR_COLOR] = bots.radarColor[slot]
+                objects[o + BULLET_COLOR] = bots.bulletColor[slot]
+                objects[o + SCAN_COLOR] = bots.scanColor[slot]
+                objects[o + TRACKS_COLOR] = bots.tracksColor[slot]
+                objects[o + GUN_COLOR] = bots.gunColor[slot]
+                objects[o + STD_OUT] = bots.stdOut[slot]
+                objects[o + STD_ERR] = bots.stdErr[slot]
+                objects[o + DEBUG_GRAPHICS] = bots.debugGraphics[slot]
+
+                val f = row * FLAG_FIELDS
+                flags[f + IS_DROID] = bots.isDroid[slot]
+                flags[f + IS_DEBUGGING_ENABLED] = bots.isDebuggingEnabled[slot]
+            }
+            return BotSnapshots(size, ids, numbers, objects, flags)
+        }
+    }
+}
@@ -22,12 +22,6 @@ data class Bullet(
 
     ) : IBullet {
 
-    /**
-     * Returns a mutable copy of this point.
-     * @return a [MutableBullet] instance that is a copy of this bullet.
-     */
-    fun toMutableBullet() = MutableBullet(id, botId, power, direction, color, startPosition, tick)
-
     /**
      * Returns a hash code that is the (unique) id of this bullet making this call fast.
      * @return the (unique) id of this bullet.
@@ -47,4 +41,15 @@ data class Bullet(
     override fun equals(other: Any?): Boolean {
         return other is IBullet && other.id == id
     }
+
+    companion object {
+        /**
+         * Returns an immutable copy of a bullet.
+         * @param bullet is the bullet to copy.
+         * @return a [Bullet] instance that is a copy of the bullet.
+         */
+        fun copyOf(bullet: IBullet) = Bullet(
+            bullet.id, bullet.botId, bullet.power, bullet.direction, bullet.color, bullet.startPosition, bullet.tick
+        )
+    }
 }
\ No newline at end of file
@@ -0,0 +1,211 @@
+package dev.robocode.tankroyale.server.model
+
+import dev.robocode.tankroyale.server.rules.calcBulletSpeed
+import kotlin.math.cos
+import kotlin.math.sin
+
+/**
+ * Structure-of-arrays over the bullets in the arena, where each bullet field is kept in a column indexed by the
+ * position of the bullet in the order the bullets were fired. The columns grow when more bullets are in the arena than
+ * the columns can hold, and are reused from turn to turn, so moving and checking bullets does not allocate bullet
+ * objects.
+ *
+ * Bullets are removed in two steps. A bullet is first marked as removed by [remove], where it keeps its index, and the
+ * marked bullets are then dropped by [removeMarked]. This way, a bullet removed by a hit can still hit other bullets
+ * and bots within the same check.
+ * @param initialCapacity is the initial number of bullets the columns can hold.
+ */
+class BulletColumns(initialCapacity: Int = 64) {
+
+    /** Bullet id values */
+    var id = IntArray(initialCapacity)
+        private set
+
+    /** Id values of the bots that fired the bullets */
+    var botId = IntArray(initialCapacity)
+        private set
+
+    /** Powers */
+    var power = DoubleArray(initialCapacity)
+        private set
+
+    /** Directions in degrees */
+    var direction = DoubleArray(initialCapacity)
+        private set
+
+    /** Colors */
+    var color = arrayOfNulls<Color>(initialCapacity)
+        private set
+
+    /** X coordinates of the start positions */
+    var startX = DoubleArray(initialCapacity)
+        private set
+
+    /** Y coordinates of the start positions */
+    var startY = DoubleArray(initialCapacity)
+        private set
+
+    /** Ticks, which are the number of turns since the bullets were fired */
+    var tick = IntArray(initialCapacity)
+        private set
+
+    /** X coordinates of the current positions, which are updated by [incrementTicks] */
+    var x = DoubleArray(initialCapacity)
+        private set
+
+    /** Y coordinates of the current positions, which are updated by [incrementTicks] */
+    var y = DoubleArray(initialCapacity)
+        private set
+
+    /** X coordinates of the next positions, which are updated by [incrementTicks] */
+    var nextX = DoubleArray(initialCapacity)
+        private set
+
+    /** Y coordinates of the next positions, which are updated by [incrementTicks] */
+    var nextY = DoubleArray(initialCapacity)
+        private set
+
+    /** Flags marking the bullets that have been removed, but not dropped yet */
+    private var isRemoved = BooleanArray(initialCapacity)
+
+    /** Number of bullets, including bullets marked as removed */
+    var count = 0
+        private set
+
+    /** Returns the bullet id of the bullet at an index. */
+    fun idOf(index: Int) = BulletId(id[index])
+
+    /** Returns the id of the bot that fired the bullet at an index. */
+    fun botIdOf(index: Int) = BotId(botId[index])
+
+    /** Removes all bullets. */
+    fun clear() {
+        count = 0
+    }
+
+    /**
+     * Adds a new bullet with a tick of 0 after the other bullets.
+     * @param id is the id of the bullet.
+     * @param botId is the id of the bot that fired the bullet.
+     * @param power is the power of the bullet.
+     * @param direction is the direction of the bullet in degrees.
+     * @param color is the color of the bullet.
+     * @param startX is the x coordinate of the start position.
+     * @param startY is the y coordinate of the start position.
+     * @return the index of the new bullet.
+     */
+    fun add(
+        id: BulletId,
+        botId: BotId,
+        power: Double,
+        direction: Double,
+        color: Color?,
+        startX: Double,
+        startY: Double,
+    ): Int {
+        if (count == this.id.size) grow()
+
+        val index = count++
+        this.id[index] = id.value
+        this.botId[index] = botId.value
+        this.power[index] = power
+        this.direction[index] = direction
+        this.color[index] = color
+        this.startX[index] = startX
+        this.startY[index] = startY
+        tick[index] = 0
+        x[index] = startX
+        y[index] = startY
+        isRemoved[index] = false
+        return index
+    }
+
+    /**
+     * Increments the ticks of all bullets, and updates the current and next positions of the bullets based on their
+     * start positions and ticks, like [IBullet.position] and [IBullet.nextPosition].
+     */
+    fun incrementTicks() {
+        for (index in 0 until count) {
+            val tick = ++tick[index]
+
+            val angle = Math.toRadians(direction[index])
+            val cos = cos(angle)
+            val sin = sin(angle)
+            val speed = calcBulletSpeed(power[index])
+
+            val distance = speed * tick
+            x[index] = startX[index] + cos * distance
+            y[index] = startY[index] + sin * distance
+
+            val nextDistance = speed * (tick + 1)
+            nextX[index] = startX[index] + cos * nextDistance
+            nextY[index] = startY[index] + sin * nextDistance
+        }
+    }
+
+    /** Marks the bullet at an index as removed, where the bullet keeps its index until [removeMarked] is called. */
+    fun remove(index: Int) {
+        isRemoved[index] = true
+    }
+
+    /** Drops the bullets marked as removed, where the remaining bullets keep their order. */
+    fun removeMarked() {
+        var remaining = 0
+        for (index in 0 until count) {
+            if (isRemoved[index]) continue
+            if (remaining != index) {
+                id[remaining] = id[index]
+                botId[remaining] = botId[index]
+                power[remaining] = power[index]
+                direction[remaining] = direction[index]
+                color[remaining] = color[index]
+                startX[remaining] = startX[index]
+                startY[remaining] = startY[index]
+                tick[remaining] = tick[index]
+                x[remaining] = x[index]
+                y[remaining] = y[index]
+                nextX[remaining] = nextX[index]
+                nextY[remaining] = nextY[index]
+                isRemoved[remaining] = false
+            }
+            remaining++
+        }
+        for (index in remaining until count) color[index] = null
+        count = remaining
+    }
+
+    /**
+     * Returns an immutable copy of the bullet at an index.
+     * @param index is the index of the bullet.
+     * @return a [Bullet] with the current state of the bullet.
+     */
+    fun toBullet(index: Int) = Bullet(
+        id = idOf(index),
+        botId = botIdOf(index),
+        power = power[index],
+        direction = direction[index],
+        color = color[index],
+        startPosition = Point(startX[index], startY[index]),
+        tick = tick[index],
+    )
+
+    /** Returns immutable snapshots of the bullets in the order of the bullets, where no bullets may be marked. */
+    fun snapshot(): BulletSnapshots = BulletSnapshots.of(this)
+
+    private fun grow() {
+        val capacity = id.size * 2
+        id = id.copyOf(capacity)
+        botId = botId.copyOf(capacity)
+        power = power.copyOf(capacity)
+        direction = direction.copyOf(capacity)
+        color = color.copyOf(capacity)
+        startX = startX.copyOf(capacity)
+        startY = startY.copyOf(capacity)
+        tick = tick.copyOf(capacity)
+        x = x.copyOf(capacity)
+        y = y.copyOf(capacity)
+        nextX = nextX.copyOf(capacity)
+        nextY = nextY.copyOf(capacity)
+        isRemoved = isRemoved.copyOf(capacity)
+    }
+}
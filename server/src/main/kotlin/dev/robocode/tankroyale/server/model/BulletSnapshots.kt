@@ -0,0 +1,102 @@
+package dev.robocode.tankroyale.server.model
+
+/**
+ * Immutable snapshots of the bullets of a turn, where the state of the bullets is packed into a few arrays with a row
+ * per bullet instead of being copied into a bullet object per bullet. The bullets are read through views over the
+ * rows, which are created when a bullet is read for the first time.
+ */
+class BulletSnapshots private constructor(
+    /** Number of bullets */
+    override val size: Int,
+    /** Integer fields with [INT_FIELDS] values per row */
+    private val ints: IntArray,
+    /** Numeric fields with [NUMBER_FIELDS] values per row */
+    private val numbers: DoubleArray,
+    /** Colors per row */
+    private val colors: Array<Color?>,
+) : AbstractSet<IBullet>() {
+
+    /** Views over the rows, which are created on demand */
+    private val views = arrayOfNulls<IBullet>(size)
+
+    /**
+     * Returns the bullet in a row.
+     * @param row is the row in the range [0..size[.
+     * @return a view over the bullet in the row.
+     */
+    operator fun get(row: Int): IBullet = views[row] ?: BulletView(row).also { views[row] = it }
+
+    override fun iterator(): Iterator<IBullet> = object : Iterator<IBullet> {
+        private var row = 0
+
+        override fun hasNext() = row < size
+
+        override fun next(): IBullet {
+            if (row >= size) throw NoSuchElementException()
+            return get(row++)
+        }
+    }
+
+    /** View over a bullet in a row of the snapshots, which equals any bullet with the same id like [Bullet]. */
+    private inner class BulletView(private val row: Int) : IBullet {
+
+        private fun int(field: Int) = ints[row * INT_FIELDS + field]
+
+        private fun number(field: Int) = numbers[row * NUMBER_FIELDS + field]
+
+        override val id get() = BulletId(int(ID))
+        override val botId get() = BotId(int(BOT_ID))
+        override val power get() = number(POWER)
+        override val direction get() = number(DIRECTION)
+        override val color: Color? get() = colors[row]
+        override val startPosition get() = Point(number(START_X), number(START_Y))
+        override val tick get() = int(TICK)
+
+        override fun hashCode() = id.value
+
+        override fun equals(other: Any?) = other is IBullet && other.id == id
+
+        override fun toString() = "Bullet(id=${id.value}, botId=$botId, power=$power, tick=$tick)"
+    }
+
+    companion object {
+        private const val ID = 0
+        private const val BOT_ID = 1
+        private const val TICK = 2
+        private const val INT_FIELDS = 3
+
+        private const val POWER = 0
+        private const val DIRECTION = 1
+        private const val START_X = 2
+        private const val START_Y = 3
+        private const val NUMBER_FIELDS = 4
+
+        /** Snapshots without any bullets */
+        val EMPTY = BulletSnapshots(0, IntArray(0), DoubleArray(0), emptyArray())
+
+        /**
+         * Takes snapshots of bullets.
+         * @param bullets is the columns with the bullets.
+         * @return snapshots of the bullets in the order of the bullets.
+         */
+        fun of(bullets: BulletColumns): BulletSnapshots {
+            val size = bullets.count
+            val ints = IntArray(size * INT_FIELDS)
+            val numbers = DoubleArray(size * NUMBER_FIELDS)
+
+            for (row in 0 until size) {
+                val i = row * INT_FIELDS
+                ints[i + ID] = bullets.id[row]
+                ints[i + BOT_ID] = bullets.botId[row]
+                ints[i + TICK] = bullets.tick[row]
+
+                val n = row * NUMBER_FIELDS
+                numbers[n + POWER] = bullets.power[row]
+                numbers[n + DIRECTION] = bullets.direction[row]
+                numbers[n + START_X] = bullets.startX[row]
+                numbers[n + START_Y] = bullets.startY[row]
+            }
+            return BulletSnapshots(size, ints, numbers, bullets.color.copyOf(size))
+        }
+    }
+}
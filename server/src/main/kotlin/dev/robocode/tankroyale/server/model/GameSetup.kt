@@ -38,6 +38,15 @@ data class GameSetup(
     /** Default turns per second (TPS) */
     val defaultTurnsPerSecond: Int = DEFAULT_TURNS_PER_SECOND,
 
+    /** Seed for the random generator of the game. A random seed is used if `null` */
+    val seed: Long? = null,
+
+    /** Flag specifying if each turn waits for the intents of all bots instead of timing out */
+    val isLockstep: Boolean = false,
+
+    /** Flag specifying if the turn timeout is adapted to the measured response times of the bots */
+    val isAdaptiveTurnTimeout: Boolean = false,
+
     /** Flag specifying if the arena width is locked */
     val isArenaWidthLocked: Boolean,
 
@@ -14,10 +14,10 @@ interface ITurn {
     val bullets: Set<IBullet>
 
     /** Observer events  */
-    val observerEvents: Set<Event>
+    val observerEvents: List<Event>
 
     /** Map over bot events  */
-    val botEvents: Map<BotId, Set<Event>>
+    val botEvents: Map<BotId, List<Event>>
 
     /**
      * Returns a bot instance by id.
@@ -29,7 +29,7 @@ interface ITurn {
     /**
      * Returns the event for a specific bot.
      * @param botId is the id of the bot.
-     * @return a set of bot events.
+     * @return a list of bot events in the order they occurred.
      */
-    fun getEvents(botId: BotId): Set<Event> = botEvents[botId] ?: HashSet()
+    fun getEvents(botId: BotId): List<Event> = botEvents[botId] ?: emptyList()
 }
@@ -5,10 +5,27 @@ data class MutableRound(
     /** Round number */
     override var roundNumber: Int,
 
-    /** List of turns */
-    override val turns: MutableList<ITurn> = mutableListOf(),
+    /** History of turns of this round, which decides how many turns are retained */
+    var turnHistory: TurnHistory = LastTurnHistory(),
 
     /** Flag specifying if round has ended yet */
     override var roundEnded: Boolean = false,
 
-    ) : IRound
\ No newline at end of file
+    ) : IRound {
+
+    /** List of retained turns */
+    override val turns: List<ITurn> get() = turnHistory.turns
+
+    /** Last turn */
+    override val lastTurn: ITurn? get() = turnHistory.lastTurn
+
+    /**
+     * Ends the turn history of this round when the round is over, where only the last turn is retained, and the
+     * resources of the turn history are released.
+     */
+    fun endTurnHistory() {
+        val lastTurn = turnHistory.lastTurn
+        turnHistory.close()
+        turnHistory = LastTurnHistory().apply { lastTurn?.let(::add) }
+    }
+}
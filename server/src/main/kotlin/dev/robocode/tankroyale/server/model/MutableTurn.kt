@@ -7,29 +7,37 @@ data class MutableTurn(
     /** Turn number */
     override var turnNumber: Int,
 
-    /** Bots */
-    override val bots: MutableSet<IBot> = mutableSetOf(),
+    /** Bots, which are replaced by the snapshots of the bots at the end of each turn */
+    override var bots: BotSnapshots = BotSnapshots.EMPTY,
 
-    /** Bullets */
-    override val bullets: MutableSet<IBullet> = mutableSetOf(),
+    /** Bullets, which are replaced by the snapshots of the bullets at the end of each turn */
+    override var bullets: BulletSnapshots = BulletSnapshots.EMPTY,
 
-    /** Map over bot events  */
-    override val botEvents: MutableMap<BotId, MutableSet<Event>> = mutableMapOf(),
+    ) : ITurn {
+
+    /** Arena with the events of this turn, which is reused from turn to turn */
+    private val events = EventArena()
 
     /** Observer events  */
-    override val observerEvents: MutableSet<Event> = mutableSetOf(),
+    override val observerEvents: List<Event> get() = events.observerEvents
 
-    ) : ITurn {
+    /** Map over bot events, which is created on every call */
+    override val botEvents: Map<BotId, List<Event>> get() = events.freeze().botEvents
 
-    /** Returns an immutable copy of this turn */
-    fun toTurn() = Turn(turnNumber, copyBots(), copyBullets(), observerEvents.toSet(), copyBotEvents())
+    override fun getEvents(botId: BotId): List<Event> = events.getBotEvents(botId)
+
+    /**
+     * Returns an immutable copy of this turn. The bot and bullet snapshots are shared with the returned turn, as
+     * they are immutable, and replaced rather than modified.
+     */
+    fun toTurn() = Turn(turnNumber, bots, bullets, events.freeze())
 
     /**
      * Adds an observer event.
      * @param event is the observer event to add.
      */
     fun addObserverEvent(event: Event) {
-        observerEvents += event
+        events.addObserverEvent(event)
     }
 
     /**
@@ -38,7 +46,7 @@ data class MutableTurn(
      * @param event is the bot event, only given to the specified bot.
      */
     fun addPrivateBotEvent(botId: BotId, event: Event) {
-        botEvents.getOrPut(botId) { HashSet() }.add(event)
+        events.addBotEvent(botId, event)
     }
 
     /**
@@ -46,90 +54,11 @@ data class MutableTurn(
      * @param event is the bot event.
      */
     fun addPublicBotEvent(event: Event) {
-        bots.forEach { addPrivateBotEvent(it.id, event) }
+        for (row in 0 until bots.size) addPrivateBotEvent(bots.idAt(row), event)
     }
 
     /** Reset all events. */
     fun resetEvents() {
-        botEvents.clear()
-        observerEvents.clear()
-    }
-
-    /** Returns a deep copy of the bots */
-    private fun copyBots(): Set<IBot> {
-        return bots.map { copyBot(it) }.toSet()
-    }
-
-    /** Returns a deep copy of the bullets */
-    private fun copyBullets(): Set<IBullet> {
-        return bullets.map { copyBullet(it) }.toSet()
-    }
-
-    /** Returns a deep copy of the bot events */
-    private fun copyBotEvents(): Map<BotId, Set<Event>> {
-        return botEvents.mapValues { (_, events) -> events.toSet() }
-    }
-
-    /**
-     * Replaces all bullets with a collection of bullet copies.
-     * @param srcBullets is the collection of bullets to copy.
-     */
-    fun copyBullets(srcBullets: Collection<IBullet>) {
-        bullets.clear()
-        srcBullets.forEach { bullet -> bullets += copyBullet(bullet) }
-    }
-
-    /**
-     * Replaces all bots with a collection of bot copies.
-     * @param srcBots is the collection of bots to copy.
-     */
-    fun copyBots(srcBots: Collection<IBot>) {
-        bots.clear()
-        srcBots.forEach { bot -> bots += copyBot(bot) }
-    }
-
-    companion object {
-
-        /** Deep copies a bot */
-        private fun copyBot(bot: IBot): IBot =
-            Bot(
-                bot.id,
-                bot.isDroid,
-                bot.sessionId,
-                bot.energy,
-                Point(bot.position.x, bot.position.y),
-                bot.direction,
-                bot.gunDirection,
-                bot.radarDirection,
-                bot.radarSpreadAngle,
-                bot.speed,
-                bot.turnRate,
-                bot.gunTurnRate,
-                bot.radarTurnRate,
-                bot.gunHeat,
-                bot.bodyColor,
-                bot.turretColor,
-                bot.radarColor,
-                bot.bulletColor,
-                bot.scanColor,
-                bot.tracksColor,
-                bot.gunColor,
-                bot.stdOut,
-                bot.stdErr,
-                bot.isDebuggingEnabled,
-                bot.debugGraphics,
-            )
-
-        /** Deep copies a bullet */
-        private fun copyBullet(bullet: IBullet): IBullet =
-            Bullet(
-                bullet.id,
-                bullet.botId,
-                bullet.power,
-                bullet.direction,
-                bullet.color,
-                bullet.startPosition,
-                bullet.tick,
-            )
+        events.reset()
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,82 @@
+package dev.robocode.tankroyale.server.model
+
+import java.util.*
+
+/**
+ * Index over the participants of a game, which gives each bot a dense slot in the order of the participants. The
+ * participant and teammates of a bot are looked up in constant time, and state per bot can be kept in primitive arrays
+ * indexed by the slot.
+ *
+ * Each team is given a dense team index as well, where a bot that is not a member of a team is a team of its own.
+ * @param participantIds is the ids of the participants.
+ */
+class ParticipantIndex(participantIds: Collection<ParticipantId>) {
+
+    private val participants: Array<ParticipantId> = participantIds.toTypedArray()
+
+    private val slots: Map<BotId, Int> = participants.withIndex().associate { (slot, participantId) ->
+        participantId.botId to slot
+    }
+
+    /** Team index per slot */
+    private val teamIndices: IntArray
+
+    /** Slots of the members per team index */
+    private val teamMembers: Array<BitSet>
+
+    init {
+        val teamIndexMap = HashMap<Int /* participant id */, Int /* team index */>()
+        teamIndices = IntArray(participants.size) { slot ->
+            teamIndexMap.getOrPut(participants[slot].id) { teamIndexMap.size }
+        }
+        teamMembers = Array(teamIndexMap.size) { BitSet(participants.size) }
+        teamIndices.forEachIndexed { slot, teamIndex -> teamMembers[teamIndex].set(slot) }
+    }
+
+    /** Number of participant bots */
+    val size: Int get() = participants.size
+
+    /** Number of teams, where each bot that is not a member of a team counts as a team */
+    val teamCount: Int get() = teamMembers.size
+
+    /**
+     * Returns the slot of a bot.
+     * @param botId is the id of the bot.
+     * @return the slot of the bot in the range [0..size[.
+     */
+    fun slotOf(botId: BotId): Int = slotOrNull(botId) ?: throw IllegalStateException("No slot for botId: $botId")
+
+    /**
+     * Returns the slot of a bot, if the bot is a participant.
+     * @param botId is the id of the bot.
+     * @return the slot of the bot in the range [0..size[, or `null` if the bot is not a participant.
+     */
+    fun slotOrNull(botId: BotId): Int? = slots[botId]
+
+    /** Returns the participant id of the bot in a slot. */
+    operator fun get(slot: Int): ParticipantId = participants[slot]
+
+    /** Returns the participant id of a bot. */
+    fun participantOf(botId: BotId): ParticipantId = participants[slotOf(botId)]
+
+    /** Returns the team index of the bot in a slot. */
+    fun teamIndexOf(slot: Int): Int = teamIndices[slot]
+
+    /**
+     * Returns the ids of the teammates of the bot in a slot.
+     * @param slot is the slot of the bot.
+     * @return the bot ids of the other members of the team, which is empty if the bot is not a member of a team.
+     */
+    fun teammateIdsOf(slot: Int): Set<BotId> {
+        if (participants[slot].teamId == null) return emptySet()
+
+        val teammateIds = HashSet<BotId>()
+        val members = teamMembers[teamIndices[slot]]
+        var member = members.nextSetBit(0)
+        while (member >= 0) {
+            if (member != slot) teammateIds += participants[member].botId
+            member = members.nextSetBit(member + 1)
+        }
+        return teammateIds
+    }
+}
@@ -5,11 +5,4 @@ package dev.robocode.tankroyale.server.model
  * @param x x coordinate.
  * @param y y coordinate.
  */
-data class Point(override val x: Double, override val y: Double) : IPoint {
-    /**
-     * Returns a mutable copy of this point
-     *
-     * @return a MutablePoint that is a copy of this point.
-     */
-    fun toMutablePoint() = MutablePoint(x, y)
-}
\ No newline at end of file
+data class Point(override val x: Double, override val y: Double) : IPoint
\ No newline at end of file
@@ -13,10 +13,16 @@ data class Turn(
     /** Bullets */
     override val bullets: Set<IBullet>,
 
+    /** Bot and observer events */
+    val events: TurnEvents,
+
+    ) : ITurn {
+
     /** Observer events  */
-    override val observerEvents: Set<Event>,
+    override val observerEvents: List<Event> get() = events.observerEvents
 
     /** Map over bot events  */
-    override val botEvents: Map<BotId, Set<Event>>,
+    override val botEvents: Map<BotId, List<Event>> get() = events.botEvents
 
-    ) : ITurn
\ No newline at end of file
+    override fun getEvents(botId: BotId): List<Event> = events.getBotEvents(botId)
+}
@@ -0,0 +1,168 @@
+package dev.robocode.tankroyale.server.model
+
+import dev.robocode.tankroyale.server.event.Event
+import java.util.Arrays
+import java.util.RandomAccess
+
+/**
+ * Immutable events of a turn, which are stored in a single array, where the events of each bot and the observer events
+ * are index ranges of the array. The events of a bot and the observer events are in the order they were added.
+ */
+class TurnEvents internal constructor(
+    /** Events of the bots grouped by bot in ascending bot id order, followed by the observer events */
+    private val events: Array<Event>,
+    /** Ids of the bots with events in ascending order */
+    private val botIds: IntArray,
+    /** Start index of the events of each bot, followed by the start and end index of the observer events */
+    private val offsets: IntArray,
+) {
+    companion object {
+        /** No events */
+        val EMPTY = TurnEvents(emptyArray(), IntArray(0), IntArray(2))
+    }
+
+    /** Observer events */
+    val observerEvents: List<Event> = EventRange(offsets[botIds.size], offsets[botIds.size + 1])
+
+    /** Map over bot events, which is only created if used */
+    val botEvents: Map<BotId, List<Event>> by lazy {
+        botIds.indices.associate { BotId(botIds[it]) to EventRange(offsets[it], offsets[it + 1]) }
+    }
+
+    /**
+     * Returns the events for a specific bot.
+     * @param botId is the bot id.
+     * @return a view of the bot events, which is empty if the bot has no events.
+     */
+    fun getBotEvents(botId: BotId): List<Event> {
+        val index = Arrays.binarySearch(botIds, botId.value)
+        return if (index < 0) emptyList() else EventRange(offsets[index], offsets[index + 1])
+    }
+
+    /** View of the events in an index range of the event array. */
+    private inner class EventRange(private val fromIndex: Int, private val toIndex: Int) :
+        AbstractList<Event>(), RandomAccess {
+
+        override val size: Int get() = toIndex - fromIndex
+
+        override fun get(index: Int): Event {
+            if (index < 0 || index >= size) throw IndexOutOfBoundsException("index: $index, size: $size")
+            return events[fromIndex + index]
+        }
+    }
+}
+
+/**
+ * Arena collecting the events of the turn being executed. The arrays of the arena are reused from turn to turn, so
+ * adding an event does not allocate anything but the event itself once the arrays have grown to fit the events of a
+ * turn. [freeze] copies the events into compact [TurnEvents], where the bot events are grouped by a counting sort.
+ *
+ * An event is expected to be added once per bot, as the events are not checked for duplicates.
+ */
+class EventArena {
+
+    private var botEventIds = IntArray(64)
+    private var botEventArray = arrayOfNulls<Event>(64)
+    private var botEventCount = 0
+
+    private var observerEventArray = arrayOfNulls<Event>(64)
+    private var observerEventCount = 0
+
+    /** Counts and positions per bot id used by the counting sort */
+    private var positions = IntArray(32)
+
+    /** Observer events added so far */
+    @Suppress("UNCHECKED_CAST")
+    val observerEvents: List<Event>
+        get() = (observerEventArray as Array<Event>).asList().subList(0, observerEventCount)
+
+    /**
+     * Adds an event for a bot.
+     * @param botId is the bot id.
+     * @param event is the bot event.
+     */
+    fun addBotEvent(botId: BotId, event: Event) {
+        require(botId.value >= 0) { "Bot id must not be negative: $botId" }
+        if (botEventCount == botEventArray.size) {
+            botEventIds = botEventIds.copyOf(botEventCount * 2)
+            botEventArray = botEventArray.copyOf(botEventCount * 2)
+        }
+        botEventIds[botEventCount] = botId.value
+        botEventArray[botEventCount++] = event
+    }
+
+    /**
+     * Adds an observer event.
+     * @param event is the observer event.
+     */
+    fun addObserverEvent(event: Event) {
+        if (observerEventCount == observerEventArray.size) {
+            observerEventArray = observerEventArray.copyOf(observerEventCount * 2)
+        }
+        observerEventArray[observerEventCount++] = event
+    }
+
+    /**
+     * Returns the events added so far for a specific bot.
+     * @param botId is the bot id.
+     * @return a list of the bot events.
+     */
+    fun getBotEvents(botId: BotId): List<Event> =
+        (0 until botEventCount).filter { botEventIds[it] == botId.value }.map { botEventArray[it]!! }
+
+    /** Removes all events, where the references to the events are cleared, but the arrays are kept for reuse. */
+    fun reset() {
+        botEventArray.fill(null, 0, botEventCount)
+        observerEventArray.fill(null, 0, observerEventCount)
+        botEventCount = 0
+        observerEventCount = 0
+    }
+
+    /** Returns an immutable copy of the events added so far. */
+    fun freeze(): TurnEvents {
+        if (botEventCount == 0 && observerEventCount == 0) return TurnEvents.EMPTY
+
+        var maxBotId = 0
+        for (index in 0 until botEventCount) {
+            maxBotId = maxOf(maxBotId, botEventIds[index])
+        }
+        if (positions.size < maxBotId + 2) {
+            positions = IntArray(maxBotId + 2)
+        } else {
+            positions.fill(0, 0, maxBotId + 2)
+        }
+
+        // Count the events per bot id, where the count of a bot id is at the index after the bot id
+        var botCount = 0
+        for (index in 0 until botEventCount) {
+            if (positions[botEventIds[index] + 1]++ == 0) botCount++
+        }
+
+        // Turn the counts into start positions of the bot ranges
+        val botIds = IntArray(botCount)
+        val offsets = IntArray(botCount + 2)
+        var position = 0
+        var botIndex = 0
+        for (botId in 0..maxBotId) {
+            val count = positions[botId + 1]
+            if (count > 0) {
+                botIds[botIndex] = botId
+                offsets[botIndex++] = position
+            }
+            positions[botId] = position
+            position += count
+        }
+        offsets[botCount] = position
+        offsets[botCount + 1] = position + observerEventCount
+
+        // Place the events of each bot in its range in the order they were added
+        val events = arrayOfNulls<Event>(position + observerEventCount)
+        for (index in 0 until botEventCount) {
+            events[positions[botEventIds[index]]++] = botEventArray[index]
+        }
+        System.arraycopy(observerEventArray, 0, events, position, observerEventCount)
+
+        @Suppress("UNCHECKED_CAST")
+        return TurnEvents(events as Array<Event>, botIds, offsets)
+    }
+}
@@ -0,0 +1,190 @@
+package dev.robocode.tankroyale.server.model
+
+import com.google.gson.Gson
+import java.io.BufferedWriter
+import java.io.Closeable
+import java.io.OutputStreamWriter
+import java.nio.charset.StandardCharsets
+import java.nio.file.Files
+import java.nio.file.Path
+import java.nio.file.Paths
+import java.util.zip.GZIPOutputStream
+
+/** Policy for how many turns are retained in the turn history of a game. */
+sealed class TurnHistoryPolicy {
+
+    /** Only the last turn is retained. */
+    object LastTurnOnly : TurnHistoryPolicy() {
+        override fun toString() = "last"
+    }
+
+    /**
+     * The last turns are retained in a ring buffer.
+     * @param capacity is the maximum number of turns to retain.
+     */
+    data class RingBuffer(val capacity: Int) : TurnHistoryPolicy() {
+        init {
+            require(capacity >= 1) { "Ring buffer capacity must be at least 1, was: $capacity" }
+        }
+
+        override fun toString() = "ring:$capacity"
+    }
+
+    /**
+     * All turns are written to a file in a directory, and only the last turn is retained in memory.
+     * @param directory is the directory to write the turn history files into.
+     */
+    data class DiskBacked(val directory: Path) : TurnHistoryPolicy() {
+        override fun toString() = "disk:$directory"
+    }
+
+    /** Creates a new and empty turn history using this policy. */
+    fun createHistory(): TurnHistory = when (this) {
+        is LastTurnOnly -> LastTurnHistory()
+        is RingBuffer -> RingBufferTurnHistory(capacity)
+        is DiskBacked -> DiskBackedTurnHistory(directory)
+    }
+
+    companion object {
+        /**
+         * Parses a turn history policy.
+         * @param value is either `last`, `ring:<capacity>`, or `disk:<directory>`.
+         * @return the parsed turn history policy.
+         * @throws IllegalArgumentException if the value is not a valid turn history policy.
+         */
+        fun parse(value: String): TurnHistoryPolicy {
+            val trimmed = value.trim()
+            return when {
+                trimmed.equals("last", ignoreCase = true) -> LastTurnOnly
+
+                trimmed.startsWith("ring:", ignoreCase = true) -> {
+                    val capacity = trimmed.substring("ring:".length).toIntOrNull()
+                        ?: throw IllegalArgumentException("Invalid ring buffer capacity: $trimmed")
+                    RingBuffer(capacity)
+                }
+
+                trimmed.startsWith("disk:", ignoreCase = true) -> {
+                    val directory = trimmed.substring("disk:".length)
+                    require(directory.isNotBlank()) { "Missing directory for disk-backed turn history: $trimmed" }
+                    DiskBacked(Paths.get(directory))
+                }
+
+                else -> throw IllegalArgumentException("Invalid turn history policy: $trimmed")
+            }
+        }
+    }
+}
+
+/** History over the turns of a game, which retains turns depending on its [TurnHistoryPolicy]. */
+abstract class TurnHistory : Closeable {
+
+    /** The retained turns, where the last turn is the most recent turn */
+    abstract val turns: List<ITurn>
+
+    /** The most recent turn, or `null` if no turn has been added yet */
+    abstract val lastTurn: ITurn?
+
+    /**
+     * Adds a new turn to the history.
+     * @param turn is the new turn, which becomes the last turn.
+     */
+    abstract fun add(turn: ITurn)
+
+    /** Releases resources held by the history. */
+    override fun close() {}
+}
+
+/** Turn history that only retains the last turn. */
+class LastTurnHistory : TurnHistory() {
+
+    override var lastTurn: ITurn? = null
+        private set
+
+    override val turns: List<ITurn> get() = listOfNotNull(lastTurn)
+
+    override fun add(turn: ITurn) {
+        lastTurn = turn
+    }
+}
+
+/**
+ * Turn history that retains the last turns in a ring buffer.
+ * @param capacity is the maximum number of turns to retain.
+ */
+class RingBufferTurnHistory(private val capacity: Int) : TurnHistory() {
+
+    private val buffer = arrayOfNulls<ITurn>(capacity)
+
+    /** Index in the buffer, where the next turn is stored */
+    private var nextIndex = 0
+
+    /** Number of turns in the buffer */
+    private var size = 0
+
+    override val lastTurn: ITurn?
+        get() = if (size == 0) null else buffer[(nextIndex - 1 + capacity) % capacity]
+
+    override val turns: List<ITurn>
+        get() = List(size) { buffer[(nextIndex - size + it + capacity) % capacity]!! }
+
+    override fun add(turn: ITurn) {
+        buffer[nextIndex] = turn
+        nextIndex = (nextIndex + 1) % capacity
+        if (size < capacity) size++
+    }
+}
+
+/**
+ * Turn history that writes every turn as a JSON line into a gzip-compressed file, and only retains the last turn
+ * in memory. The file gets a unique name in the directory, and is only created if a turn is added.
+ *
+ * Note that the turns are encoded and compressed by the thread adding the turns, i.e. the turn thread of the game,
+ * so every turn takes longer with this history. It is meant for analyzing games, and not for games with short turn
+ * timeouts.
+ *
+ * @param directory is the directory to write the file into.
+ */
+class DiskBackedTurnHistory(private val directory: Path) : TurnHistory() {
+
+    private val gson = Gson()
+
+    private var writer: BufferedWriter? = null
+
+    override var lastTurn: ITurn? = null
+        private set
+
+    override val turns: List<ITurn> get() = listOfNotNull(lastTurn)
+
+    override fun add(turn: ITurn) {
+        lastTurn = turn
+
+        (writer ?: openWriter()).apply {
+            write(gson.toJson(TurnRecord(turn)))
+            newLine()
+        }
+    }
+
+    override fun close() {
+        writer?.close()
+        writer = null
+    }
+
+    private fun openWriter(): BufferedWriter {
+        Files.createDirectories(directory)
+        val file = Files.createTempFile(directory, "turns-", ".ndjson.gz")
+        return BufferedWriter(OutputStreamWriter(GZIPOutputStream(Files.newOutputStream(file)), StandardCharsets.UTF_8))
+            .also { writer = it }
+    }
+}
+
+/**
+ * Turn as written to a turn history file, which keeps the format of the file independent of how the bots, bullets, and
+ * events of a turn are stored in memory.
+ */
+private class TurnRecord(turn: ITurn) {
+    val turnNumber = turn.turnNumber
+    val bots = turn.bots.map(Bot::copyOf)
+    val bullets = turn.bullets.map(Bullet::copyOf)
+    val observerEvents = turn.observerEvents
+    val botEvents = turn.botEvents
+}
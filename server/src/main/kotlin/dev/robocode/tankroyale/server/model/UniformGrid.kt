@@ -0,0 +1,120 @@
+package dev.robocode.tankroyale.server.model
+
+import dev.robocode.tankroyale.server.util.IntArrayList
+import kotlin.math.ceil
+
+/**
+ * Uniform grid used as a broad-phase spatial index over the arena. Items are identified by a dense index, e.g. the
+ * index of a bot or bullet in a list, and are put into the cell that contains their (x, y) position.
+ *
+ * A query returns the indices of all items inside the cells overlapping the bounding square of a query circle.
+ * Hence, the result is a superset of the items within the query radius, which must be checked afterward with
+ * the exact (narrow-phase) intersection tests.
+ *
+ * @param width is the width of the area to cover.
+ * @param height is the height of the area to cover.
+ * @param cellSize is the width and height of each cell.
+ */
+class UniformGrid(width: Int, height: Int, private val cellSize: Double) {
+
+    private val columns = ceil(width / cellSize).toInt().coerceAtLeast(1)
+    private val rows = ceil(height / cellSize).toInt().coerceAtLeast(1)
+
+    /** Index of the first item per cell, or -1 if the cell is empty */
+    private val cellHeads = IntArray(columns * rows) { -1 }
+
+    /** Index of the next item in the same cell per item, or -1 if the item is the last one in the cell */
+    private var nextItems = IntArray(16)
+
+    /** Cell index per item, or -1 if the item has not been inserted */
+    private var itemCells = IntArray(16) { -1 }
+
+    /** Clears the grid, so it contains no items. */
+    fun clear() {
+        cellHeads.fill(-1)
+        itemCells.fill(-1)
+    }
+
+    /**
+     * Inserts an item into the grid.
+     * @param index is the index of the item, which must not be in the grid already.
+     * @param x is the x coordinate of the item.
+     * @param y is the y coordinate of the item.
+     */
+    fun insert(index: Int, x: Double, y: Double) {
+        ensureCapacity(index + 1)
+
+        val cell = cellIndex(x, y)
+        nextItems[index] = cellHeads[cell]
+        cellHeads[cell] = index
+        itemCells[index] = cell
+    }
+
+    /**
+     * Moves an item already in the grid to a new position.
+     * @param index is the index of the item.
+     * @param x is the new x coordinate of the item.
+     * @param y is the new y coordinate of the item.
+     */
+    fun move(index: Int, x: Double, y: Double) {
+        val oldCell = itemCells[index]
+        if (oldCell == cellIndex(x, y)) return
+
+        remove(index, oldCell)
+        insert(index, x, y)
+    }
+
+    /**
+     * Collects the indices of the items that might be within a radius of a point.
+     * @param x is the x coordinate of the query point.
+     * @param y is the y coordinate of the query point.
+     * @param radius is the query radius.
+     * @param result is the list that receives the item indices. It is not cleared before adding the indices.
+     */
+    fun query(x: Double, y: Double, radius: Double, result: IntArrayList) {
+        val minColumn = column(x - radius)
+        val maxColumn = column(x + radius)
+        val minRow = row(y - radius)
+        val maxRow = row(y + radius)
+
+        for (row in minRow..maxRow) {
+            for (column in minColumn..maxColumn) {
+                var index = cellHeads[row * columns + column]
+                while (index >= 0) {
+                    result.add(index)
+                    index = nextItems[index]
+                }
+            }
+        }
+    }
+
+    private fun remove(index: Int, cell: Int) {
+        if (cellHeads[cell] == index) {
+            cellHeads[cell] = nextItems[index]
+        } else {
+            var previous = cellHeads[cell]
+            while (nextItems[previous] != index) {
+                previous = nextItems[previous]
+            }
+            nextItems[previous] = nextItems[index]
+        }
+        itemCells[index] = -1
+    }
+
+    private fun ensureCapacity(capacity: Int) {
+        if (capacity > nextItems.size) {
+            val newSize = capacity.coerceAtLeast(nextItems.size * 2)
+            nextItems = nextItems.copyOf(newSize)
+            val oldSize = itemCells.size
+            itemCells = itemCells.copyOf(newSize)
+            itemCells.fill(-1, oldSize, newSize)
+        }
+    }
+
+    private fun cellIndex(x: Double, y: Double) = row(y) * columns + column(x)
+
+    // Coordinates outside the area are clamped into the border cells
+    private fun column(x: Double) = (x / cellSize).toInt().coerceIn(0, columns - 1)
+
+    private fun row(y: Double) = (y / cellSize).toInt().coerceIn(0, rows - 1)
+}
@@ -1,5 +1,6 @@
 package dev.robocode.tankroyale.server.model
 
+import java.util.*
 import kotlin.math.abs
 import kotlin.math.atan2
 import kotlin.math.cos
@@ -55,6 +56,18 @@ fun Double.isNotNearTo(value: Double): Boolean {
     return !isNearTo(value)
 }
 
+/**
+ * Checks if a line segment defined by the two points (x1,y1) and (x2,y2) is intersecting the circle defined by the
+ * center point (cx,cy) and radius.
+ *
+ * @param line is line segment.
+ * @param center is center point.
+ * @param radius is the radius of the circle.
+ * @return `true` if the line is intersecting the circle; `false` otherwise.
+ */
+fun isLineIntersectingCircle(line: Line, center: IPoint, radius: Double): Boolean =
+    isLineIntersectingCircle(line.start.x, line.start.y, line.end.x, line.end.y, center.x, center.y, radius)
+
 /**
  * Checks if a line segment defined by the two points (x1,y1) and (x2,y2) is intersecting the circle defined by the
  * center point (cx,cy) and radius.
@@ -63,21 +76,21 @@ fun Double.isNotNearTo(value: Double): Boolean {
  * <br>
  * http://www.jeffreythompson.org/collision-detection/line-circle.php
  *
- * @param line is line segment.
- * @param center is center point.
+ * @param x1 is the x coordinate of the start of the line segment.
+ * @param y1 is the y coordinate of the start of the line segment.
+ * @param x2 is the x coordinate of the end of the line segment.
+ * @param y2 is the y coordinate of the end of the line segment.
+ * @param cx is the x coordinate of the center point.
+ * @param cy is the y coordinate of the center point.
  * @param radius is the radius of the circle.
  * @return `true` if the line is intersecting the circle; `false` otherwise.
  */
-fun isLineIntersectingCircle(line: Line, center: IPoint, radius: Double): Boolean {
-    val x1 = line.start.x
-    val y1 = line.start.y
-    val x2 = line.end.x
-    val y2 = line.end.y
-    val cx = center.x
-    val cy = center.y
-
+fun isLineIntersectingCircle(
+    x1: Double, y1: Double, x2: Double, y2: Double,
+    cx: Double, cy: Double, radius: Double
+): Boolean {
     // Check if one of the line ends is within the circle
-    if (isPointInsideCircle(line.start, center, radius) || isPointInsideCircle(line.end, center, radius)) {
+    if (isPointInsideCircle(x1, y1, cx, cy, radius) || isPointInsideCircle(x2, y2, cx, cy, radius)) {
         return true
     }
 
@@ -90,34 +103,56 @@ fun isLineIntersectingCircle(line: Line, center: IPoint, radius: Double): Boolea
     val dot = ((cx - x1) * dx + (cy - y1) * dy) / len2
 
     // Find the closest point on the line from the circle
-    val closest = Point(
-        x1 + dot * dx,
-        y1 + dot * dy
-    )
+    val closestX = x1 + dot * dx
+    val closestY = y1 + dot * dy
 
     // Check that the closest point is on the line segment and inside the circle
-    return isPointOnLine(closest, Line(x1, y1, x2, y2)) && isPointInsideCircle(closest, center, radius)
+    return isPointOnLine(closestX, closestY, x1, y1, x2, y2) &&
+            isPointInsideCircle(closestX, closestY, cx, cy, radius)
 }
 
 /**
  * Checks if a point defined by (x1,y1) is inside or on the circle defined by the center point (cx,cy) and radius, r.
  *
+ * @param point is the point.
+ * @param center is center point of the circle.
+ * @param radius is the radius of the circle.
+ * @return `true` if the point is inside or on the circle; `false` otherwise.
+ */
+fun isPointInsideCircle(point: Point, center: IPoint, radius: Double): Boolean =
+    isPointInsideCircle(point.x, point.y, center.x, center.y, radius)
+
+/**
+ * Checks if a point defined by (px,py) is inside or on the circle defined by the center point (cx,cy) and radius, r.
+ *
  * The algorithm used in this method is based on the Pythagorean Theorem:<br></br>
  * http://www.jeffreythompson.org/collision-detection/point-circle.php
  *
- * @param point is the point.
- * @param center is center point of the circle.
+ * @param px is the x coordinate of the point.
+ * @param py is the y coordinate of the point.
+ * @param cx is the x coordinate of the center point of the circle.
+ * @param cy is the y coordinate of the center point of the circle.
  * @param radius is the radius of the circle.
  * @return `true` if the point is inside or on the circle; `false` otherwise.
  */
-fun isPointInsideCircle(point: Point, center: IPoint, radius: Double): Boolean {
-    val dx = point.x - center.x
-    val dy = point.y - center.y
+fun isPointInsideCircle(px: Double, py: Double, cx: Double, cy: Double, radius: Double): Boolean {
+    val dx = px - cx
+    val dy = py - cy
 
     // If the distance is less or equal than the circle's radius the point is considered to be inside the circle
     return dx * dx + dy * dy <= radius * radius
 }
 
+/**
+ * Checks if the point defined by (px,py) is on the line segment defined by the two points (x1,y1) and (x2,y2).
+ *
+ * @param point is the point.
+ * @param line is the line segment.
+ * @return `true` if the point is on the line segment; `false` otherwise.
+ */
+fun isPointOnLine(point: Point, line: Line): Boolean =
+    isPointOnLine(point.x, point.y, line.start.x, line.start.y, line.end.x, line.end.y)
+
 /**
  * Checks if the point defined by (px,py) is on the line segment defined by the two points (x1,y1) and (x2,y2).
  *
@@ -129,19 +164,15 @@ fun isPointInsideCircle(point: Point, center: IPoint, radius: Double): Boolean {
  * <br>
  * https://stackoverflow.com/questions/11907947/how-to-check-if-a-point-lies-on-a-line-between-2-other-points/11908158#11908158
  *
- * @param point is the point.
- * @param line is the line segment.
+ * @param px is the x coordinate of the point.
+ * @param py is the y coordinate of the point.
+ * @param x1 is the x coordinate of the start of the line segment.
+ * @param y1 is the y coordinate of the start of the line segment.
+ * @param x2 is the x coordinate of the end of the line segment.
+ * @param y2 is the y coordinate of the end of the line segment.
  * @return `true` if the point is on the line segment; `false` otherwise.
  */
-fun isPointOnLine(point: Point, line: Line): Boolean {
-    val px = point.x
-    val py = point.y
-
-    val x1 = line.start.x
-    val y1 = line.start.y
-    val x2 = line.end.x
-    val y2 = line.end.y
-
+fun isPointOnLine(px: Double, py: Double, x1: Double, y1: Double, x2: Double, y2: Double): Boolean {
     // Calculate cross product of vectors
     val dxp = px - x1
     val dyp = py - y1
@@ -161,6 +192,20 @@ fun isPointOnLine(point: Point, line: Line): Boolean {
         if (dyl > 0) py in y1..y2 else py in y2..y1
 }
 
+/**
+ * Checks if two line segments (a and b) are intersecting. Line segment a is defined by the two points a1 and a2,
+ * and line segment b is defined by the two points b1 and b2.
+ *
+ * @param line1 is the 1st line segment,
+ * @param line2 is the 2nd line segment,
+ * @return `true` if the two lines are intersecting; `false` otherwise.
+ */
+fun isLineIntersectingLine(line1: Line, line2: Line): Boolean =
+    isLineIntersectingLine(
+        line1.start.x, line1.start.y, line1.end.x, line1.end.y,
+        line2.start.x, line2.start.y, line2.end.x, line2.end.y
+    )
+
 /**
  * Checks if two line segments (a and b) are intersecting. Line segment a is defined by the two points a1 and a2,
  * and line segment b is defined by the two points b1 and b2.
@@ -172,24 +217,28 @@ fun isPointOnLine(point: Point, line: Line): Boolean {
  * This algorithm is based on Franklin Antonio's "Faster Line Segment Intersection" topic "in Graphics Gems
  * III". Keith Woodward added new code to optimize Franklin's original code.
  *
- * @param line1 is the 1st line segment,
- * @param line2 is the 2nd line segment,
+ * @param a1x is the x coordinate of the start of line segment a.
+ * @param a1y is the y coordinate of the start of line segment a.
+ * @param a2x is the x coordinate of the end of line segment a.
+ * @param a2y is the y coordinate of the end of line segment a.
+ * @param b1x is the x coordinate of the start of line segment b.
+ * @param b1y is the y coordinate of the start of line segment b.
+ * @param b2x is the x coordinate of the end of line segment b.
+ * @param b2y is the y coordinate of the end of line segment b.
  * @return `true` if the two lines are intersecting; `false` otherwise.
  */
-fun isLineIntersectingLine(line1: Line, line2: Line): Boolean {
-    val a1 = line1.start
-    val a2 = line1.end
-    val b1 = line2.start
-    val b2 = line2.end
-
+fun isLineIntersectingLine(
+    a1x: Double, a1y: Double, a2x: Double, a2y: Double,
+    b1x: Double, b1y: Double, b2x: Double, b2y: Double
+): Boolean {
     // Fastest method, based on Franklin Antonio's "Faster Line Segment Intersection" topic "in Graphics Gems III"
     // book (http://www.graphicsgems.org/)
-    val ax = a2.x - a1.x
-    val ay = a2.y - a1.y
-    val bx = b1.x - b2.x
-    val by = b1.y - b2.y
-    val cx = a1.x - b1.x
-    val cy = a1.y - b1.y
+    val ax = a2x - a1x
+    val ay = a2y - a1y
+    val bx = b1x - b2x
+    val by = b1y - b2y
+    val cx = a1x - b1x
+    val cy = a1y - b1y
     val alphaNumerator = by * cx - bx * cy
     val commonDenominator = ay * bx - ax * by
     if (commonDenominator > 0 && (alphaNumerator < 0 || alphaNumerator > commonDenominator)) {
@@ -207,14 +256,14 @@ fun isLineIntersectingLine(line1: Line, line2: Line): Boolean {
         // This code wasn't in Franklin Antonio's method. It was added by Keith Woodward.
         // The lines are parallel.
         // Check if they're collinear.
-        val y3LessY1 = b1.y - a1.y
+        val y3LessY1 = b1y - a1y
         // see http://mathworld.wolfram.com/Collinear.html
-        val collinearityTestForP3 = a1.x * (a2.y - b1.y) + a2.x * y3LessY1 + b1.x * (a1.y - a2.y)
+        val collinearityTestForP3 = a1x * (a2y - b1y) + a2x * y3LessY1 + b1x * (a1y - a2y)
         // If p3 is collinear with p1 and p2 then p4 will also be collinear, since p1-p2 is parallel with p3-p4
         if (collinearityTestForP3 == 0.0) {
             // The lines are collinear. Now check if they overlap.
-            if (a1.x >= b1.x && a1.x <= b2.x || a1.x <= b1.x && a1.x >= b2.x || a2.x >= b1.x && a2.x <= b2.x || a2.x <= b1.x && a2.x >= b2.x || b1.x >= a1.x && b1.x <= a2.x || b1.x <= a1.x && b1.x >= a2.x) {
-                return a1.y >= b1.y && a1.y <= b2.y || a1.y <= b1.y && a1.y >= b2.y || a2.y >= b1.y && a2.y <= b2.y || a2.y <= b1.y && a2.y >= b2.y || b1.y >= a1.y && b1.y <= a2.y || b1.y <= a1.y && b1.y >= a2.y
+            if (a1x >= b1x && a1x <= b2x || a1x <= b1x && a1x >= b2x || a2x >= b1x && a2x <= b2x || a2x <= b1x && a2x >= b2x || b1x >= a1x && b1x <= a2x || b1x <= a1x && b1x >= a2x) {
+                return a1y >= b1y && a1y <= b2y || a1y <= b1y && a1y >= b2y || a2y >= b1y && a2y <= b2y || a2y <= b1y && a2y >= b2y || b1y >= a1y && b1y <= a2y || b1y <= a1y && b1y >= a2y
             }
         }
         return false
@@ -226,9 +275,6 @@ fun isLineIntersectingLine(line1: Line, line2: Line): Boolean {
  * Checks if a circle is intersecting/inside a circle sector. The circle sector is defined by a sector center,
  * sector radius, a arc start angle, and arc end angle. The arc end angle must be greater that the arc start angle.
  *
- * The algorithm used in this method is based on Oren Trutner algorithm:
- * http://stackoverflow.com/questions/13652518/efficiently-find-points-inside-a-circle-sector
- *
  * @param circleCenter is center point of the circle.
  * @param circleRadius is the radius of the circle.
  * @param sectorCenter is the center point of the circle sector.
@@ -241,11 +287,38 @@ fun isCircleIntersectingCircleSector(
     circleCenter: IPoint, circleRadius: Double,
     sectorCenter: IPoint, sectorRadius: Double,
     arcStartAngle: Double, arcEndAngle: Double
+): Boolean = isCircleIntersectingCircleSector(
+    circleCenter.x, circleCenter.y, circleRadius,
+    sectorCenter.x, sectorCenter.y, sectorRadius,
+    arcStartAngle, arcEndAngle
+)
+
+/**
+ * Checks if a circle is intersecting/inside a circle sector. The circle sector is defined by a sector center,
+ * sector radius, a arc start angle, and arc end angle. The arc end angle must be greater that the arc start angle.
+ *
+ * The algorithm used in this method is based on Oren Trutner algorithm:
+ * http://stackoverflow.com/questions/13652518/efficiently-find-points-inside-a-circle-sector
+ *
+ * @param circleX is the x coordinate of the center point of the circle.
+ * @param circleY is the y coordinate of the center point of the circle.
+ * @param circleRadius is the radius of the circle.
+ * @param sectorX is the x coordinate of the center point of the circle sector.
+ * @param sectorY is the y coordinate of the center point of the circle sector.
+ * @param sectorRadius is the radius of the circle sector.
+ * @param arcStartAngle is the arc start angle in degrees.
+ * @param arcEndAngle is the arc end angle in degrees.
+ * @return `true` if the circle lines is intersecting/inside the circle segment; `false` otherwise.
+ */
+fun isCircleIntersectingCircleSector(
+    circleX: Double, circleY: Double, circleRadius: Double,
+    sectorX: Double, sectorY: Double, sectorRadius: Double,
+    arcStartAngle: Double, arcEndAngle: Double
 ): Boolean {
     assert(arcEndAngle > arcStartAngle)
     val maxRadiusToPoint = sectorRadius + circleRadius
-    val vx = circleCenter.x - sectorCenter.x
-    val vy = circleCenter.y - sectorCenter.y
+    val vx = circleX - sectorX
+    val vy = circleY - sectorY
 
     // Check if point is outside max radius to point
     if (vx * vx + vy * vy > maxRadiusToPoint * maxRadiusToPoint) {
@@ -253,27 +326,18 @@ fun isCircleIntersectingCircleSector(
     }
     val arcStartRad = Math.toRadians(arcStartAngle)
     val arcEndRad = Math.toRadians(arcEndAngle)
-    var dx = cos(arcStartRad) * sectorRadius
-    var dy = sin(arcStartRad) * sectorRadius
-    val (x, y) = Point(dx, dy)
-    dx = cos(arcEndRad) * sectorRadius
-    dy = sin(arcEndRad) * sectorRadius
-    val (x1, y1) = Point(dx, dy)
+    val x = cos(arcStartRad) * sectorRadius
+    val y = sin(arcStartRad) * sectorRadius
+    val x1 = cos(arcEndRad) * sectorRadius
+    val y1 = sin(arcEndRad) * sectorRadius
 
     // Check if circle center is within the circle sector arms
     return if (!isClockwise(x, y, vx, vy) && isClockwise(x1, y1, vx, vy)) {
         true
     } else {
         // Check if circle is intersecting one of the arms
-        isLineIntersectingCircle(
-            Line(sectorCenter.x, sectorCenter.y, sectorCenter.x + x, sectorCenter.y + y),
-            circleCenter,
-            circleRadius
-        ) || isLineIntersectingCircle(
-            Line(sectorCenter.x, sectorCenter.y, sectorCenter.x + x1, sectorCenter.y + y1),
-            circleCenter,
-            circleRadius
-        )
+        isLineIntersectingCircle(sectorX, sectorY, sectorX + x, sectorY + y, circleX, circleY, circleRadius) ||
+                isLineIntersectingCircle(sectorX, sectorY, sectorX + x1, sectorY + y1, circleX, circleY, circleRadius)
     }
 }
 
@@ -289,9 +353,10 @@ fun isClockwise(v1x: Double, v1y: Double, v2x: Double, v2y: Double): Boolean = v
 
 /**
  * Returns a random direction in the range 0 up to 360 degrees.
+ * @param random is the random generator.
  * @return direction in degrees in the range [0;360[ degrees.
  */
-fun randomDirection(): Double = Math.random() * 360
+fun randomDirection(random: Random): Double = random.nextDouble() * 360
 
 /**
  * Calculates the direction in degrees to point (targetX, targetY) from point (sourceX, sourceY).
@@ -1,36 +1,64 @@
 package dev.robocode.tankroyale.server.score
 
 import dev.robocode.tankroyale.server.model.ParticipantId
+import dev.robocode.tankroyale.server.model.ParticipantIndex
 import dev.robocode.tankroyale.server.model.Score
 import dev.robocode.tankroyale.server.rules.*
+import java.util.*
 
 /**
  * Utility class used for keeping track of the score for an individual bot and/or team in a game.
- * @param participantIds is the ids of all participant bots and teams.
+ *
+ * The damage and kills are kept in primitive arrays indexed by the slots of the offender and victim given by the
+ * [ParticipantIndex], so registering a hit is done in constant time without allocation.
+ *
+ * @param participantIndex is the index over all participant bots and teams.
  */
-class ScoreTracker(private val participantIds: Set<ParticipantId>) {
+class ScoreTracker(private val participantIndex: ParticipantIndex) {
 
-    // Map over the score and damage records per participant
-    private val scoreAndDamages = mutableMapOf<ParticipantId, ScoreAndDamage>()
+    /**
+     * Creates a score tracker for participants.
+     * @param participantIds is the ids of all participant bots and teams.
+     */
+    constructor(participantIds: Set<ParticipantId>) : this(ParticipantIndex(participantIds))
 
-    // Map over alive participants
-    private val aliveParticipants = mutableSetOf<ParticipantId>()
+    private val size = participantIndex.size
 
-    private var lastSurvivors: Set<ParticipantId>? = null
+    /** Bullet damage dealt per offender and victim, where the index is offender slot * size + victim slot */
+    private val bulletDamage = DoubleArray(size * size)
 
-    init {
-        participantIds.forEach { scoreAndDamages[it] = ScoreAndDamage() }
+    /** Ram hits per offender and victim, where the index is offender slot * size + victim slot */
+    private val ramHits = IntArray(size * size)
 
-        aliveParticipants.addAll(participantIds)
-    }
+    /** Victims killed by bullets per offender, where the index is offender slot * size + victim slot */
+    private val bulletKills = BitSet(size * size)
+
+    /** Victims killed by ramming per offender, where the index is offender slot * size + victim slot */
+    private val ramKills = BitSet(size * size)
+
+    /** Number of rounds survived per slot */
+    private val survivalCounts = IntArray(size)
+
+    /** Number of bots killed before becoming the last survivor per slot */
+    private val lastSurvivorCounts = IntArray(size)
+
+    /** Slots of the alive participants */
+    private val aliveSlots = BitSet(size).apply { set(0, size) }
+
+    private var hasLastSurvivors = false
 
     /**
      * Clears all scores used when a new round is started.
      */
     fun clear() {
-        aliveParticipants.apply { clear(); addAll(participantIds) }
-        lastSurvivors = null
-        scoreAndDamages.values.forEach { it.clear() }
+        bulletDamage.fill(0.0)
+        ramHits.fill(0)
+        bulletKills.clear()
+        ramKills.clear()
+        survivalCounts.fill(0)
+        lastSurvivorCounts.fill(0)
+        aliveSlots.set(0, size)
+        hasLastSurvivors = false
     }
 
     /**
@@ -39,22 +67,31 @@ class ScoreTracker(private val participantIds: Set<ParticipantId>) {
      * @return a [Score] record.
      */
     fun calculateScore(participantId: ParticipantId): Score {
-        getScoreAndDamage(participantId).apply {
-            val scoreAndDamage = scoreAndDamages[participantId]
-
-            val survivalCount = scoreAndDamage?.survivalCount ?: 0
-            val lastSurvivorCount = scoreAndDamage?.lastSurvivorCount ?: 0
-
-            return Score(
-                participantId = participantId,
-                bulletDamageScore = SCORE_PER_BULLET_DAMAGE * getTotalBulletDamage(),
-                bulletKillBonus = BONUS_PER_BULLET_KILL * getBulletKillEnemyIds().sumOf { getTotalDamage(it) },
-                ramDamageScore = SCORE_PER_RAM_DAMAGE * getTotalRamDamage(),
-                ramKillBonus = BONUS_PER_RAM_KILL * getRamKillEnemyIds().sumOf { getTotalDamage(it) },
-                survivalScore = SCORE_PER_SURVIVAL * survivalCount,
-                lastSurvivorBonus = BONUS_PER_LAST_SURVIVOR * lastSurvivorCount,
-            )
+        val slot = slotOf(participantId)
+        val offset = slot * size
+
+        var totalBulletDamage = 0.0
+        var totalRamHits = 0
+        var bulletKillDamage = 0.0
+        var ramKillDamage = 0.0
+        for (index in offset until offset + size) {
+            totalBulletDamage += bulletDamage[index]
+            totalRamHits += ramHits[index]
+
+            val totalDamage = bulletDamage[index] + ramHits[index] * RAM_DAMAGE
+            if (bulletKills[index]) bulletKillDamage += totalDamage
+            if (ramKills[index]) ramKillDamage += totalDamage
         }
+
+        return Score(
+            participantId = participantId,
+            bulletDamageScore = SCORE_PER_BULLET_DAMAGE * totalBulletDamage,
+            bulletKillBonus = BONUS_PER_BULLET_KILL * bulletKillDamage,
+            ramDamageScore = SCORE_PER_RAM_DAMAGE * totalRamHits * RAM_DAMAGE,
+            ramKillBonus = BONUS_PER_RAM_KILL * ramKillDamage,
+            survivalScore = SCORE_PER_SURVIVAL * survivalCounts[slot],
+            lastSurvivorBonus = BONUS_PER_LAST_SURVIVOR * lastSurvivorCounts[slot],
+        )
     }
 
     /**
@@ -65,11 +102,10 @@ class ScoreTracker(private val participantIds: Set<ParticipantId>) {
      * @param kill is `true` if the bot got killed by the bullet; `false` otherwise.
      */
     fun registerBulletHit(offenderId: ParticipantId, victimId: ParticipantId, damage: Double, kill: Boolean) {
-        getScoreAndDamage(offenderId).apply {
-            addBulletDamage(victimId, damage)
-            if (kill) {
-                addBulletKillEnemyId(victimId)
-            }
+        val index = indexOf(offenderId, victimId)
+        bulletDamage[index] += damage
+        if (kill) {
+            bulletKills.set(index)
         }
     }
 
@@ -80,11 +116,10 @@ class ScoreTracker(private val participantIds: Set<ParticipantId>) {
      * @param kill is `true` if the bot got killed by the ramming; `false` otherwise.
      */
     fun registerRamHit(offenderId: ParticipantId, victimId: ParticipantId, kill: Boolean) {
-        getScoreAndDamage(offenderId).apply {
-            incrementRamHit(victimId)
-            if (kill) {
-                addRamKillEnemyId(victimId)
-            }
+        val index = indexOf(offenderId, victimId)
+        ramHits[index]++
+        if (kill) {
+            ramKills.set(index)
         }
     }
 
@@ -93,27 +128,42 @@ class ScoreTracker(private val participantIds: Set<ParticipantId>) {
      * @param victimIds is the ids of all the victims.
      */
     fun registerDeaths(victimIds: Set<ParticipantId>) {
-        if (victimIds.isNotEmpty()) {
-            aliveParticipants.apply {
-                val recentSurvivors = HashSet(this)
-
-                removeAll(victimIds)
-                forEach { scoreAndDamages[it]?.incrementSurvivalCount() }
-
-                if (lastSurvivors == null) {
-                    val deadCount = participantIds.size - size
-                    lastSurvivors = when (size) {
-                        0 -> recentSurvivors
-                        1 -> aliveParticipants
-                        else -> null
-                    }
-                    lastSurvivors?.forEach { scoreAndDamages[it]?.addLastSurvivorCount(deadCount) }
-                }
+        if (victimIds.isEmpty()) return
+
+        val recentSurvivors = aliveSlots.clone() as BitSet
+
+        victimIds.forEach { aliveSlots.clear(slotOf(it)) }
+        forEachSlot(aliveSlots) { survivalCounts[it]++ }
+
+        if (!hasLastSurvivors) {
+            val aliveCount = aliveSlots.cardinality()
+            val deadCount = size - aliveCount
+            val lastSurvivors = when (aliveCount) {
+                0 -> recentSurvivors
+                1 -> aliveSlots
+                else -> null
+            }
+            lastSurvivors?.let { survivors ->
+                hasLastSurvivors = true
+                forEachSlot(survivors) { lastSurvivorCounts[it] += deadCount }
             }
         }
     }
 
-    private fun getScoreAndDamage(participantId: ParticipantId): ScoreAndDamage =
-        (scoreAndDamages[participantId]
-            ?: throw IllegalStateException("No score record for teamOrBotId: $participantId)"))
-}
\ No newline at end of file
+    private fun slotOf(participantId: ParticipantId): Int = try {
+        participantIndex.slotOf(participantId.botId)
+    } catch (_: IllegalStateException) {
+        throw IllegalStateException("No score record for teamOrBotId: $participantId)")
+    }
+
+    private fun indexOf(offenderId: ParticipantId, victimId: ParticipantId) =
+        slotOf(offenderId) * size + slotOf(victimId)
+
+    private inline fun forEachSlot(slots: BitSet, action: (Int) -> Unit) {
+        var slot = slots.nextSetBit(0)
+        while (slot >= 0) {
+            action(slot)
+            slot = slots.nextSetBit(slot + 1)
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package dev.robocode.tankroyale.server.util
+
+/**
+ * Histogram over non-negative `long` values, e.g. durations in nanoseconds, using log-linear buckets like the
+ * HdrHistogram. Each power of two is divided into the same number of linear sub-buckets, so values are recorded in
+ * constant time without allocation, and are reported with a relative error below 1/2^([subBucketBits] - 1).
+ *
+ * The histogram is not thread-safe.
+ * @param subBucketBits is the number of bits used for the sub-buckets, which determines the precision.
+ */
+class Histogram(private val subBucketBits: Int = 6) {
+
+    private val subBucketCount = 1 shl subBucketBits
+    private val subBucketHalfCount = subBucketCount shr 1
+
+    private val counts = LongArray((65 - subBucketBits) * subBucketHalfCount)
+
+    /** Number of recorded values */
+    var count: Long = 0
+        private set
+
+    /** Sum of the recorded values */
+    var sum: Long = 0
+        private set
+
+    /** Smallest recorded value, or 0 if no values have been recorded */
+    var min: Long = 0
+        private set
+
+    /** Largest recorded value, or 0 if no values have been recorded */
+    var max: Long = 0
+        private set
+
+    /** Mean of the recorded values, or 0 if no values have been recorded */
+    val mean: Double get() = if (count > 0) sum.toDouble() / count else 0.0
+
+    /**
+     * Records a value, where negative values are recorded as 0.
+     * @param value is the value to record.
+     */
+    fun record(value: Long) {
+        val v = value.coerceAtLeast(0)
+        counts[indexOf(v)]++
+
+        if (count == 0L || v < min) min = v
+        if (v > max) max = v
+        count++
+        sum += v
+    }
+
+    /**
+     * Returns the value at a percentile, i.e. the largest value in the bucket containing the percentile.
+     * @param percentile is the percentile in the range [0..100].
+     * @return the value at the percentile, or 0 if no values have been recorded.
+     */
+    fun valueAtPercentile(percentile: Double): Long {
+        if (count == 0L) return 0
+
+        val targetCount = Math.ceil(percentile.coerceIn(0.0, 100.0) / 100 * count).toLong().coerceAtLeast(1)
+        var cumulativeCount = 0L
+        for (index in counts.indices) {
+            cumulativeCount += counts[index]
+            if (cumulativeCount >= targetCount) {
+                return highestValueAt(index).coerceIn(min, max)
+            }
+        }
+        return max
+    }
+
+    /**
+     * Adds the values recorded by another histogram to this histogram.
+     * @param other is the other histogram, which must have the same number of sub-bucket bits.
+     */
+    fun add(other: Histogram) {
+        require(other.subBucketBits == subBucketBits) { "Histograms must have the same number of sub-bucket bits" }
+        if (other.count == 0L) return
+
+        for (index in counts.indices) {
+            counts[index] += other.counts[index]
+        }
+        if (count == 0L || other.min < min) min = other.min
+        if (other.max > max) max = other.max
+        count += other.count
+        sum += other.sum
+    }
+
+    /** Removes all recorded values. */
+    fun reset() {
+        counts.fill(0)
+        count = 0
+        sum = 0
+        min = 0
+        max = 0
+    }
+
+    private fun indexOf(value: Long): Int {
+        if (value < subBucketCount) return value.toInt()
+
+        val bucket = 64 - java.lang.Long.numberOfLeadingZeros(value) - subBucketBits
+        return bucket * subBucketHalfCount + (value ushr bucket).toInt()
+    }
+
+    private fun highestValueAt(index: Int): Long {
+        if (index < subBucketCount) return index.toLong()
+
+        val bucket = index / subBucketHalfCount - 1
+        val subBucket = index - bucket * subBucketHalfCount
+        return (subBucket.toLong() shl bucket) + (1L shl bucket) - 1
+    }
+}
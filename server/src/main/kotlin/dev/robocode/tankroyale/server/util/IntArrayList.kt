@@ -0,0 +1,48 @@
+package dev.robocode.tankroyale.server.util
+
+/**
+ * Growable list of primitive `int` values, which avoids boxing when collecting indices in hot loops.
+ * @param initialCapacity is the initial capacity of the list.
+ */
+class IntArrayList(initialCapacity: Int = 16) {
+
+    private var values = IntArray(initialCapacity.coerceAtLeast(1))
+
+    /** Number of values in the list */
+    var size: Int = 0
+        private set
+
+    /**
+     * Returns the value at a specific index.
+     * @param index is the index of the value.
+     * @return the value at the specified index.
+     */
+    operator fun get(index: Int): Int {
+        if (index >= size) throw IndexOutOfBoundsException("Index: $index, size: $size")
+        return values[index]
+    }
+
+    /**
+     * Adds a value to the end of the list.
+     * @param value is the value to add.
+     */
+    fun add(value: Int) {
+        if (size == values.size) {
+            values = values.copyOf(values.size * 2)
+        }
+        values[size++] = value
+    }
+
+    /** Clears the list, but keeps the capacity. */
+    fun clear() {
+        size = 0
+    }
+
+    /** Sorts the values of this list in ascending order. */
+    fun sort() {
+        values.sort(0, size)
+    }
+
+    /** Checks if the list is empty */
+    fun isEmpty() = size == 0
+}
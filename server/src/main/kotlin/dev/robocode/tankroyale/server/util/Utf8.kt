@@ -0,0 +1,21 @@
+package dev.robocode.tankroyale.server.util
+
+/** Returns the number of bytes of this string when encoded as UTF-8, without encoding it. */
+fun String.utf8Length(): Int {
+    var length = 0
+    var i = 0
+    while (i < this.length) {
+        val c = this[i]
+        length += when {
+            c.code < 0x80 -> 1
+            c.code < 0x800 -> 2
+            Character.isHighSurrogate(c) && i + 1 < this.length && Character.isLowSurrogate(this[i + 1]) -> {
+                i++ // surrogate pair
+                4
+            }
+            else -> 3
+        }
+        i++
+    }
+    return length
+}
@@ -0,0 +1,214 @@
+package batch
+
+import com.google.gson.Gson
+import com.google.gson.JsonObject
+import dev.robocode.tankroyale.schema.*
+import dev.robocode.tankroyale.server.batch.BatchRunner
+import dev.robocode.tankroyale.server.batch.BattleBotSpec
+import dev.robocode.tankroyale.server.batch.BattleResult
+import dev.robocode.tankroyale.server.batch.BattleSpec
+import dev.robocode.tankroyale.server.batch.HeadlessBot
+import dev.robocode.tankroyale.server.connection.InProcessTransport
+import io.kotest.core.spec.style.FunSpec
+import io.kotest.matchers.collections.shouldContainAll
+import io.kotest.matchers.collections.shouldContainExactly
+import io.kotest.matchers.collections.shouldContainExactlyInAnyOrder
+import io.kotest.matchers.collections.shouldHaveSize
+import io.kotest.matchers.shouldBe
+import io.kotest.matchers.shouldNotBe
+import io.kotest.matchers.string.shouldStartWith
+import java.io.StringReader
+import java.io.StringWriter
+import java.net.URI
+import java.util.*
+import java.util.concurrent.ConcurrentLinkedQueue
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.LinkedBlockingQueue
+import java.util.concurrent.TimeUnit
+import java.util.function.Consumer
+
+/** Bot that drives in circles and fires at full power */
+class SpinningBot : HeadlessBot {
+    override fun onTick(tick: TickEventForBot) = BotIntent().apply {
+        targetSpeed = 8.0
+        turnRate = 10.0
+        gunTurnRate = 20.0
+        firepower = 3.0
+    }
+}
+
+/** Bot that only turns its radar */
+class SittingBot : HeadlessBot {
+    override fun onTick(tick: TickEventForBot): BotIntent? =
+        if (tick.turnNumber == 1) BotIntent().apply { radarTurnRate = 45.0 } else null
+}
+
+/** Bot that records the game and round events it receives */
+class RecordingBot : HeadlessBot {
+    companion object {
+        val events = ConcurrentLinkedQueue<String>()
+    }
+
+    override fun onGameStarted(gameStarted: GameStartedEventForBot, random: Random) {
+        events += "game started"
+    }
+
+    override fun onRoundStarted(roundStarted: RoundStartedEvent) {
+        events += "round ${roundStarted.roundNumber} started"
+    }
+
+    override fun onTick(tick: TickEventForBot): BotIntent? = null
+
+    override fun onRoundEnded(roundEnded: RoundEndedEventForBot) {
+        events += "round ${roundEnded.roundNumber} ended"
+    }
+
+    override fun onGameEnded(gameEnded: GameEndedEventForBot) {
+        events += "game ended after ${gameEnded.numberOfRounds} rounds"
+    }
+}
+
+/**
+ * Bot that connects to the server URL given by the `server.url` property when it is created, and exchanges JSON
+ * messages with the in-process transport, like a bot written with the Bot API.
+ */
+class ProtocolBot {
+    companion object {
+        val messageTypes = ConcurrentLinkedQueue<String>()
+
+        /** Counted down when the bot has stopped, i.e. when all its messages have been received */
+        var stopped = CountDownLatch(1)
+    }
+
+    private val port = URI(System.getProperty("server.url")).port
+
+    private val gson = Gson()
+
+    fun start() {
+        val received = LinkedBlockingQueue<Any>()
+        val server = InProcessTransport.connect(port, Consumer { received += it })
+
+        while (true) {
+            val message = received.take() as? String ?: break // the connection has been closed
+            val type = gson.fromJson(message, JsonObject::class.java)["type"].asString
+            messageTypes += type
+
+            when (type) {
+                Message.Type.SERVER_HANDSHAKE.value() -> server.accept(gson.toJson(BotHandshake().apply {
+                    this.type = Message.Type.BOT_HANDSHAKE
+                    sessionId = gson.fromJson(message, ServerHandshake::class.java).sessionId
+                    name = "ProtocolBot"
+                    version = "1.0"
+                    authors = listOf("Author")
+                }))
+
+                Message.Type.GAME_STARTED_EVENT_FOR_BOT.value() ->
+                    server.accept(gson.toJson(BotReady().apply { this.type = Message.Type.BOT_READY }))
+
+                Message.Type.TICK_EVENT_FOR_BOT.value() -> server.accept(gson.toJson(BotIntent().apply {
+                    this.type = Message.Type.BOT_INTENT
+                    targetSpeed = 8.0
+                    turnRate = 10.0
+                    firepower = 1.0
+                }))
+            }
+        }
+        stopped.countDown()
+    }
+}
+
+class BatchRunnerTest : FunSpec({
+
+    fun createSpec(name: String, vararg botClasses: Class<out HeadlessBot>) = BattleSpec(
+        name = name,
+        rounds = 3,
+        seed = 42,
+        bots = botClasses.map { BattleBotSpec(className = it.name) },
+    )
+
+    test("battles must be run in parallel and give results for all bots") {
+        val specs = List(8) { createSpec("battle-$it", SpinningBot::class.java, SittingBot::class.java) }
+        val results = mutableListOf<BattleResult>()
+
+        BatchRunner(threadCount = 4).run(specs) { results += it }
+
+        results.map { it.name } shouldContainExactlyInAnyOrder specs.map { it.name }
+        results.forEach { result ->
+            result.error shouldBe null
+            result.numberOfRounds shouldBe 3
+            result.results.map { it.name } shouldContainExactlyInAnyOrder listOf("SpinningBot", "SittingBot")
+            result.results.map { it.rank }.sorted() shouldBe listOf(1, 2)
+        }
+    }
+
+    test("bots must receive the game and round events") {
+        RecordingBot.events.clear()
+        val spec = createSpec("rounds", RecordingBot::class.java, SpinningBot::class.java).copy(rounds = 2)
+
+        BatchRunner().run(listOf(spec)) {}
+
+        RecordingBot.events.toList() shouldContainExactly listOf(
+            "game started",
+            "round 1 started", "round 1 ended",
+            "round 2 started", "round 2 ended",
+            "game ended after 2 rounds"
+        )
+    }
+
+    test("bots that are not headless bots must be hosted with the in-process transport") {
+        ProtocolBot.messageTypes.clear()
+        ProtocolBot.stopped = CountDownLatch(1)
+        val spec = BattleSpec(
+            name = "hosted",
+            rounds = 2,
+            bots = listOf(ProtocolBot::class.java, SittingBot::class.java).map { BattleBotSpec(className = it.name) }
+        )
+        val results = mutableListOf<BattleResult>()
+
+        BatchRunner().run(listOf(spec)) { results += it }
+
+        results[0].error shouldBe null
+        results[0].numberOfRounds shouldBe 2
+        results[0].results.map { it.name } shouldContainExactlyInAnyOrder listOf("ProtocolBot", "SittingBot")
+
+        ProtocolBot.stopped.await(5, TimeUnit.SECONDS) shouldBe true
+
+        ProtocolBot.messageTypes.toSet() shouldContainAll listOf(
+            Message.Type.SERVER_HANDSHAKE,
+            Message.Type.GAME_STARTED_EVENT_FOR_BOT,
+            Message.Type.ROUND_STARTED_EVENT,
+            Message.Type.TICK_EVENT_FOR_BOT,
+            Message.Type.ROUND_ENDED_EVENT_FOR_BOT,
+            Message.Type.GAME_ENDED_EVENT_FOR_BOT,
+        ).map { it.value() }
+    }
+
+    test("battle with an unknown bot class must fail with an error") {
+        val spec = BattleSpec(name = "broken", bots = listOf(BattleBotSpec(className = "no.such.Bot")))
+        val results = mutableListOf<BattleResult>()
+
+        BatchRunner().run(listOf(spec)) { results += it }
+
+        results shouldHaveSize 1
+        results[0].error shouldNotBe null
+    }
+
+    test("battle specs must be read with defaults for missing game setup fields, and results written as JSON lines") {
+        val json = """
+            [{"name": "melee", "seed": 7, "gameSetup": {"arenaWidth": 1000, "numberOfRounds": 2},
+              "bots": [{"className": "batch.SpinningBot", "name": "Spinner", "teamId": 1, "teamName": "Spinners"}]}]
+        """
+        val specs = BatchRunner.readSpecs(StringReader(json))
+
+        specs shouldHaveSize 1
+        specs[0].gameSetup!!.arenaWidth shouldBe 1000
+        specs[0].gameSetup!!.arenaHeight shouldBe BatchRunner.createDefaultGameSetup().arenaHeight
+        specs[0].bots!![0].teamName shouldBe "Spinners"
+
+        val writer = StringWriter()
+        BatchRunner().run(specs) { BatchRunner.writeResult(it, writer) }
+
+        writer.toString() shouldStartWith """{"name":"melee","seed":7,"numberOfRounds":2"""
+        writer.toString().lines().filter { it.isNotBlank() } shouldHaveSize 1
+    }
+})
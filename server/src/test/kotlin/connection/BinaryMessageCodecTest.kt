@@ -0,0 +1,107 @@
+package connection
+
+import com.google.gson.Gson
+import com.google.gson.JsonObject
+import core.factory.GameFactory.Companion.createBotIntents
+import core.factory.GameFactory.Companion.createGameSetup
+import core.factory.GameFactory.Companion.createInitialPositions
+import dev.robocode.tankroyale.schema.Message
+import dev.robocode.tankroyale.schema.TeamMessage
+import dev.robocode.tankroyale.schema.TickEventForBot
+import dev.robocode.tankroyale.server.Server
+import dev.robocode.tankroyale.server.connection.BinaryMessageCodec
+import dev.robocode.tankroyale.server.core.ModelUpdater
+import dev.robocode.tankroyale.server.mapper.TurnToTickEventForBotMapper
+import dev.robocode.tankroyale.server.model.BotId
+import dev.robocode.tankroyale.server.model.ParticipantId
+import io.kotest.core.spec.style.FunSpec
+import io.kotest.matchers.ints.shouldBeLessThan
+import io.kotest.matchers.shouldBe
+import java.nio.ByteBuffer
+import java.util.*
+import dev.robocode.tankroyale.schema.BotIntent as BotIntentMessage
+
+class BinaryMessageCodecTest : FunSpec({
+
+    val gson = Gson()
+
+    var initialPositionEnabled = false
+
+    beforeSpec {
+        initialPositionEnabled = Server.initialPositionEnabled
+        Server.initialPositionEnabled = true // bots are placed at seeded positions
+    }
+
+    afterSpec {
+        Server.initialPositionEnabled = initialPositionEnabled
+    }
+
+    /** Creates the ticks received by the first bot in a seeded 10-bot game. */
+    fun createTicks(turnCount: Int): List<TickEventForBot> {
+        val random = Random(10)
+        val botCount = 10
+        val arenaSize = 800
+
+        val participantIds = (1..botCount).map { ParticipantId(BotId(it)) }.toSet()
+        val modelUpdater = ModelUpdater(
+            createGameSetup(arenaSize),
+            participantIds,
+            createInitialPositions(random, botCount, arenaSize),
+            participantIds.associate { it.botId to false }
+        )
+        return (1..turnCount).mapNotNull {
+            val round = modelUpdater.update(createBotIntents(random, participantIds)).lastRound!!
+            TurnToTickEventForBotMapper.map(round.roundNumber, round.lastTurn!!, BotId(1), botCount - 1)
+        }
+    }
+
+    fun decodeToJson(buffer: ByteBuffer): JsonObject {
+        BinaryMessageCodec.decodeType(buffer)
+        return BinaryMessageCodec.decode(buffer, JsonObject::class.java)
+    }
+
+    test("ticks must be decoded to the same JSON structure as they were encoded from") {
+        createTicks(200).forEach { tick ->
+            val buffer = BinaryMessageCodec.encode(tick)
+
+            BinaryMessageCodec.decodeType(buffer.duplicate()) shouldBe Message.Type.TICK_EVENT_FOR_BOT
+            decodeToJson(buffer) shouldBe gson.toJsonTree(tick)
+        }
+    }
+
+    test("bot intents must be decoded to the same intent as they were encoded from") {
+        val intent = BotIntentMessage().apply {
+            type = Message.Type.BOT_INTENT
+            turnRate = -7.5
+            gunTurnRate = 0.0
+            radarTurnRate = -0.0
+            targetSpeed = 8.0
+            firepower = 0.1
+            rescan = true
+            fireAssist = false
+            bodyColor = "#FF0000"
+            stdOut = "Hello, \u4e16\u754c\n"
+            teamMessages = listOf(TeamMessage().apply {
+                message = "{\"x\":1}"
+                messageType = "Point"
+                receiverId = 2
+            })
+        }
+        val buffer = BinaryMessageCodec.encode(intent)
+
+        BinaryMessageCodec.decodeType(buffer) shouldBe Message.Type.BOT_INTENT
+        val decoded = BinaryMessageCodec.decode(buffer, BotIntentMessage::class.java)
+
+        gson.toJson(decoded) shouldBe gson.toJson(intent)
+        decoded.radarTurnRate.equals(-0.0) shouldBe true // the sign of zero must be kept
+    }
+
+    test("binary ticks must use fewer bytes than JSON ticks") {
+        val ticks = createTicks(1000)
+        val jsonBytes = ticks.sumOf { gson.toJson(it).toByteArray().size }
+        val binaryBytes = ticks.sumOf { BinaryMessageCodec.encode(it).remaining() }
+
+        // Doubles take 9 bytes instead of up to 20 characters, and property names are written once per frame
+        binaryBytes shouldBeLessThan jsonBytes * 3 / 4
+    }
+})
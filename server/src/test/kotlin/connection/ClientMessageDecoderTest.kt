@@ -0,0 +1,85 @@
+package connection
+
+import com.google.gson.Gson
+import com.google.gson.JsonSyntaxException
+import dev.robocode.tankroyale.schema.BotIntent
+import dev.robocode.tankroyale.schema.BotReady
+import dev.robocode.tankroyale.schema.Message
+import dev.robocode.tankroyale.schema.TeamMessage
+import dev.robocode.tankroyale.server.connection.BinaryMessageCodec
+import dev.robocode.tankroyale.server.connection.ClientMessageDecoder
+import io.kotest.assertions.throwables.shouldThrow
+import io.kotest.core.spec.style.FunSpec
+import io.kotest.matchers.shouldBe
+import io.kotest.matchers.types.shouldBeInstanceOf
+
+class ClientMessageDecoderTest : FunSpec({
+
+    val gson = Gson()
+
+    fun createIntent() = BotIntent().apply {
+        type = Message.Type.BOT_INTENT
+        turnRate = 5.0
+        gunTurnRate = -10.0
+        radarTurnRate = 45.0
+        targetSpeed = 8.0
+        firepower = 1.5
+        rescan = false
+        teamMessages = listOf(TeamMessage().apply {
+            message = "{\"type\":\"Point\",\"x\":1}"
+            messageType = "Point"
+            receiverId = 2
+        })
+    }
+
+    test("bot intent must be decoded when the type is the last property") {
+        val json = gson.toJson(createIntent())
+        json.endsWith("\"type\":\"BotIntent\"}") shouldBe true // written last, as it is a base class property
+
+        val intent = ClientMessageDecoder.decode(json)
+
+        intent.shouldBeInstanceOf<BotIntent>()
+        intent.turnRate shouldBe 5.0
+        intent.teamMessages[0].receiverId shouldBe 2
+    }
+
+    test("type properties of nested objects must be ignored") {
+        val json = """{"teamMessages":[{"type":"StartGame","message":"m","receiverId":1}],"type":"BotReady"}"""
+
+        ClientMessageDecoder.decode(json).shouldBeInstanceOf<BotReady>()
+    }
+
+    test("message without type must be ignored") {
+        ClientMessageDecoder.decode("""{"turnRate":5}""") shouldBe null
+    }
+
+    test("message types that cannot be sent by clients must be rejected") {
+        shouldThrow<IllegalArgumentException> { ClientMessageDecoder.decode("""{"type":"TickEventForBot"}""") }
+        shouldThrow<IllegalArgumentException> { ClientMessageDecoder.decode("""{"type":"Unknown"}""") }
+    }
+
+    test("invalid JSON must be rejected as a syntax error") {
+        shouldThrow<JsonSyntaxException> { ClientMessageDecoder.decode("""{"type":""") }
+        shouldThrow<JsonSyntaxException> { ClientMessageDecoder.decode("""["BotIntent"]""") }
+    }
+
+    test("messages from bots must be decoded as intents, and other messages by their type") {
+        val intent = ClientMessageDecoder.decodeFromBot(gson.toJson(createIntent()))
+        intent.shouldBeInstanceOf<BotIntent>()
+        intent.gunTurnRate shouldBe -10.0
+        intent.teamMessages[0].messageType shouldBe "Point"
+
+        ClientMessageDecoder.decodeFromBot("""{"type":"BotReady"}""").shouldBeInstanceOf<BotReady>()
+        ClientMessageDecoder.decodeFromBot("""{"teamMessages":"m","type":"BotReady"}""").shouldBeInstanceOf<BotReady>()
+        ClientMessageDecoder.decodeFromBot("""{"turnRate":5}""") shouldBe null
+        shouldThrow<IllegalArgumentException> { ClientMessageDecoder.decodeFromBot("""{"type":"Unknown"}""") }
+        shouldThrow<JsonSyntaxException> { ClientMessageDecoder.decodeFromBot("""{"type":""") }
+    }
+
+    test("binary bot intent must be decoded") {
+        val intent = ClientMessageDecoder.decode(BinaryMessageCodec.encode(createIntent()))
+
+        intent.shouldBeInstanceOf<BotIntent>()
+        intent.firepower shouldBe 1.5
+    }
+})
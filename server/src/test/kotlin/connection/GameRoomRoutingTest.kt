@@ -0,0 +1,135 @@
+package connection
+
+import com.google.gson.Gson
+import dev.robocode.tankroyale.schema.*
+import dev.robocode.tankroyale.server.batch.BatchRunner
+import dev.robocode.tankroyale.server.connection.ClientWebSocketsHandler
+import dev.robocode.tankroyale.server.connection.IConnectionListener
+import dev.robocode.tankroyale.server.connection.InProcessTransport
+import dev.robocode.tankroyale.server.core.GameRoom
+import dev.robocode.tankroyale.server.core.ServerSetup
+import io.kotest.core.spec.style.FunSpec
+import io.kotest.matchers.collections.shouldContain
+import io.kotest.matchers.shouldBe
+import org.java_websocket.WebSocket
+import java.util.concurrent.LinkedBlockingQueue
+import java.util.concurrent.TimeUnit
+import java.util.function.Consumer
+
+class GameRoomRoutingTest : FunSpec({
+
+    val port = 7698
+
+    val gson = Gson()
+
+    val commands = LinkedBlockingQueue<Pair<String /* command */, String /* roomId */>>()
+    val joinedClients = LinkedBlockingQueue<WebSocket>()
+
+    val listener = object : IConnectionListener {
+        override fun onException(clientSocket: WebSocket?, exception: Exception) {}
+        override fun onBotJoined(clientSocket: WebSocket, handshake: BotHandshake) {}
+        override fun onBotLeft(clientSocket: WebSocket, handshake: BotHandshake) {}
+        override fun onBotReady(clientSocket: WebSocket, handshake: BotHandshake) {}
+        override fun onBotIntent(clientSocket: WebSocket, handshake: BotHandshake, intent: BotIntent) {}
+        override fun onObserverJoined(clientSocket: WebSocket, handshake: ObserverHandshake) {
+            joinedClients += clientSocket
+        }
+        override fun onObserverLeft(clientSocket: WebSocket, handshake: ObserverHandshake) {}
+        override fun onControllerJoined(clientSocket: WebSocket, handshake: ControllerHandshake) {
+            joinedClients += clientSocket
+        }
+        override fun onControllerLeft(clientSocket: WebSocket, handshake: ControllerHandshake) {}
+        override fun onStartGame(roomId: String, gameSetup: GameSetup, botAddresses: Set<BotAddress>) {
+            commands += "start" to roomId
+        }
+        override fun onAbortGame(roomId: String) {
+            commands += "abort" to roomId
+        }
+        override fun onPauseGame(roomId: String) {
+            commands += "pause" to roomId
+        }
+        override fun onResumeGame(roomId: String) {}
+        override fun onNextTurn(roomId: String) {}
+        override fun onChangeTps(roomId: String, tps: Int) {}
+        override fun onBotPolicyUpdated(roomId: String, botPolicyUpdate: BotPolicyUpdate) {}
+    }
+
+    val clientHandler = ClientWebSocketsHandler(ServerSetup(), listener, emptySet(), emptySet()) { _, _ -> }
+
+    beforeSpec {
+        InProcessTransport.register(port, clientHandler)
+    }
+
+    afterSpec {
+        InProcessTransport.unregister(port)
+        clientHandler.close()
+    }
+
+    fun connect(handshake: (sessionId: String) -> Message): Consumer<Message> {
+        val received = LinkedBlockingQueue<Any>()
+        val server = InProcessTransport.connect(port, Consumer { received += it })
+
+        val serverHandshake = gson.fromJson(received.poll(5, TimeUnit.SECONDS) as String, ServerHandshake::class.java)
+        serverHandshake.capabilities shouldContain ClientWebSocketsHandler.ROOMS_CAPABILITY
+
+        return Consumer<Message> { server.accept(gson.toJson(it)) }.apply {
+            accept(handshake(serverHandshake.sessionId))
+        }
+    }
+
+    test("controller commands must apply to the room of the controller") {
+        val controller = connect { id ->
+            ControllerHandshake().apply {
+                type = Message.Type.CONTROLLER_HANDSHAKE
+                sessionId = id
+                name = "Controller"
+                version = "1.0"
+                roomId = "ladder-1"
+            }
+        }
+        val controllerSocket = joinedClients.poll(5, TimeUnit.SECONDS)
+
+        controller.accept(PauseGame().apply { type = Message.Type.PAUSE_GAME })
+        commands.poll(5, TimeUnit.SECONDS) shouldBe ("pause" to "ladder-1")
+
+        controller.accept(StartGame().apply {
+            type = Message.Type.START_GAME
+            roomId = "ladder-2"
+            gameSetup = BatchRunner.createDefaultGameSetup()
+            botAddresses = emptyList()
+        })
+        commands.poll(5, TimeUnit.SECONDS) shouldBe ("start" to "ladder-2")
+
+        // The controller has moved to the room of the game it started
+        controller.accept(StopGame().apply { type = Message.Type.STOP_GAME })
+        commands.poll(5, TimeUnit.SECONDS) shouldBe ("abort" to "ladder-2")
+
+        clientHandler.getObserverAndControllerSockets("ladder-2") shouldBe setOf(controllerSocket)
+    }
+
+    test("observers must observe the room given by the handshake or the default room") {
+        connect { id ->
+            ObserverHandshake().apply {
+                type = Message.Type.OBSERVER_HANDSHAKE
+                sessionId = id
+                name = "Observer"
+                version = "1.0"
+                roomId = "ladder-3"
+            }
+        }
+        val roomObserver = joinedClients.poll(5, TimeUnit.SECONDS)
+
+        connect { id ->
+            ObserverHandshake().apply {
+                type = Message.Type.OBSERVER_HANDSHAKE
+                sessionId = id
+                name = "Observer"
+                version = "1.0"
+            }
+        }
+        val defaultObserver = joinedClients.poll(5, TimeUnit.SECONDS)
+
+        clientHandler.getObserverAndControllerSockets("ladder-3") shouldBe setOf(roomObserver)
+        clientHandler.getObserverAndControllerSockets(GameRoom.DEFAULT_ROOM_ID) shouldBe setOf(defaultObserver)
+    }
+})
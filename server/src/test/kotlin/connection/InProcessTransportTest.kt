@@ -0,0 +1,126 @@
+package connection
+
+import com.google.gson.Gson
+import dev.robocode.tankroyale.schema.*
+import dev.robocode.tankroyale.server.connection.ClientWebSocketsHandler
+import dev.robocode.tankroyale.server.connection.IConnectionListener
+import dev.robocode.tankroyale.server.connection.InProcessConnection
+import dev.robocode.tankroyale.server.connection.InProcessTransport
+import dev.robocode.tankroyale.server.core.ServerSetup
+import io.kotest.assertions.throwables.shouldThrow
+import io.kotest.core.spec.style.FunSpec
+import io.kotest.matchers.shouldBe
+import io.kotest.matchers.types.shouldBeInstanceOf
+import org.java_websocket.WebSocket
+import org.java_websocket.enums.Opcode
+import org.java_websocket.framing.TextFrame
+import java.nio.ByteBuffer
+import java.util.concurrent.LinkedBlockingQueue
+import java.util.concurrent.TimeUnit
+import java.util.function.Consumer
+
+class InProcessTransportTest : FunSpec({
+
+    val port = 7699
+
+    val gson = Gson()
+
+    val joinedBots = LinkedBlockingQueue<WebSocket>()
+    val intents = LinkedBlockingQueue<BotIntent>()
+
+    val listener = object : IConnectionListener {
+        override fun onException(clientSocket: WebSocket?, exception: Exception) {}
+        override fun onBotJoined(clientSocket: WebSocket, handshake: BotHandshake) {
+            joinedBots += clientSocket
+        }
+        override fun onBotLeft(clientSocket: WebSocket, handshake: BotHandshake) {}
+        override fun onBotReady(clientSocket: WebSocket, handshake: BotHandshake) {}
+        override fun onBotIntent(clientSocket: WebSocket, handshake: BotHandshake, intent: BotIntent) {
+            intents += intent
+        }
+        override fun onObserverJoined(clientSocket: WebSocket, handshake: ObserverHandshake) {}
+        override fun onObserverLeft(clientSocket: WebSocket, handshake: ObserverHandshake) {}
+        override fun onControllerJoined(clientSocket: WebSocket, handshake: ControllerHandshake) {}
+        override fun onControllerLeft(clientSocket: WebSocket, handshake: ControllerHandshake) {}
+        override fun onStartGame(roomId: String, gameSetup: GameSetup, botAddresses: Set<BotAddress>) {}
+        override fun onAbortGame(roomId: String) {}
+        override fun onPauseGame(roomId: String) {}
+        override fun onResumeGame(roomId: String) {}
+        override fun onNextTurn(roomId: String) {}
+        override fun onChangeTps(roomId: String, tps: Int) {}
+        override fun onBotPolicyUpdated(roomId: String, botPolicyUpdate: BotPolicyUpdate) {}
+    }
+
+    val clientHandler = ClientWebSocketsHandler(ServerSetup(), listener, emptySet(), emptySet()) { _, _ -> }
+
+    beforeSpec {
+        InProcessTransport.register(port, clientHandler)
+    }
+
+    afterSpec {
+        InProcessTransport.unregister(port)
+        clientHandler.close()
+    }
+
+    /** Connects a bot, which joins with a handshake. Returns the receiver of the server, and the bot connection. */
+    fun joinBot(received: LinkedBlockingQueue<Any>): Pair<Consumer<Any>, WebSocket> {
+        val server = InProcessTransport.connect(port, Consumer { received += it })
+
+        val serverHandshake = gson.fromJson(received.poll(5, TimeUnit.SECONDS) as String, ServerHandshake::class.java)
+        server.accept(gson.toJson(BotHandshake().apply {
+            type = Message.Type.BOT_HANDSHAKE
+            sessionId = serverHandshake.sessionId
+            name = "InProcessBot"
+            version = "1.0"
+            authors = listOf("Author")
+        }))
+        return server to joinedBots.poll(5, TimeUnit.SECONDS)
+    }
+
+    test("in-process bot must join with a handshake and exchange messages as JSON") {
+        val received = LinkedBlockingQueue<Any>()
+        val (server, botSocket) = joinBot(received)
+
+        botSocket.shouldBeInstanceOf<InProcessConnection>()
+        botSocket.remoteSocketAddress.address.hostAddress shouldBe "127.0.0.2"
+
+        server.accept(gson.toJson(BotIntent().apply {
+            type = Message.Type.BOT_INTENT
+            turnRate = 5.0
+        }))
+        intents.poll().turnRate shouldBe 5.0 // handled before accept() returns
+
+        botSocket.send(gson.toJson(SkippedTurnEvent().apply { type = Message.Type.SKIPPED_TURN_EVENT }))
+        gson.fromJson(received.poll() as String, SkippedTurnEvent::class.java).type shouldBe
+                Message.Type.SKIPPED_TURN_EVENT
+
+        botSocket.close(1000, "Game over")
+        val closeFrame = received.poll()
+        closeFrame.shouldBeInstanceOf<Map.Entry<*, *>>()
+        closeFrame.key shouldBe 1000
+    }
+
+    test("frames sent to an in-process bot must be delivered as the messages they carry") {
+        val received = LinkedBlockingQueue<Any>()
+        val (_, botSocket) = joinBot(received)
+
+        val frame = TextFrame().apply { setPayload(ByteBuffer.wrap("shared".toByteArray())) }
+        botSocket.sendFrame(frame)
+        botSocket.sendFrame(frame) // the payload of a shared frame must not be consumed
+        received.poll() shouldBe "shared"
+        received.poll() shouldBe "shared"
+
+        botSocket.sendFragmentedFrame(Opcode.TEXT, ByteBuffer.wrap("frag".toByteArray()), false)
+        received.poll() shouldBe null
+        botSocket.sendFragmentedFrame(Opcode.CONTINUOUS, ByteBuffer.wrap("ment".toByteArray()), true)
+        received.poll() shouldBe "fragment"
+
+        botSocket.close()
+    }
+
+    test("connecting to a port without an in-process server must fail") {
+        shouldThrow<IllegalStateException> {
+            InProcessTransport.connect(port + 1, Consumer {})
+        }
+    }
+})
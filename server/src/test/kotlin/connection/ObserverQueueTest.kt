@@ -0,0 +1,83 @@
+package connection
+
+import dev.robocode.tankroyale.server.connection.EncodedFrame
+import dev.robocode.tankroyale.server.connection.ObserverQueue
+import dev.robocode.tankroyale.server.connection.ObserverQueuePolicy
+import io.kotest.core.spec.style.FunSpec
+import io.kotest.matchers.collections.shouldContainExactly
+import io.kotest.matchers.shouldBe
+import java.nio.ByteBuffer
+
+class ObserverQueueTest : FunSpec({
+
+    fun tick() = EncodedFrame(ByteBuffer.allocate(0), isTick = true)
+    fun event() = EncodedFrame(ByteBuffer.allocate(0), isTick = false)
+    fun delta() = EncodedFrame(ByteBuffer.allocate(0), isTick = true, isDelta = true)
+
+    test("drop policy must drop new ticks when the queue is full") {
+        val queue = ObserverQueue(ObserverQueuePolicy.DROP, 2)
+        val tick1 = tick()
+        val tick2 = tick()
+
+        queue.offer(tick1) shouldBe true
+        queue.offer(tick2) shouldBe true
+        queue.offer(tick()) shouldBe false
+
+        queue.pollAll() shouldContainExactly listOf(tick1, tick2)
+        queue.isEmpty() shouldBe true
+    }
+
+    test("coalesce policy must only keep the most recent tick") {
+        val queue = ObserverQueue(ObserverQueuePolicy.COALESCE, 2)
+        val event = event()
+        val lastTick = tick()
+
+        queue.offer(tick()) shouldBe true
+        queue.offer(event) shouldBe true
+        queue.offer(tick()) shouldBe false
+        queue.offer(lastTick) shouldBe false
+
+        queue.pollAll() shouldContainExactly listOf(event, lastTick)
+    }
+
+    test("messages that are not ticks must never be dropped") {
+        val queue = ObserverQueue(ObserverQueuePolicy.DROP, 1)
+        val events = List(10) { event() }
+
+        queue.offer(tick()) shouldBe true
+        events.forEach { queue.offer(it) shouldBe true }
+
+        queue.pollAll().filterNot { it.isTick } shouldContainExactly events
+    }
+
+    test("tick deltas must be dropped after a dropped tick until the next keyframe") {
+        val queue = ObserverQueue(ObserverQueuePolicy.DROP, 1)
+        val keyframe = tick()
+        val nextDelta = delta()
+
+        queue.offer(delta()) shouldBe true
+        queue.offer(delta()) shouldBe false
+        queue.pollAll()
+
+        queue.offer(delta()) shouldBe false
+        queue.offer(keyframe) shouldBe true
+        queue.pollAll() shouldContainExactly listOf(keyframe)
+
+        queue.offer(nextDelta) shouldBe true
+        queue.pollAll() shouldContainExactly listOf(nextDelta)
+    }
+
+    test("coalesce policy must not replace queued ticks with a tick delta") {
+        val queue = ObserverQueue(ObserverQueuePolicy.COALESCE, 1)
+        val firstDelta = delta()
+        val keyframe = tick()
+
+        queue.offer(firstDelta) shouldBe true
+        queue.offer(delta()) shouldBe false
+        queue.pollAll() shouldContainExactly listOf(firstDelta)
+
+        queue.offer(delta()) shouldBe false
+        queue.offer(keyframe) shouldBe true
+        queue.pollAll() shouldContainExactly listOf(keyframe)
+    }
+})
@@ -0,0 +1,163 @@
+package connection
+
+import com.google.gson.Gson
+import com.google.gson.JsonArray
+import com.google.gson.JsonObject
+import core.factory.GameFactory.Companion.createBotIntents
+import core.factory.GameFactory.Companion.createGameSetup
+import core.factory.GameFactory.Companion.createInitialPositions
+import dev.robocode.tankroyale.schema.Participant
+import dev.robocode.tankroyale.schema.TickEventForObserver
+import dev.robocode.tankroyale.server.Server
+import dev.robocode.tankroyale.server.connection.TickDeltaEncoder
+import dev.robocode.tankroyale.server.core.ModelUpdater
+import dev.robocode.tankroyale.server.mapper.TurnToTickEventForObserverMapper
+import dev.robocode.tankroyale.server.model.*
+import io.kotest.core.spec.style.FunSpec
+import io.kotest.matchers.ints.shouldBeLessThan
+import io.kotest.matchers.shouldBe
+import io.kotest.matchers.shouldNotBe
+import java.util.*
+
+class TickDeltaEncoderTest : FunSpec({
+
+    val gson = Gson()
+
+    var initialPositionEnabled = false
+
+    beforeSpec {
+        initialPositionEnabled = Server.initialPositionEnabled
+        Server.initialPositionEnabled = true // bots are placed at seeded positions
+    }
+
+    afterSpec {
+        Server.initialPositionEnabled = initialPositionEnabled
+    }
+
+    /** Creates the ticks of a seeded 10-bot game, where each bot changes its intent now and then. */
+    fun createTicks(turnCount: Int): List<TickEventForObserver> {
+        val random = Random(10)
+        val botCount = 10
+        val arenaSize = 800
+
+        val participantIds = (1..botCount).map { ParticipantId(BotId(it)) }.toSet()
+        val participantMap = participantIds.associate {
+            it.botId to Participant().apply {
+                id = it.botId.value
+                sessionId = "session-${it.botId.value}"
+            }
+        }
+        val modelUpdater = ModelUpdater(
+            createGameSetup(arenaSize),
+            participantIds,
+            createInitialPositions(random, botCount, arenaSize),
+            participantIds.associate { it.botId to false }
+        )
+        val colors = participantIds.associate {
+            it.botId to BotIntent(bodyColor = "#FF0000", turretColor = "#00FF00", radarColor = "#0000FF",
+                bulletColor = "#FFFF00", scanColor = "#00FFFF", tracksColor = "#FF00FF", gunColor = "#FFFFFF")
+        }
+        modelUpdater.update(colors)
+
+        return List(turnCount) {
+            val botIntents = createBotIntents(random, participantIds).filter { random.nextInt(10) == 0 }
+            val gameState = modelUpdater.update(botIntents)
+            val round = gameState.lastRound!!
+            val enemyCountMap = participantIds.associate { it.botId to botCount - 1 }
+
+            TurnToTickEventForObserverMapper.map(round.roundNumber, round.lastTurn!!, participantMap, enemyCountMap,
+                emptyMap())
+        }
+    }
+
+    test("tick deltas must reconstruct the full ticks and use fewer bytes on a 10-bot game") {
+        val ticks = createTicks(1000)
+        val encoder = TickDeltaEncoder(keyframeInterval = 50)
+
+        var fullBytes = 0
+        var deltaBytes = 0
+        var previous: JsonObject? = null
+
+        ticks.forEach { tick ->
+            val fullJson = gson.toJson(tick)
+            fullBytes += fullJson.toByteArray().size
+
+            val delta = encoder.encode(tick)
+            val expected = normalize(gson.toJsonTree(tick).asJsonObject)
+            val reconstructed = if (delta == null) {
+                deltaBytes += fullJson.toByteArray().size
+                expected
+            } else {
+                val deltaJson = gson.toJson(delta)
+                deltaBytes += deltaJson.toByteArray().size
+                applyDelta(previous!!, gson.toJsonTree(delta).asJsonObject)
+            }
+            reconstructed shouldBe expected
+            previous = reconstructed
+        }
+
+        // The bot states keep their ids, colors, and most of their values between turns
+        deltaBytes shouldBeLessThan fullBytes * 3 / 4
+    }
+
+    test("a keyframe must be sent when requested and at the keyframe interval") {
+        val ticks = createTicks(10)
+        val encoder = TickDeltaEncoder(keyframeInterval = 3)
+
+        encoder.encode(ticks[0]) shouldBe null // first tick is always a keyframe
+        encoder.encode(ticks[1]) shouldNotBe null
+        encoder.encode(ticks[2]) shouldNotBe null
+        encoder.encode(ticks[3]) shouldBe null
+
+        encoder.requestKeyframe()
+        encoder.encode(ticks[4]) shouldBe null
+        encoder.encode(ticks[6]) shouldBe null // turn was skipped
+    }
+})
+
+/** Normalizes a full tick in JSON for comparison, where the bot and bullet states are keyed by their ids. */
+private fun normalize(tick: JsonObject): JsonObject = JsonObject().apply {
+    add("turnNumber", tick["turnNumber"])
+    add("roundNumber", tick["roundNumber"])
+    add("botStates", keyById(tick["botStates"].asJsonArray, "id"))
+    add("bulletStates", keyById(tick["bulletStates"].asJsonArray, "bulletId"))
+    add("events", tick["events"])
+}
+
+private fun keyById(states: JsonArray, idName: String) = JsonObject().apply {
+    states.forEach { add(it.asJsonObject[idName].asString, it.deepCopy()) }
+}
+
+/** Applies a delta in JSON to a normalized full tick, and returns the reconstructed normalized tick. */
+private fun applyDelta(previous: JsonObject, delta: JsonObject): JsonObject = JsonObject().apply {
+    add("turnNumber", delta["turnNumber"])
+    add("roundNumber", delta["roundNumber"])
+    add("botStates", applyStateDeltas(previous["botStates"].asJsonObject, delta, "botStates", "removedBotIds", "id"))
+    add("bulletStates", applyStateDeltas(
+        previous["bulletStates"].asJsonObject, delta, "bulletStates", "removedBulletIds", "bulletId"
+    ))
+    add("events", delta["events"])
+}
+
+private fun applyStateDeltas(
+    previousStates: JsonObject, delta: JsonObject, statesName: String, removedIdsName: String, idName: String
+): JsonObject {
+    val states = previousStates.deepCopy()
+
+    delta[removedIdsName]?.asJsonArray?.forEach { states.remove(it.asString) }
+
+    delta[statesName].asJsonArray.forEach { element ->
+        val stateDelta = element.asJsonObject
+        val id = stateDelta[idName].asString
+        val state = states[id]?.asJsonObject ?: JsonObject().also { states.add(id, it) }
+
+        stateDelta.entrySet().forEach { (name, value) ->
+            if (name == "clearedFields") {
+                value.asJsonArray.forEach { state.remove(it.asString) }
+            } else {
+                state.add(name, value)
+            }
+        }
+    }
+    return states
+}
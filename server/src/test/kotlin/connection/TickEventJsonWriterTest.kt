@@ -0,0 +1,121 @@
+package connection
+
+import com.google.gson.Gson
+import core.factory.GameFactory.Companion.createBotIntents
+import core.factory.GameFactory.Companion.createGameSetup
+import core.factory.GameFactory.Companion.createInitialPositions
+import dev.robocode.tankroyale.server.Server
+import dev.robocode.tankroyale.server.connection.SharedEventJson
+import dev.robocode.tankroyale.server.connection.TickEventJsonWriter
+import dev.robocode.tankroyale.server.core.ModelUpdater
+import dev.robocode.tankroyale.server.mapper.TurnToTickEventForBotMapper
+import dev.robocode.tankroyale.server.model.BotId
+import dev.robocode.tankroyale.server.model.BotIntent
+import dev.robocode.tankroyale.server.model.IRound
+import dev.robocode.tankroyale.server.model.ParticipantId
+import dev.robocode.tankroyale.server.model.TeamMessage
+import io.kotest.core.spec.style.FunSpec
+import io.kotest.matchers.longs.shouldBeLessThan
+import io.kotest.matchers.shouldBe
+import java.lang.management.ManagementFactory
+import java.util.*
+
+class TickEventJsonWriterTest : FunSpec({
+
+    val gson = Gson()
+
+    var initialPositionEnabled = false
+
+    beforeSpec {
+        initialPositionEnabled = Server.initialPositionEnabled
+        Server.initialPositionEnabled = true // bots are placed at seeded positions
+    }
+
+    afterSpec {
+        Server.initialPositionEnabled = initialPositionEnabled
+    }
+
+    /**
+     * Plays the turns of a seeded 10-bot game, where the bots change colors and bot 1 sends messages to bot 2, and
+     * passes the round of each turn.
+     */
+    fun playTurns(turnCount: Int, onTurn: (IRound) -> Unit) {
+        val random = Random(18)
+        val botCount = 10
+        val arenaSize = 800
+
+        val participantIds = (1..botCount).map { ParticipantId(BotId(it)) }.toSet()
+        val modelUpdater = ModelUpdater(
+            createGameSetup(arenaSize),
+            participantIds,
+            createInitialPositions(random, botCount, arenaSize),
+            participantIds.associate { it.botId to false }
+        )
+        (1..turnCount).forEach { turnNumber ->
+            val intents = createBotIntents(random, participantIds).onEach { (botId, intent) ->
+                (intent as BotIntent).apply {
+                    bodyColor = if (turnNumber % 2 == 0) "#F00" else "#00ff7f"
+                    bulletColor = if (botId.value % 2 == 0) "#0F0" else null
+                    if (botId.value == 1) {
+                        teamMessages = listOf(TeamMessage("<\"x\" = 'ø'>\n", "Point", BotId(2)))
+                    }
+                }
+            }
+            onTurn(modelUpdater.update(intents).lastRound!!)
+        }
+    }
+
+    test("ticks must be written as the same JSON as Gson writes for the mapped ticks") {
+        val writer = TickEventJsonWriter()
+
+        playTurns(200) { round ->
+            val turn = round.lastTurn!!
+            val sharedEvents = SharedEventJson()
+            turn.bots.forEach { bot ->
+                val bullets = turn.bullets.filter { it.botId == bot.id }
+                val expected = gson.toJson(TurnToTickEventForBotMapper.map(round.roundNumber, turn, bot, 9, bullets))
+
+                val payload = writer.writeTickEventForBot(round.roundNumber, turn, bot, 9, bullets, sharedEvents)
+
+                Charsets.UTF_8.decode(payload).toString() shouldBe expected
+            }
+        }
+    }
+
+    test("written ticks must allocate less than mapped ticks serialized by Gson") {
+        val threadBean = ManagementFactory.getThreadMXBean() as com.sun.management.ThreadMXBean
+        val threadId = Thread.currentThread().id
+        val writer = TickEventJsonWriter()
+        val turnCount = 1000
+
+        fun measureBytesPerTick(writeTick: (IRound) -> Unit): Long {
+            var allocatedBytes = 0L
+            playTurns(turnCount) { round ->
+                val startBytes = threadBean.getThreadAllocatedBytes(threadId)
+                writeTick(round)
+                allocatedBytes += threadBean.getThreadAllocatedBytes(threadId) - startBytes
+            }
+            return allocatedBytes / turnCount
+        }
+
+        var gsonBytes = 0L
+        var writerBytes = 0L
+        repeat(3) { // the first iterations are warm-up
+            gsonBytes = measureBytesPerTick { round ->
+                val turn = round.lastTurn!!
+                val tick = TurnToTickEventForBotMapper.map(round.roundNumber, turn, BotId(1), 9)
+                if (tick != null) gson.toJson(tick).toByteArray()
+            }
+            writerBytes = measureBytesPerTick { round ->
+                val turn = round.lastTurn!!
+                turn.getBot(BotId(1))?.let { bot ->
+                    writer.writeTickEventForBot(
+                        round.roundNumber, turn, bot, 9, turn.bullets.filter { it.botId == bot.id }
+                    )
+                }
+            }
+        }
+
+        writerBytes shouldBeLessThan gsonBytes
+    }
+})
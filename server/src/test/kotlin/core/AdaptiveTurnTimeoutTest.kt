@@ -0,0 +1,89 @@
+package core
+
+import dev.robocode.tankroyale.server.core.AdaptiveTurnTimeout
+import dev.robocode.tankroyale.server.model.BotId
+import io.kotest.core.spec.style.FunSpec
+import io.kotest.matchers.shouldBe
+
+class AdaptiveTurnTimeoutTest : FunSpec({
+
+    val maxTimeout = 30_000_000L // 30 ms
+    val fastBot = BotId(1)
+    val slowBot = BotId(2)
+
+    fun AdaptiveTurnTimeout.recordResponses(botId: BotId, count: Int, responseTime: Long) =
+        repeat(count) { recordResponse(botId, responseTime) }
+
+    test("budget must be the turn timeout until enough responses have been measured") {
+        AdaptiveTurnTimeout(maxTimeout).apply {
+            recordResponses(fastBot, AdaptiveTurnTimeout.MIN_RESPONSES - 1, 2_000_000)
+
+            budgetOf(fastBot) shouldBe maxTimeout
+            budgetOf(slowBot) shouldBe maxTimeout
+        }
+    }
+
+    test("turn timeout must be the largest budget of the pending bots") {
+        AdaptiveTurnTimeout(maxTimeout).apply {
+            recordResponses(fastBot, 50, 2_000_000)
+            recordResponses(slowBot, 50, 10_000_000)
+
+            budgetOf(fastBot) shouldBe 3_000_000
+            budgetOf(slowBot) shouldBe 15_000_000
+            turnTimeout(listOf(fastBot)) shouldBe 3_000_000
+            turnTimeout(listOf(fastBot, slowBot)) shouldBe 15_000_000
+            turnTimeout(emptyList()) shouldBe 0
+        }
+    }
+
+    test("response must miss the budget when it takes longer than the budget") {
+        AdaptiveTurnTimeout(maxTimeout).apply {
+            recordResponses(fastBot, 50, 2_000_000)
+            recordResponse(fastBot, 2_900_000) shouldBe true
+        }
+        AdaptiveTurnTimeout(maxTimeout).apply {
+            recordResponses(fastBot, 50, 2_000_000)
+            recordResponse(fastBot, 3_100_000) shouldBe false
+
+            recordResponse(slowBot, maxTimeout + 1) shouldBe false
+        }
+    }
+
+    test("budget must be bounded by the minimum budget and the turn timeout") {
+        AdaptiveTurnTimeout(maxTimeout).apply {
+            recordResponses(fastBot, 50, 1000)
+            recordResponses(slowBot, 50, 25_000_000)
+
+            budgetOf(fastBot) shouldBe AdaptiveTurnTimeout.MIN_BUDGET_IN_NANOS
+            budgetOf(slowBot) shouldBe maxTimeout
+        }
+    }
+
+    test("skipped turns must raise the budget towards the turn timeout") {
+        AdaptiveTurnTimeout(maxTimeout).apply {
+            recordResponses(slowBot, 50, 4_000_000)
+            budgetOf(slowBot) shouldBe 6_000_000
+
+            repeat(10) { recordSkippedTurn(slowBot) }
+            budgetOf(slowBot) shouldBe maxTimeout
+        }
+    }
+
+    test("old response times must be forgotten") {
+        AdaptiveTurnTimeout(maxTimeout).apply {
+            recordResponses(slowBot, 50, 10_000_000)
+            recordResponses(slowBot, 2 * AdaptiveTurnTimeout.WINDOW_SIZE, 2_000_000)
+
+            budgetOf(slowBot) shouldBe 3_000_000
+        }
+    }
+
+    test("reset must remove all response times") {
+        AdaptiveTurnTimeout(maxTimeout).apply {
+            recordResponses(fastBot, 50, 2_000_000)
+            reset()
+
+            budgetOf(fastBot) shouldBe maxTimeout
+        }
+    }
+})
@@ -0,0 +1,47 @@
+package core
+
+import dev.robocode.tankroyale.common.recording.RecordingReader
+import dev.robocode.tankroyale.server.core.GameRecorder
+import dev.robocode.tankroyale.server.core.GameRoom
+import io.kotest.core.spec.style.FunSpec
+import io.kotest.engine.spec.tempdir
+import io.kotest.matchers.collections.shouldContainExactly
+import io.kotest.matchers.shouldBe
+import io.kotest.matchers.string.shouldStartWith
+
+class GameRecorderTest : FunSpec({
+
+    fun tick(turn: Int) = """{"roundNumber":1,"turnNumber":$turn,"type":"TickEventForObserver"}"""
+
+    test("recording must hold the recorded messages as received, but not the control events") {
+        val recorder = GameRecorder(tempdir(), GameRoom.DEFAULT_ROOM_ID)
+        recorder.use {
+            it.record("""{"type":"GameStartedEventForObserver"}""", "GameStartedEventForObserver")
+            it.record("""{"roundNumber":1,"type":"RoundStartedEvent"}""", "RoundStartedEvent")
+            for (turn in 1..3) it.record(tick(turn), "TickEventForObserver")
+            it.record("""{"type":"GamePausedEventForObserver"}""", "GamePausedEventForObserver")
+            it.record("""{"type":"GameEndedEventForObserver"}""", "GameEndedEventForObserver")
+        }
+
+        val reader = RecordingReader(recorder.file)
+        val lines = mutableListOf<String>()
+        reader.forEachLine { lines += it }
+
+        lines shouldContainExactly listOf(
+            """{"type":"GameStartedEventForObserver"}""",
+            """{"roundNumber":1,"type":"RoundStartedEvent"}""",
+            tick(1), tick(2), tick(3),
+            """{"type":"GameEndedEventForObserver"}""",
+        )
+        reader.index?.tickCount shouldBe 3
+    }
+
+    test("messages recorded after closing must be ignored") {
+        val recorder = GameRecorder(tempdir(), "room/1")
+        recorder.close()
+        recorder.record(tick(1), "TickEventForObserver")
+
+        recorder.file.name shouldStartWith "game-room_1-"
+        RecordingReader(recorder.file).index?.tickCount shouldBe 0
+    }
+})
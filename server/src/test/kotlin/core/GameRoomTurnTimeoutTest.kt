@@ -0,0 +1,162 @@
+package core
+
+import com.google.gson.Gson
+import com.google.gson.JsonObject
+import dev.robocode.tankroyale.schema.*
+import dev.robocode.tankroyale.server.Server
+import dev.robocode.tankroyale.server.batch.BatchRunner
+import dev.robocode.tankroyale.server.connection.ConnectionHandler
+import dev.robocode.tankroyale.server.connection.IConnectionListener
+import dev.robocode.tankroyale.server.connection.InProcessTransport
+import dev.robocode.tankroyale.server.core.GameRoom
+import dev.robocode.tankroyale.server.core.ServerSetup
+import dev.robocode.tankroyale.server.metrics.MetricsRegistry
+import io.kotest.core.spec.style.FunSpec
+import io.kotest.matchers.collections.shouldBeEmpty
+import io.kotest.matchers.collections.shouldContain
+import io.kotest.matchers.longs.shouldBeGreaterThanOrEqual
+import io.kotest.matchers.longs.shouldBeLessThan
+import io.kotest.matchers.shouldBe
+import org.java_websocket.WebSocket
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.Executors
+import java.util.concurrent.LinkedBlockingQueue
+import java.util.concurrent.TimeUnit
+import java.util.function.Consumer
+
+class GameRoomTurnTimeoutTest : FunSpec({
+
+    val gson = Gson()
+
+    val metrics = MetricsRegistry()
+
+    var room: GameRoom? = null
+
+    val joinedBots = LinkedBlockingQueue<WebSocket>()
+
+    val listener = object : IConnectionListener {
+        override fun onException(clientSocket: WebSocket?, exception: Exception) {}
+        override fun onBotJoined(clientSocket: WebSocket, handshake: BotHandshake) {
+            joinedBots += clientSocket
+        }
+        override fun onBotLeft(clientSocket: WebSocket, handshake: BotHandshake) {}
+        override fun onBotReady(clientSocket: WebSocket, handshake: BotHandshake) {}
+        override fun onBotIntent(clientSocket: WebSocket, handshake: BotHandshake, intent: BotIntent) {
+            room?.handleBotIntent(clientSocket, intent)
+        }
+        override fun onObserverJoined(clientSocket: WebSocket, handshake: ObserverHandshake) {}
+        override fun onObserverLeft(clientSocket: WebSocket, handshake: ObserverHandshake) {}
+        override fun onControllerJoined(clientSocket: WebSocket, handshake: ControllerHandshake) {}
+        override fun onControllerLeft(clientSocket: WebSocket, handshake: ControllerHandshake) {}
+        override fun onStartGame(roomId: String, gameSetup: GameSetup, botAddresses: Set<BotAddress>) {}
+        override fun onAbortGame(roomId: String) {}
+        override fun onPauseGame(roomId: String) {}
+        override fun onResumeGame(roomId: String) {}
+        override fun onNextTurn(roomId: String) {}
+        override fun onChangeTps(roomId: String, tps: Int) {}
+        override fun onBotPolicyUpdated(roomId: String, botPolicyUpdate: BotPolicyUpdate) {}
+    }
+
+    val connectionHandler = ConnectionHandler(ServerSetup(), listener, emptySet(), emptySet(), metrics)
+
+    /** Sends the intents of the bots, where the intent of a slow bot is delayed */
+    val responder = Executors.newScheduledThreadPool(2)
+
+    var tps = 0
+
+    beforeSpec {
+        tps = Server.tps
+        Server.tps = -1 // the turns are only paced by the intents and the turn timeout
+        connectionHandler.startInProcess()
+    }
+
+    afterSpec {
+        Server.tps = tps
+        connectionHandler.stop()
+        responder.shutdown()
+    }
+
+    /**
+     * Bot that responds to the ticks of the first turns with an intent after a delay, and then stops responding.
+     * The time each tick was received, and the turn numbers of the skipped turns are kept per bot.
+     */
+    class Bot(val name: String, val delayInMillis: Long, val lastRespondedTurn: Int) {
+        val tickTimes = ConcurrentHashMap<Int /* turn number */, Long /* nano time */>()
+        val skippedTurns = LinkedBlockingQueue<Int>()
+        lateinit var socket: WebSocket
+    }
+
+    /** Joins a bot, which handles the messages it receives on its own thread until its connection is closed */
+    fun join(bot: Bot) {
+        val received = LinkedBlockingQueue<Any>()
+        val server = InProcessTransport.connect(Server.portNumber, Consumer { received += it })
+
+        val serverHandshake = gson.fromJson(received.poll(5, TimeUnit.SECONDS) as String, ServerHandshake::class.java)
+        server.accept(gson.toJson(BotHandshake().apply {
+            type = Message.Type.BOT_HANDSHAKE
+            sessionId = serverHandshake.sessionId
+            name = bot.name
+            version = "1.0"
+            authors = listOf("Author")
+        }))
+        bot.socket = joinedBots.poll(5, TimeUnit.SECONDS)
+
+        Thread {
+            while (true) {
+                val message = received.take() as? String ?: break // the connection has been closed
+                val json = gson.fromJson(message, JsonObject::class.java)
+                when (json["type"].asString) {
+                    Message.Type.TICK_EVENT_FOR_BOT.value() -> {
+                        val turnNumber = json["turnNumber"].asInt
+                        bot.tickTimes[turnNumber] = System.nanoTime()
+                        if (turnNumber <= bot.lastRespondedTurn) {
+                            responder.schedule({
+                                server.accept(gson.toJson(BotIntent().apply { type = Message.Type.BOT_INTENT }))
+                            }, bot.delayInMillis, TimeUnit.MILLISECONDS)
+                        }
+                    }
+
+                    Message.Type.SKIPPED_TURN_EVENT.value() -> bot.skippedTurns += json["turnNumber"].asInt
+                }
+            }
+        }.start()
+    }
+
+    test("turns must wait for a slow bot until its own budget has expired") {
+        val fastBot = Bot("FastBot", delayInMillis = 0, lastRespondedTurn = Int.MAX_VALUE)
+        val slowBot = Bot("SlowBot", delayInMillis = 20, lastRespondedTurn = 30)
+        join(fastBot)
+        join(slowBot)
+
+        room = GameRoom("turn-timeout", connectionHandler, metrics) {}
+        room!!.apply {
+            handleStartGame(BatchRunner.createDefaultGameSetup().apply {
+                numberOfRounds = 1
+                maxInactivityTurns = 10_000
+                turnTimeout = 1_000_000 // 1 second
+                isAdaptiveTurnTimeout = true
+                seed = 17L
+            }, listOf(fastBot.socket, slowBot.socket)) shouldBe true
+            handleBotReady(fastBot.socket)
+            handleBotReady(slowBot.socket)
+
+            val deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10)
+            while (slowBot.tickTimes[32] == null && System.nanoTime() < deadline) Thread.sleep(10)
+            handleAbortGame()
+            close()
+        }
+        fastBot.socket.close()
+        slowBot.socket.close()
+
+        fun millisBetweenTicks(turnNumber: Int) =
+            TimeUnit.NANOSECONDS.toMillis(slowBot.tickTimes[turnNumber + 1]!! - slowBot.tickTimes[turnNumber]!!)
+
+        // Each turn waits for the intent of the slow bot, and not only for the first intent
+        (1..30).forEach { millisBetweenTicks(it) shouldBeGreaterThanOrEqual 20 }
+        slowBot.skippedTurns.filter { it <= 30 }.shouldBeEmpty()
+
+        // The turn the slow bot does not respond to ends when its budget has expired, and not at the turn timeout
+        millisBetweenTicks(31) shouldBeLessThan 500
+        slowBot.skippedTurns shouldContain 31
+    }
+})
@@ -0,0 +1,45 @@
+package core
+
+import core.factory.GameFactory.Companion.createBotIntents
+import core.factory.GameFactory.Companion.createGameSetup
+import dev.robocode.tankroyale.server.core.ModelUpdater
+import dev.robocode.tankroyale.server.model.BotId
+import dev.robocode.tankroyale.server.model.ParticipantId
+import io.kotest.core.spec.style.FunSpec
+import io.kotest.matchers.shouldBe
+import io.kotest.matchers.shouldNotBe
+import java.util.*
+
+class ModelUpdaterSeedTest : FunSpec({
+
+    val participantIds = (1..10).map { ParticipantId(BotId(it)) }.toSet()
+
+    /** Plays a number of turns with the same intents, and returns the bot positions of each turn */
+    fun play(seed: Long, participantOrder: Set<ParticipantId>, turns: Int = 300): List<List<Pair<Double, Double>>> {
+        val random = Random(11)
+        val modelUpdater = ModelUpdater(
+            createGameSetup(800).copy(seed = seed), participantOrder, emptyMap(),
+            participantOrder.associate { it.botId to false },
+        )
+        try {
+            return List(turns) {
+                val turn = modelUpdater.update(createBotIntents(random, participantIds)).lastRound!!.lastTurn!!
+                turn.bots.sortedBy { it.id.value }.map { it.x to it.y }
+            }
+        } finally {
+            modelUpdater.close()
+        }
+    }
+
+    test("games with the same seed must be played identically") {
+        play(42, participantIds) shouldBe play(42, participantIds)
+    }
+
+    test("games with the same seed must be played identically regardless of the order of the participants") {
+        play(42, participantIds.reversed().toSet()) shouldBe play(42, participantIds)
+    }
+
+    test("games with different seeds must place the bots differently") {
+        play(1, participantIds, turns = 1) shouldNotBe play(2, participantIds, turns = 1)
+    }
+})
@@ -0,0 +1,129 @@
+package core
+
+import dev.robocode.tankroyale.server.Server
+import dev.robocode.tankroyale.server.core.ModelUpdater
+import dev.robocode.tankroyale.server.event.*
+import dev.robocode.tankroyale.server.model.*
+import io.kotest.core.spec.style.FunSpec
+import io.kotest.data.forAll
+import io.kotest.data.row
+import io.kotest.matchers.shouldBe
+import java.util.*
+
+/**
+ * Differential test checking that the spatial grids used by the [ModelUpdater] give exactly the same turns as the
+ * brute-force collision and scan checks for seeded games.
+ */
+class ModelUpdaterSpatialIndexTest : FunSpec({
+
+    var initialPositionEnabled = false
+
+    beforeSpec {
+        initialPositionEnabled = Server.initialPositionEnabled
+        Server.initialPositionEnabled = true // bots are placed at seeded positions
+    }
+
+    afterSpec {
+        Server.initialPositionEnabled = initialPositionEnabled
+    }
+
+    context("spatial index must give the same turns as brute force") {
+        forAll(
+            row("dense melee", 1L, 30, 800),
+            row("large melee", 42L, 60, 2000),
+            row("huge arena", 1337L, 120, 5000),
+        ) { _, seed, botCount, arenaSize ->
+            val random = Random(seed)
+
+            val setup = createGameSetup(arenaSize)
+            val participantIds = (1..botCount).map { ParticipantId(BotId(it)) }.toSet()
+            val initialPositions = createInitialPositions(random, botCount, arenaSize)
+            val droidFlags = participantIds.associate { it.botId to (it.botId.value % 10 == 0) }
+
+            val bruteForce = ModelUpdater(setup, participantIds, initialPositions, droidFlags, false)
+            val spatialIndex = ModelUpdater(setup, participantIds, initialPositions, droidFlags, true)
+
+            repeat(1000) {
+                val botIntents = createBotIntents(random, participantIds)
+
+                val expected = bruteForce.update(botIntents)
+                val actual = spatialIndex.update(botIntents)
+
+                actual.lastRound!!.roundNumber shouldBe expected.lastRound!!.roundNumber
+                describeTurn(actual.lastRound!!.lastTurn!!) shouldBe describeTurn(expected.lastRound!!.lastTurn!!)
+            }
+        }
+    }
+})
+
+private fun createGameSetup(arenaSize: Int) = GameSetup(
+    arenaWidth = arenaSize,
+    arenaHeight = arenaSize,
+    maxNumberOfParticipants = null,
+    numberOfRounds = 3,
+    maxInactivityTurns = 100,
+    isArenaWidthLocked = false,
+    isArenaHeightLocked = false,
+    isMinNumberOfParticipantsLocked = false,
+    isMaxNumberOfParticipantsLocked = false,
+    isNumberOfRoundsLocked = false,
+    isGunCoolingRateLocked = false,
+    isMaxInactivityTurnsLocked = false,
+    isTurnTimeoutLocked = false,
+    isReadyTimeoutLocked = false,
+)
+
+/** Places the bots in a grid of cells with room between them, so no bots are colliding in the first turn. */
+private fun createInitialPositions(random: Random, botCount: Int, arenaSize: Int): Map<BotId, InitialPosition> {
+    val cellSize = 60
+    val columns = arenaSize / cellSize
+    val cells = (0 until columns * columns).shuffled(random).take(botCount)
+
+    return cells.mapIndexed { index, cell ->
+        val x = (cell % columns) * cellSize + cellSize / 2.0
+        val y = (cell / columns) * cellSize + cellSize / 2.0
+        BotId(index + 1) to InitialPosition(x, y, random.nextDouble() * 360)
+    }.toMap()
+}
+
+private fun createBotIntents(random: Random, participantIds: Set<ParticipantId>): Map<BotId, IBotIntent> =
+    participantIds.associate {
+        it.botId to BotIntent(
+            targetSpeed = random.nextDouble() * 16 - 8,
+            turnRate = random.nextDouble() * 20 - 10,
+            gunTurnRate = random.nextDouble() * 40 - 20,
+            radarTurnRate = random.nextDouble() * 90 - 45,
+            firepower = random.nextDouble() * 3,
+            rescan = random.nextInt(4) == 0,
+            fireAssist = false, // fire assistance picks any scan event of the bot, which is not deterministic
+        )
+    }
+
+/** Describes a turn by comparable values, as events are compared by identity. */
+private fun describeTurn(turn: ITurn): List<Any> = listOf(
+    turn.turnNumber,
+    turn.bots.sortedBy { it.id.value }.map { Bot.copyOf(it) },
+    turn.bullets.sortedBy { it.id.value }.map(::describeBullet),
+    turn.observerEvents.map(::describeEvent),
+    turn.botEvents.mapKeys { it.key.value }.mapValues { (_, events) -> events.map(::describeEvent).sorted() }.toSortedMap(),
+)
+
+private fun describeBullet(bullet: IBullet) =
+    "bullet ${bullet.id} ${bullet.botId} ${bullet.power} ${bullet.direction} ${bullet.startPosition} ${bullet.tick}"
+
+private fun describeEvent(event: Event): String = when (event) {
+    is BotDeathEvent -> "BotDeath ${event.turnNumber} ${event.victimId}"
+    is BotHitBotEvent -> "BotHitBot ${event.turnNumber} ${event.botId} ${event.victimId} ${event.energy} " +
+            "${event.x} ${event.y} ${event.isRammed}"
+    is BotHitWallEvent -> "BotHitWall ${event.turnNumber} ${event.victimId}"
+    is BulletFiredEvent -> "BulletFired ${event.turnNumber} ${describeBullet(event.bullet)}"
+    is BulletHitBotEvent -> "BulletHitBot ${event.turnNumber} ${describeBullet(event.bullet)} ${event.victimId} " +
+            "${event.damage} ${event.energy}"
+    is BulletHitBulletEvent -> "BulletHitBullet ${event.turnNumber} ${describeBullet(event.bullet)} " +
+            describeBullet(event.hitBullet)
+    is BulletHitWallEvent -> "BulletHitWall ${event.turnNumber} ${describeBullet(event.bullet)}"
+    is ScannedBotEvent -> "ScannedBot ${event.turnNumber} ${event.scannedByBotId} ${event.scannedBotId} " +
+            "${event.energy} ${event.x} ${event.y} ${event.direction} ${event.speed}"
+    is WonRoundEvent -> "WonRound ${event.turnNumber}"
+    else -> "${event::class.simpleName} ${event.turnNumber}"
+}
@@ -0,0 +1,99 @@
+package core
+
+import core.factory.GameFactory.Companion.createGameSetup
+import dev.robocode.tankroyale.server.core.ModelUpdater
+import dev.robocode.tankroyale.server.core.TeamMessageStatistics
+import dev.robocode.tankroyale.server.event.TeamMessageEvent
+import dev.robocode.tankroyale.server.model.BotId
+import dev.robocode.tankroyale.server.model.BotIntent
+import dev.robocode.tankroyale.server.model.ITurn
+import dev.robocode.tankroyale.server.model.ParticipantId
+import dev.robocode.tankroyale.server.model.TeamId
+import dev.robocode.tankroyale.server.model.TeamMessage
+import io.kotest.core.spec.style.FunSpec
+import io.kotest.matchers.collections.shouldBeEmpty
+import io.kotest.matchers.collections.shouldHaveSize
+import io.kotest.matchers.shouldBe
+import io.kotest.matchers.types.shouldBeSameInstanceAs
+
+class ModelUpdaterTeamMessageTest : FunSpec({
+
+    val team = TeamId(1)
+    val participantIds = setOf(
+        ParticipantId(BotId(1), team),
+        ParticipantId(BotId(2), team),
+        ParticipantId(BotId(3), team),
+        ParticipantId(BotId(4)),
+    )
+
+    fun ITurn.teamMessagesOf(botId: Int) = getEvents(BotId(botId)).filterIsInstance<TeamMessageEvent>()
+
+    fun playTurnWith(statistics: TeamMessageStatistics, intents: Map<BotId, BotIntent>): ITurn {
+        val modelUpdater = ModelUpdater(
+            createGameSetup(800), participantIds, emptyMap(), participantIds.associate { it.botId to false },
+            teamMessageStatistics = statistics,
+        )
+        try {
+            modelUpdater.update(emptyMap())
+            return modelUpdater.update(intents).lastRound!!.lastTurn!!
+        } finally {
+            modelUpdater.close()
+        }
+    }
+
+    /** Plays a turn where bot 1 broadcasts a message to its team, and bot 2 sends a message to bot 3 */
+    fun playTurn(statistics: TeamMessageStatistics) = playTurnWith(
+        statistics, mapOf(
+            BotId(1) to BotIntent(teamMessages = listOf(TeamMessage("{\"x\":1}", "Point", null))),
+            BotId(2) to BotIntent(teamMessages = listOf(TeamMessage("hi ✓", "String", BotId(3)))),
+        )
+    )
+
+    test("a broadcast message must be a single event shared by all teammates") {
+        val turn = playTurn(TeamMessageStatistics())
+
+        val broadcast = turn.teamMessagesOf(2).single { it.senderId == BotId(1) }
+        turn.teamMessagesOf(3).single { it.senderId == BotId(1) } shouldBeSameInstanceAs broadcast
+        turn.teamMessagesOf(3) shouldHaveSize 2
+        turn.teamMessagesOf(1).shouldBeEmpty()
+        turn.teamMessagesOf(4).shouldBeEmpty()
+    }
+
+    test("sent messages, bytes, and deliveries must be counted per team") {
+        val statistics = TeamMessageStatistics()
+        playTurn(statistics)
+
+        var teams = 0
+        statistics.forEach { teamId, counters ->
+            teams++
+            teamId shouldBe team
+            counters.messages.sum() shouldBe 2
+            counters.bytes.sum() shouldBe 7 + 6 // "✓" takes 3 bytes in UTF-8
+            counters.deliveries.sum() shouldBe 2 + 1
+        }
+        teams shouldBe 1
+    }
+
+    test("a message to a receiver must be delivered to the receiver, also when it is not a teammate") {
+        val statistics = TeamMessageStatistics()
+        val turn = playTurnWith(
+            statistics, mapOf(
+                BotId(2) to BotIntent(teamMessages = listOf(TeamMessage("a", "String", BotId(4)))),
+                BotId(4) to BotIntent(teamMessages = listOf(TeamMessage("b", "String", BotId(1)))),
+            )
+        )
+
+        turn.teamMessagesOf(4).single().senderId shouldBe BotId(2)
+        turn.teamMessagesOf(1).single().senderId shouldBe BotId(4)
+
+        // Only the message of the bot in a team is counted
+        var teams = 0
+        statistics.forEach { teamId, counters ->
+            teams++
+            teamId shouldBe team
+            counters.messages.sum() shouldBe 1
+            counters.deliveries.sum() shouldBe 1
+        }
+        teams shouldBe 1
+    }
+})
@@ -0,0 +1,98 @@
+package core
+
+import core.factory.GameFactory.Companion.createBotIntents
+import core.factory.GameFactory.Companion.createGameSetup
+import core.factory.GameFactory.Companion.createInitialPositions
+import dev.robocode.tankroyale.server.Server
+import dev.robocode.tankroyale.server.core.ModelUpdater
+import dev.robocode.tankroyale.server.model.*
+import io.kotest.assertions.throwables.shouldThrow
+import io.kotest.core.spec.style.FunSpec
+import io.kotest.matchers.ints.shouldBeGreaterThan
+import io.kotest.matchers.ints.shouldBeLessThanOrEqual
+import io.kotest.matchers.shouldBe
+import java.util.*
+
+/**
+ * Test checking that the number of turns retained by the [ModelUpdater] is bounded in long games, and that each round
+ * retains its own turns.
+ */
+class ModelUpdaterTurnHistoryTest : FunSpec({
+
+    var initialPositionEnabled = false
+
+    beforeSpec {
+        initialPositionEnabled = Server.initialPositionEnabled
+        Server.initialPositionEnabled = true // bots are placed at seeded positions
+    }
+
+    afterSpec {
+        Server.initialPositionEnabled = initialPositionEnabled
+    }
+
+    fun runLongGame(policy: TurnHistoryPolicy, onTurn: (GameState) -> Unit) {
+        val random = Random(7)
+        val arenaSize = 800
+        val botCount = 10
+
+        val setup = createGameSetup(arenaSize, numberOfRounds = 1000)
+        val participantIds = (1..botCount).map { ParticipantId(BotId(it)) }.toSet()
+        val initialPositions = createInitialPositions(random, botCount, arenaSize)
+        val droidFlags = participantIds.associate { it.botId to false }
+
+        val modelUpdater = ModelUpdater(
+            setup, participantIds, initialPositions, droidFlags, turnHistoryPolicy = policy
+        )
+        try {
+            repeat(20_000) {
+                onTurn(modelUpdater.update(createBotIntents(random, participantIds)))
+            }
+        } finally {
+            modelUpdater.close()
+        }
+    }
+
+    test("last-turn-only history must retain a single turn per round") {
+        runLongGame(TurnHistoryPolicy.LastTurnOnly) { gameState ->
+            gameState.rounds.forEach { it.turns.size shouldBeLessThanOrEqual 1 }
+            gameState.lastRound!!.turns.size shouldBe 1
+        }
+    }
+
+    test("ring buffer history must retain at most its capacity of turns per round") {
+        runLongGame(TurnHistoryPolicy.RingBuffer(50)) { gameState ->
+            gameState.rounds.forEach { it.turns.size shouldBeLessThanOrEqual 50 }
+
+            gameState.lastRound!!.turns.last() shouldBe gameState.lastRound!!.lastTurn
+        }
+    }
+
+    test("past rounds must retain their own final turn") {
+        val finalTurnNumbers = mutableMapOf<Int, Int>()
+        lateinit var lastGameState: GameState
+
+        runLongGame(TurnHistoryPolicy.RingBuffer(50)) { gameState ->
+            val round = gameState.lastRound!!
+            finalTurnNumbers[round.roundNumber] = round.lastTurn!!.turnNumber
+            lastGameState = gameState
+        }
+
+        val pastRounds = lastGameState.rounds.dropLast(1)
+        pastRounds.size shouldBeGreaterThan 1
+        pastRounds.forEach { round ->
+            round.turns.size shouldBe 1
+            round.lastTurn!!.turnNumber shouldBe finalTurnNumbers[round.roundNumber]
+        }
+    }
+
+    test("parse turn history policies") {
+        TurnHistoryPolicy.parse("last") shouldBe TurnHistoryPolicy.LastTurnOnly
+        TurnHistoryPolicy.parse("ring:100") shouldBe TurnHistoryPolicy.RingBuffer(100)
+        TurnHistoryPolicy.parse("disk:history").toString() shouldBe "disk:history"
+
+        shouldThrow<IllegalArgumentException> { TurnHistoryPolicy.parse("ring:0") }
+        shouldThrow<IllegalArgumentException> { TurnHistoryPolicy.parse("ring:x") }
+        shouldThrow<IllegalArgumentException> { TurnHistoryPolicy.parse("disk:") }
+        shouldThrow<IllegalArgumentException> { TurnHistoryPolicy.parse("all") }
+    }
+})
@@ -0,0 +1,15 @@
+package core
+
+import dev.robocode.tankroyale.common.recording.RecordingWriter
+import dev.robocode.tankroyale.schema.Message
+import io.kotest.core.spec.style.FunSpec
+import io.kotest.matchers.shouldBe
+
+class RecordingMessageTypesTest : FunSpec({
+
+    test("message types of recordings must be the types sent by the server to observers") {
+        RecordingWriter.TICK_EVENT_TYPE shouldBe Message.Type.TICK_EVENT_FOR_OBSERVER.value()
+        RecordingWriter.ROUND_STARTED_EVENT_TYPE shouldBe Message.Type.ROUND_STARTED_EVENT.value()
+        RecordingWriter.ROUND_ENDED_EVENT_TYPE shouldBe Message.Type.ROUND_ENDED_EVENT_FOR_OBSERVER.value()
+    }
+})
@@ -0,0 +1,45 @@
+package core
+
+import core.factory.GameFactory.Companion.createBotIntents
+import core.factory.GameFactory.Companion.createGameSetup
+import dev.robocode.tankroyale.server.core.ModelUpdater
+import dev.robocode.tankroyale.server.core.TurnPhase
+import dev.robocode.tankroyale.server.core.TurnPhaseProfiler
+import dev.robocode.tankroyale.server.model.BotId
+import dev.robocode.tankroyale.server.model.ParticipantId
+import io.kotest.core.spec.style.FunSpec
+import io.kotest.matchers.string.shouldContain
+import java.util.*
+
+class TurnPhaseProfilerTest : FunSpec({
+
+    test("profiler must report every phase over the turns of a game") {
+        val random = Random(3)
+        val participantIds = (1..8).map { ParticipantId(BotId(it)) }.toSet()
+        val profiler = TurnPhaseProfiler("test game")
+
+        val modelUpdater = ModelUpdater(
+            createGameSetup(800), participantIds, emptyMap(), participantIds.associate { it.botId to false },
+            phaseProfiler = profiler
+        )
+        try {
+            repeat(200) { modelUpdater.update(createBotIntents(random, participantIds)) }
+        } finally {
+            modelUpdater.close()
+        }
+
+        val report = profiler.report()
+        report shouldContain "Turn phases of test game over 200 turns"
+        TurnPhase.entries.forEach { report shouldContain it.description }
+    }
+
+    test("reset must clear the timings") {
+        val profiler = TurnPhaseProfiler("test game")
+        profiler.beginTurn(1, 1)
+        profiler.record(TurnPhase.SCANS, 1000)
+        profiler.endTurn()
+        profiler.reset()
+
+        profiler.report() shouldContain "over 0 turns"
+    }
+})
@@ -0,0 +1,99 @@
+package core
+
+import dev.robocode.tankroyale.server.core.TurnScheduler
+import io.kotest.core.spec.style.FunSpec
+import io.kotest.matchers.longs.shouldBeGreaterThanOrEqual
+import io.kotest.matchers.longs.shouldBeLessThan
+import io.kotest.matchers.shouldBe
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+
+class TurnSchedulerTest : FunSpec({
+
+    val scheduler = TurnScheduler()
+
+    afterSpec {
+        scheduler.shutdown()
+    }
+
+    fun elapsedMillisUntilExecuted(schedule: (Runnable) -> Unit): Long {
+        val latch = CountDownLatch(1)
+        val startTime = System.nanoTime()
+        schedule(Runnable { latch.countDown() })
+        latch.await(5, TimeUnit.SECONDS) shouldBe true
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime)
+    }
+
+    test("job must be executed when max period has passed without being ready") {
+        val elapsed = elapsedMillisUntilExecuted { job ->
+            scheduler.schedule(millis(10), millis(100), job)
+        }
+        elapsed shouldBeGreaterThanOrEqual 100
+    }
+
+    test("job must be executed when ready, but not before min period has passed") {
+        val elapsed = elapsedMillisUntilExecuted { job ->
+            scheduler.schedule(millis(50), millis(2000), job).notifyReady()
+        }
+        elapsed shouldBeGreaterThanOrEqual 50
+        elapsed shouldBeLessThan 2000
+    }
+
+    test("paused time must not count as part of the periods") {
+        val elapsed = elapsedMillisUntilExecuted { job ->
+            scheduler.schedule(0, millis(50), job).apply {
+                pause()
+                Thread.sleep(100)
+                resume()
+            }
+        }
+        elapsed shouldBeGreaterThanOrEqual 150
+    }
+
+    test("job must be executed when a shortened max period has passed") {
+        val elapsed = elapsedMillisUntilExecuted { job ->
+            scheduler.schedule(0, millis(2000), job).apply {
+                shortenMaxPeriod(millis(50))
+                shortenMaxPeriod(millis(3000)) // ignored
+            }
+        }
+        elapsed shouldBeGreaterThanOrEqual 50
+        elapsed shouldBeLessThan 2000
+    }
+
+    test("scheduling a new turn must stop the current turn") {
+        val executions = AtomicInteger()
+        val first = scheduler.schedule(0, millis(50)) { executions.incrementAndGet() }
+
+        elapsedMillisUntilExecuted { job ->
+            scheduler.schedule(0, millis(100), job)
+        }
+        first.stop() shouldBe false
+        executions.get() shouldBe 0
+    }
+
+    test("statistics must count executed turns") {
+        scheduler.statistics.reset()
+        repeat(3) {
+            elapsedMillisUntilExecuted { job ->
+                scheduler.schedule(millis(5), millis(1000), job).notifyReady()
+            }
+        }
+        scheduler.statistics.snapshot().turnCount shouldBe 3
+    }
+
+    test("hybrid park/spin wait must execute jobs") {
+        val spinningScheduler = TurnScheduler(spinThresholdInNanos = millis(1))
+        try {
+            val elapsed = elapsedMillisUntilExecuted { job ->
+                spinningScheduler.schedule(millis(20), millis(1000), job).notifyReady()
+            }
+            elapsed shouldBeGreaterThanOrEqual 20
+        } finally {
+            spinningScheduler.shutdown()
+        }
+    }
+})
+
+private fun millis(millis: Long) = TimeUnit.MILLISECONDS.toNanos(millis)
@@ -0,0 +1,52 @@
+package core.factory
+
+import dev.robocode.tankroyale.server.model.*
+import java.util.*
+
+class GameFactory {
+    companion object {
+
+        fun createGameSetup(arenaSize: Int, numberOfRounds: Int = 3) = GameSetup(
+            arenaWidth = arenaSize,
+            arenaHeight = arenaSize,
+            maxNumberOfParticipants = null,
+            numberOfRounds = numberOfRounds,
+            maxInactivityTurns = 100,
+            isArenaWidthLocked = false,
+            isArenaHeightLocked = false,
+            isMinNumberOfParticipantsLocked = false,
+            isMaxNumberOfParticipantsLocked = false,
+            isNumberOfRoundsLocked = false,
+            isGunCoolingRateLocked = false,
+            isMaxInactivityTurnsLocked = false,
+            isTurnTimeoutLocked = false,
+            isReadyTimeoutLocked = false,
+        )
+
+        /** Places the bots in a grid of cells with room between them, so no bots are colliding in the first turn. */
+        fun createInitialPositions(random: Random, botCount: Int, arenaSize: Int): Map<BotId, InitialPosition> {
+            val cellSize = 60
+            val columns = arenaSize / cellSize
+            val cells = (0 until columns * columns).shuffled(random).take(botCount)
+
+            return cells.mapIndexed { index, cell ->
+                val x = (cell % columns) * cellSize + cellSize / 2.0
+                val y = (cell / columns) * cellSize + cellSize / 2.0
+                BotId(index + 1) to InitialPosition(x, y, random.nextDouble() * 360)
+            }.toMap()
+        }
+
+        fun createBotIntents(random: Random, participantIds: Set<ParticipantId>): Map<BotId, IBotIntent> =
+            participantIds.associate {
+                it.botId to BotIntent(
+                    targetSpeed = random.nextDouble() * 16 - 8,
+                    turnRate = random.nextDouble() * 20 - 10,
+                    gunTurnRate = random.nextDouble() * 40 - 20,
+                    radarTurnRate = random.nextDouble() * 90 - 45,
+                    firepower = random.nextDouble() * 3,
+                    rescan = random.nextInt(4) == 0,
+                    fireAssist = false, // fire assistance picks any scan event of the bot, which is not deterministic
+                )
+            }
+    }
+}
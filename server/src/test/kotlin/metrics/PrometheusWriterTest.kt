@@ -0,0 +1,54 @@
+package metrics
+
+import dev.robocode.tankroyale.server.metrics.PrometheusWriter
+import dev.robocode.tankroyale.server.metrics.SummaryMetric
+import io.kotest.core.spec.style.FunSpec
+import io.kotest.matchers.shouldBe
+import io.kotest.matchers.string.shouldContain
+
+class PrometheusWriterTest : FunSpec({
+
+    test("samples must be grouped by metric family") {
+        val writer = PrometheusWriter()
+        writer.gauge("robocode_tps_target", "Turns per second setting", 30.0, "room" to "a")
+        writer.counter("robocode_turns_total", "Number of executed turns", 100.0, "room" to "a")
+        writer.gauge("robocode_tps_target", "Turns per second setting", -1.0, "room" to "b")
+
+        writer.toString() shouldBe """
+            # HELP robocode_tps_target Turns per second setting
+            # TYPE robocode_tps_target gauge
+            robocode_tps_target{room="a"} 30
+            robocode_tps_target{room="b"} -1
+            # HELP robocode_turns_total Number of executed turns
+            # TYPE robocode_turns_total counter
+            robocode_turns_total{room="a"} 100
+            
+        """.trimIndent()
+    }
+
+    test("label values must be escaped") {
+        val writer = PrometheusWriter()
+        writer.counter("robocode_client_sent_bytes_total", "Bytes", 1.5, "client" to "My \"bot\"\\\n")
+
+        writer.toString() shouldContain """robocode_client_sent_bytes_total{client="My \"bot\"\\\n"} 1.5"""
+    }
+
+    test("summaries must be written in seconds with quantiles, sum, and count") {
+        val summary = SummaryMetric()
+        (1L..10L).forEach { summary.record(it) }
+
+        val writer = PrometheusWriter()
+        writer.summary("robocode_bot_response_seconds", "Response time", summary, "bot" to "Walls")
+
+        writer.toString() shouldBe """
+            # HELP robocode_bot_response_seconds Response time
+            # TYPE robocode_bot_response_seconds summary
+            robocode_bot_response_seconds{bot="Walls",quantile="0.5"} 5.0E-9
+            robocode_bot_response_seconds{bot="Walls",quantile="0.9"} 9.0E-9
+            robocode_bot_response_seconds{bot="Walls",quantile="0.99"} 1.0E-8
+            robocode_bot_response_seconds_sum{bot="Walls"} 5.5E-8
+            robocode_bot_response_seconds_count{bot="Walls"} 10
+            
+        """.trimIndent()
+    }
+})
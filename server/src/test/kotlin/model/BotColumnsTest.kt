@@ -0,0 +1,85 @@
+package model
+
+import dev.robocode.tankroyale.server.model.BotColumns
+import dev.robocode.tankroyale.server.model.BotId
+import dev.robocode.tankroyale.server.model.Point
+import dev.robocode.tankroyale.server.rules.INITIAL_GUN_HEAT
+import io.kotest.core.spec.style.FunSpec
+import io.kotest.matchers.collections.shouldContainExactly
+import io.kotest.matchers.shouldBe
+
+class BotColumnsTest : FunSpec({
+
+    fun BotColumns.slots() = (0 until count).map { slotAt(it) }
+
+    fun BotColumns.add(slot: Int, x: Double = 10.0, y: Double = 20.0, direction: Double = 30.0) =
+        add(slot, BotId(slot + 1), emptySet(), false, 100.0, x, y, direction)
+
+    test("added bot must have its initial state in its slot") {
+        val bots = BotColumns(3)
+
+        bots.add(2, x = 40.0, y = 50.0, direction = 60.0)
+
+        bots.slots() shouldContainExactly listOf(2)
+        bots.isInRound(2) shouldBe true
+        bots.isInRound(0) shouldBe false
+        bots.idOf(2) shouldBe BotId(3)
+        bots.energy[2] shouldBe 100.0
+        bots.x[2] shouldBe 40.0
+        bots.y[2] shouldBe 50.0
+        bots.direction[2] shouldBe 60.0
+        bots.gunDirection[2] shouldBe 60.0
+        bots.radarDirection[2] shouldBe 60.0
+        bots.gunHeat[2] shouldBe INITIAL_GUN_HEAT
+    }
+
+    test("previous states must keep the state from before the bot was moved") {
+        val bots = BotColumns(1)
+        bots.add(0, x = 10.0, y = 20.0, direction = 0.0)
+        bots.speed[0] = 8.0
+
+        bots.storePreviousStates()
+        bots.moveToNewPosition(0)
+
+        bots.previousX[0] shouldBe 10.0
+        bots.previousY[0] shouldBe 20.0
+        bots.x[0] shouldBe 18.0
+        bots.y[0] shouldBe 20.0
+    }
+
+    test("damage must kill a bot only once") {
+        val bots = BotColumns(1)
+        bots.add(0)
+
+        bots.addDamage(0, 60.0) shouldBe false
+        bots.addDamage(0, 60.0) shouldBe true
+        bots.addDamage(0, 10.0) shouldBe false
+        bots.isDead(0) shouldBe true
+    }
+
+    test("removing dead bots must keep the order of the remaining bots") {
+        val bots = BotColumns(4)
+        listOf(3, 0, 2, 1).forEach { bots.add(it) }
+
+        bots.addDamage(0, 200.0)
+        bots.removeDeadBots()
+
+        bots.slots() shouldContainExactly listOf(3, 2, 1)
+        bots.isInRound(0) shouldBe false
+    }
+
+    test("snapshots must not change when the bots change") {
+        val bots = BotColumns(2)
+        bots.add(1, x = 40.0, y = 50.0)
+        bots.add(0)
+
+        val snapshots = bots.snapshot()
+        bots.x[1] = 45.0
+        bots.addDamage(0, 10.0)
+
+        snapshots.map { it.id } shouldContainExactly listOf(BotId(2), BotId(1))
+        snapshots[0].position shouldBe Point(40.0, 50.0)
+        snapshots[1].energy shouldBe 100.0
+        bots.toBot(1).position shouldBe Point(45.0, 50.0)
+    }
+})
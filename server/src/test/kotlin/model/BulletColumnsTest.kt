@@ -0,0 +1,56 @@
+package model
+
+import dev.robocode.tankroyale.server.model.BotId
+import dev.robocode.tankroyale.server.model.BulletColumns
+import dev.robocode.tankroyale.server.model.BulletId
+import dev.robocode.tankroyale.server.model.Point
+import io.kotest.core.spec.style.FunSpec
+import io.kotest.matchers.collections.shouldContainExactly
+import io.kotest.matchers.shouldBe
+import model.factory.BulletFactory
+
+class BulletColumnsTest : FunSpec({
+
+    fun BulletColumns.add(id: Int) =
+        add(BulletId(id), BotId(1), 1.0, 0.0, null, 10.0, 20.0)
+
+    fun BulletColumns.ids() = (0 until count).map { idOf(it).value }
+
+    test("positions must be calculated like the positions of a bullet") {
+        val bullets = BulletColumns()
+        val bullet = BulletFactory.createBullet(tick = 0)
+        bullets.add(
+            bullet.id, bullet.botId, bullet.power, bullet.direction, bullet.color,
+            bullet.startPosition.x, bullet.startPosition.y
+        )
+
+        repeat(3) { bullets.incrementTicks() }
+
+        val expected = BulletFactory.createBullet(tick = 3)
+        bullets.tick[0] shouldBe 3
+        Point(bullets.x[0], bullets.y[0]) shouldBe expected.position()
+        Point(bullets.nextX[0], bullets.nextY[0]) shouldBe expected.nextPosition()
+        bullets.toBullet(0) shouldBe expected
+    }
+
+    test("marked bullets must be kept until they are dropped, where the remaining bullets keep their order") {
+        val bullets = BulletColumns()
+        (1..5).forEach { bullets.add(it) }
+
+        bullets.remove(1)
+        bullets.remove(3)
+        bullets.ids() shouldContainExactly listOf(1, 2, 3, 4, 5)
+
+        bullets.removeMarked()
+        bullets.ids() shouldContainExactly listOf(1, 3, 5)
+    }
+
+    test("columns must grow when more bullets are added than they can hold") {
+        val bullets = BulletColumns(initialCapacity = 2)
+
+        (1..5).forEach { bullets.add(it) }
+
+        bullets.ids() shouldContainExactly listOf(1, 2, 3, 4, 5)
+        bullets.snapshot().map { it.id.value } shouldContainExactly listOf(1, 2, 3, 4, 5)
+    }
+})
@@ -1,22 +1,23 @@
 package model
 
+import dev.robocode.tankroyale.server.model.Bullet
 import io.kotest.core.spec.style.StringSpec
 import io.kotest.matchers.shouldBe
 import model.factory.BulletFactory
 
 class BulletTest : StringSpec({
 
-    "toMutableBullet() should return a MutableBullet that is a copy of the Bullet instance" {
+    "copyOf() should return a Bullet that is a copy of the bullet" {
         val bullet = BulletFactory.createBullet()
-        val mutableBullet = bullet.toMutableBullet()
-
-        mutableBullet.id shouldBe bullet.id
-        mutableBullet.botId shouldBe bullet.botId
-        mutableBullet.power shouldBe bullet.power
-        mutableBullet.direction shouldBe bullet.direction
-        mutableBullet.color shouldBe bullet.color
-        mutableBullet.startPosition shouldBe bullet.startPosition
-        mutableBullet.tick shouldBe bullet.tick
+        val copy = Bullet.copyOf(bullet)
+
+        copy.id shouldBe bullet.id
+        copy.botId shouldBe bullet.botId
+        copy.power shouldBe bullet.power
+        copy.direction shouldBe bullet.direction
+        copy.color shouldBe bullet.color
+        copy.startPosition shouldBe bullet.startPosition
+        copy.tick shouldBe bullet.tick
     }
 
     "hashCode() must return the bullet id value" {
@@ -0,0 +1,86 @@
+package model
+
+import dev.robocode.tankroyale.server.event.BotDeathEvent
+import dev.robocode.tankroyale.server.event.BotHitWallEvent
+import dev.robocode.tankroyale.server.event.WonRoundEvent
+import dev.robocode.tankroyale.server.model.BotId
+import dev.robocode.tankroyale.server.model.EventArena
+import dev.robocode.tankroyale.server.model.TurnEvents
+import io.kotest.assertions.throwables.shouldThrow
+import io.kotest.core.spec.style.FunSpec
+import io.kotest.matchers.collections.shouldBeEmpty
+import io.kotest.matchers.collections.shouldContainExactly
+import io.kotest.matchers.shouldBe
+import io.kotest.matchers.types.shouldBeSameInstanceAs
+
+class EventArenaTest : FunSpec({
+
+    val death = BotDeathEvent(1, BotId(2))
+    val wall1 = BotHitWallEvent(1, BotId(1))
+    val wall3 = BotHitWallEvent(1, BotId(3))
+    val won = WonRoundEvent(1)
+
+    fun EventArena.addEvents() {
+        addBotEvent(BotId(3), wall3)
+        addObserverEvent(wall3)
+        addBotEvent(BotId(1), death)
+        addBotEvent(BotId(3), death)
+        addObserverEvent(death)
+        addBotEvent(BotId(1), wall1)
+        addBotEvent(BotId(1), won)
+    }
+
+    test("frozen events must be grouped by bot in the order they were added") {
+        val events = EventArena().apply { addEvents() }.freeze()
+
+        events.getBotEvents(BotId(1)) shouldContainExactly listOf(death, wall1, won)
+        events.getBotEvents(BotId(3)) shouldContainExactly listOf(wall3, death)
+        events.getBotEvents(BotId(2)).shouldBeEmpty()
+        events.observerEvents shouldContainExactly listOf(wall3, death)
+        events.botEvents.keys shouldContainExactly listOf(BotId(1), BotId(3))
+    }
+
+    test("events must be readable from the arena before it is frozen") {
+        EventArena().apply {
+            addEvents()
+
+            getBotEvents(BotId(3)) shouldContainExactly listOf(wall3, death)
+            observerEvents shouldContainExactly listOf(wall3, death)
+        }
+    }
+
+    test("reset must remove all events, while frozen events are kept") {
+        val arena = EventArena().apply { addEvents() }
+        val events = arena.freeze()
+
+        arena.reset()
+        arena.addBotEvent(BotId(2), won)
+
+        arena.observerEvents.shouldBeEmpty()
+        arena.freeze().getBotEvents(BotId(2)) shouldContainExactly listOf(won)
+        events.getBotEvents(BotId(1)) shouldContainExactly listOf(death, wall1, won)
+    }
+
+    test("arena must grow to fit many events") {
+        val arena = EventArena()
+        val botCount = 50
+        (1..botCount).forEach { botId ->
+            (1..botCount).forEach { arena.addBotEvent(BotId(botId), death) }
+            arena.addObserverEvent(death)
+        }
+        val events = arena.freeze()
+
+        (1..botCount).forEach { events.getBotEvents(BotId(it)).size shouldBe botCount }
+        events.observerEvents.size shouldBe botCount
+    }
+
+    test("no events must be frozen as the empty events") {
+        EventArena().freeze() shouldBeSameInstanceAs TurnEvents.EMPTY
+    }
+
+    test("reading events outside of a bot range must fail") {
+        val events = EventArena().apply { addEvents() }.freeze()
+
+        shouldThrow<IndexOutOfBoundsException> { events.getBotEvents(BotId(3))[2] }
+    }
+})
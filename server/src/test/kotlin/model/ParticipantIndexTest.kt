@@ -0,0 +1,49 @@
+package model
+
+import dev.robocode.tankroyale.server.model.BotId
+import dev.robocode.tankroyale.server.model.ParticipantId
+import dev.robocode.tankroyale.server.model.ParticipantIndex
+import dev.robocode.tankroyale.server.model.TeamId
+import io.kotest.assertions.throwables.shouldThrow
+import io.kotest.core.spec.style.FunSpec
+import io.kotest.matchers.shouldBe
+import io.kotest.matchers.shouldNotBe
+
+class ParticipantIndexTest : FunSpec({
+
+    val participantIds = listOf(
+        ParticipantId(BotId(3), TeamId(1)),
+        ParticipantId(BotId(1)),
+        ParticipantId(BotId(5), TeamId(1)),
+        ParticipantId(BotId(2), TeamId(2)),
+        ParticipantId(BotId(4), TeamId(1)),
+    )
+    val index = ParticipantIndex(participantIds)
+
+    test("slots must be given in the order of the participants") {
+        index.size shouldBe 5
+        participantIds.forEachIndexed { slot, participantId ->
+            index.slotOf(participantId.botId) shouldBe slot
+            index[slot] shouldBe participantId
+            index.participantOf(participantId.botId) shouldBe participantId
+        }
+    }
+
+    test("bots without a team must be teams of their own") {
+        index.teamCount shouldBe 3
+        index.teamIndexOf(0) shouldBe index.teamIndexOf(2)
+        index.teamIndexOf(0) shouldBe index.teamIndexOf(4)
+        index.teamIndexOf(1) shouldNotBe index.teamIndexOf(0)
+        index.teamIndexOf(3) shouldNotBe index.teamIndexOf(0)
+    }
+
+    test("teammates must be the other members of the team") {
+        index.teammateIdsOf(index.slotOf(BotId(3))) shouldBe setOf(BotId(4), BotId(5))
+        index.teammateIdsOf(index.slotOf(BotId(2))) shouldBe emptySet()
+        index.teammateIdsOf(index.slotOf(BotId(1))) shouldBe emptySet()
+    }
+
+    test("unknown bots must not have a slot") {
+        shouldThrow<IllegalStateException> { index.slotOf(BotId(6)) }
+    }
+})
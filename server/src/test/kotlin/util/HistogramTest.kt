@@ -0,0 +1,62 @@
+package util
+
+import dev.robocode.tankroyale.server.util.Histogram
+import io.kotest.core.spec.style.FunSpec
+import io.kotest.matchers.doubles.plusOrMinus
+import io.kotest.matchers.longs.shouldBeGreaterThanOrEqual
+import io.kotest.matchers.longs.shouldBeLessThanOrEqual
+import io.kotest.matchers.shouldBe
+
+class HistogramTest : FunSpec({
+
+    test("percentiles must be within the precision of the histogram") {
+        val histogram = Histogram()
+        (1L..100_000L).forEach { histogram.record(it * 1000) } // 1 µs to 100 ms in nanoseconds
+
+        histogram.count shouldBe 100_000
+        histogram.min shouldBe 1000
+        histogram.max shouldBe 100_000_000
+        histogram.mean shouldBe (50_000_500.0 plusOrMinus 0.001)
+
+        listOf(50.0, 90.0, 99.0, 99.9).forEach { percentile ->
+            val expected = (percentile * 1000).toLong() * 1000
+            val value = histogram.valueAtPercentile(percentile)
+            value shouldBeGreaterThanOrEqual expected
+            value shouldBeLessThanOrEqual (expected * 1.032).toLong()
+        }
+        histogram.valueAtPercentile(100.0) shouldBe 100_000_000
+    }
+
+    test("small values must be recorded exactly") {
+        val histogram = Histogram()
+        listOf(0L, 1L, 2L, 3L, -5L).forEach { histogram.record(it) }
+
+        histogram.min shouldBe 0
+        histogram.valueAtPercentile(40.0) shouldBe 0
+        histogram.valueAtPercentile(60.0) shouldBe 1
+        histogram.valueAtPercentile(100.0) shouldBe 3
+    }
+
+    test("add must merge the values of another histogram") {
+        val histogram = Histogram().apply { listOf(10L, 20L).forEach { record(it) } }
+        val other = Histogram().apply { listOf(5L, 30L, 40L).forEach { record(it) } }
+
+        histogram.add(other)
+
+        histogram.count shouldBe 5
+        histogram.sum shouldBe 105
+        histogram.min shouldBe 5
+        histogram.max shouldBe 40
+        histogram.valueAtPercentile(60.0) shouldBe 20
+    }
+
+    test("reset must remove all values") {
+        val histogram = Histogram()
+        histogram.record(42)
+        histogram.reset()
+
+        histogram.count shouldBe 0
+        histogram.max shouldBe 0
+        histogram.valueAtPercentile(50.0) shouldBe 0
+    }
+})